@@ -20,6 +20,9 @@
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import javax.activation.MimeType;
 import javax.activation.MimeTypeParseException;
 import org.apache.commons.lang.StringUtils;
@@ -49,6 +52,8 @@ public class ContentItemImpl implements ContentItem {
 
   protected String qualifier;
 
+  private Map<String, String> checksums = Collections.emptyMap();
+
   /**
    * An incoming content item where the item's GUID should be known.
    *
@@ -198,6 +203,23 @@ public Metacard getMetacard() {
     return metacard;
   }
 
+  @Override
+  public Map<String, String> getChecksums() {
+    return checksums;
+  }
+
+  /**
+   * Sets the checksums of the content that are already known, keyed by checksum algorithm.
+   *
+   * @param checksums the checksums of the content
+   */
+  public void setChecksums(Map<String, String> checksums) {
+    this.checksums =
+        checksums == null
+            ? Collections.emptyMap()
+            : Collections.unmodifiableMap(new HashMap<>(checksums));
+  }
+
   @Override
   public String toString() {
     return String.format(
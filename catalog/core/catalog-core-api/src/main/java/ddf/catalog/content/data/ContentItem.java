@@ -16,6 +16,8 @@
 import ddf.catalog.data.Metacard;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collections;
+import java.util.Map;
 import javax.activation.MimeType;
 
 /**
@@ -117,4 +119,15 @@ public interface ContentItem {
    * @return Metacard
    */
   Metacard getMetacard();
+
+  /**
+   * Return the checksums of the item's content that were calculated when the content was received,
+   * keyed by checksum algorithm, e.g., Adler32 or SHA-256. Checksums are lowercase hexadecimal
+   * strings.
+   *
+   * @return the checksums of the content, or an empty map if none were calculated
+   */
+  default Map<String, String> getChecksums() {
+    return Collections.emptyMap();
+  }
 }
@@ -0,0 +1,46 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.transform;
+
+import ddf.catalog.data.Metacard;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * An {@link InputTransformer} that can also create a {@link Metacard} from content that has already
+ * been written to a file.
+ *
+ * <p>Callers that hold the content in a file, such as the catalog framework during ingest, use
+ * {@link #transform(Path, long, String)} instead of {@link
+ * InputTransformer#transform(java.io.InputStream)}. Implementations can then open the file as many
+ * times as they need rather than first copying the stream to a buffer of their own.
+ *
+ * <p>Implementations are registered as {@link InputTransformer}s, as described there.
+ */
+public interface PathInputTransformer extends InputTransformer {
+
+  /**
+   * Transforms the content of a file into a {@link Metacard}.
+   *
+   * @param content the file holding the content to transform. The file is owned by the caller, and
+   *     must not be modified or deleted, nor read after this method returns.
+   * @param size the size of the content in bytes
+   * @param mimeType the mime type of the content, or null if it is not known
+   * @return the generated {@link Metacard}
+   * @throws IOException if an I/O exception occurs when reading the content
+   * @throws CatalogTransformerException if an error occurs during transformation
+   */
+  Metacard transform(Path content, long size, String mimeType)
+      throws IOException, CatalogTransformerException;
+}
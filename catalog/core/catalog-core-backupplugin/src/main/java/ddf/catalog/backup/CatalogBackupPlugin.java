@@ -25,8 +25,11 @@
 import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.Validate;
@@ -41,6 +44,12 @@
  * <p>The root backup directory and subdirectory levels can be configured in the Backup Post-Ingest
  * Plugin section in the admin console.
  *
+ * <p>By default each metacard is written to its own file. With the {@link #LOG_FORMAT log} backup
+ * format, operations are instead appended to a {@link SegmentedBackupLog} in the {@value
+ * #LOG_DIRECTORY} directory of the root backup directory. Operations that are queued while the
+ * executor is busy are written together and synced to disk once, and the log is compacted once most
+ * of its records have been replaced or deleted.
+ *
  * <p>This feature can be installed/uninstalled with the following commands:
  *
  * <p>ddf@local>feature:install catalog-core-backupplugin ddf@local>feature:uninstall
@@ -52,6 +61,12 @@ public class CatalogBackupPlugin implements PostIngestPlugin {
 
   public static final String DELETE = "DELETE";
 
+  public static final String FILE_FORMAT = "file";
+
+  public static final String LOG_FORMAT = "log";
+
+  static final String LOG_DIRECTORY = "log";
+
   private static final Logger LOGGER = LoggerFactory.getLogger(CatalogBackupPlugin.class);
 
   private static final String TEMP_FILE_EXTENSION = ".tmp";
@@ -66,6 +81,15 @@ public class CatalogBackupPlugin implements PostIngestPlugin {
 
   private File rootDirOjbect;
 
+  private String backupFormat = FILE_FORMAT;
+
+  private long maxSegmentSizeBytes = 64L * 1024 * 1024;
+
+  private final Queue<SegmentedBackupLog.Operation> pendingOperations =
+      new ConcurrentLinkedQueue<>();
+
+  private SegmentedBackupLog backupLog;
+
   /**
    * Backs up created metacards to the file system backup.
    *
@@ -75,7 +99,14 @@ public class CatalogBackupPlugin implements PostIngestPlugin {
   @Override
   public CreateResponse process(CreateResponse input) {
 
-    execute(() -> create(input.getCreatedMetacards()));
+    if (isLogFormat()) {
+      input.getCreatedMetacards().stream()
+          .map(SegmentedBackupLog.Operation::put)
+          .forEach(pendingOperations::add);
+      execute(this::commitPendingOperations);
+    } else {
+      execute(() -> create(input.getCreatedMetacards()));
+    }
     return input;
   }
 
@@ -94,6 +125,16 @@ public UpdateResponse process(UpdateResponse input) {
       toDelete.add(update.getOldMetacard());
       toCreate.add(update.getNewMetacard());
     }
+    if (isLogFormat()) {
+      for (int i = 0; i < size; i++) {
+        if (!toDelete.get(i).getId().equals(toCreate.get(i).getId())) {
+          pendingOperations.add(SegmentedBackupLog.Operation.delete(toDelete.get(i).getId()));
+        }
+        pendingOperations.add(SegmentedBackupLog.Operation.put(toCreate.get(i)));
+      }
+      execute(this::commitPendingOperations);
+      return input;
+    }
     execute(() -> delete(toDelete));
     execute(() -> create(toCreate));
     return input;
@@ -108,7 +149,14 @@ public UpdateResponse process(UpdateResponse input) {
   @Override
   public DeleteResponse process(DeleteResponse input) {
 
-    execute(() -> delete(input.getDeletedMetacards()));
+    if (isLogFormat()) {
+      input.getDeletedMetacards().stream()
+          .map(metacard -> SegmentedBackupLog.Operation.delete(metacard.getId()))
+          .forEach(pendingOperations::add);
+      execute(this::commitPendingOperations);
+    } else {
+      execute(() -> delete(input.getDeletedMetacards()));
+    }
     return input;
   }
 
@@ -140,6 +188,7 @@ public void shutdown() {
         LOGGER.warn("Cancelled tasks to backup metacards. Some metacards might not be backed up.");
       }
     }
+    closeBackupLog();
   }
 
   ExecutorService getExecutor() {
@@ -155,6 +204,61 @@ private void execute(Runnable task) {
     executor.execute(task);
   }
 
+  private boolean isLogFormat() {
+    return LOG_FORMAT.equals(backupFormat);
+  }
+
+  /*
+   * Runs on the executor. Writes every operation queued so far, so that a burst of ingests is
+   * synced to disk once rather than once per response.
+   */
+  private synchronized void commitPendingOperations() {
+    List<SegmentedBackupLog.Operation> operations = new ArrayList<>();
+    SegmentedBackupLog.Operation operation;
+    while ((operation = pendingOperations.poll()) != null) {
+      operations.add(operation);
+    }
+    if (operations.isEmpty()) {
+      return;
+    }
+
+    try {
+      SegmentedBackupLog log = getBackupLog();
+      log.append(operations);
+      if (log.getSegmentCount() > 1 && log.getObsoleteRecordCount() > log.size()) {
+        log.compact();
+      }
+    } catch (RuntimeException | IOException e) {
+      LOGGER.debug("Unable to write to the backup log.", e);
+      LOGGER.warn(
+          getExceptionMessage(
+              operations.stream()
+                  .map(SegmentedBackupLog.Operation::getId)
+                  .collect(Collectors.toList()),
+              CREATE + " or " + DELETE));
+    }
+  }
+
+  private synchronized SegmentedBackupLog getBackupLog() throws IOException {
+    if (backupLog == null) {
+      backupLog =
+          SegmentedBackupLog.open(
+              new File(getRootDirObject(), LOG_DIRECTORY).toPath(), maxSegmentSizeBytes);
+    }
+    return backupLog;
+  }
+
+  private synchronized void closeBackupLog() {
+    if (backupLog != null) {
+      try {
+        backupLog.close();
+      } catch (IOException e) {
+        LOGGER.debug("Unable to close the backup log.", e);
+      }
+      backupLog = null;
+    }
+  }
+
   private void create(List<Metacard> metacards) {
 
     List<String> errors = new ArrayList<>();
@@ -291,6 +395,45 @@ public void setRootBackupDir(String dir) {
 
     rootBackupDir = new AbsolutePathResolver(dir).getPath();
     rootDirOjbect = null;
+    closeBackupLog();
+  }
+
+  public String getBackupFormat() {
+    return backupFormat;
+  }
+
+  /**
+   * Sets how metacards are backed up.
+   *
+   * @param backupFormat {@value #FILE_FORMAT} to write each metacard to its own file, or {@value
+   *     #LOG_FORMAT} to append them to a segmented log
+   */
+  public void setBackupFormat(String backupFormat) {
+    Validate.isTrue(
+        FILE_FORMAT.equals(backupFormat) || LOG_FORMAT.equals(backupFormat),
+        "Backup format for the catalog backup plugin must be file or log. Actual value was ",
+        backupFormat);
+    this.backupFormat = backupFormat;
+  }
+
+  /**
+   * Sets the size at which the backup log starts a new segment file.
+   *
+   * @param maxSegmentSizeMB segment size in megabytes
+   */
+  public void setMaxSegmentSizeMB(int maxSegmentSizeMB) {
+    Validate.isTrue(
+        maxSegmentSizeMB > 0,
+        "Backup log segment size for the catalog backup plugin must be greater than zero. Actual value was ",
+        maxSegmentSizeMB);
+    this.maxSegmentSizeBytes = maxSegmentSizeMB * 1024L * 1024L;
+    closeBackupLog();
+  }
+
+  // package-private for unit testing
+  void setMaxSegmentSizeBytes(long maxSegmentSizeBytes) {
+    this.maxSegmentSizeBytes = maxSegmentSizeBytes;
+    closeBackupLog();
   }
 
   public int getSubDirLevels() {
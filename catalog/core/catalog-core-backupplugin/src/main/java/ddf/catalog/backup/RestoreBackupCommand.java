@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.backup;
+
+import ddf.catalog.CatalogFramework;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.operation.impl.CreateRequestImpl;
+import ddf.catalog.source.IngestException;
+import ddf.catalog.source.SourceUnavailableException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.karaf.shell.api.action.Command;
+import org.apache.karaf.shell.api.action.Option;
+import org.apache.karaf.shell.api.action.lifecycle.Reference;
+import org.apache.karaf.shell.api.action.lifecycle.Service;
+import org.codice.ddf.commands.catalog.SubjectCommands;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Ingests every metacard in a backup log written by the {@link CatalogBackupPlugin} with the {@link
+ * CatalogBackupPlugin#LOG_FORMAT log} backup format.
+ */
+@Service
+@Command(
+    scope = "catalog",
+    name = "restore-backup",
+    description = "Ingests the metacards in the catalog backup log.")
+public class RestoreBackupCommand extends SubjectCommands {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(RestoreBackupCommand.class);
+
+  @Reference CatalogFramework catalogFramework;
+
+  @Option(
+      name = "--directory",
+      aliases = "-d",
+      description =
+          "Root backup directory of the Catalog Backup Plugin. Defaults to the backup directory in ddf.data.")
+  String directory = Paths.get(System.getProperty("ddf.data", "data"), "backup").toString();
+
+  @Option(
+      name = "--batch-size",
+      aliases = "-b",
+      description = "Number of metacards to ingest in each create request.")
+  int batchSize = 500;
+
+  private long restored;
+
+  @Override
+  protected Object executeWithSubject() throws Exception {
+    if (batchSize < 1) {
+      printErrorMessage("Batch size must be greater than zero.");
+      return null;
+    }
+
+    Path logDirectory = Paths.get(directory, CatalogBackupPlugin.LOG_DIRECTORY);
+    if (!logDirectory.toFile().isDirectory()) {
+      printErrorMessage("No backup log found in " + logDirectory);
+      return null;
+    }
+
+    Instant start = Instant.now();
+    restored = 0;
+    List<Metacard> batch = new ArrayList<>(batchSize);
+    try (SegmentedBackupLog log = SegmentedBackupLog.openReadOnly(logDirectory)) {
+      console.println(String.format("Restoring %d metacards from %s", log.size(), logDirectory));
+      log.forEach(
+          metacard -> {
+            batch.add(metacard);
+            if (batch.size() == batchSize) {
+              ingest(batch);
+            }
+          });
+      ingest(batch);
+    } catch (IOException | UncheckedIOException e) {
+      LOGGER.info("Unable to restore the catalog backup from {}", logDirectory, e);
+      printErrorMessage("Unable to restore the catalog backup. " + e.getMessage());
+      return null;
+    }
+
+    printSuccessMessage(
+        String.format(
+            "%nRestored %d metacards in %s%n", restored, Duration.between(start, Instant.now())));
+    return null;
+  }
+
+  private void ingest(List<Metacard> batch) {
+    if (batch.isEmpty()) {
+      return;
+    }
+    try {
+      catalogFramework.create(new CreateRequestImpl(new ArrayList<>(batch)));
+      restored += batch.size();
+    } catch (IngestException | SourceUnavailableException e) {
+      LOGGER.debug("Unable to restore a batch of {} metacards", batch.size(), e);
+      printErrorMessage(
+          String.format("Unable to restore a batch of %d metacards. %s", batch.size(), e));
+    }
+    batch.clear();
+  }
+}
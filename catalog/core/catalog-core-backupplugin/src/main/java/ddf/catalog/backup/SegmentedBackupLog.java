@@ -0,0 +1,585 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.backup;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.impl.MetacardImpl;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An append-only log of metacard backups, split into segment files that are rotated by size.
+ *
+ * <p>Each record holds an operation, a metacard ID and, when a metacard is backed up, the metacard
+ * serialized and deflated. A CRC32 follows each record, so a record torn by a crash is found and
+ * truncated when the log is next opened. When a segment is full, the ID and offset of each of its
+ * records are written to an index file next to it, so that opening the log only has to read the
+ * last segment. The latest record of each metacard is kept in memory for point lookups.
+ *
+ * <p>Records that have been replaced or deleted are removed by {@link #compact()}, which copies the
+ * latest record of each backed up metacard to new segments and deletes the old ones.
+ *
+ * <p>This class is not thread safe.
+ */
+class SegmentedBackupLog implements Closeable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SegmentedBackupLog.class);
+
+  private static final String SEGMENT_PREFIX = "segment-";
+
+  private static final String SEGMENT_EXTENSION = ".log";
+
+  private static final String INDEX_EXTENSION = ".idx";
+
+  private static final byte PUT = 1;
+
+  private static final byte DELETE = 2;
+
+  private static final byte[] NO_PAYLOAD = new byte[0];
+
+  private final Path directory;
+
+  private final long maxSegmentBytes;
+
+  private final boolean readOnly;
+
+  /* Segment number to the number of bytes of the segment that hold complete records. */
+  private final TreeMap<Long, Long> segments = new TreeMap<>();
+
+  private final Map<String, RecordLocation> index = new HashMap<>();
+
+  private long recordCount;
+
+  private long activeSegment;
+
+  private FileChannel activeChannel;
+
+  private DataOutputStream activeWriter;
+
+  private long activeSize;
+
+  private SegmentedBackupLog(Path directory, long maxSegmentBytes, boolean readOnly) {
+    this.directory = directory;
+    this.maxSegmentBytes = maxSegmentBytes;
+    this.readOnly = readOnly;
+  }
+
+  /**
+   * Opens the log in {@code directory} for writing, creating it if it does not exist.
+   *
+   * @param directory the directory holding the segment files
+   * @param maxSegmentBytes the size at which a new segment is started
+   * @throws IOException if the log could not be read
+   */
+  static SegmentedBackupLog open(Path directory, long maxSegmentBytes) throws IOException {
+    Files.createDirectories(directory);
+    SegmentedBackupLog log = new SegmentedBackupLog(directory, maxSegmentBytes, false);
+    log.load();
+    log.openActiveSegment();
+    return log;
+  }
+
+  /**
+   * Opens the log in {@code directory} for reading. Records written to the log after it is opened
+   * are not read.
+   *
+   * @param directory the directory holding the segment files
+   * @throws IOException if the log could not be read
+   */
+  static SegmentedBackupLog openReadOnly(Path directory) throws IOException {
+    SegmentedBackupLog log = new SegmentedBackupLog(directory, Long.MAX_VALUE, true);
+    if (directory.toFile().isDirectory()) {
+      log.load();
+    }
+    return log;
+  }
+
+  /**
+   * Appends the operations to the log and forces them to disk with a single sync.
+   *
+   * @param operations the operations to append, in order
+   * @throws IOException if the operations could not be written
+   */
+  void append(List<Operation> operations) throws IOException {
+    if (readOnly) {
+      throw new IllegalStateException("Backup log was opened read only");
+    }
+
+    for (Operation operation : operations) {
+      byte[] payload = operation.metacard == null ? NO_PAYLOAD : serialize(operation.metacard);
+      writeRecord(operation.metacard == null ? DELETE : PUT, operation.id, payload);
+    }
+    activeWriter.flush();
+    activeChannel.force(false);
+  }
+
+  /**
+   * @param id the metacard ID
+   * @return the latest backup of the metacard, or empty if it is not backed up
+   * @throws IOException if the backup could not be read
+   */
+  Optional<Metacard> get(String id) throws IOException {
+    RecordLocation location = index.get(id);
+    if (location == null) {
+      return Optional.empty();
+    }
+
+    if (location.segment == activeSegment && activeWriter != null) {
+      activeWriter.flush();
+    }
+    try (FileChannel channel = FileChannel.open(getSegmentPath(location.segment))) {
+      channel.position(location.offset);
+      DataInputStream in =
+          new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+      Record record = readRecord(in);
+      return Optional.of(deserialize(record.payload));
+    }
+  }
+
+  /** @return the number of metacards backed up */
+  int size() {
+    return index.size();
+  }
+
+  /** @return the number of records that have been replaced or deleted */
+  long getObsoleteRecordCount() {
+    return recordCount - index.size();
+  }
+
+  /** @return the number of segment files */
+  int getSegmentCount() {
+    return segments.size();
+  }
+
+  /**
+   * Reads the latest backup of every metacard, one segment after another.
+   *
+   * @param consumer called with each metacard
+   * @throws IOException if the log could not be read
+   */
+  void forEach(Consumer<Metacard> consumer) throws IOException {
+    if (activeWriter != null) {
+      activeWriter.flush();
+    }
+    for (Map.Entry<Long, Long> segment : new ArrayList<>(segments.entrySet())) {
+      readSegment(
+          segment.getKey(),
+          segment.getValue(),
+          (record, location) -> {
+            if (record.operation == PUT && location.equals(index.get(record.id))) {
+              consumer.accept(deserialize(record.payload));
+            }
+          });
+    }
+  }
+
+  /**
+   * Copies the latest record of every backed up metacard to new segments and deletes the old
+   * segments.
+   *
+   * @throws IOException if the log could not be compacted. The log remains usable, and may hold
+   *     some records twice until it is next compacted.
+   */
+  void compact() throws IOException {
+    if (readOnly) {
+      throw new IllegalStateException("Backup log was opened read only");
+    }
+
+    List<Map.Entry<Long, Long>> oldSegments = new ArrayList<>(segments.entrySet());
+    rollSegment();
+    long liveRecords = 0;
+    for (Map.Entry<Long, Long> segment : oldSegments) {
+      List<Record> liveRecordsInSegment = new ArrayList<>();
+      readSegment(
+          segment.getKey(),
+          segment.getValue(),
+          (record, location) -> {
+            if (record.operation == PUT && location.equals(index.get(record.id))) {
+              liveRecordsInSegment.add(record);
+            }
+          });
+      for (Record record : liveRecordsInSegment) {
+        writeRecord(PUT, record.id, record.payload);
+      }
+      liveRecords += liveRecordsInSegment.size();
+    }
+    activeWriter.flush();
+    activeChannel.force(false);
+
+    // Segments are deleted oldest first, so a crash part way through never leaves a deleted
+    // metacard's backup without the later record of its deletion.
+    for (Map.Entry<Long, Long> segment : oldSegments) {
+      Files.deleteIfExists(getIndexPath(segment.getKey()));
+      Files.delete(getSegmentPath(segment.getKey()));
+      segments.remove(segment.getKey());
+    }
+    recordCount = liveRecords;
+    LOGGER.debug(
+        "Compacted backup log in [{}] to {} records in {} segments",
+        directory,
+        liveRecords,
+        segments.size());
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (activeWriter != null) {
+      activeWriter.close();
+      activeWriter = null;
+      activeChannel = null;
+    }
+  }
+
+  private void load() throws IOException {
+    try (DirectoryStream<Path> paths =
+        Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_EXTENSION)) {
+      for (Path path : paths) {
+        String name = path.getFileName().toString();
+        long segment =
+            Long.parseLong(
+                name.substring(
+                    SEGMENT_PREFIX.length(), name.length() - SEGMENT_EXTENSION.length()));
+        segments.put(segment, Files.size(path));
+      }
+    }
+
+    for (Map.Entry<Long, Long> segment : segments.entrySet()) {
+      boolean last = segment.getKey().equals(segments.lastKey());
+      if (!last && loadIndex(segment.getKey())) {
+        continue;
+      }
+
+      long validSize =
+          readSegment(
+              segment.getKey(),
+              segment.getValue(),
+              (record, location) -> indexRecord(record.operation, record.id, location));
+      if (validSize < segment.getValue()) {
+        LOGGER.warn(
+            "Backup log segment [{}] ends with an incomplete record. Ignoring the last {} bytes.",
+            getSegmentPath(segment.getKey()),
+            segment.getValue() - validSize);
+        segment.setValue(validSize);
+        if (!readOnly && last) {
+          try (FileChannel channel =
+              FileChannel.open(getSegmentPath(segment.getKey()), StandardOpenOption.WRITE)) {
+            channel.truncate(validSize);
+          }
+        }
+      }
+    }
+  }
+
+  private boolean loadIndex(long segment) {
+    Path indexPath = getIndexPath(segment);
+    if (!indexPath.toFile().exists()) {
+      return false;
+    }
+
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(indexPath)))) {
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        byte operation = in.readByte();
+        String id = in.readUTF();
+        indexRecord(operation, id, new RecordLocation(segment, in.readLong()));
+      }
+      return true;
+    } catch (IOException e) {
+      LOGGER.debug("Unable to read backup log index [{}]. Reading segment instead.", indexPath, e);
+      return false;
+    }
+  }
+
+  private void indexRecord(byte operation, String id, RecordLocation location) {
+    if (operation == PUT) {
+      index.put(id, location);
+    } else {
+      index.remove(id);
+    }
+    recordCount++;
+  }
+
+  /**
+   * Reads the records of a segment in order, stopping at the first incomplete or corrupt record.
+   *
+   * @return the number of bytes holding complete records
+   */
+  private long readSegment(long segment, long size, RecordConsumer consumer) throws IOException {
+    long offset = 0;
+    try (InputStream file = Files.newInputStream(getSegmentPath(segment));
+        DataInputStream in = new DataInputStream(new BufferedInputStream(file))) {
+      while (offset < size) {
+        Record record;
+        try {
+          record = readRecord(in);
+        } catch (EOFException | CorruptRecordException e) {
+          break;
+        }
+        if (offset + record.length > size) {
+          break;
+        }
+        consumer.accept(record, new RecordLocation(segment, offset));
+        offset += record.length;
+      }
+    }
+    return offset;
+  }
+
+  private Record readRecord(DataInputStream in) throws IOException {
+    CRC32 crc = new CRC32();
+    DataInputStream checkedIn = new DataInputStream(new CheckedInputStream(in, crc));
+    byte operation = checkedIn.readByte();
+    String id = checkedIn.readUTF();
+    int payloadLength = checkedIn.readInt();
+    if (payloadLength < 0 || (operation != PUT && operation != DELETE)) {
+      throw new CorruptRecordException();
+    }
+    byte[] payload = new byte[payloadLength];
+    checkedIn.readFully(payload);
+    long checksum = crc.getValue();
+    if (in.readLong() != checksum) {
+      throw new CorruptRecordException();
+    }
+    return new Record(operation, id, payload, getRecordLength(id, payloadLength));
+  }
+
+  private void writeRecord(byte operation, String id, byte[] payload) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(payload.length + id.length() + 32);
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeByte(operation);
+    out.writeUTF(id);
+    out.writeInt(payload.length);
+    out.write(payload);
+    CRC32 crc = new CRC32();
+    crc.update(bytes.toByteArray());
+    out.writeLong(crc.getValue());
+
+    if (activeSize > 0 && activeSize + bytes.size() > maxSegmentBytes) {
+      rollSegment();
+    }
+
+    bytes.writeTo(activeWriter);
+    indexRecord(operation, id, new RecordLocation(activeSegment, activeSize));
+    activeSize += bytes.size();
+    segments.put(activeSegment, activeSize);
+  }
+
+  private void rollSegment() throws IOException {
+    activeWriter.flush();
+    activeChannel.force(false);
+    writeIndex(activeSegment);
+    close();
+    activeSegment++;
+    openSegment(activeSegment);
+  }
+
+  private void openActiveSegment() throws IOException {
+    activeSegment = segments.isEmpty() ? 0 : segments.lastKey();
+    openSegment(activeSegment);
+  }
+
+  private void openSegment(long segment) throws IOException {
+    activeChannel =
+        FileChannel.open(
+            getSegmentPath(segment),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND);
+    activeWriter =
+        new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(activeChannel)));
+    activeSize = activeChannel.size();
+    segments.put(segment, activeSize);
+  }
+
+  /* Writes the ID and offset of each record in a full segment, so it need not be read on open. */
+  private void writeIndex(long segment) throws IOException {
+    List<Record> records = new ArrayList<>();
+    List<Long> offsets = new ArrayList<>();
+    readSegment(
+        segment,
+        segments.get(segment),
+        (record, location) -> {
+          records.add(new Record(record.operation, record.id, NO_PAYLOAD, record.length));
+          offsets.add(location.offset);
+        });
+
+    Path tempIndexPath = directory.resolve(getIndexPath(segment).getFileName() + ".tmp");
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempIndexPath)))) {
+      out.writeInt(records.size());
+      for (int i = 0; i < records.size(); i++) {
+        out.writeByte(records.get(i).operation);
+        out.writeUTF(records.get(i).id);
+        out.writeLong(offsets.get(i));
+      }
+    }
+    Files.move(tempIndexPath, getIndexPath(segment), StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private Path getSegmentPath(long segment) {
+    return directory.resolve(
+        String.format("%s%020d%s", SEGMENT_PREFIX, segment, SEGMENT_EXTENSION));
+  }
+
+  private Path getIndexPath(long segment) {
+    return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, segment, INDEX_EXTENSION));
+  }
+
+  private static long getRecordLength(String id, int payloadLength) {
+    int idLength = 0;
+    for (int i = 0; i < id.length(); i++) {
+      char c = id.charAt(i);
+      if (c >= 0x0001 && c <= 0x007F) {
+        idLength++;
+      } else if (c > 0x07FF) {
+        idLength += 3;
+      } else {
+        idLength += 2;
+      }
+    }
+    // operation, id length and modified UTF-8 id, payload length, payload and CRC32
+    return 1L + 2 + idLength + 4 + payloadLength + 8;
+  }
+
+  private static byte[] serialize(Metacard metacard) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    try (ObjectOutputStream out =
+        new ObjectOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+      out.writeObject(new MetacardImpl(metacard));
+    } finally {
+      deflater.end();
+    }
+    return bytes.toByteArray();
+  }
+
+  private static Metacard deserialize(byte[] payload) {
+    try (ObjectInputStream in =
+        new ObjectInputStream(new InflaterInputStream(new ByteArrayInputStream(payload)))) {
+      return (Metacard) in.readObject();
+    } catch (IOException | ClassNotFoundException e) {
+      throw new IllegalStateException("Unable to read metacard from backup log", e);
+    }
+  }
+
+  /** An operation to append to the log. */
+  static class Operation {
+
+    private final String id;
+
+    private final Metacard metacard;
+
+    private Operation(String id, Metacard metacard) {
+      this.id = id;
+      this.metacard = metacard;
+    }
+
+    static Operation put(Metacard metacard) {
+      return new Operation(metacard.getId(), metacard);
+    }
+
+    static Operation delete(String id) {
+      return new Operation(id, null);
+    }
+
+    String getId() {
+      return id;
+    }
+  }
+
+  private static class Record {
+
+    private final byte operation;
+
+    private final String id;
+
+    private final byte[] payload;
+
+    private final long length;
+
+    private Record(byte operation, String id, byte[] payload, long length) {
+      this.operation = operation;
+      this.id = id;
+      this.payload = payload;
+      this.length = length;
+    }
+  }
+
+  private static class RecordLocation {
+
+    private final long segment;
+
+    private final long offset;
+
+    private RecordLocation(long segment, long offset) {
+      this.segment = segment;
+      this.offset = offset;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof RecordLocation)) {
+        return false;
+      }
+      RecordLocation that = (RecordLocation) o;
+      return segment == that.segment && offset == that.offset;
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.hashCode(segment) * 31 + Long.hashCode(offset);
+    }
+  }
+
+  private interface RecordConsumer {
+    void accept(Record record, RecordLocation location);
+  }
+
+  private static class CorruptRecordException extends IOException {}
+}
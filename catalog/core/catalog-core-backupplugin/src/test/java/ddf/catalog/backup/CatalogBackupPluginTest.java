@@ -42,6 +42,7 @@
 import java.io.ObjectInputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -237,6 +238,32 @@ public void testInterruptedExecution() throws InterruptedException {
     }
   }
 
+  @Test
+  public void testLogFormat() throws Exception {
+    CatalogBackupPlugin plugin = getPlugin();
+    plugin.setBackupFormat(CatalogBackupPlugin.LOG_FORMAT);
+    plugin.setMaxSegmentSizeBytes(512);
+
+    plugin.process(getCreateResponse(METACARD_IDS));
+    plugin.process(getUpdateResponse(Arrays.asList(METACARD_IDS)));
+    plugin.process(getDeleteResponse(Collections.singletonList(METACARD_IDS[1])));
+    plugin.shutdown();
+
+    assertFilesDoNotExist(METACARD_IDS, 3);
+    try (SegmentedBackupLog log =
+        SegmentedBackupLog.openReadOnly(
+            new File(backupDirObject.getRoot(), CatalogBackupPlugin.LOG_DIRECTORY).toPath())) {
+      assertThat(log.size(), is(1));
+      assertThat(log.get(METACARD_IDS[0]).get().getTitle(), is(BASE_NEW_TITLE + 0));
+      assertThat(log.get(METACARD_IDS[1]).isPresent(), is(false));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidBackupFormat() {
+    getPlugin().setBackupFormat("database");
+  }
+
   /** Helper Methods */
   private List<Metacard> getMetacards(String[] ids, String title) {
 
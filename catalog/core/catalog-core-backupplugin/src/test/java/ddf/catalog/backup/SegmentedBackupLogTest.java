@@ -0,0 +1,183 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.backup;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+import ddf.catalog.backup.SegmentedBackupLog.Operation;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.impl.AttributeImpl;
+import ddf.catalog.data.impl.MetacardImpl;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SegmentedBackupLogTest {
+
+  private static final long SEGMENT_BYTES = 1024;
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path directory;
+
+  @Before
+  public void setUp() {
+    directory = temporaryFolder.getRoot().toPath().resolve("log");
+  }
+
+  @Test
+  public void testAppendAndGet() throws IOException {
+    try (SegmentedBackupLog log = SegmentedBackupLog.open(directory, SEGMENT_BYTES)) {
+      log.append(Arrays.asList(put("id1", "a"), put("id2", "b")));
+      log.append(Collections.singletonList(put("id1", "c")));
+
+      assertThat(log.size(), is(2));
+      assertThat(log.getObsoleteRecordCount(), is(1L));
+      assertThat(log.get("id1").get().getTitle(), is("c"));
+      assertThat(log.get("id2").get().getTitle(), is("b"));
+      assertThat(log.get("id3").isPresent(), is(false));
+    }
+  }
+
+  @Test
+  public void testDelete() throws IOException {
+    try (SegmentedBackupLog log = SegmentedBackupLog.open(directory, SEGMENT_BYTES)) {
+      log.append(Arrays.asList(put("id1", "a"), put("id2", "b"), Operation.delete("id1")));
+
+      assertThat(log.size(), is(1));
+      assertThat(log.get("id1").isPresent(), is(false));
+      assertThat(getTitles(log), containsInAnyOrder("b"));
+    }
+  }
+
+  @Test
+  public void testReopenRotatedLog() throws IOException {
+    try (SegmentedBackupLog log = SegmentedBackupLog.open(directory, SEGMENT_BYTES)) {
+      for (int i = 0; i < 20; i++) {
+        log.append(Arrays.asList(put("id" + i, "title" + i), Operation.delete("id" + (i - 1))));
+      }
+      assertThat(log.getSegmentCount(), greaterThan(2));
+    }
+    assertThat(getFiles(".idx").size(), greaterThan(1));
+
+    try (SegmentedBackupLog log = SegmentedBackupLog.open(directory, SEGMENT_BYTES)) {
+      assertThat(log.size(), is(1));
+      assertThat(log.get("id19").get().getTitle(), is("title19"));
+
+      log.append(Collections.singletonList(put("id20", "title20")));
+      assertThat(getTitles(log), containsInAnyOrder("title19", "title20"));
+    }
+  }
+
+  @Test
+  public void testTornRecordIsTruncated() throws IOException {
+    try (SegmentedBackupLog log = SegmentedBackupLog.open(directory, SEGMENT_BYTES)) {
+      log.append(Arrays.asList(put("id1", "a"), put("id2", "b")));
+    }
+    List<Path> segments = getFiles(".log");
+    Path segment = segments.get(segments.size() - 1);
+    long size = Files.size(segment);
+    Files.write(segment, new byte[] {1, 0, 3, 'i', 'd'}, StandardOpenOption.APPEND);
+
+    try (SegmentedBackupLog log = SegmentedBackupLog.openReadOnly(directory)) {
+      assertThat(log.size(), is(2));
+    }
+    assertThat(Files.size(segment), is(size + 5));
+
+    try (SegmentedBackupLog log = SegmentedBackupLog.open(directory, SEGMENT_BYTES)) {
+      assertThat(Files.size(segment), is(size));
+      log.append(Collections.singletonList(put("id3", "c")));
+    }
+
+    try (SegmentedBackupLog log = SegmentedBackupLog.openReadOnly(directory)) {
+      assertThat(getTitles(log), containsInAnyOrder("a", "b", "c"));
+    }
+  }
+
+  @Test
+  public void testCompact() throws IOException {
+    try (SegmentedBackupLog log = SegmentedBackupLog.open(directory, SEGMENT_BYTES)) {
+      for (int i = 0; i < 10; i++) {
+        log.append(Arrays.asList(put("id1", "a" + i), put("id2", "b" + i), put("id" + i, "c")));
+      }
+      log.append(Collections.singletonList(Operation.delete("id2")));
+      int segmentCount = log.getSegmentCount();
+
+      log.compact();
+
+      assertThat(log.getObsoleteRecordCount(), is(0L));
+      assertThat(segmentCount, greaterThan(log.getSegmentCount()));
+      assertThat(log.get("id1").get().getTitle(), is("a9"));
+      assertThat(log.get("id2").isPresent(), is(false));
+    }
+
+    try (SegmentedBackupLog log = SegmentedBackupLog.openReadOnly(directory)) {
+      assertThat(log.size(), is(9));
+      assertThat(log.getObsoleteRecordCount(), is(0L));
+      assertThat(log.get("id1").get().getTitle(), is("a9"));
+    }
+  }
+
+  @Test
+  public void testOpenReadOnlyMissingDirectory() throws IOException {
+    try (SegmentedBackupLog log = SegmentedBackupLog.openReadOnly(directory)) {
+      assertThat(log.size(), is(0));
+      assertThat(getTitles(log).isEmpty(), is(true));
+    }
+    assertThat(directory.toFile().exists(), is(false));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testAppendReadOnly() throws IOException {
+    try (SegmentedBackupLog log = SegmentedBackupLog.openReadOnly(directory)) {
+      log.append(Collections.singletonList(put("id1", "a")));
+    }
+  }
+
+  private List<String> getTitles(SegmentedBackupLog log) throws IOException {
+    List<String> titles = new ArrayList<>();
+    log.forEach(metacard -> titles.add(metacard.getTitle()));
+    return titles;
+  }
+
+  private List<Path> getFiles(String extension) {
+    File[] files = directory.toFile().listFiles((dir, name) -> name.endsWith(extension));
+    return Arrays.stream(files).map(File::toPath).sorted().collect(Collectors.toList());
+  }
+
+  private static Operation put(String id, String title) {
+    return Operation.put(getMetacard(id, title));
+  }
+
+  private static Metacard getMetacard(String id, String title) {
+    Metacard metacard = new MetacardImpl();
+    metacard.setAttribute(new AttributeImpl(Metacard.ID, id));
+    metacard.setAttribute(new AttributeImpl(Metacard.TITLE, title));
+    return metacard;
+  }
+}
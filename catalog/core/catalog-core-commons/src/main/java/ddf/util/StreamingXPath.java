@@ -0,0 +1,388 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.util;
+
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.xpath.XPathExpressionException;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Evaluates simple XPath location paths over a stream of XML without building a DOM.
+ *
+ * <p>Only absolute paths made of child ({@code /}) and descendant ({@code //}) steps with name
+ * tests ({@code name}, {@code prefix:name}, {@code prefix:*} or {@code *}) are supported,
+ * optionally ending in an attribute step ({@code /@name}). Expressions with predicates, functions
+ * or other axes must be evaluated with {@link XPathService}; use {@link #isSupported(String)} to
+ * choose.
+ *
+ * <p>Instances are immutable and may be shared between threads.
+ */
+public final class StreamingXPath {
+
+  private static final XMLInputFactory XML_INPUT_FACTORY = createXmlInputFactory();
+
+  private static final String WILDCARD = "*";
+
+  private static final String REPORT_CDATA_EVENT =
+      "http://java.sun.com/xml/stream/properties/report-cdata-event";
+
+  private final String expression;
+
+  private final List<NameTest> elementSteps;
+
+  private final NameTest attributeStep;
+
+  private StreamingXPath(String expression, List<NameTest> elementSteps, NameTest attributeStep) {
+    this.expression = expression;
+    this.elementSteps = elementSteps;
+    this.attributeStep = attributeStep;
+  }
+
+  /**
+   * @param expression the XPath expression
+   * @return true if the expression can be evaluated by a {@link StreamingXPath}
+   */
+  public static boolean isSupported(String expression) {
+    return expression != null && parseSteps(expression.trim()) != null;
+  }
+
+  /**
+   * Compiles a simple XPath location path for streaming evaluation.
+   *
+   * @param expression the XPath expression
+   * @param namespaceContext the context used to resolve prefixes in the expression, may be null if
+   *     the expression has no prefixes
+   * @return the compiled path
+   * @throws XPathExpressionException if the expression is not supported or uses a prefix that
+   *     cannot be resolved
+   */
+  public static StreamingXPath compile(String expression, NamespaceContext namespaceContext)
+      throws XPathExpressionException {
+    List<String> steps = expression == null ? null : parseSteps(expression.trim());
+    if (steps == null) {
+      throw new XPathExpressionException("Expression is not a simple location path: " + expression);
+    }
+
+    List<NameTest> elementSteps = new ArrayList<>(steps.size());
+    NameTest attributeStep = null;
+    for (String step : steps) {
+      if (step.startsWith("@")) {
+        attributeStep = NameTest.parse(step.substring(1), false, namespaceContext);
+      } else {
+        boolean descendant = step.startsWith("/");
+        elementSteps.add(
+            NameTest.parse(descendant ? step.substring(1) : step, descendant, namespaceContext));
+      }
+    }
+
+    return new StreamingXPath(expression, elementSteps, attributeStep);
+  }
+
+  /**
+   * Returns whether the path selects at least one node in the XML. Parsing stops at the first
+   * match.
+   *
+   * @param xml the XML to evaluate the path against
+   * @return true if the path selects a node
+   * @throws XPathExpressionException if the XML cannot be parsed
+   */
+  public boolean matches(Reader xml) throws XPathExpressionException {
+    return !evaluate(xml, true).isEmpty();
+  }
+
+  /**
+   * Returns the nodes selected by the path, in document order.
+   *
+   * @param xml the XML to evaluate the path against
+   * @return the selected nodes
+   * @throws XPathExpressionException if the XML cannot be parsed
+   */
+  public List<Match> select(Reader xml) throws XPathExpressionException {
+    return evaluate(xml, false);
+  }
+
+  @Override
+  public String toString() {
+    return expression;
+  }
+
+  private List<Match> evaluate(Reader xml, boolean firstOnly) throws XPathExpressionException {
+    List<Match> matches = new ArrayList<>();
+    List<Match> openMatches = new ArrayList<>();
+    Deque<BitSet> states = new ArrayDeque<>();
+    BitSet root = new BitSet(elementSteps.size() + 1);
+    root.set(0);
+    states.push(root);
+    StringBuilder text = new StringBuilder();
+
+    XMLStreamReader reader = null;
+    try {
+      reader = XML_INPUT_FACTORY.createXMLStreamReader(xml);
+      while (reader.hasNext()) {
+        int event = reader.next();
+        switch (event) {
+          case XMLStreamConstants.CHARACTERS:
+          case XMLStreamConstants.SPACE:
+            if (!openMatches.isEmpty()) {
+              text.append(
+                  reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+            }
+            break;
+          case XMLStreamConstants.START_ELEMENT:
+            endTextNode(text, openMatches);
+            BitSet state = step(states.peek(), reader);
+            states.push(state);
+            if (state.get(elementSteps.size())) {
+              if (attributeStep != null) {
+                selectAttributes(reader, matches);
+              } else {
+                Match match = new Match(false, states.size());
+                matches.add(match);
+                openMatches.add(match);
+              }
+              if (firstOnly && !matches.isEmpty()) {
+                return matches;
+              }
+            }
+            break;
+          case XMLStreamConstants.END_ELEMENT:
+            endTextNode(text, openMatches);
+            int depth = states.size();
+            openMatches.removeIf(match -> match.depth == depth);
+            states.pop();
+            break;
+          default:
+            // Comments, processing instructions and CDATA sections end the current text node
+            endTextNode(text, openMatches);
+            break;
+        }
+      }
+    } catch (XMLStreamException e) {
+      throw new XPathExpressionException(e);
+    } finally {
+      close(reader);
+    }
+
+    return matches;
+  }
+
+  private BitSet step(BitSet parent, XMLStreamReader reader) {
+    BitSet state = new BitSet(elementSteps.size() + 1);
+    for (int i = parent.nextSetBit(0);
+        i >= 0 && i < elementSteps.size();
+        i = parent.nextSetBit(i + 1)) {
+      NameTest test = elementSteps.get(i);
+      if (test.descendant) {
+        state.set(i);
+      }
+      if (test.matches(reader.getNamespaceURI(), reader.getLocalName())) {
+        state.set(i + 1);
+      }
+    }
+    return state;
+  }
+
+  private void selectAttributes(XMLStreamReader reader, List<Match> matches) {
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      if (attributeStep.matches(reader.getAttributeNamespace(i), reader.getAttributeLocalName(i))) {
+        Match match = new Match(true, 0);
+        match.textNodes.add(reader.getAttributeValue(i));
+        matches.add(match);
+      }
+    }
+  }
+
+  private static void endTextNode(StringBuilder text, List<Match> openMatches) {
+    if (text.length() == 0) {
+      return;
+    }
+    String value = text.toString();
+    openMatches.forEach(match -> match.textNodes.add(value));
+    text.setLength(0);
+  }
+
+  private static void close(XMLStreamReader reader) {
+    if (reader != null) {
+      try {
+        reader.close();
+      } catch (XMLStreamException e) {
+        // ignore
+      }
+    }
+  }
+
+  /**
+   * Splits an expression into its steps. Descendant steps keep a leading {@code /} and attribute
+   * steps keep their leading {@code @}.
+   *
+   * @return the steps, or null if the expression is not a supported location path
+   */
+  private static List<String> parseSteps(String expression) {
+    if (!expression.startsWith("/")) {
+      return null;
+    }
+
+    List<String> steps = new ArrayList<>();
+    int position = 0;
+    while (position < expression.length()) {
+      if (expression.charAt(position) != '/') {
+        return null;
+      }
+      boolean descendant = expression.startsWith("//", position);
+      position += descendant ? 2 : 1;
+
+      int end = expression.indexOf('/', position);
+      if (end < 0) {
+        end = expression.length();
+      }
+      String name = expression.substring(position, end);
+      boolean attribute = name.startsWith("@");
+      if (attribute && (descendant || end != expression.length())) {
+        return null;
+      }
+      if (!isNameTest(attribute ? name.substring(1) : name)) {
+        return null;
+      }
+
+      steps.add(descendant ? "/" + name : name);
+      position = end;
+    }
+    return steps.isEmpty() ? null : steps;
+  }
+
+  private static boolean isNameTest(String name) {
+    if (WILDCARD.equals(name)) {
+      return true;
+    }
+    int colon = name.indexOf(':');
+    if (colon < 0) {
+      return isNcName(name);
+    }
+    String localPart = name.substring(colon + 1);
+    return isNcName(name.substring(0, colon))
+        && (WILDCARD.equals(localPart) || isNcName(localPart));
+  }
+
+  private static boolean isNcName(String name) {
+    if (name.isEmpty() || !(Character.isLetter(name.charAt(0)) || name.charAt(0) == '_')) {
+      return false;
+    }
+    for (int i = 1; i < name.length(); i++) {
+      char c = name.charAt(i);
+      if (!(Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '.')) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static XMLInputFactory createXmlInputFactory() {
+    XMLInputFactory factory = XMLInputFactory.newFactory();
+    factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+    factory.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, Boolean.FALSE);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.FALSE);
+    // CDATA sections are not text nodes in the DOM, so they must not be reported as characters
+    if (factory.isPropertySupported(REPORT_CDATA_EVENT)) {
+      factory.setProperty(REPORT_CDATA_EVENT, Boolean.TRUE);
+    }
+    return factory;
+  }
+
+  /** A node selected by a {@link StreamingXPath}. */
+  public static final class Match {
+
+    private final boolean attribute;
+
+    private final int depth;
+
+    private final List<String> textNodes = new ArrayList<>();
+
+    private Match(boolean attribute, int depth) {
+      this.attribute = attribute;
+      this.depth = depth;
+    }
+
+    /** @return true if the selected node is an attribute, false if it is an element */
+    public boolean isAttribute() {
+      return attribute;
+    }
+
+    /**
+     * @return the value of a selected attribute, or the values of all text nodes within a selected
+     *     element in document order
+     */
+    public List<String> getTextNodes() {
+      return Collections.unmodifiableList(textNodes);
+    }
+  }
+
+  private static final class NameTest {
+
+    /** Namespace URI to match, or null to match any namespace. */
+    private final String namespaceUri;
+
+    /** Local name to match, or null to match any name. */
+    private final String localName;
+
+    private final boolean descendant;
+
+    private NameTest(String namespaceUri, String localName, boolean descendant) {
+      this.namespaceUri = namespaceUri;
+      this.localName = localName;
+      this.descendant = descendant;
+    }
+
+    private static NameTest parse(
+        String name, boolean descendant, NamespaceContext namespaceContext)
+        throws XPathExpressionException {
+      if (WILDCARD.equals(name)) {
+        return new NameTest(null, null, descendant);
+      }
+
+      int colon = name.indexOf(':');
+      if (colon < 0) {
+        return new NameTest(XMLConstants.NULL_NS_URI, name, descendant);
+      }
+
+      String prefix = name.substring(0, colon);
+      String namespaceUri =
+          namespaceContext == null ? null : namespaceContext.getNamespaceURI(prefix);
+      if (StringUtils.isEmpty(namespaceUri)) {
+        throw new XPathExpressionException("Unable to resolve namespace prefix: " + prefix);
+      }
+      String localPart = name.substring(colon + 1);
+      return new NameTest(namespaceUri, WILDCARD.equals(localPart) ? null : localPart, descendant);
+    }
+
+    private boolean matches(String nodeNamespaceUri, String nodeLocalName) {
+      return (localName == null || localName.equals(nodeLocalName))
+          && (namespaceUri == null
+              || namespaceUri.equals(StringUtils.defaultString(nodeNamespaceUri)));
+    }
+  }
+}
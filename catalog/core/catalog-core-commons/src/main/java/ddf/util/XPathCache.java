@@ -13,57 +13,38 @@
  */
 package ddf.util;
 
-import java.util.HashMap;
-import java.util.Map;
 import javax.xml.namespace.NamespaceContext;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 /**
  * This object is used to store compiled {@link XPathExpression} objects for the intention of
- * gaining performance. It retains a single {@link XPathFactory} object and a single {@link XPath}
- * object for the purpose of doing the compilation. As of now it uses a {@link HashMap} to store the
- * compiled {@link XPathExpression} objects.
+ * gaining performance. Compilation and caching are delegated to {@link XPathService}, and the
+ * returned {@link XPath} and {@link XPathExpression} objects belong to the caller and must not be
+ * shared between threads.
  *
  * @author Ashraf Barakat
  * @since 1.0.4
  */
 public class XPathCache {
 
-  private static final XPathFactory XPF = XPathFactory.newInstance();
-
-  private static final XPath XPATH = XPF.newXPath();
-
-  private static Map<String, XPathExpression> expressionMap =
-      new HashMap<String, XPathExpression>();
-
-  private static NamespaceContext namespaceResolver; // = new NamespaceResolver() ;
+  private static volatile NamespaceContext namespaceResolver;
 
   private XPathCache() {}
 
+  /** @return a new {@link XPath} */
   public static XPath getXPath() {
-    return XPATH;
+    return XPathService.newXPath();
   }
 
+  /**
+   * Returns the compiled form of an expression, resolving its prefixes with {@link
+   * #getNamespaceResolver()}.
+   */
   public static XPathExpression getCompiledExpression(String xpathExpressionkey)
       throws XPathExpressionException, NullPointerException {
-
-    // go to cache, check if we have the compiled expression
-
-    XPathExpression compiledExpression = expressionMap.get(xpathExpressionkey);
-
-    if (compiledExpression == null) {
-
-      // must compile new expression and place in the map
-
-      compiledExpression = XPATH.compile(xpathExpressionkey);
-
-      expressionMap.put(xpathExpressionkey, compiledExpression);
-    }
-
-    return compiledExpression;
+    return XPathService.compile(xpathExpressionkey, getNamespaceResolver());
   }
 
   public static NamespaceContext getNamespaceResolver() {
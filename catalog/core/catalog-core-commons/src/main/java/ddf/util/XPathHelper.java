@@ -31,7 +31,6 @@
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
 import org.apache.xml.serializer.OutputPropertiesFactory;
 import org.codice.ddf.platform.util.XMLUtils;
@@ -65,6 +64,12 @@ public class XPathHelper {
   /** The XML document being worked on by this XPathHelper utility class. */
   private Document document;
 
+  /**
+   * Whether the document was supplied by the caller rather than parsed by this class, in which case
+   * it may not be namespace aware and is re-parsed before evaluating expressions against it.
+   */
+  private boolean reparseBeforeEvaluate;
+
   public XPathHelper() {
     dbf = XML_UTILS.getSecureDocumentBuilderFactory();
     dbf.setNamespaceAware(true);
@@ -93,6 +98,7 @@ public XPathHelper(Document document, boolean cloneAndNormalize) {
     } else {
       this.document = document;
     }
+    this.reparseBeforeEvaluate = true;
   }
 
   /** @param xmlText */
@@ -238,13 +244,31 @@ public Object evaluate(String xpathExpressionKey, QName returnType)
   public synchronized Object evaluate(
       String xpathExpressionKey, QName returnType, NamespaceContext nsContext)
       throws XPathExpressionException {
-    XPathCache.getXPath().setNamespaceContext(nsContext);
-
-    XPathExpression compiledExpression = XPathCache.getCompiledExpression(xpathExpressionKey);
     Thread thread = Thread.currentThread();
     ClassLoader loader = thread.getContextClassLoader();
     thread.setContextClassLoader(this.getClass().getClassLoader());
 
+    try {
+      return XPathService.evaluate(
+          xpathExpressionKey, getEvaluationDocument(), returnType, nsContext);
+    } finally {
+      thread.setContextClassLoader(loader);
+    }
+  }
+
+  /**
+   * Documents parsed by this class are namespace aware and are evaluated directly. Documents
+   * supplied by the caller are serialized and parsed again so that namespace aware expressions
+   * evaluate reliably against them.
+   */
+  private Document getEvaluationDocument() throws XPathExpressionException {
+    if (document == null) {
+      throw new XPathExpressionException("No document to evaluate the expression against");
+    }
+    if (!reparseBeforeEvaluate) {
+      return document;
+    }
+
     DocumentBuilder documentBuilder;
     byte[] array;
     try (ByteArrayOutputStream bos = new ByteArrayOutputStream()) {
@@ -260,11 +284,9 @@ public synchronized Object evaluate(
     }
 
     try (ByteArrayInputStream bis = new ByteArrayInputStream(array)) {
-      return compiledExpression.evaluate(documentBuilder.parse(bis), returnType);
+      return documentBuilder.parse(bis);
     } catch (IOException | SAXException e) {
       throw new XPathExpressionException(e);
-    } finally {
-      thread.setContextClassLoader(loader);
     }
   }
 
@@ -0,0 +1,289 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import org.w3c.dom.Node;
+
+/**
+ * Thread-safe compilation and evaluation of XPath expressions.
+ *
+ * <p>Neither {@link XPath} nor {@link XPathExpression} may be shared between threads, so compiled
+ * expressions are kept in bounded pools that are shared by all threads: an evaluation borrows an
+ * idle copy of the expression, or compiles a new one, and hands it back when it is done. Each
+ * expression has its own lock-free pool, so evaluations of different expressions do not contend,
+ * and the least recently used expressions are dropped once too many are pooled. Nothing is held per
+ * thread, so the pools go away with the class when its bundle is refreshed.
+ *
+ * <p>Expressions are pooled by their text and by the namespace URIs that their prefixes resolve to,
+ * not by the {@link NamespaceContext} instance, so callers do not need to reuse a context to hit
+ * the cache. The prefixes of an expression are found once, when it is first pooled, and the pooled
+ * expressions are compiled against a copy of their bindings and do not keep the caller's context.
+ *
+ * <p>Expressions that are simple location paths can also be evaluated directly over the XML text
+ * with {@link StreamingXPath}, without building a DOM.
+ */
+public final class XPathService {
+
+  /** Maximum number of expressions kept in the pool. */
+  static final int MAX_CACHED_EXPRESSIONS = 256;
+
+  /** Maximum number of idle compiled copies kept for each expression. */
+  static final int MAX_IDLE_COPIES = Runtime.getRuntime().availableProcessors();
+
+  /** Maximum number of distinct namespace bindings pooled for each expression. */
+  static final int MAX_BINDINGS_PER_EXPRESSION = 8;
+
+  /** Matches the prefix of a qualified name, but not an axis such as {@code child::}. */
+  private static final Pattern PREFIX =
+      Pattern.compile("(?<![\\w.\\-:])([A-Za-z_][\\w.\\-]*):(?!:)");
+
+  private static final XPathFactory XPATH_FACTORY = XPathFactory.newInstance();
+
+  private static final ConcurrentMap<String, Expression> EXPRESSIONS = new ConcurrentHashMap<>();
+
+  private XPathService() {}
+
+  /**
+   * Compiles an XPath expression. The returned expression is not pooled and belongs to the caller,
+   * which must not hand it to other threads; use {@link #evaluate(String, Node, QName,
+   * NamespaceContext)} to evaluate pooled expressions.
+   *
+   * @param expression the XPath expression
+   * @param namespaceContext the context used to resolve prefixes in the expression, may be null
+   * @return the compiled expression
+   * @throws XPathExpressionException if the expression cannot be compiled
+   */
+  public static XPathExpression compile(String expression, NamespaceContext namespaceContext)
+      throws XPathExpressionException {
+    Expression uncached = new Expression(expression);
+    return uncached.compile(uncached.resolve(namespaceContext));
+  }
+
+  /**
+   * Evaluates an XPath expression against a node.
+   *
+   * @param expression the XPath expression
+   * @param node the context node
+   * @param returnType the expected result type, one of the {@link javax.xml.xpath.XPathConstants}
+   *     types
+   * @param namespaceContext the context used to resolve prefixes in the expression, may be null
+   * @return the result of the evaluation
+   * @throws XPathExpressionException if the expression cannot be compiled or evaluated
+   */
+  public static Object evaluate(
+      String expression, Node node, QName returnType, NamespaceContext namespaceContext)
+      throws XPathExpressionException {
+    Expression pooled = getExpression(expression);
+    List<String> namespaceUris = pooled.resolve(namespaceContext);
+    Pool pool = pooled.getPool(namespaceUris);
+    XPathExpression compiled = pool == null ? null : pool.borrow();
+    if (compiled == null) {
+      compiled = pooled.compile(namespaceUris);
+    }
+
+    try {
+      return compiled.evaluate(node, returnType);
+    } finally {
+      if (pool != null) {
+        pool.release(compiled);
+      }
+    }
+  }
+
+  /** @return a new {@link XPath}, which belongs to the caller */
+  static XPath newXPath() {
+    synchronized (XPATH_FACTORY) {
+      return XPATH_FACTORY.newXPath();
+    }
+  }
+
+  /** @return the number of idle compiled copies of an expression, for tests */
+  static int getIdleCopies(String expression, NamespaceContext namespaceContext) {
+    Expression pooled = EXPRESSIONS.get(expression);
+    if (pooled == null) {
+      return 0;
+    }
+    Pool pool = pooled.pools.get(pooled.resolve(namespaceContext));
+    return pool == null ? 0 : pool.size.get();
+  }
+
+  private static Expression getExpression(String expression) {
+    Expression pooled = EXPRESSIONS.get(expression);
+    if (pooled == null) {
+      pooled = EXPRESSIONS.computeIfAbsent(expression, Expression::new);
+      if (EXPRESSIONS.size() > MAX_CACHED_EXPRESSIONS) {
+        evictLeastRecentlyUsed();
+      }
+    }
+    pooled.lastUsed = System.nanoTime();
+    return pooled;
+  }
+
+  /** Only runs when a new expression is pooled, which is rare next to evaluating pooled ones. */
+  private static void evictLeastRecentlyUsed() {
+    while (EXPRESSIONS.size() > MAX_CACHED_EXPRESSIONS) {
+      Map.Entry<String, Expression> eldest = null;
+      for (Map.Entry<String, Expression> entry : EXPRESSIONS.entrySet()) {
+        if (eldest == null || entry.getValue().lastUsed < eldest.getValue().lastUsed) {
+          eldest = entry;
+        }
+      }
+      if (eldest == null) {
+        return;
+      }
+      EXPRESSIONS.remove(eldest.getKey(), eldest.getValue());
+    }
+  }
+
+  /** An expression, the prefixes in it and the pools of its compiled copies. */
+  private static final class Expression {
+
+    private final String text;
+
+    private final String[] prefixes;
+
+    /** Keyed by the namespace URIs that the prefixes resolve to, in the order of the prefixes. */
+    private final ConcurrentMap<List<String>, Pool> pools = new ConcurrentHashMap<>();
+
+    private volatile long lastUsed = System.nanoTime();
+
+    private Expression(String text) {
+      this.text = text;
+
+      Set<String> found = new LinkedHashSet<>();
+      Matcher matcher = PREFIX.matcher(text);
+      while (matcher.find()) {
+        found.add(matcher.group(1));
+      }
+      this.prefixes = found.toArray(new String[0]);
+    }
+
+    /** Resolves the prefixes of the expression with the context it is evaluated with. */
+    private List<String> resolve(NamespaceContext namespaceContext) {
+      if (namespaceContext == null || prefixes.length == 0) {
+        return Collections.emptyList();
+      }
+
+      String[] namespaceUris = new String[prefixes.length];
+      for (int i = 0; i < prefixes.length; i++) {
+        try {
+          namespaceUris[i] = namespaceContext.getNamespaceURI(prefixes[i]);
+        } catch (RuntimeException e) {
+          // left unbound, so that compiling the expression reports the prefix
+          namespaceUris[i] = null;
+        }
+      }
+      return Arrays.asList(namespaceUris);
+    }
+
+    /** @return the pool for the given bindings, or null if too many bindings are pooled */
+    private Pool getPool(List<String> namespaceUris) {
+      Pool pool = pools.get(namespaceUris);
+      if (pool == null && pools.size() < MAX_BINDINGS_PER_EXPRESSION) {
+        pool = pools.computeIfAbsent(namespaceUris, uris -> new Pool());
+      }
+      return pool;
+    }
+
+    private XPathExpression compile(List<String> namespaceUris) throws XPathExpressionException {
+      XPath xpath = newXPath();
+      if (!namespaceUris.isEmpty()) {
+        Map<String, String> bindings = new TreeMap<>();
+        for (int i = 0; i < prefixes.length; i++) {
+          bindings.put(prefixes[i], namespaceUris.get(i));
+        }
+        xpath.setNamespaceContext(new Bindings(bindings));
+      }
+      return xpath.compile(text);
+    }
+  }
+
+  /** The idle compiled copies of an expression for one set of namespace bindings. */
+  private static final class Pool {
+
+    private final Deque<XPathExpression> idle = new ConcurrentLinkedDeque<>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    private XPathExpression borrow() {
+      XPathExpression compiled = idle.pollFirst();
+      if (compiled != null) {
+        size.decrementAndGet();
+      }
+      return compiled;
+    }
+
+    private void release(XPathExpression compiled) {
+      if (size.incrementAndGet() <= MAX_IDLE_COPIES) {
+        idle.offerFirst(compiled);
+      } else {
+        size.decrementAndGet();
+      }
+    }
+  }
+
+  /** The namespace bindings an expression was compiled with. */
+  private static final class Bindings implements NamespaceContext {
+
+    private final Map<String, String> namespaceUris;
+
+    private Bindings(Map<String, String> namespaceUris) {
+      this.namespaceUris = namespaceUris;
+    }
+
+    @Override
+    public String getNamespaceURI(String prefix) {
+      return namespaceUris.get(prefix);
+    }
+
+    @Override
+    public String getPrefix(String namespaceUri) {
+      for (Map.Entry<String, String> entry : namespaceUris.entrySet()) {
+        if (namespaceUri.equals(entry.getValue())) {
+          return entry.getKey();
+        }
+      }
+      return null;
+    }
+
+    @Override
+    public Iterator<String> getPrefixes(String namespaceUri) {
+      String prefix = getPrefix(namespaceUri);
+      return prefix == null
+          ? Collections.emptyIterator()
+          : Collections.singletonList(prefix).iterator();
+    }
+  }
+}
@@ -0,0 +1,159 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.xpath.XPathExpressionException;
+import org.junit.Test;
+
+public class StreamingXPathTest {
+
+  private static final String NS = "urn:test";
+
+  private static final String XML =
+      "<r:root xmlns:r=\"urn:test\">"
+          + "<title lang=\"en\">First <b>bold</b> title</title>"
+          + "<group><title lang=\"fr\">Second</title>"
+          + "<r:title>Namespaced</r:title></group>"
+          + "<!-- comment --><title>Third<![CDATA[ignored]]>after</title>"
+          + "</r:root>";
+
+  private static final NamespaceContext NAMESPACES = new TestNamespaceContext();
+
+  @Test
+  public void testSupportedExpressions() {
+    assertThat(StreamingXPath.isSupported("/a/b"), is(true));
+    assertThat(StreamingXPath.isSupported("//b"), is(true));
+    assertThat(StreamingXPath.isSupported("/a//p:b/*/@c"), is(true));
+    assertThat(StreamingXPath.isSupported("/a/p:*"), is(true));
+  }
+
+  @Test
+  public void testUnsupportedExpressions() {
+    assertThat(StreamingXPath.isSupported("a/b"), is(false));
+    assertThat(StreamingXPath.isSupported("/"), is(false));
+    assertThat(StreamingXPath.isSupported("/a/b[1]"), is(false));
+    assertThat(StreamingXPath.isSupported("/*[local-name()='a']"), is(false));
+    assertThat(StreamingXPath.isSupported("//@a"), is(false));
+    assertThat(StreamingXPath.isSupported("/a/@b/c"), is(false));
+    assertThat(StreamingXPath.isSupported("/a/text()"), is(false));
+    assertThat(StreamingXPath.isSupported("/a | /b"), is(false));
+  }
+
+  @Test
+  public void testSelectChildElements() throws XPathExpressionException {
+    List<StreamingXPath.Match> matches = select("/r:root/title");
+
+    assertThat(matches, hasSize(2));
+    assertThat(matches.get(0).isAttribute(), is(false));
+    assertThat(matches.get(0).getTextNodes(), contains("First ", "bold", " title"));
+    assertThat(matches.get(1).getTextNodes(), contains("Third", "after"));
+  }
+
+  @Test
+  public void testSelectDescendantElements() throws XPathExpressionException {
+    assertThat(text(select("//title")), contains("First bold title", "Second", "Thirdafter"));
+    assertThat(text(select("//r:title")), contains("Namespaced"));
+    assertThat(text(select("/r:root//r:*")), contains("Namespaced"));
+    assertThat(text(select("/*/*/*")), contains("bold", "Second", "Namespaced"));
+  }
+
+  @Test
+  public void testSelectAttributes() throws XPathExpressionException {
+    List<StreamingXPath.Match> matches = select("//title/@lang");
+
+    assertThat(matches, hasSize(2));
+    assertThat(matches.get(0).isAttribute(), is(true));
+    assertThat(text(matches), contains("en", "fr"));
+  }
+
+  @Test
+  public void testNestedMatchesAreSelectedSeparately() throws XPathExpressionException {
+    String xml = "<a><a>inner</a>outer</a>";
+
+    List<StreamingXPath.Match> matches =
+        StreamingXPath.compile("//a", null).select(new StringReader(xml));
+
+    assertThat(text(matches), contains("innerouter", "inner"));
+  }
+
+  @Test
+  public void testMatches() throws XPathExpressionException {
+    assertThat(
+        StreamingXPath.compile("/r:root/group/title", NAMESPACES).matches(new StringReader(XML)),
+        is(true));
+    assertThat(
+        StreamingXPath.compile("/r:root/missing", NAMESPACES).matches(new StringReader(XML)),
+        is(false));
+  }
+
+  @Test
+  public void testNoMatches() throws XPathExpressionException {
+    assertThat(select("/root/title"), is(empty()));
+  }
+
+  @Test(expected = XPathExpressionException.class)
+  public void testUnresolvedPrefix() throws XPathExpressionException {
+    StreamingXPath.compile("/x:root", NAMESPACES);
+  }
+
+  @Test(expected = XPathExpressionException.class)
+  public void testUnsupportedExpression() throws XPathExpressionException {
+    StreamingXPath.compile("/root[1]", NAMESPACES);
+  }
+
+  @Test(expected = XPathExpressionException.class)
+  public void testMalformedXml() throws XPathExpressionException {
+    StreamingXPath.compile("//title", null).select(new StringReader("<root><title></root>"));
+  }
+
+  private List<StreamingXPath.Match> select(String expression) throws XPathExpressionException {
+    return StreamingXPath.compile(expression, NAMESPACES).select(new StringReader(XML));
+  }
+
+  private List<String> text(List<StreamingXPath.Match> matches) {
+    return matches.stream()
+        .map(match -> String.join("", match.getTextNodes()))
+        .collect(Collectors.toList());
+  }
+
+  private static class TestNamespaceContext implements NamespaceContext {
+
+    @Override
+    public String getNamespaceURI(String prefix) {
+      return "r".equals(prefix) ? NS : null;
+    }
+
+    @Override
+    public String getPrefix(String namespaceURI) {
+      return NS.equals(namespaceURI) ? "r" : null;
+    }
+
+    @Override
+    public Iterator<String> getPrefixes(String namespaceURI) {
+      return Collections.singletonList(getPrefix(namespaceURI)).iterator();
+    }
+  }
+}
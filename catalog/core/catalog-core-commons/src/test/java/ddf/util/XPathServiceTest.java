@@ -0,0 +1,146 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPathConstants;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+public class XPathServiceTest {
+
+  @Test
+  public void testEvaluatedExpressionsArePooled() throws Exception {
+    Document document = parse("<a><b>value</b></a>");
+
+    assertThat(XPathService.evaluate("/a/b", document, XPathConstants.STRING, null), is("value"));
+    assertThat(XPathService.evaluate("/a/b", document, XPathConstants.STRING, null), is("value"));
+
+    assertThat(XPathService.getIdleCopies("/a/b", null), is(1));
+  }
+
+  @Test
+  public void testPoolIsBounded() throws Exception {
+    Document document = parse("<a/>");
+    XPathService.evaluate("/first", document, XPathConstants.BOOLEAN, null);
+
+    for (int i = 0; i < XPathService.MAX_CACHED_EXPRESSIONS; i++) {
+      XPathService.evaluate("/element" + i, document, XPathConstants.BOOLEAN, null);
+    }
+
+    assertThat(XPathService.getIdleCopies("/first", null), is(0));
+  }
+
+  @Test
+  public void testPoolIsKeyedByNamespaceBindings() throws Exception {
+    Document document = parse("<x:a xmlns:x=\"urn:first\"><x:b>value</x:b></x:a>");
+
+    assertThat(
+        XPathService.evaluate(
+            "/p:a/p:b", document, XPathConstants.STRING, namespaces("p", "urn:first")),
+        is("value"));
+
+    // an equal context is a cache hit, whatever its instance
+    assertThat(XPathService.getIdleCopies("/p:a/p:b", namespaces("p", "urn:first")), is(1));
+
+    // the same prefix bound to another namespace is compiled separately
+    assertThat(
+        XPathService.evaluate(
+            "/p:a/p:b", document, XPathConstants.STRING, namespaces("p", "urn:second")),
+        is(""));
+    assertThat(XPathService.getIdleCopies("/p:a/p:b", namespaces("p", "urn:second")), is(1));
+  }
+
+  @Test
+  public void testBindingsPerExpressionAreBounded() throws Exception {
+    Document document = parse("<x:a xmlns:x=\"urn:0\"/>");
+
+    for (int i = 0; i <= XPathService.MAX_BINDINGS_PER_EXPRESSION; i++) {
+      assertThat(
+          XPathService.evaluate(
+              "/p:a", document, XPathConstants.BOOLEAN, namespaces("p", "urn:" + i)),
+          is(i == 0));
+    }
+
+    assertThat(XPathService.getIdleCopies("/p:a", namespaces("p", "urn:0")), is(1));
+    // evaluated, but not pooled
+    assertThat(
+        XPathService.getIdleCopies(
+            "/p:a", namespaces("p", "urn:" + XPathService.MAX_BINDINGS_PER_EXPRESSION)),
+        is(0));
+  }
+
+  @Test
+  public void testConcurrentEvaluation() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Boolean>> results = new ArrayList<>();
+      for (int i = 0; i < 200; i++) {
+        String value = Integer.toString(i);
+        Document document = parse("<root><value>" + value + "</value></root>");
+        Callable<Boolean> evaluation =
+            () ->
+                value.equals(
+                    XPathService.evaluate("/root/value", document, XPathConstants.STRING, null));
+        results.add(executor.submit(evaluation));
+      }
+
+      for (Future<Boolean> result : results) {
+        assertThat(result.get(), is(true));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private NamespaceContext namespaces(String prefix, String namespaceUri) {
+    return new NamespaceContext() {
+      @Override
+      public String getNamespaceURI(String p) {
+        return prefix.equals(p) ? namespaceUri : XMLConstants.NULL_NS_URI;
+      }
+
+      @Override
+      public String getPrefix(String uri) {
+        return namespaceUri.equals(uri) ? prefix : null;
+      }
+
+      @Override
+      public Iterator<String> getPrefixes(String uri) {
+        return Collections.singletonList(getPrefix(uri)).iterator();
+      }
+    };
+  }
+
+  private Document parse(String xml) throws Exception {
+    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(true);
+    return factory.newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+  }
+}
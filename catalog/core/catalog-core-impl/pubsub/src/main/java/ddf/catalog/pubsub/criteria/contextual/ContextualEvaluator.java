@@ -13,10 +13,13 @@
  */
 package ddf.catalog.pubsub.criteria.contextual;
 
+import ddf.util.StreamingXPath;
+import ddf.util.XPathCache;
 import ddf.util.XPathHelper;
 import java.io.IOException;
 import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
@@ -283,6 +286,10 @@ private static String getIndexableText(String document, String[] xpathSelectors)
 
       document = document.replaceAll("xmlns=['\"].*?['\"]", "");
 
+      if (Arrays.stream(xpathSelectors).allMatch(StreamingXPath::isSupported)) {
+        return getIndexableTextStreaming(document, xpathSelectors);
+      }
+
       XPathHelper xHelper = new XPathHelper(document);
 
       for (String xpath : xpathSelectors) {
@@ -330,6 +337,32 @@ private static String getIndexableText(String document, String[] xpathSelectors)
     return sbuilder.toString();
   }
 
+  /**
+   * Extracts the same text as {@link #getIndexableText(String, String[])} for selectors that are
+   * simple location paths, evaluating them over the XML text instead of building a DOM.
+   */
+  private static String getIndexableTextStreaming(String document, String[] xpathSelectors)
+      throws XPathExpressionException {
+    StringBuilder sbuilder = new StringBuilder();
+    List<String> indexedText = new ArrayList<>();
+
+    for (String xpath : xpathSelectors) {
+      LOGGER.debug("Streaming xpath selector: {}", xpath);
+      for (StreamingXPath.Match match :
+          StreamingXPath.compile(xpath, XPathCache.getNamespaceResolver())
+              .select(new StringReader(document))) {
+        if (match.isAttribute()) {
+          match.getTextNodes().forEach(value -> sbuilder.append(value).append(' '));
+        } else {
+          match.getTextNodes().forEach(text -> indexedText.add(text + " "));
+        }
+      }
+    }
+
+    indexedText.forEach(sbuilder::append);
+    return sbuilder.toString();
+  }
+
   private static void traverse(Node n, List<String> indexedText) {
 
     // Traverse the rest of the tree in depth-first order.
@@ -13,7 +13,10 @@
  */
 package ddf.catalog.pubsub.criteria.contextual;
 
+import ddf.util.StreamingXPath;
+import ddf.util.XPathCache;
 import ddf.util.XPathHelper;
+import java.io.StringReader;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
 import org.slf4j.Logger;
@@ -40,4 +43,28 @@ public static boolean evaluate(XPathEvaluationCriteria xpathCriteria) {
 
     return false;
   }
+
+  /**
+   * Evaluates an XPath expression against XML text. Simple location paths are matched while the
+   * text is read, without building a DOM; other expressions are evaluated against a parsed
+   * document.
+   *
+   * @param metadata the XML text
+   * @param xpath the XPath expression
+   * @return whether the expression selects anything, or is true, for the XML
+   */
+  public static boolean evaluate(String metadata, String xpath) {
+    try {
+      if (StreamingXPath.isSupported(xpath)) {
+        return StreamingXPath.compile(xpath, XPathCache.getNamespaceResolver())
+            .matches(new StringReader(metadata));
+      }
+
+      return (Boolean) new XPathHelper(metadata).evaluate(xpath, XPathConstants.BOOLEAN);
+    } catch (XPathExpressionException e) {
+      LOGGER.debug("Unable to evaluate xpath", e);
+    }
+
+    return false;
+  }
 }
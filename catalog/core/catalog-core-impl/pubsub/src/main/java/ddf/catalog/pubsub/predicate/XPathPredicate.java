@@ -17,6 +17,7 @@
 import ddf.catalog.pubsub.criteria.contextual.XPathEvaluationCriteriaImpl;
 import ddf.catalog.pubsub.criteria.contextual.XPathEvaluator;
 import ddf.catalog.pubsub.internal.PubSubConstants;
+import java.util.Map;
 import org.osgi.service.event.Event;
 import org.w3c.dom.Document;
 
@@ -37,11 +38,25 @@ public String getXpath() {
 
   @Override
   public boolean matches(Event properties) {
-    XPathEvaluationCriteria xec =
-        new XPathEvaluationCriteriaImpl(
-            (Document) properties.getProperty(PubSubConstants.HEADER_XPATH_KEY), xpath);
+    Document document = (Document) properties.getProperty(PubSubConstants.HEADER_XPATH_KEY);
+    if (document != null) {
+      XPathEvaluationCriteria xec = new XPathEvaluationCriteriaImpl(document, xpath);
 
-    return XPathEvaluator.evaluate(xec);
+      return XPathEvaluator.evaluate(xec);
+    }
+
+    // events from the catalog carry the metadata as text, which is evaluated without a DOM when
+    // the expression allows it
+    Map<String, Object> contextualMap =
+        (Map<String, Object>) properties.getProperty(PubSubConstants.HEADER_CONTEXTUAL_KEY);
+    if (contextualMap != null) {
+      String metadata = (String) contextualMap.get("METADATA");
+      if (metadata != null) {
+        return XPathEvaluator.evaluate(metadata, xpath);
+      }
+    }
+
+    return false;
   }
 
   public String toString() {
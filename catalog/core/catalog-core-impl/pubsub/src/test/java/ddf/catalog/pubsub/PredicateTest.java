@@ -39,6 +39,7 @@
 import ddf.catalog.pubsub.predicate.ContentTypePredicate;
 import ddf.catalog.pubsub.predicate.GeospatialPredicate;
 import ddf.catalog.pubsub.predicate.Predicate;
+import ddf.catalog.pubsub.predicate.XPathPredicate;
 import ddf.measure.Distance;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -1637,6 +1638,19 @@ public void testContentTypeEvaluatorTypeAndVersionVersionMismatch() throws Excep
         "**************************  END: testContentTypeEvaluator_TypeAndVersion_VersionMismatch()  ***********************");
   }
 
+  @Test
+  public void testXPathPredicateOnEventMetadata() throws Exception {
+    Event event = getEvent(TestDataLibrary.getCatAndDogEntry());
+
+    // evaluated while the metadata is read
+    assertTrue(new XPathPredicate("/Resource/creator/Person/surname").matches(event));
+    assertFalse(new XPathPredicate("/Resource/creator/Organization").matches(event));
+
+    // evaluated against a parsed document
+    assertTrue(new XPathPredicate("count(//Person) = 1").matches(event));
+    assertFalse(new XPathPredicate("//surname[text() = 'Dog']").matches(event));
+  }
+
   /*
    * DEBUG - for testing CaseSensitiveStandardAnalyzer
    *
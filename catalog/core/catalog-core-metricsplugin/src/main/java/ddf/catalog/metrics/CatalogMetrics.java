@@ -41,7 +41,9 @@
 import io.micrometer.core.instrument.Metrics;
 import java.io.Serializable;
 import java.util.Collections;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.commons.lang3.Validate;
 import org.codice.ddf.configuration.SystemInfo;
 import org.slf4j.Logger;
@@ -84,6 +86,11 @@
 
   private final Counter deletedMetacards;
 
+  /** Meters keyed by their name and tag values, registered on first use and reused afterwards. */
+  private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+  private final Map<String, DistributionSummary> latencies = new ConcurrentHashMap<>();
+
   public CatalogMetrics(FilterAdapter filterAdapter) {
     Validate.notNull(filterAdapter, "Argument filterAdapter cannot be null");
 
@@ -223,12 +230,12 @@ private void recordExceptions(Set<ProcessingDetails> processingDetails, String o
     for (ProcessingDetails next : processingDetails) {
       if (next != null && next.getException() != null) {
         String exceptionName = rootCauseExceptionName(next.getException());
-        Metrics.counter(
-                metricName(METRIC_PREFIX, operation, EXCEPTIONS_SCOPE),
-                "type",
-                exceptionName,
-                "source",
-                next.getSourceId())
+        String sourceId = next.getSourceId();
+        String name = metricName(METRIC_PREFIX, operation, EXCEPTIONS_SCOPE);
+        counters
+            .computeIfAbsent(
+                meterKey(name, exceptionName, sourceId),
+                k -> Metrics.counter(name, "type", exceptionName, "source", sourceId))
             .increment();
       }
     }
@@ -246,6 +253,10 @@ private String metricName(String... parts) {
     return String.join(".", parts);
   }
 
+  private String meterKey(String... parts) {
+    return String.join("|", parts);
+  }
+
   private Set<String> getSourceIds(QueryRequest query) {
     if (query.isEnterprise()) {
       return Collections.singleton("enterprise");
@@ -259,7 +270,9 @@ private Set<String> getSourceIds(QueryRequest query) {
   }
 
   private void incrementCounter(String sourceId, String queryType) {
-    Metrics.counter(metricName(METRIC_PREFIX, QUERY_SCOPE, queryType), "source", sourceId)
+    String name = metricName(METRIC_PREFIX, QUERY_SCOPE, queryType);
+    counters
+        .computeIfAbsent(meterKey(name, sourceId), k -> Metrics.counter(name, "source", sourceId))
         .increment();
   }
 
@@ -284,11 +297,17 @@ private void recordLatency(Response<? extends Request> response, String operatio
       return;
     }
 
-    DistributionSummary.builder(metricName(METRIC_PREFIX, operation, "latency"))
-        .baseUnit("milliseconds")
-        .tags("successful", Boolean.toString(response.getProcessingErrors().isEmpty()))
-        .publishPercentiles(0.5, 0.95)
-        .register(Metrics.globalRegistry)
+    String name = metricName(METRIC_PREFIX, operation, "latency");
+    String successful = Boolean.toString(response.getProcessingErrors().isEmpty());
+    latencies
+        .computeIfAbsent(
+            meterKey(name, successful),
+            k ->
+                DistributionSummary.builder(name)
+                    .baseUnit("milliseconds")
+                    .tags("successful", successful)
+                    .publishPercentiles(0.5, 0.95)
+                    .register(Metrics.globalRegistry))
         .record(latency);
   }
 
@@ -23,14 +23,18 @@
 import ddf.catalog.plugin.PreFederatedQueryPlugin;
 import ddf.catalog.plugin.StopProcessingException;
 import ddf.catalog.source.Source;
+import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.Metrics;
 import io.micrometer.core.instrument.Tags;
 import java.io.Serializable;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -57,14 +61,17 @@ public class SourceMetricsImpl implements PreFederatedQueryPlugin, PostFederated
   private static final Map<String, DistributionSummary> LATENCY_SUMMARIES =
       new ConcurrentHashMap<>();
 
+  private static final Map<String, Counter> REQUEST_COUNTERS = new ConcurrentHashMap<>();
+
+  private static final Map<String, Counter> RESULTS_COUNTERS = new ConcurrentHashMap<>();
+
+  private static final Map<String, Counter> EXCEPTION_COUNTERS = new ConcurrentHashMap<>();
+
   // PreFederatedQuery
   @Override
   public QueryRequest process(Source source, QueryRequest input)
       throws PluginExecutionException, StopProcessingException {
-    Metrics.counter(
-            METRICS_PREFIX + "." + QUERY_SCOPE + "." + REQUEST_TYPE,
-            Tags.of(SOURCE_TAG, source.getId()))
-        .increment();
+    counter(REQUEST_COUNTERS, REQUEST_TYPE, source.getId()).increment();
     return input;
   }
 
@@ -85,22 +92,15 @@ public QueryResponse process(QueryResponse input)
     processingDetails.stream()
         .filter(ProcessingDetails::hasException)
         .map(ProcessingDetails::getSourceId)
-        .forEach(
-            id ->
-                Metrics.counter(
-                        METRICS_PREFIX + "." + QUERY_SCOPE + "." + EXCEPTION_TYPE,
-                        Tags.of(SOURCE_TAG, id))
-                    .increment());
+        .forEach(id -> counter(EXCEPTION_COUNTERS, EXCEPTION_TYPE, id).increment());
 
+    // Count per source first so each counter is incremented once per response, not once per result
     results.stream()
         .map(Result::getMetacard)
         .map(Metacard::getSourceId)
-        .forEach(
-            id ->
-                Metrics.counter(
-                        METRICS_PREFIX + "." + QUERY_SCOPE + "." + RESULTS_TYPE,
-                        Tags.of(SOURCE_TAG, id))
-                    .increment());
+        .filter(Objects::nonNull)
+        .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()))
+        .forEach((id, count) -> counter(RESULTS_COUNTERS, RESULTS_TYPE, id).increment(count));
 
     properties.entrySet().stream()
         .filter(e -> e.getKey() != null && e.getKey().startsWith(METRICS_SOURCE_ELAPSED_PREFIX))
@@ -109,6 +109,14 @@ public QueryResponse process(QueryResponse input)
     return input;
   }
 
+  private static Counter counter(Map<String, Counter> counters, String type, String source) {
+    return counters.computeIfAbsent(
+        source,
+        src ->
+            Metrics.counter(
+                METRICS_PREFIX + "." + QUERY_SCOPE + "." + type, Tags.of(SOURCE_TAG, src)));
+  }
+
   private static void updateLatencyMetric(Map.Entry<String, Serializable> property) {
     String key = property.getKey();
     String source = key.substring(METRICS_SOURCE_ELAPSED_PREFIX.length());
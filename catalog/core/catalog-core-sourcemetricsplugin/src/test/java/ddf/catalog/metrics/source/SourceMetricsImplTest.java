@@ -106,6 +106,27 @@ public void testResponseCounterForQueryResponse()
     assertThat(meterRegistry.counter(suffix, "source", "testSource").count(), is(1.0));
   }
 
+  @Test
+  public void testResponseCounterAggregatesResultsPerSource()
+      throws PluginExecutionException, StopProcessingException {
+    Metacard metacard = mock(Metacard.class);
+    when(metacard.getSourceId()).thenReturn("testSource");
+    Metacard otherMetacard = mock(Metacard.class);
+    when(otherMetacard.getSourceId()).thenReturn("otherSource");
+    Result result = mock(Result.class);
+    when(result.getMetacard()).thenReturn(metacard);
+    Result otherResult = mock(Result.class);
+    when(otherResult.getMetacard()).thenReturn(otherMetacard);
+    List<Result> results =
+        Stream.of(result, otherResult, result, result).collect(Collectors.toList());
+    QueryResponse queryResponse = mock(QueryResponse.class);
+    when(queryResponse.getResults()).thenReturn(results);
+    sourceMetricsImpl.process(queryResponse);
+    String suffix = METRICS_PREFIX + "." + QUERY_SCOPE + "." + RESULTS_TYPE;
+    assertThat(meterRegistry.counter(suffix, "source", "testSource").count(), is(3.0));
+    assertThat(meterRegistry.counter(suffix, "source", "otherSource").count(), is(1.0));
+  }
+
   @Test
   public void testLatencyForQueryResponse()
       throws PluginExecutionException, StopProcessingException {
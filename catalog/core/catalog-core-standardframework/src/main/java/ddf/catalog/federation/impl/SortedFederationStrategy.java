@@ -31,6 +31,7 @@
 import ddf.catalog.plugin.StopProcessingException;
 import ddf.catalog.source.Source;
 import ddf.catalog.util.impl.RelevanceResultComparator;
+import io.opentelemetry.context.Context;
 import java.io.Serializable;
 import java.util.Collections;
 import java.util.Comparator;
@@ -195,8 +196,11 @@ public QueryResponse federate(List<Source> sources, QueryRequest queryRequest) {
         }
 
         QueryRequest finalSourceQueryRequest = sourceQueryRequest;
+        // propagate the caller's trace context so source spans are children of the query span
         futures.put(
-            queryCompletion.submit(() -> new TimedSource(source).query(finalSourceQueryRequest)),
+            queryCompletion.submit(
+                Context.current()
+                    .wrap(() -> new TimedSource(source).query(finalSourceQueryRequest))),
             sourceQueryRequest);
       }
     }
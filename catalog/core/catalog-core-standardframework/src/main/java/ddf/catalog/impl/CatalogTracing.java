@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.impl;
+
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+
+/**
+ * Creates the OpenTelemetry spans recorded by the catalog framework for its operation phases,
+ * plugin invocations, source queries and transformations.
+ *
+ * <p>Spans are created through {@link GlobalOpenTelemetry}, so they are no-ops unless an
+ * OpenTelemetry SDK has been registered (for example by the OpenTelemetry Java agent, which also
+ * provides the sampler and exporter configuration).
+ */
+public final class CatalogTracing {
+
+  public static final String INSTRUMENTATION_NAME = "ddf.catalog.framework";
+
+  public static final AttributeKey<String> PLUGIN_KEY = AttributeKey.stringKey("ddf.plugin");
+
+  public static final AttributeKey<String> SOURCE_ID_KEY = AttributeKey.stringKey("ddf.source.id");
+
+  public static final AttributeKey<Long> RESULT_COUNT_KEY =
+      AttributeKey.longKey("ddf.result.count");
+
+  public static final AttributeKey<Long> HITS_KEY = AttributeKey.longKey("ddf.hits");
+
+  public static final AttributeKey<String> TRANSFORMER_ID_KEY =
+      AttributeKey.stringKey("ddf.transformer.id");
+
+  private CatalogTracing() {}
+
+  /**
+   * Starts a span as a child of the current span. The caller is responsible for making it current
+   * and ending it.
+   *
+   * @param name name of the span
+   * @return the started span
+   */
+  public static Span startSpan(String name) {
+    return getTracer().spanBuilder(name).startSpan();
+  }
+
+  /**
+   * Starts a span for a single plugin invocation, named after the plugin type (e.g. {@code
+   * PreQueryPlugin.process}) and tagged with the plugin's implementation class.
+   *
+   * @param pluginType the plugin interface being invoked
+   * @param method the plugin method being invoked
+   * @param plugin the plugin instance
+   * @return the started span
+   */
+  public static Span startPluginSpan(Class<?> pluginType, String method, Object plugin) {
+    return getTracer()
+        .spanBuilder(pluginType.getSimpleName() + "." + method)
+        .setAttribute(PLUGIN_KEY, plugin.getClass().getName())
+        .startSpan();
+  }
+
+  /**
+   * Records a failure on the span and marks it as an error.
+   *
+   * @param span the span to update
+   * @param throwable the failure
+   */
+  public static void recordError(Span span, Throwable throwable) {
+    span.recordException(throwable);
+    span.setStatus(StatusCode.ERROR);
+  }
+
+  private static Tracer getTracer() {
+    return GlobalOpenTelemetry.getTracer(INSTRUMENTATION_NAME);
+  }
+}
@@ -0,0 +1,167 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.impl;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Scope;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measures a single plugin invocation made by the catalog framework. Every invocation is recorded
+ * in a {@code ddf.catalog.plugin.latency} timer tagged with the plugin type, method and
+ * implementation class; invocations started with {@link #start} are also traced with a {@link
+ * CatalogTracing} span.
+ *
+ * <p>Typical use:
+ *
+ * <pre>{@code
+ * PluginExecution execution = PluginExecution.start(PreQueryPlugin.class, "process", plugin);
+ * try (Scope ignored = execution.makeCurrent()) {
+ *   request = plugin.process(request);
+ * } catch (StopProcessingException e) {
+ *   execution.failed(e);
+ *   throw e;
+ * } finally {
+ *   execution.end();
+ * }
+ * }</pre>
+ */
+public final class PluginExecution {
+
+  static final String LATENCY_METRIC = "ddf.catalog.plugin.latency";
+
+  /**
+   * Timers are registered once per plugin class and method, then reused for every invocation. They
+   * are keyed by class name so that the map does not keep the class loaders of plugin bundles that
+   * have been uninstalled or refreshed.
+   */
+  private static final Map<TimerKey, Timer> TIMERS = new ConcurrentHashMap<>();
+
+  private final Timer timer;
+
+  private final Timer.Sample sample;
+
+  private final Span span;
+
+  private PluginExecution(Timer timer, Span span) {
+    this.timer = timer;
+    this.span = span;
+    this.sample = Timer.start(Metrics.globalRegistry);
+  }
+
+  /**
+   * Starts a timed and traced plugin invocation.
+   *
+   * @param pluginType the plugin interface being invoked
+   * @param method the plugin method being invoked
+   * @param plugin the plugin instance
+   * @return the started invocation
+   */
+  public static PluginExecution start(Class<?> pluginType, String method, Object plugin) {
+    return new PluginExecution(
+        getTimer(pluginType, method, plugin),
+        CatalogTracing.startPluginSpan(pluginType, method, plugin));
+  }
+
+  /**
+   * Starts a timed plugin invocation without a span. Used for plugins that are invoked once per
+   * metacard or result, where a span per invocation would swamp the trace.
+   *
+   * @param pluginType the plugin interface being invoked
+   * @param method the plugin method being invoked
+   * @param plugin the plugin instance
+   * @return the started invocation
+   */
+  public static PluginExecution timed(Class<?> pluginType, String method, Object plugin) {
+    return new PluginExecution(getTimer(pluginType, method, plugin), Span.getInvalid());
+  }
+
+  /** @return a scope in which this invocation's span is the current span */
+  public Scope makeCurrent() {
+    return span.makeCurrent();
+  }
+
+  /**
+   * Records that the plugin invocation failed.
+   *
+   * @param throwable the failure
+   */
+  public void failed(Throwable throwable) {
+    CatalogTracing.recordError(span, throwable);
+  }
+
+  /** Stops the timer and ends the span. */
+  public void end() {
+    sample.stop(timer);
+    span.end();
+  }
+
+  private static Timer getTimer(Class<?> pluginType, String method, Object plugin) {
+    TimerKey key = new TimerKey(pluginType.getSimpleName(), method, plugin.getClass().getName());
+    Timer timer = TIMERS.get(key);
+    if (timer == null) {
+      timer =
+          TIMERS.computeIfAbsent(
+              key,
+              k ->
+                  Timer.builder(LATENCY_METRIC)
+                      .description("Latency of catalog plugin invocations.")
+                      .tag("type", k.pluginType)
+                      .tag("method", k.method)
+                      .tag("plugin", k.pluginClass)
+                      .publishPercentiles(0.5, 0.95, 0.99)
+                      .register(Metrics.globalRegistry));
+    }
+    return timer;
+  }
+
+  private static final class TimerKey {
+
+    private final String pluginType;
+
+    private final String method;
+
+    private final String pluginClass;
+
+    private TimerKey(String pluginType, String method, String pluginClass) {
+      this.pluginType = pluginType;
+      this.method = method;
+      this.pluginClass = pluginClass;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof TimerKey)) {
+        return false;
+      }
+      TimerKey other = (TimerKey) o;
+      return pluginType.equals(other.pluginType)
+          && pluginClass.equals(other.pluginClass)
+          && method.equals(other.method);
+    }
+
+    @Override
+    public int hashCode() {
+      int result = pluginType.hashCode();
+      result = 31 * result + method.hashCode();
+      return 31 * result + pluginClass.hashCode();
+    }
+  }
+}
@@ -0,0 +1,170 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.impl.operations;
+
+import com.google.common.io.BaseEncoding;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+
+/**
+ * Calculates checksums, the size and a copy of the first bytes of content as it is read, so that
+ * content only has to be read once when it is spooled to a file.
+ *
+ * <p>Checksums are written as lowercase hexadecimal strings, in the same form as the {@code
+ * org.codice.ddf.checksum.ChecksumProvider}s.
+ */
+class ContentSpoolingInputStream extends FilterInputStream {
+
+  private static final Map<String, Supplier<Checksum>> CHECKSUMS = new HashMap<>();
+
+  static {
+    CHECKSUMS.put("Adler32", Adler32::new);
+    CHECKSUMS.put("CRC32", CRC32::new);
+  }
+
+  private final Map<String, Checksum> checksums = new LinkedHashMap<>();
+
+  private final Map<String, MessageDigest> digests = new LinkedHashMap<>();
+
+  private final byte[] header;
+
+  private int headerLength;
+
+  private long size;
+
+  /**
+   * @param in the content
+   * @param algorithms the checksum algorithms to calculate, either Adler32, CRC32 or a {@link
+   *     MessageDigest} algorithm such as MD5 or SHA-256
+   * @param headerSize the number of bytes at the start of the content to keep
+   * @throws IllegalArgumentException if an algorithm is not supported
+   */
+  ContentSpoolingInputStream(InputStream in, Collection<String> algorithms, int headerSize) {
+    super(in);
+    for (String algorithm : algorithms) {
+      if (CHECKSUMS.containsKey(algorithm)) {
+        checksums.put(algorithm, CHECKSUMS.get(algorithm).get());
+      } else {
+        digests.put(algorithm, getMessageDigest(algorithm));
+      }
+    }
+    this.header = new byte[headerSize];
+  }
+
+  /** @throws IllegalArgumentException if the algorithm is not supported */
+  static void validateAlgorithm(String algorithm) {
+    if (!CHECKSUMS.containsKey(algorithm)) {
+      getMessageDigest(algorithm);
+    }
+  }
+
+  @Override
+  public int read() throws IOException {
+    int b = super.read();
+    if (b != -1) {
+      update(new byte[] {(byte) b}, 0, 1);
+    }
+    return b;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    int read = super.read(b, off, len);
+    if (read > 0) {
+      update(b, off, read);
+    }
+    return read;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    throw new IOException("Skipping content would leave the checksums incomplete");
+  }
+
+  @Override
+  public boolean markSupported() {
+    return false;
+  }
+
+  @Override
+  public synchronized void mark(int readlimit) {
+    // mark is not supported, since reset would read bytes twice
+  }
+
+  @Override
+  public synchronized void reset() throws IOException {
+    throw new IOException("mark/reset not supported");
+  }
+
+  /** @return the number of bytes read */
+  long getSize() {
+    return size;
+  }
+
+  /** @return up to the requested number of bytes from the start of the content */
+  byte[] getHeader() {
+    return Arrays.copyOf(header, headerLength);
+  }
+
+  /**
+   * Returns the checksums of the bytes read, keyed by algorithm. Must only be called once the
+   * content has been read.
+   *
+   * @return the checksums of the content
+   */
+  Map<String, String> getChecksums() {
+    Map<String, String> values = new HashMap<>();
+    checksums.forEach(
+        (algorithm, checksum) -> values.put(algorithm, Long.toHexString(checksum.getValue())));
+    digests.forEach(
+        (algorithm, digest) ->
+            values.put(algorithm, BaseEncoding.base16().lowerCase().encode(digest.digest())));
+    return values;
+  }
+
+  private void update(byte[] b, int off, int len) {
+    size += len;
+    if (headerLength < header.length) {
+      int headerBytes = Math.min(len, header.length - headerLength);
+      System.arraycopy(b, off, header, headerLength, headerBytes);
+      headerLength += headerBytes;
+    }
+    for (Checksum checksum : checksums.values()) {
+      checksum.update(b, off, len);
+    }
+    for (MessageDigest digest : digests.values()) {
+      digest.update(b, off, len);
+    }
+  }
+
+  private static MessageDigest getMessageDigest(String algorithm) {
+    try {
+      return MessageDigest.getInstance(algorithm);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalArgumentException("Unsupported checksum algorithm " + algorithm, e);
+    }
+  }
+}
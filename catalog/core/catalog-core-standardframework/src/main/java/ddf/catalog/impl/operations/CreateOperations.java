@@ -27,6 +27,7 @@
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.impl.AttributeImpl;
 import ddf.catalog.impl.FrameworkProperties;
+import ddf.catalog.impl.PluginExecution;
 import ddf.catalog.operation.CreateRequest;
 import ddf.catalog.operation.CreateResponse;
 import ddf.catalog.operation.OperationTransaction;
@@ -526,10 +527,13 @@ private CreateResponse getCreateResponse(CreateRequest createRequest) throws Ing
   private CreateRequest processPreIngestPlugins(CreateRequest createRequest)
       throws StopProcessingException {
     for (PreIngestPlugin plugin : frameworkProperties.getPreIngest()) {
+      PluginExecution execution = PluginExecution.timed(PreIngestPlugin.class, "process", plugin);
       try {
         createRequest = plugin.process(createRequest);
       } catch (PluginExecutionException e) {
         LOGGER.info(PROCESSING_ERROR, e);
+      } finally {
+        execution.end();
       }
     }
     return createRequest;
@@ -538,7 +542,13 @@ private CreateRequest processPreIngestPlugins(CreateRequest createRequest)
   private CreateRequest processPrecreateAccessPlugins(CreateRequest createRequest)
       throws StopProcessingException {
     for (AccessPlugin plugin : frameworkProperties.getAccessPlugins()) {
-      createRequest = plugin.processPreCreate(createRequest);
+      PluginExecution execution =
+          PluginExecution.timed(AccessPlugin.class, "processPreCreate", plugin);
+      try {
+        createRequest = plugin.processPreCreate(createRequest);
+      } finally {
+        execution.end();
+      }
     }
     return createRequest;
   }
@@ -559,8 +569,14 @@ private CreateRequest updateCreateRequestPolicyMap(CreateRequest createRequest)
     for (Metacard metacard : createRequest.getMetacards()) {
       HashMap<String, Set<String>> itemPolicyMap = new HashMap<>();
       for (PolicyPlugin plugin : frameworkProperties.getPolicyPlugins()) {
-        PolicyResponse policyResponse =
-            plugin.processPreCreate(metacard, unmodifiablePropertiesMap);
+        PluginExecution execution =
+            PluginExecution.timed(PolicyPlugin.class, "processPreCreate", plugin);
+        PolicyResponse policyResponse;
+        try {
+          policyResponse = plugin.processPreCreate(metacard, unmodifiablePropertiesMap);
+        } finally {
+          execution.end();
+        }
         opsSecuritySupport.buildPolicyMap(itemPolicyMap, policyResponse.itemPolicy().entrySet());
         opsSecuritySupport.buildPolicyMap(
             requestPolicyMap, policyResponse.operationPolicy().entrySet());
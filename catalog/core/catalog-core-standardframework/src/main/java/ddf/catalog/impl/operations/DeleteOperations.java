@@ -25,6 +25,7 @@
 import ddf.catalog.federation.FederationException;
 import ddf.catalog.history.Historian;
 import ddf.catalog.impl.FrameworkProperties;
+import ddf.catalog.impl.PluginExecution;
 import ddf.catalog.operation.DeleteRequest;
 import ddf.catalog.operation.DeleteResponse;
 import ddf.catalog.operation.Operation;
@@ -356,10 +357,13 @@ private boolean foundAllDeleteRequestMetacards(
   private DeleteRequest processPreIngestPlugins(DeleteRequest deleteRequest)
       throws StopProcessingException {
     for (PreIngestPlugin plugin : frameworkProperties.getPreIngest()) {
+      PluginExecution execution = PluginExecution.timed(PreIngestPlugin.class, "process", plugin);
       try {
         deleteRequest = plugin.process(deleteRequest);
       } catch (PluginExecutionException e) {
         LOGGER.info("Plugin processing failed. This is allowable. Skipping to next plugin.", e);
+      } finally {
+        execution.end();
       }
     }
     return deleteRequest;
@@ -368,7 +372,13 @@ private DeleteRequest processPreIngestPlugins(DeleteRequest deleteRequest)
   private DeleteRequest processPreDeleteAccessPlugins(DeleteRequest deleteRequest)
       throws StopProcessingException {
     for (AccessPlugin plugin : frameworkProperties.getAccessPlugins()) {
-      deleteRequest = plugin.processPreDelete(deleteRequest);
+      PluginExecution execution =
+          PluginExecution.timed(AccessPlugin.class, "processPreDelete", plugin);
+      try {
+        deleteRequest = plugin.processPreDelete(deleteRequest);
+      } finally {
+        execution.end();
+      }
     }
     return deleteRequest;
   }
@@ -381,7 +391,14 @@ private DeleteRequest processPreDeletePolicyPlugins(DeleteRequest deleteRequest)
 
     HashMap<String, Set<String>> requestPolicyMap = new HashMap<>();
     for (PolicyPlugin plugin : frameworkProperties.getPolicyPlugins()) {
-      PolicyResponse policyResponse = plugin.processPreDelete(metacards, unmodifiableProperties);
+      PluginExecution execution =
+          PluginExecution.timed(PolicyPlugin.class, "processPreDelete", plugin);
+      PolicyResponse policyResponse;
+      try {
+        policyResponse = plugin.processPreDelete(metacards, unmodifiableProperties);
+      } finally {
+        execution.end();
+      }
       opsSecuritySupport.buildPolicyMap(
           requestPolicyMap, policyResponse.operationPolicy().entrySet());
     }
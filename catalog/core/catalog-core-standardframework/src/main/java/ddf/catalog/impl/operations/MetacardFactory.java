@@ -18,9 +18,11 @@
 import ddf.catalog.data.impl.AttributeImpl;
 import ddf.catalog.transform.CatalogTransformerException;
 import ddf.catalog.transform.InputTransformer;
+import ddf.catalog.transform.PathInputTransformer;
 import ddf.mime.MimeTypeToTransformerMapper;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -70,9 +72,8 @@ Metacard generateMetacard(String mimeTypeRaw, String id, String fileName, Path t
     LOGGER.debug("List of matches for mimeType [{}]: {}", mimeType, listOfCandidates);
 
     for (InputTransformer candidate : listOfCandidates) {
-      try (InputStream transformerStream =
-          com.google.common.io.Files.asByteSource(tmpContentPath.toFile()).openStream()) {
-        generatedMetacard = candidate.transform(transformerStream);
+      try {
+        generatedMetacard = transform(candidate, tmpContentPath, mimeTypeRaw);
       } catch (RuntimeException | CatalogTransformerException | IOException e) {
         List<String> stackTraces = Arrays.asList(ExceptionUtils.getRootCauseStackTrace(e));
         stackTraceList.add(String.format("Transformer [%s] could not create metacard.", candidate));
@@ -103,4 +104,20 @@ Metacard generateMetacard(String mimeTypeRaw, String id, String fileName, Path t
 
     return generatedMetacard;
   }
+
+  /*
+   * Transformers that can read the content from the file it has already been written to are given
+   * the file, so that they do not copy the content again. Other transformers are given a stream.
+   */
+  private Metacard transform(InputTransformer candidate, Path tmpContentPath, String mimeType)
+      throws IOException, CatalogTransformerException {
+    if (candidate instanceof PathInputTransformer) {
+      return ((PathInputTransformer) candidate)
+          .transform(tmpContentPath, Files.size(tmpContentPath), mimeType);
+    }
+
+    try (InputStream transformerStream = Files.newInputStream(tmpContentPath)) {
+      return candidate.transform(transformerStream);
+    }
+  }
 }
@@ -13,6 +13,7 @@
  */
 package ddf.catalog.impl.operations;
 
+import com.google.common.io.ByteSource;
 import ddf.catalog.content.data.ContentItem;
 import ddf.catalog.content.data.impl.ContentItemImpl;
 import ddf.catalog.data.Attribute;
@@ -33,6 +34,8 @@
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -60,6 +63,8 @@ public class OperationsMetacardSupport {
 
   private static final String MIME_TYPE_MSG = "Unable to guess mime type for file.";
 
+  private static final int HEADER_SIZE = 8192;
+
   //
   // Injected properties
   //
@@ -67,12 +72,39 @@ public class OperationsMetacardSupport {
 
   private final MetacardFactory metacardFactory;
 
+  private List<String> checksumAlgorithms = Collections.singletonList("Adler32");
+
   public OperationsMetacardSupport(
       FrameworkProperties frameworkProperties, MetacardFactory metacardFactory) {
     this.frameworkProperties = frameworkProperties;
     this.metacardFactory = metacardFactory;
   }
 
+  /**
+   * Sets the checksums that are calculated while incoming content is copied to a temporary file.
+   * The checksums are made available to storage plugins through {@link ContentItem#getChecksums()}.
+   *
+   * @param checksumAlgorithms Adler32, CRC32 or {@link java.security.MessageDigest} algorithms such
+   *     as MD5 or SHA-256. Unsupported algorithms are ignored.
+   */
+  public void setChecksumAlgorithms(List<String> checksumAlgorithms) {
+    List<String> algorithms = new ArrayList<>();
+    if (checksumAlgorithms != null) {
+      for (String algorithm : checksumAlgorithms) {
+        if (StringUtils.isBlank(algorithm)) {
+          continue;
+        }
+        try {
+          ContentSpoolingInputStream.validateAlgorithm(algorithm.trim());
+          algorithms.add(algorithm.trim());
+        } catch (IllegalArgumentException e) {
+          LOGGER.warn("Ignoring unsupported checksum algorithm [{}].", algorithm);
+        }
+      }
+    }
+    this.checksumAlgorithms = Collections.unmodifiableList(algorithms);
+  }
+
   /**
    * Processes input metacard, injecting attributes as defined by the {@code injectors}.
    *
@@ -99,6 +131,8 @@ void generateMetacardAndContentItems(
         Path tmpPath = null;
         String fileName;
         long size;
+        byte[] header;
+        Map<String, String> checksums;
         try (InputStream inputStream = contentItem.getInputStream()) {
           fileName = contentItem.getFilename();
           if (inputStream == null) {
@@ -115,8 +149,12 @@ void generateMetacardAndContentItems(
               Files.createTempFile(
                   FilenameUtils.getBaseName(sanitizedFilename),
                   FilenameUtils.getExtension(sanitizedFilename));
-          Files.copy(inputStream, tmpPath, StandardCopyOption.REPLACE_EXISTING);
-          size = Files.size(tmpPath);
+          ContentSpoolingInputStream spoolingInputStream =
+              new ContentSpoolingInputStream(inputStream, checksumAlgorithms, HEADER_SIZE);
+          Files.copy(spoolingInputStream, tmpPath, StandardCopyOption.REPLACE_EXISTING);
+          size = spoolingInputStream.getSize();
+          header = spoolingInputStream.getHeader();
+          checksums = spoolingInputStream.getChecksums();
 
           final String key = contentItem.getId();
           Map<String, Path> pathAndQualifiers = tmpContentPaths.get(key);
@@ -136,7 +174,7 @@ void generateMetacardAndContentItems(
           throw new IngestException("Could not copy bytes of content message.", e);
         }
         String mimeTypeRaw = contentItem.getMimeTypeRawData();
-        mimeTypeRaw = guessMimeType(mimeTypeRaw, fileName, tmpPath);
+        mimeTypeRaw = guessMimeType(mimeTypeRaw, fileName, tmpPath, header);
 
         if (!InputValidation.isMimeTypeClientSideSafe(mimeTypeRaw)) {
           throw new IngestException("Unsupported mime type.");
@@ -159,7 +197,7 @@ void generateMetacardAndContentItems(
         }
         metacardMap.put(metacard.getId(), metacard);
 
-        ContentItem generatedContentItem =
+        ContentItemImpl generatedContentItem =
             new ContentItemImpl(
                 metacard.getId(),
                 qualifiedContent ? contentItem.getQualifier() : "",
@@ -168,6 +206,7 @@ void generateMetacardAndContentItems(
                 fileName,
                 size,
                 metacard);
+        generatedContentItem.setChecksums(checksums);
         contentItems.add(generatedContentItem);
       } catch (Exception e) {
         tmpContentPaths.values().stream()
@@ -228,6 +267,15 @@ private String updateFileExtension(String mimeTypeRaw, String fileName) {
   // package-private for unit testing
   String guessMimeType(String mimeTypeRaw, String fileName, Path tmpContentPath)
       throws IOException {
+    return guessMimeType(mimeTypeRaw, fileName, tmpContentPath, new byte[0]);
+  }
+
+  /**
+   * @param header the first bytes of the content, used instead of reading the file when they are
+   *     enough to guess the mime type
+   */
+  private String guessMimeType(
+      String mimeTypeRaw, String fileName, Path tmpContentPath, byte[] header) throws IOException {
     if (ContentItem.DEFAULT_MIME_TYPE.equals(mimeTypeRaw)) {
       try (InputStream inputStreamMessageCopy =
           com.google.common.io.Files.asByteSource(tmpContentPath.toFile()).openStream()) {
@@ -251,18 +299,11 @@ String guessMimeType(String mimeTypeRaw, String fileName, Path tmpContentPath)
         }
       }
       if (mimeTypeRaw.equals("text/plain")) {
-        try (InputStream inputStreamMessageCopy =
-                com.google.common.io.Files.asByteSource(tmpContentPath.toFile()).openStream();
-            BufferedReader bufferedReader =
-                new BufferedReader(
-                    new InputStreamReader(inputStreamMessageCopy, Charset.forName("UTF-8")))) {
-          String line =
-              bufferedReader
-                  .lines()
-                  .map(String::trim)
-                  .filter(StringUtils::isNotEmpty)
-                  .findFirst()
-                  .orElse("");
+        try {
+          String line = getFirstLine(ByteSource.wrap(header));
+          if (line.isEmpty()) {
+            line = getFirstLine(com.google.common.io.Files.asByteSource(tmpContentPath.toFile()));
+          }
 
           if (line.startsWith("<")) {
             mimeTypeRaw = "text/xml";
@@ -276,4 +317,17 @@ String guessMimeType(String mimeTypeRaw, String fileName, Path tmpContentPath)
     }
     return mimeTypeRaw;
   }
+
+  private String getFirstLine(ByteSource content) throws IOException {
+    try (InputStream inputStream = content.openStream();
+        BufferedReader bufferedReader =
+            new BufferedReader(new InputStreamReader(inputStream, Charset.forName("UTF-8")))) {
+      return bufferedReader
+          .lines()
+          .map(String::trim)
+          .filter(StringUtils::isNotEmpty)
+          .findFirst()
+          .orElse("");
+    }
+  }
 }
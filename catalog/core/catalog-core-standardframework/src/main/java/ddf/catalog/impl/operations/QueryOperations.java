@@ -28,7 +28,9 @@
 import ddf.catalog.filter.FilterBuilder;
 import ddf.catalog.filter.FilterDelegate;
 import ddf.catalog.filter.delegate.TagsFilterDelegate;
+import ddf.catalog.impl.CatalogTracing;
 import ddf.catalog.impl.FrameworkProperties;
+import ddf.catalog.impl.PluginExecution;
 import ddf.catalog.operation.Operation;
 import ddf.catalog.operation.ProcessingDetails;
 import ddf.catalog.operation.Query;
@@ -51,6 +53,7 @@
 import ddf.catalog.source.CatalogStore;
 import ddf.catalog.source.ConnectedSource;
 import ddf.catalog.source.FederatedSource;
+import ddf.catalog.source.OAuthFederatedSource;
 import ddf.catalog.source.Source;
 import ddf.catalog.source.SourceUnavailableException;
 import ddf.catalog.source.UnsupportedQueryException;
@@ -62,6 +65,9 @@
 import ddf.security.permission.CollectionPermission;
 import ddf.security.permission.KeyValueCollectionPermission;
 import ddf.security.permission.Permissions;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Scope;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -98,6 +104,17 @@ public class QueryOperations extends DescribableImpl {
 
   private static final String QUERY_FAILURE_MSG = "Query could not be executed.";
 
+  private static final String PROCESS = "process";
+
+  private static final String PROCESS_PRE_QUERY = "processPreQuery";
+
+  private static final String PROCESS_POST_QUERY = "processPostQuery";
+
+  private static final AttributeKey<Long> SOURCE_COUNT_KEY =
+      AttributeKey.longKey("ddf.source.count");
+
+  private static final AttributeKey<Boolean> CACHED_KEY = AttributeKey.booleanKey("ddf.cached");
+
   /**
    * Enforcing a default maximum page size of 1000 to avoid overloading the system with too many
    * records. In practice, correct paging techniques should be implemented. If needed, this property
@@ -131,6 +148,8 @@ public class QueryOperations extends DescribableImpl {
 
   private Permissions permissions;
 
+  private QueryResultCache queryResultCache;
+
   public QueryOperations(
       FrameworkProperties frameworkProperties,
       SourceOperations sourceOperations,
@@ -158,6 +177,10 @@ public void setQueryTimeoutMillis(long queryTimeoutMillis) {
     this.queryTimeoutMillis = queryTimeoutMillis;
   }
 
+  public void setQueryResultCache(QueryResultCache queryResultCache) {
+    this.queryResultCache = queryResultCache;
+  }
+
   //
   // Delegate methods
   //
@@ -187,7 +210,8 @@ QueryResponse query(
 
     queryRequest = setFlagsOnRequest(queryRequest);
 
-    try {
+    Span span = CatalogTracing.startSpan("CatalogFramework.query");
+    try (Scope ignored = span.makeCurrent()) {
       queryRequest = validateQueryRequest(queryRequest);
       queryRequest = getFanoutQuery(queryRequest, fanoutEnabled);
       queryRequest = preProcessPreAuthorizationPlugins(queryRequest);
@@ -196,6 +220,14 @@ QueryResponse query(
       queryRequest = processPreQueryPlugins(queryRequest);
       queryRequest = validateQueryRequest(queryRequest);
 
+      // only the sources are skipped on a hit; the post-query plugins still run
+      Optional<QueryResultCache.Key> cacheKey =
+          getCacheKey(queryRequest, strategy, overrideFanoutRename, fanoutEnabled);
+      Optional<QueryResponse> cachedResponse = Optional.empty();
+      if (cacheKey.isPresent()) {
+        cachedResponse = queryResultCache.get(cacheKey.get(), queryRequest);
+      }
+
       if (fedStrategy == null) {
         if (frameworkProperties.getFederationStrategy() == null) {
           throw new FederationException(
@@ -208,7 +240,15 @@ QueryResponse query(
         }
       }
 
-      queryResponse = doQuery(queryRequest, fedStrategy);
+      if (cachedResponse.isPresent()) {
+        span.setAttribute(CACHED_KEY, true);
+        queryResponse = cachedResponse.get();
+      } else {
+        queryResponse = doQuery(queryRequest, fedStrategy);
+        if (cacheKey.isPresent()) {
+          queryResultCache.put(cacheKey.get(), queryResponse);
+        }
+      }
 
       // Allow callers to determine the total results returned from the query; this value
       // may differ from the number of filtered results after processing plugins have been run.
@@ -223,16 +263,63 @@ QueryResponse query(
 
       log(queryResponse);
 
+      span.setAttribute(CatalogTracing.RESULT_COUNT_KEY, queryResponse.getResults().size());
+      span.setAttribute(CatalogTracing.HITS_KEY, queryResponse.getHits());
     } catch (OAuthPluginException e) {
+      CatalogTracing.recordError(span, e);
       throw e;
     } catch (RuntimeException re) {
+      CatalogTracing.recordError(span, re);
       LOGGER.debug("Unhandled runtime exception during query", re);
       throw new UnsupportedQueryException("Exception during runtime while performing query", re);
+    } catch (UnsupportedQueryException | FederationException e) {
+      CatalogTracing.recordError(span, e);
+      throw e;
+    } finally {
+      span.end();
     }
 
     return queryResponse;
   }
 
+  private Optional<QueryResultCache.Key> getCacheKey(
+      QueryRequest queryRequest,
+      FederationStrategy strategy,
+      boolean overrideFanoutRename,
+      boolean fanoutEnabled) {
+    if (queryResultCache == null) {
+      return Optional.empty();
+    }
+
+    if (reachesOAuthSource(queryRequest)) {
+      LOGGER.trace("Not caching query that reaches an OAuth source.");
+      return Optional.empty();
+    }
+
+    String context =
+        (strategy == null ? null : strategy.getClass().getName())
+            + ","
+            + overrideFanoutRename
+            + ","
+            + fanoutEnabled;
+    return queryResultCache.getKey(
+        queryRequest, opsSecuritySupport.getSubject(queryRequest), context);
+  }
+
+  /**
+   * An {@link OAuthFederatedSource} is queried with the subject's own tokens and the {@link
+   * ddf.catalog.plugin.PreFederatedQueryPlugin} that checks them only runs when the source is
+   * queried, so the responses of such queries cannot be shared.
+   */
+  private boolean reachesOAuthSource(QueryRequest queryRequest) {
+    Set<String> sourceIds = getCombinedIdSet(queryRequest);
+    return Stream.concat(
+            frameworkProperties.getFederatedSources().stream(),
+            frameworkProperties.getCatalogStores().stream())
+        .filter(OAuthFederatedSource.class::isInstance)
+        .anyMatch(source -> queryRequest.isEnterprise() || sourceIds.contains(source.getId()));
+  }
+
   private void log(QueryResponse queryResponse) {
     LOGGER.trace("AfterPostQueryFilter result size: {}", queryResponse.getResults().size());
     LOGGER.trace("Total Hit count: {}", queryResponse.getHits());
@@ -305,9 +392,18 @@ QueryResponse doQuery(QueryRequest queryRequest, FederationStrategy strategy)
               queryRequest.getProperties());
     }
 
-    QueryResponse response = strategy.federate(querySources.sourcesToQuery, queryRequest);
-    frameworkProperties.getQueryResponsePostProcessor().processResponse(response);
-    return addProcessingDetails(querySources.exceptions, response);
+    Span span = CatalogTracing.startSpan("FederationStrategy.federate");
+    try (Scope ignored = span.makeCurrent()) {
+      span.setAttribute(SOURCE_COUNT_KEY, querySources.sourcesToQuery.size());
+      QueryResponse response = strategy.federate(querySources.sourcesToQuery, queryRequest);
+      frameworkProperties.getQueryResponsePostProcessor().processResponse(response);
+      return addProcessingDetails(querySources.exceptions, response);
+    } catch (RuntimeException e) {
+      CatalogTracing.recordError(span, e);
+      throw e;
+    } finally {
+      span.end();
+    }
   }
 
   <T extends Request> T setFlagsOnRequest(T request) {
@@ -427,12 +523,17 @@ boolean includesLocalSources(Set<String> sourceIds) {
   private QueryResponse processPostQueryPlugins(QueryResponse queryResponse)
       throws FederationException {
     for (PostQueryPlugin service : frameworkProperties.getPostQuery()) {
-      try {
+      PluginExecution execution = PluginExecution.start(PostQueryPlugin.class, PROCESS, service);
+      try (Scope ignored = execution.makeCurrent()) {
         queryResponse = service.process(queryResponse);
       } catch (PluginExecutionException see) {
+        execution.failed(see);
         LOGGER.debug("Error executing PostQueryPlugin: {}", see.getMessage(), see);
       } catch (StopProcessingException e) {
+        execution.failed(e);
         throw new FederationException(QUERY_FAILURE_MSG, e);
+      } finally {
+        execution.end();
       }
     }
     return queryResponse;
@@ -441,10 +542,15 @@ private QueryResponse processPostQueryPlugins(QueryResponse queryResponse)
   private QueryResponse processPostQueryAccessPlugins(QueryResponse queryResponse)
       throws FederationException {
     for (AccessPlugin plugin : frameworkProperties.getAccessPlugins()) {
-      try {
+      PluginExecution execution =
+          PluginExecution.start(AccessPlugin.class, PROCESS_POST_QUERY, plugin);
+      try (Scope ignored = execution.makeCurrent()) {
         queryResponse = plugin.processPostQuery(queryResponse);
       } catch (StopProcessingException e) {
+        execution.failed(e);
         throw new FederationException(QUERY_FAILURE_MSG, e);
+      } finally {
+        execution.end();
       }
     }
     return queryResponse;
@@ -455,19 +561,33 @@ private QueryResponse populateQueryResponsePolicyMap(QueryResponse queryResponse
     HashMap<String, Set<String>> responsePolicyMap = new HashMap<>();
     Map<String, Serializable> unmodifiableProperties =
         Collections.unmodifiableMap(queryResponse.getProperties());
-    for (Result result : queryResponse.getResults()) {
-      HashMap<String, Set<String>> itemPolicyMap = new HashMap<>();
-      for (PolicyPlugin plugin : frameworkProperties.getPolicyPlugins()) {
-        try {
-          PolicyResponse policyResponse = plugin.processPostQuery(result, unmodifiableProperties);
-          opsSecuritySupport.buildPolicyMap(itemPolicyMap, policyResponse.itemPolicy().entrySet());
-          opsSecuritySupport.buildPolicyMap(
-              responsePolicyMap, policyResponse.operationPolicy().entrySet());
-        } catch (StopProcessingException e) {
-          throw new FederationException(QUERY_FAILURE_MSG, e);
+    // Policy plugins run once per result, so a single span covers all of them rather than one
+    // span per result per plugin
+    Span span = CatalogTracing.startSpan("PolicyPlugin.processPostQuery");
+    try (Scope ignored = span.makeCurrent()) {
+      for (Result result : queryResponse.getResults()) {
+        HashMap<String, Set<String>> itemPolicyMap = new HashMap<>();
+        for (PolicyPlugin plugin : frameworkProperties.getPolicyPlugins()) {
+          PluginExecution execution =
+              PluginExecution.timed(PolicyPlugin.class, PROCESS_POST_QUERY, plugin);
+          try {
+            PolicyResponse policyResponse = plugin.processPostQuery(result, unmodifiableProperties);
+            opsSecuritySupport.buildPolicyMap(
+                itemPolicyMap, policyResponse.itemPolicy().entrySet());
+            opsSecuritySupport.buildPolicyMap(
+                responsePolicyMap, policyResponse.operationPolicy().entrySet());
+          } catch (StopProcessingException e) {
+            CatalogTracing.recordError(span, e);
+            throw new FederationException(QUERY_FAILURE_MSG, e);
+          } finally {
+            execution.end();
+          }
         }
+        result.getMetacard().setAttribute(new AttributeImpl(Metacard.SECURITY, itemPolicyMap));
       }
-      result.getMetacard().setAttribute(new AttributeImpl(Metacard.SECURITY, itemPolicyMap));
+      span.setAttribute(CatalogTracing.RESULT_COUNT_KEY, queryResponse.getResults().size());
+    } finally {
+      span.end();
     }
     queryResponse.getProperties().put(PolicyPlugin.OPERATION_SECURITY, responsePolicyMap);
 
@@ -476,12 +596,17 @@ private QueryResponse populateQueryResponsePolicyMap(QueryResponse queryResponse
 
   private QueryRequest processPreQueryPlugins(QueryRequest queryReq) throws FederationException {
     for (PreQueryPlugin service : frameworkProperties.getPreQuery()) {
-      try {
+      PluginExecution execution = PluginExecution.start(PreQueryPlugin.class, PROCESS, service);
+      try (Scope ignored = execution.makeCurrent()) {
         queryReq = service.process(queryReq);
       } catch (PluginExecutionException see) {
+        execution.failed(see);
         LOGGER.debug("Error executing PreQueryPlugin: {}", see.getMessage(), see);
       } catch (StopProcessingException e) {
+        execution.failed(e);
         throw new FederationException(QUERY_FAILURE_MSG, e);
+      } finally {
+        execution.end();
       }
     }
     return queryReq;
@@ -490,10 +615,15 @@ private QueryRequest processPreQueryPlugins(QueryRequest queryReq) throws Federa
   private QueryRequest processPreQueryAccessPlugins(QueryRequest queryReq)
       throws FederationException {
     for (AccessPlugin plugin : frameworkProperties.getAccessPlugins()) {
-      try {
+      PluginExecution execution =
+          PluginExecution.start(AccessPlugin.class, PROCESS_PRE_QUERY, plugin);
+      try (Scope ignored = execution.makeCurrent()) {
         queryReq = plugin.processPreQuery(queryReq);
       } catch (StopProcessingException e) {
+        execution.failed(e);
         throw new FederationException(QUERY_FAILURE_MSG, e);
+      } finally {
+        execution.end();
       }
     }
     return queryReq;
@@ -502,10 +632,15 @@ private QueryRequest processPreQueryAccessPlugins(QueryRequest queryReq)
   private QueryRequest preProcessPreAuthorizationPlugins(QueryRequest queryRequest)
       throws FederationException {
     for (PreAuthorizationPlugin plugin : frameworkProperties.getPreAuthorizationPlugins()) {
-      try {
+      PluginExecution execution =
+          PluginExecution.start(PreAuthorizationPlugin.class, PROCESS_PRE_QUERY, plugin);
+      try (Scope ignored = execution.makeCurrent()) {
         queryRequest = plugin.processPreQuery(queryRequest);
       } catch (StopProcessingException e) {
+        execution.failed(e);
         throw new FederationException(QUERY_FAILURE_MSG, e);
+      } finally {
+        execution.end();
       }
     }
     return queryRequest;
@@ -514,10 +649,15 @@ private QueryRequest preProcessPreAuthorizationPlugins(QueryRequest queryRequest
   private QueryResponse postProcessPreAuthorizationPlugins(QueryResponse queryResponse)
       throws FederationException {
     for (PreAuthorizationPlugin plugin : frameworkProperties.getPreAuthorizationPlugins()) {
-      try {
+      PluginExecution execution =
+          PluginExecution.start(PreAuthorizationPlugin.class, PROCESS_POST_QUERY, plugin);
+      try (Scope ignored = execution.makeCurrent()) {
         queryResponse = plugin.processPostQuery(queryResponse);
       } catch (StopProcessingException e) {
+        execution.failed(e);
         throw new FederationException(QUERY_FAILURE_MSG, e);
+      } finally {
+        execution.end();
       }
     }
     return queryResponse;
@@ -529,13 +669,18 @@ private QueryRequest populateQueryRequestPolicyMap(QueryRequest queryReq)
     Map<String, Serializable> unmodifiableProperties =
         Collections.unmodifiableMap(queryReq.getProperties());
     for (PolicyPlugin plugin : frameworkProperties.getPolicyPlugins()) {
-      try {
+      PluginExecution execution =
+          PluginExecution.start(PolicyPlugin.class, PROCESS_PRE_QUERY, plugin);
+      try (Scope ignored = execution.makeCurrent()) {
         PolicyResponse policyResponse =
             plugin.processPreQuery(queryReq.getQuery(), unmodifiableProperties);
         opsSecuritySupport.buildPolicyMap(
             requestPolicyMap, policyResponse.operationPolicy().entrySet());
       } catch (StopProcessingException e) {
+        execution.failed(e);
         throw new FederationException(QUERY_FAILURE_MSG, e);
+      } finally {
+        execution.end();
       }
     }
     queryReq.getProperties().put(PolicyPlugin.OPERATION_SECURITY, requestPolicyMap);
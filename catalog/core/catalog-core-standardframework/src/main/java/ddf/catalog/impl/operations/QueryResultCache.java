@@ -0,0 +1,448 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.impl.operations;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.ResultImpl;
+import ddf.catalog.filter.FilterAdapter;
+import ddf.catalog.filter.delegate.FilterToTextDelegate;
+import ddf.catalog.operation.CreateResponse;
+import ddf.catalog.operation.DeleteResponse;
+import ddf.catalog.operation.ProcessingDetails;
+import ddf.catalog.operation.Query;
+import ddf.catalog.operation.QueryRequest;
+import ddf.catalog.operation.QueryResponse;
+import ddf.catalog.operation.UpdateResponse;
+import ddf.catalog.operation.impl.QueryResponseImpl;
+import ddf.catalog.plugin.PostIngestPlugin;
+import ddf.catalog.source.UnsupportedQueryException;
+import ddf.security.SecurityConstants;
+import ddf.security.Subject;
+import ddf.security.SubjectOperations;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.opengis.filter.sort.SortBy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caches the responses of the sources to the queries of {@link QueryOperations}, so that identical
+ * queries run repeatedly by users with the same security attributes, such as saved searches polled
+ * by a dashboard, do not all go to the sources. Only the sources are skipped: every query still
+ * goes through the pre-query plugins, and every response, cached or not, through the post-query
+ * plugins.
+ *
+ * <p>Responses are keyed by a canonical form of the query filter, the paging and sorting, the
+ * sources, the request properties and the subject's security attributes, so subjects with the same
+ * attributes share responses. Keys are created after the pre-query plugins have processed the
+ * request, so they include any changes those plugins make to it, and {@link QueryOperations} does
+ * not cache queries that reach an {@link ddf.catalog.source.OAuthFederatedSource}, since those are
+ * answered with the subject's own tokens. The whole cache is invalidated whenever metacards are
+ * created, updated or deleted through the framework, and entries expire after a configurable time
+ * so that changes to federated sources are eventually seen. Only responses without source errors
+ * are cached.
+ *
+ * <p>The cache is disabled until it is configured with a maximum number of entries.
+ */
+public class QueryResultCache implements PostIngestPlugin {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(QueryResultCache.class);
+
+  private static final long DEFAULT_TTL_SECONDS = 60;
+
+  private final FilterAdapter filterAdapter;
+
+  private final SubjectOperations subjectOperations;
+
+  /** Incremented whenever the catalog changes, so that stale responses are not cached. */
+  private final AtomicLong generation = new AtomicLong();
+
+  private volatile Cache<HashCode, CachedResponse> cache;
+
+  private int maxEntries;
+
+  private long ttlSeconds = DEFAULT_TTL_SECONDS;
+
+  public QueryResultCache(FilterAdapter filterAdapter, SubjectOperations subjectOperations) {
+    this.filterAdapter = filterAdapter;
+    this.subjectOperations = subjectOperations;
+  }
+
+  /** @param maxEntries the number of responses to cache, or 0 to disable the cache */
+  public synchronized void setMaxEntries(int maxEntries) {
+    this.maxEntries = maxEntries;
+    rebuild();
+  }
+
+  /** @param ttlSeconds the number of seconds a response is cached for */
+  public synchronized void setTtlSeconds(long ttlSeconds) {
+    this.ttlSeconds = ttlSeconds;
+    rebuild();
+  }
+
+  private void rebuild() {
+    if (maxEntries <= 0 || ttlSeconds <= 0) {
+      LOGGER.debug("Query result cache is disabled.");
+      cache = null;
+    } else {
+      LOGGER.debug("Caching up to {} query responses for {} seconds each.", maxEntries, ttlSeconds);
+      cache =
+          CacheBuilder.newBuilder()
+              .maximumSize(maxEntries)
+              .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+              .build();
+    }
+  }
+
+  /**
+   * Creates the key that a query's response is cached under.
+   *
+   * @param request the query request, as the pre-query plugins leave it to be sent to the sources
+   * @param subject the subject running the query, or null if there is none
+   * @param context anything else that affects the response, such as the federation strategy
+   * @return the key, or empty if the cache is disabled or the query cannot be cached
+   */
+  Optional<Key> getKey(QueryRequest request, Subject subject, String context) {
+    if (cache == null || request == null || request.getQuery() == null) {
+      return Optional.empty();
+    }
+
+    long keyGeneration = generation.get();
+    String filter;
+    try {
+      filter = filterAdapter.adapt(request.getQuery(), new CacheKeyFilterDelegate());
+    } catch (UnsupportedQueryException | RuntimeException e) {
+      LOGGER.debug("Unable to create a cache key for query. The response will not be cached.", e);
+      return Optional.empty();
+    }
+
+    Query query = request.getQuery();
+    StringBuilder key = new StringBuilder();
+    key.append(filter)
+        .append('\n')
+        .append(query.getStartIndex())
+        .append(',')
+        .append(query.getPageSize())
+        .append(',')
+        .append(query.requestsTotalResultsCount())
+        .append(',')
+        .append(query.getTimeoutMillis())
+        .append(',')
+        .append(getSortKey(query.getSortBy()))
+        .append('\n')
+        .append(request.isEnterprise())
+        .append(',')
+        .append(request.getSourceIds() == null ? null : new TreeSet<>(request.getSourceIds()))
+        .append('\n')
+        .append(getProperties(request))
+        .append('\n')
+        .append(context)
+        .append('\n');
+    if (subject != null) {
+      key.append(new TreeMap<>(subjectOperations.getSubjectAttributes(subject)));
+    }
+
+    return Optional.of(
+        new Key(
+            Hashing.sha256().hashString(key.toString(), StandardCharsets.UTF_8), keyGeneration));
+  }
+
+  /**
+   * @param key the key the response was cached under
+   * @param request the request to return the cached response for
+   * @return a copy of the cached response, or empty if there is none
+   */
+  Optional<QueryResponse> get(Key key, QueryRequest request) {
+    Cache<HashCode, CachedResponse> currentCache = cache;
+    CachedResponse cachedResponse =
+        currentCache == null ? null : currentCache.getIfPresent(key.hash);
+    if (cachedResponse == null) {
+      return Optional.empty();
+    }
+    if (cachedResponse.generation != generation.get()) {
+      // cached by a query that raced with an ingest
+      currentCache.asMap().remove(key.hash, cachedResponse);
+      return Optional.empty();
+    }
+
+    LOGGER.debug("Returning cached response for query {}.", key.hash);
+    Map<String, Serializable> properties = new HashMap<>(cachedResponse.properties);
+    Serializable subject = request.getPropertyValue(SecurityConstants.SECURITY_SUBJECT);
+    if (properties.remove(SecurityConstants.SECURITY_SUBJECT) != null && subject != null) {
+      properties.put(SecurityConstants.SECURITY_SUBJECT, subject);
+    }
+    return Optional.of(
+        new QueryResponseImpl(
+            request,
+            copy(cachedResponse.results),
+            true,
+            cachedResponse.hits,
+            properties,
+            new HashSet<>(cachedResponse.processingDetails)));
+  }
+
+  /**
+   * Caches a response, unless the catalog has changed since its key was created or any source
+   * failed to respond. A response that is put while the cache is being invalidated keeps the
+   * generation of its key, so {@link #get} does not return it.
+   */
+  void put(Key key, QueryResponse response) {
+    Cache<HashCode, CachedResponse> currentCache = cache;
+    if (currentCache == null || key.generation != generation.get()) {
+      return;
+    }
+
+    // the sources report failures by the time all of their results have been read
+    List<Result> results = copy(response.getResults());
+    Set<ProcessingDetails> processingDetails = response.getProcessingDetails();
+    if (processingDetails != null
+        && processingDetails.stream().anyMatch(details -> details.getException() != null)) {
+      LOGGER.debug("Not caching response for query {} since a source failed.", key.hash);
+      return;
+    }
+
+    currentCache.put(
+        key.hash,
+        new CachedResponse(
+            key.generation,
+            results,
+            response.getHits(),
+            new HashMap<>(response.getProperties()),
+            processingDetails == null ? new HashSet<>() : new HashSet<>(processingDetails)));
+  }
+
+  void invalidate() {
+    generation.incrementAndGet();
+    Cache<HashCode, CachedResponse> currentCache = cache;
+    if (currentCache != null) {
+      currentCache.invalidateAll();
+    }
+  }
+
+  @Override
+  public CreateResponse process(CreateResponse input) {
+    invalidate();
+    return input;
+  }
+
+  @Override
+  public UpdateResponse process(UpdateResponse input) {
+    invalidate();
+    return input;
+  }
+
+  @Override
+  public DeleteResponse process(DeleteResponse input) {
+    invalidate();
+    return input;
+  }
+
+  private static String getSortKey(SortBy sortBy) {
+    if (sortBy == null) {
+      return null;
+    }
+    String propertyName =
+        sortBy.getPropertyName() == null ? null : sortBy.getPropertyName().getPropertyName();
+    return propertyName + " " + sortBy.getSortOrder();
+  }
+
+  private static Map<String, String> getProperties(QueryRequest request) {
+    Map<String, String> properties = new TreeMap<>();
+    for (Map.Entry<String, Serializable> property : request.getProperties().entrySet()) {
+      if (!SecurityConstants.SECURITY_SUBJECT.equals(property.getKey())) {
+        Object value = property.getValue();
+        properties.put(
+            property.getKey(),
+            value instanceof Object[]
+                ? Arrays.deepToString((Object[]) value)
+                : String.valueOf(value));
+      }
+    }
+    return properties;
+  }
+
+  /* Copies the metacards so that callers modifying the results cannot change the cached ones. */
+  private static List<Result> copy(List<Result> results) {
+    List<Result> copies = new ArrayList<>(results.size());
+    for (Result result : results) {
+      Metacard metacard = result.getMetacard();
+      ResultImpl copy =
+          new ResultImpl(
+              metacard == null ? null : new MetacardImpl(metacard, metacard.getMetacardType()));
+      copy.setRelevanceScore(result.getRelevanceScore());
+      copy.setDistanceInMeters(result.getDistanceInMeters());
+      copies.add(copy);
+    }
+    return copies;
+  }
+
+  static class Key {
+
+    private final HashCode hash;
+
+    private final long generation;
+
+    private Key(HashCode hash, long generation) {
+      this.hash = hash;
+      this.generation = generation;
+    }
+  }
+
+  private static class CachedResponse {
+
+    private final long generation;
+
+    private final List<Result> results;
+
+    private final long hits;
+
+    private final Map<String, Serializable> properties;
+
+    private final Set<ProcessingDetails> processingDetails;
+
+    private CachedResponse(
+        long generation,
+        List<Result> results,
+        long hits,
+        Map<String, Serializable> properties,
+        Set<ProcessingDetails> processingDetails) {
+      this.generation = generation;
+      this.results = results;
+      this.hits = hits;
+      this.properties = properties;
+      this.processingDetails = processingDetails;
+    }
+  }
+
+  /**
+   * Writes filters as text that, unlike {@link FilterToTextDelegate}, distinguishes case sensitive
+   * comparisons and quotes strings, and writes dates to the millisecond, so that different filters
+   * do not share a key.
+   */
+  private static class CacheKeyFilterDelegate extends FilterToTextDelegate {
+
+    @Override
+    public String propertyIsLike(String propertyName, String pattern, boolean isCaseSensitive) {
+      return "like(" + propertyName + "," + quote(pattern) + "," + isCaseSensitive + ")";
+    }
+
+    @Override
+    public String propertyIsFuzzy(String propertyName, String literal) {
+      return "fuzzy(" + propertyName + "," + quote(literal) + ")";
+    }
+
+    @Override
+    public String xpathIsLike(String xpath, String pattern, boolean isCaseSensitive) {
+      return "xpathLike(" + quote(xpath) + "," + quote(pattern) + "," + isCaseSensitive + ")";
+    }
+
+    @Override
+    public String propertyIsEqualTo(String propertyName, String literal, boolean isCaseSensitive) {
+      return propertyName + "=" + quote(literal) + "," + isCaseSensitive;
+    }
+
+    @Override
+    public String propertyIsNotEqualTo(
+        String propertyName, String literal, boolean isCaseSensitive) {
+      return propertyName + "!=" + quote(literal) + "," + isCaseSensitive;
+    }
+
+    @Override
+    public String propertyIsEqualTo(String propertyName, Date literal) {
+      return propertyName + "=" + time(literal);
+    }
+
+    @Override
+    public String propertyIsEqualTo(String propertyName, Date startDate, Date endDate) {
+      return propertyName + "=" + time(startDate) + " to " + time(endDate);
+    }
+
+    @Override
+    public String propertyIsNotEqualTo(String propertyName, Date literal) {
+      return propertyName + "!=" + time(literal);
+    }
+
+    @Override
+    public String propertyIsNotEqualTo(String propertyName, Date startDate, Date endDate) {
+      return propertyName + "!=" + time(startDate) + " to " + time(endDate);
+    }
+
+    @Override
+    public String propertyIsGreaterThan(String propertyName, Date literal) {
+      return propertyName + ">" + time(literal);
+    }
+
+    @Override
+    public String propertyIsGreaterThanOrEqualTo(String propertyName, Date literal) {
+      return propertyName + ">=" + time(literal);
+    }
+
+    @Override
+    public String propertyIsLessThan(String propertyName, Date literal) {
+      return propertyName + "<" + time(literal);
+    }
+
+    @Override
+    public String propertyIsLessThanOrEqualTo(String propertyName, Date literal) {
+      return propertyName + "<=" + time(literal);
+    }
+
+    @Override
+    public String propertyIsBetween(String propertyName, Date lowerBoundary, Date upperBoundary) {
+      return time(lowerBoundary) + "<=" + propertyName + "<=" + time(upperBoundary);
+    }
+
+    @Override
+    public String after(String propertyName, Date date) {
+      return "after(" + propertyName + "," + time(date) + ")";
+    }
+
+    @Override
+    public String before(String propertyName, Date date) {
+      return "before(" + propertyName + "," + time(date) + ")";
+    }
+
+    @Override
+    public String during(String propertyName, Date startDate, Date endDate) {
+      return "during(" + propertyName + "," + time(startDate) + "," + time(endDate) + ")";
+    }
+
+    private static String quote(String value) {
+      return value == null ? null : '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    private static String time(Date date) {
+      return date == null ? null : Long.toString(date.getTime());
+    }
+  }
+}
@@ -16,11 +16,14 @@
 import ddf.catalog.Constants;
 import ddf.catalog.data.BinaryContent;
 import ddf.catalog.data.Metacard;
+import ddf.catalog.impl.CatalogTracing;
 import ddf.catalog.impl.FrameworkProperties;
 import ddf.catalog.operation.SourceResponse;
 import ddf.catalog.transform.CatalogTransformerException;
 import ddf.catalog.transform.MetacardTransformer;
 import ddf.catalog.transform.QueryResponseTransformer;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Scope;
 import java.io.Serializable;
 import java.util.Map;
 import org.osgi.framework.InvalidSyntaxException;
@@ -79,7 +82,16 @@ public BinaryContent transform(
 
     MetacardTransformer transformer =
         (MetacardTransformer) frameworkProperties.getBundleContext().getService(refs[0]);
-    return transformer.transform(metacard, requestProperties);
+    Span span = CatalogTracing.startPluginSpan(MetacardTransformer.class, "transform", transformer);
+    span.setAttribute(CatalogTracing.TRANSFORMER_ID_KEY, transformerId);
+    try (Scope ignored = span.makeCurrent()) {
+      return transformer.transform(metacard, requestProperties);
+    } catch (CatalogTransformerException | RuntimeException e) {
+      CatalogTracing.recordError(span, e);
+      throw e;
+    } finally {
+      span.end();
+    }
   }
 
   public BinaryContent transform(
@@ -117,7 +129,21 @@ public BinaryContent transform(
     } else {
       QueryResponseTransformer transformer =
           (QueryResponseTransformer) frameworkProperties.getBundleContext().getService(refs[0]);
-      return transformer.transform(response, requestProperties);
+      // transformers that stream their content keep working after the span ends
+      Span span =
+          CatalogTracing.startPluginSpan(QueryResponseTransformer.class, "transform", transformer);
+      span.setAttribute(CatalogTracing.TRANSFORMER_ID_KEY, transformerId);
+      if (response.getResults() != null) {
+        span.setAttribute(CatalogTracing.RESULT_COUNT_KEY, response.getResults().size());
+      }
+      try (Scope ignored = span.makeCurrent()) {
+        return transformer.transform(response, requestProperties);
+      } catch (CatalogTransformerException | RuntimeException e) {
+        CatalogTracing.recordError(span, e);
+        throw e;
+      } finally {
+        span.end();
+      }
     }
   }
 }
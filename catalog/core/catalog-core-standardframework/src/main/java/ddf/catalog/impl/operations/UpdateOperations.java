@@ -32,6 +32,7 @@
 import ddf.catalog.federation.FederationException;
 import ddf.catalog.history.Historian;
 import ddf.catalog.impl.FrameworkProperties;
+import ddf.catalog.impl.PluginExecution;
 import ddf.catalog.operation.Operation;
 import ddf.catalog.operation.OperationTransaction;
 import ddf.catalog.operation.ProcessingDetails;
@@ -512,10 +513,13 @@ private UpdateResponse performLocalUpdate(UpdateRequest updateRequest)
   private UpdateRequest processPreIngestPlugins(UpdateRequest updateRequest)
       throws StopProcessingException {
     for (PreIngestPlugin plugin : frameworkProperties.getPreIngest()) {
+      PluginExecution execution = PluginExecution.timed(PreIngestPlugin.class, "process", plugin);
       try {
         updateRequest = plugin.process(updateRequest);
       } catch (PluginExecutionException e) {
         LOGGER.debug("error processing update in PreIngestPlugin", e);
+      } finally {
+        execution.end();
       }
     }
     return updateRequest;
@@ -525,7 +529,13 @@ private UpdateRequest processPreUpdateAccessPlugins(UpdateRequest updateRequest)
       throws StopProcessingException {
     Map<String, Metacard> metacardMap = getUpdateMap(updateRequest);
     for (AccessPlugin plugin : frameworkProperties.getAccessPlugins()) {
-      updateRequest = plugin.processPreUpdate(updateRequest, metacardMap);
+      PluginExecution execution =
+          PluginExecution.timed(AccessPlugin.class, "processPreUpdate", plugin);
+      try {
+        updateRequest = plugin.processPreUpdate(updateRequest, metacardMap);
+      } finally {
+        execution.end();
+      }
     }
     return updateRequest;
   }
@@ -540,12 +550,26 @@ private UpdateRequest populateUpdateRequestPolicyMap(UpdateRequest updateRequest
       Metacard oldMetacard = metacardMap.get(update.getKey().toString());
 
       for (PolicyPlugin plugin : frameworkProperties.getPolicyPlugins()) {
-        PolicyResponse updatePolicyResponse =
-            plugin.processPreUpdate(
-                update.getValue(), Collections.unmodifiableMap(updateRequest.getProperties()));
-        PolicyResponse oldPolicyResponse =
-            plugin.processPreUpdate(
-                oldMetacard, Collections.unmodifiableMap(updateRequest.getProperties()));
+        PolicyResponse updatePolicyResponse;
+        PluginExecution execution =
+            PluginExecution.timed(PolicyPlugin.class, "processPreUpdate", plugin);
+        try {
+          updatePolicyResponse =
+              plugin.processPreUpdate(
+                  update.getValue(), Collections.unmodifiableMap(updateRequest.getProperties()));
+        } finally {
+          execution.end();
+        }
+
+        PolicyResponse oldPolicyResponse;
+        execution = PluginExecution.timed(PolicyPlugin.class, "processPreUpdate", plugin);
+        try {
+          oldPolicyResponse =
+              plugin.processPreUpdate(
+                  oldMetacard, Collections.unmodifiableMap(updateRequest.getProperties()));
+        } finally {
+          execution.end();
+        }
 
         opsSecuritySupport.buildPolicyMap(
             itemPolicyMap, updatePolicyResponse.itemPolicy().entrySet());
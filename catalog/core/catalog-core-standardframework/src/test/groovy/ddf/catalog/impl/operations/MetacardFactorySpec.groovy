@@ -16,6 +16,7 @@ package ddf.catalog.impl.operations
 import ddf.catalog.data.Metacard
 import ddf.catalog.data.MetacardCreationException
 import ddf.catalog.transform.InputTransformer
+import ddf.catalog.transform.PathInputTransformer
 import ddf.mime.MimeTypeToTransformerMapper
 import org.codice.ddf.platform.util.uuidgenerator.UuidGenerator
 import org.junit.Rule
@@ -44,6 +45,7 @@ class MetacardFactorySpec extends Specification {
     private InputTransformer itXml2
     private InputTransformer itBad
     private InputTransformer itRuntimeBad
+    private PathInputTransformer itPath
     private MetacardFactory metacardFactory
     private UuidGenerator uuidGenerator
     private Path path
@@ -61,6 +63,7 @@ class MetacardFactorySpec extends Specification {
         itXml = Mock(InputTransformer)
         itXml2 = Mock(InputTransformer)
         itBad = Mock(InputTransformer)
+        itPath = Mock(PathInputTransformer)
 
         itBad.transform(_ as InputStream) >> { throw new IOException() }
         itRuntimeBad.transform(_ as InputStream) >> { throw new RuntimeException() }
@@ -82,6 +85,8 @@ class MetacardFactorySpec extends Specification {
                 [itRuntimeBad]
             } else if (m.baseType == 'text/plain') {
                 [itPlain]
+            } else if (m.baseType == 'application/pdf') {
+                [itPath]
             }
         }
 
@@ -172,4 +177,20 @@ class MetacardFactorySpec extends Specification {
 
         metacard == metacardXml2
     }
+
+    def 'path transformers are given the content file instead of a stream'() {
+        setup:
+        file.text = 'content'
+        def metacardPath = Mock(Metacard)
+
+        when:
+        def metacard = metacardFactory.generateMetacard('application/pdf', 'test-id', 'filename', path)
+
+        then:
+        1 * itPath.transform(path, 7, 'application/pdf') >> metacardPath
+        0 * itPath.transform(_ as InputStream)
+        1 * metacardPath.getTitle() >> { 'this is a title' }
+
+        metacard == metacardPath
+    }
 }
@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PluginExecutionTest {
+
+  private MeterRegistry meterRegistry;
+
+  @Before
+  public void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    Metrics.addRegistry(meterRegistry);
+  }
+
+  @After
+  public void tearDown() {
+    Metrics.removeRegistry(meterRegistry);
+  }
+
+  @Test
+  public void testInvocationsAreTimedPerPluginAndMethod() {
+    Object plugin = new Object();
+
+    PluginExecution.start(Runnable.class, "run", plugin).end();
+    PluginExecution.timed(Runnable.class, "run", plugin).end();
+    PluginExecution.timed(Runnable.class, "other", plugin).end();
+
+    assertThat(timer("run").count(), is(2L));
+    assertThat(timer("other").count(), is(1L));
+  }
+
+  @Test
+  public void testFailedInvocationIsStillTimed() {
+    PluginExecution execution = PluginExecution.start(Runnable.class, "fail", new Object());
+    execution.failed(new IllegalStateException());
+    execution.end();
+
+    assertThat(timer("fail").count(), is(1L));
+  }
+
+  @Test
+  public void testNoTimerBeforeInvocation() {
+    assertThat(
+        meterRegistry.find(PluginExecution.LATENCY_METRIC).tag("method", "unused").timer(),
+        is(nullValue()));
+  }
+
+  private Timer timer(String method) {
+    Timer timer =
+        meterRegistry
+            .find(PluginExecution.LATENCY_METRIC)
+            .tags("type", "Runnable", "method", method, "plugin", Object.class.getName())
+            .timer();
+    assertThat(timer, is(notNullValue()));
+    return timer;
+  }
+}
@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.impl.operations;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import com.google.common.io.ByteStreams;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.zip.Adler32;
+import org.junit.Test;
+
+public class ContentSpoolingInputStreamTest {
+
+  private static final byte[] CONTENT =
+      "The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.UTF_8);
+
+  @Test
+  public void testChecksumsSizeAndHeader() throws IOException {
+    ContentSpoolingInputStream inputStream =
+        new ContentSpoolingInputStream(
+            new ByteArrayInputStream(CONTENT), Arrays.asList("Adler32", "MD5", "SHA-256"), 9);
+
+    assertThat(inputStream.read(), is((int) 'T'));
+    ByteStreams.exhaust(inputStream);
+
+    Adler32 adler32 = new Adler32();
+    adler32.update(CONTENT);
+    Map<String, String> checksums = inputStream.getChecksums();
+    assertThat(checksums.size(), is(3));
+    assertThat(checksums.get("Adler32"), is(Long.toHexString(adler32.getValue())));
+    assertThat(checksums.get("MD5"), is("9e107d9d372bb6826bd81d3542a419d6"));
+    assertThat(
+        checksums.get("SHA-256"),
+        is("d7a8fbb307d7809469ca9abcb0082e4f8d5651e46d3cdb762d02d0bf37c9e592"));
+    assertThat(inputStream.getSize(), is((long) CONTENT.length));
+    assertThat(new String(inputStream.getHeader(), StandardCharsets.UTF_8), is("The quick"));
+  }
+
+  @Test
+  public void testHeaderOfShortContent() throws IOException {
+    ContentSpoolingInputStream inputStream =
+        new ContentSpoolingInputStream(
+            new ByteArrayInputStream(CONTENT), Collections.emptyList(), 1024);
+
+    ByteStreams.exhaust(inputStream);
+
+    assertThat(inputStream.getHeader(), is(CONTENT));
+    assertThat(inputStream.getChecksums().isEmpty(), is(true));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnsupportedAlgorithm() {
+    ContentSpoolingInputStream.validateAlgorithm("not-an-algorithm");
+  }
+}
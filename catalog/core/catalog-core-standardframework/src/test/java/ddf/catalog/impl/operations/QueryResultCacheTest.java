@@ -0,0 +1,205 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.impl.operations;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.ResultImpl;
+import ddf.catalog.filter.FilterBuilder;
+import ddf.catalog.filter.proxy.adapter.GeotoolsFilterAdapterImpl;
+import ddf.catalog.filter.proxy.builder.GeotoolsFilterBuilder;
+import ddf.catalog.operation.CreateResponse;
+import ddf.catalog.operation.QueryRequest;
+import ddf.catalog.operation.QueryResponse;
+import ddf.catalog.operation.impl.ProcessingDetailsImpl;
+import ddf.catalog.operation.impl.QueryImpl;
+import ddf.catalog.operation.impl.QueryRequestImpl;
+import ddf.catalog.operation.impl.QueryResponseImpl;
+import ddf.security.Subject;
+import ddf.security.SubjectOperations;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import org.junit.Before;
+import org.junit.Test;
+import org.opengis.filter.Filter;
+
+public class QueryResultCacheTest {
+
+  private static final FilterBuilder FILTER_BUILDER = new GeotoolsFilterBuilder();
+
+  private SubjectOperations subjectOperations;
+
+  private QueryResultCache queryResultCache;
+
+  @Before
+  public void setUp() {
+    subjectOperations = mock(SubjectOperations.class);
+    queryResultCache = new QueryResultCache(new GeotoolsFilterAdapterImpl(), subjectOperations);
+    queryResultCache.setMaxEntries(10);
+  }
+
+  @Test
+  public void testDisabledByDefault() {
+    queryResultCache = new QueryResultCache(new GeotoolsFilterAdapterImpl(), subjectOperations);
+
+    assertThat(queryResultCache.getKey(request("title"), null, "").isPresent(), is(false));
+  }
+
+  @Test
+  public void testCachedResponseIsCopied() {
+    QueryRequest request = request("title");
+    QueryResultCache.Key key = queryResultCache.getKey(request, null, "").get();
+    queryResultCache.put(key, response(request, "title"));
+
+    QueryResponse cachedResponse = queryResultCache.get(key, request("title")).get();
+    cachedResponse.getResults().get(0).getMetacard().setAttribute(Metacard.TITLE, "changed");
+
+    Result result = queryResultCache.get(key, request("title")).get().getResults().get(0);
+    assertThat(result.getMetacard().getTitle(), is("title"));
+    assertThat(result.getRelevanceScore(), is(1.0));
+  }
+
+  @Test
+  public void testKeysDependOnFilterAndSubject() {
+    Subject subject = mock(Subject.class);
+    Subject otherSubject = mock(Subject.class);
+    SortedSet<String> roles = new TreeSet<>(Collections.singleton("admin"));
+    SortedSet<String> otherRoles = new TreeSet<>(Collections.singleton("guest"));
+    when(subjectOperations.getSubjectAttributes(subject))
+        .thenReturn(Collections.singletonMap("roles", roles));
+    when(subjectOperations.getSubjectAttributes(otherSubject))
+        .thenReturn(Collections.singletonMap("roles", otherRoles));
+
+    QueryResultCache.Key key = queryResultCache.getKey(request("title"), subject, "").get();
+    queryResultCache.put(key, response(request("title"), "title"));
+
+    assertThat(
+        queryResultCache
+            .get(queryResultCache.getKey(request("title"), subject, "").get(), request("title"))
+            .isPresent(),
+        is(true));
+    assertThat(
+        queryResultCache
+            .get(
+                queryResultCache.getKey(request("title"), otherSubject, "").get(), request("title"))
+            .isPresent(),
+        is(false));
+    assertThat(
+        queryResultCache
+            .get(queryResultCache.getKey(request("Title"), subject, "").get(), request("Title"))
+            .isPresent(),
+        is(false));
+  }
+
+  @Test
+  public void testSubjectsWithSameAttributesShareKeys() {
+    Subject subject = mock(Subject.class);
+    Subject otherSubject = mock(Subject.class);
+    SortedSet<String> roles = new TreeSet<>(Collections.singleton("user"));
+    when(subjectOperations.getName(subject, null)).thenReturn("alice");
+    when(subjectOperations.getName(otherSubject, null)).thenReturn("bob");
+    when(subjectOperations.getSubjectAttributes(subject))
+        .thenReturn(Collections.singletonMap("roles", roles));
+    when(subjectOperations.getSubjectAttributes(otherSubject))
+        .thenReturn(Collections.singletonMap("roles", roles));
+
+    QueryResultCache.Key key = queryResultCache.getKey(request("title"), subject, "").get();
+    queryResultCache.put(key, response(request("title"), "title"));
+
+    assertThat(
+        queryResultCache
+            .get(
+                queryResultCache.getKey(request("title"), otherSubject, "").get(), request("title"))
+            .isPresent(),
+        is(true));
+  }
+
+  @Test
+  public void testIngestInvalidatesCache() {
+    QueryRequest request = request("title");
+    QueryResultCache.Key key = queryResultCache.getKey(request, null, "").get();
+    queryResultCache.put(key, response(request, "title"));
+
+    queryResultCache.process(mock(CreateResponse.class));
+
+    assertThat(queryResultCache.get(key, request).isPresent(), is(false));
+  }
+
+  @Test
+  public void testResponseIsNotCachedAfterIngest() {
+    QueryRequest request = request("title");
+    QueryResultCache.Key key = queryResultCache.getKey(request, null, "").get();
+
+    queryResultCache.process(mock(CreateResponse.class));
+    queryResultCache.put(key, response(request, "title"));
+
+    assertThat(queryResultCache.get(key, request).isPresent(), is(false));
+  }
+
+  @Test
+  public void testResponseIsNotReturnedAfterIngestDuringPut() {
+    QueryRequest request = request("title");
+    QueryResultCache.Key key = queryResultCache.getKey(request, null, "").get();
+    QueryResponse cachedResponse = response(request, "title");
+    QueryResponse response = mock(QueryResponse.class);
+    when(response.getResults())
+        .thenAnswer(
+            invocation -> {
+              queryResultCache.process(mock(CreateResponse.class));
+              return cachedResponse.getResults();
+            });
+    when(response.getProperties()).thenReturn(new HashMap<>());
+
+    queryResultCache.put(key, response);
+
+    assertThat(queryResultCache.get(key, request).isPresent(), is(false));
+  }
+
+  @Test
+  public void testFailedResponseIsNotCached() {
+    QueryRequest request = request("title");
+    QueryResultCache.Key key = queryResultCache.getKey(request, null, "").get();
+    QueryResponseImpl response = response(request, "title");
+    response.setProcessingDetails(
+        Collections.singleton(new ProcessingDetailsImpl("source", new Exception("failed"))));
+
+    queryResultCache.put(key, response);
+
+    Optional<QueryResponse> cachedResponse = queryResultCache.get(key, request);
+    assertThat(cachedResponse.isPresent(), is(false));
+  }
+
+  private static QueryRequest request(String title) {
+    Filter filter = FILTER_BUILDER.attribute(Metacard.TITLE).is().equalTo().text(title);
+    return new QueryRequestImpl(new QueryImpl(filter));
+  }
+
+  private static QueryResponseImpl response(QueryRequest request, String title) {
+    MetacardImpl metacard = new MetacardImpl();
+    metacard.setTitle(title);
+    ResultImpl result = new ResultImpl(metacard);
+    result.setRelevanceScore(1.0);
+    return new QueryResponseImpl(
+        request, Collections.singletonList(result), true, 1, new HashMap<>(), null);
+  }
+}
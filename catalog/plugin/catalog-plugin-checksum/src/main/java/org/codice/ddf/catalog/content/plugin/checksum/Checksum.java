@@ -76,9 +76,16 @@ private void runChecksum(List<ContentItem> contentItems) throws PluginExecutionE
         continue;
       }
 
+      String checksumAlgorithm = checksumProvider.getChecksumAlgorithm();
+      String spooledChecksum = contentItem.getChecksums().get(checksumAlgorithm);
+      if (spooledChecksum != null) {
+        // the checksum was calculated when the content was received, so it does not need reading
+        addChecksumAttributes(contentItem.getMetacard(), checksumAlgorithm, spooledChecksum);
+        continue;
+      }
+
       try (InputStream inputStream = contentItem.getInputStream()) {
         // calculate checksum so that it can be added as an attribute on metacard
-        String checksumAlgorithm = checksumProvider.getChecksumAlgorithm();
         String checksumValue;
 
         try {
@@ -129,6 +129,24 @@ public void testProcessUpdateWithValidInput() throws PluginExecutionException {
     assertThat(checksumAlgorithm, is(SAMPLE_CHECKSUM_ALGORITHM));
   }
 
+  @Test
+  public void testProcessCreateUsesSpooledChecksum() throws Exception {
+    ContentItem mockContentItem = mock(ContentItem.class);
+    when(mockContentItem.getChecksums())
+        .thenReturn(Collections.singletonMap(SAMPLE_CHECKSUM_ALGORITHM, "spooled-checksum"));
+    when(mockContentItem.getMetacard()).thenReturn(new MetacardImpl());
+    when(mockCreateRequest.getContentItems())
+        .thenReturn(Collections.singletonList(mockContentItem));
+
+    CreateStorageRequest request = checksum.process(mockCreateRequest);
+
+    assertThat(
+        request.getContentItems().get(0).getMetacard().getAttribute(Metacard.CHECKSUM).getValue(),
+        is("spooled-checksum"));
+    verify(mockContentItem, never()).getInputStream();
+    verify(mockChecksumProvider, never()).calculateChecksum(any(InputStream.class));
+  }
+
   @Test
   public void testProcessUpdateWithValidUnrecognizedAlgorithm() throws PluginExecutionException {
     checksum.setChecksumAlgorithm("something-else");
@@ -27,6 +27,7 @@
 import ddf.catalog.plugin.PreIngestPlugin;
 import ddf.catalog.plugin.StopProcessingException;
 import ddf.catalog.util.Describable;
+import ddf.catalog.validation.BatchMetacardValidator;
 import ddf.catalog.validation.MetacardValidator;
 import ddf.catalog.validation.ValidationException;
 import java.io.Serializable;
@@ -81,18 +82,37 @@ public UpdateRequest process(UpdateRequest input)
 
   private <T> List<T> validateList(List<T> requestItems, Function<T, Metacard> itemToMetacard) {
     Map<String, Integer> counter = new HashMap<>();
+    Map<MetacardValidator, MetacardValidator> batchValidators =
+        getBatchValidators(requestItems.stream().map(itemToMetacard).collect(Collectors.toList()));
 
     List<T> validated =
         requestItems.stream()
-            .map(item -> validate(item, itemToMetacard, counter))
+            .map(item -> validate(item, itemToMetacard, counter, batchValidators))
             .filter(didNotFailEnforcedValidator)
             .collect(Collectors.toList());
 
     return validated;
   }
 
+  /**
+   * @return the validator to use for the batch in place of each configured validator that can
+   *     validate a whole batch at once
+   */
+  private Map<MetacardValidator, MetacardValidator> getBatchValidators(List<Metacard> metacards) {
+    Map<MetacardValidator, MetacardValidator> batchValidators = new HashMap<>();
+    for (MetacardValidator validator : metacardValidators) {
+      if (validator instanceof BatchMetacardValidator) {
+        batchValidators.put(validator, ((BatchMetacardValidator) validator).forBatch(metacards));
+      }
+    }
+    return batchValidators;
+  }
+
   private <T> T validate(
-      T item, Function<T, Metacard> itemToMetacard, Map<String, Integer> counter) {
+      T item,
+      Function<T, Metacard> itemToMetacard,
+      Map<String, Integer> counter,
+      Map<MetacardValidator, MetacardValidator> batchValidators) {
     Set<Serializable> newErrors = new HashSet<>();
     Set<Serializable> newWarnings = new HashSet<>();
     Set<Serializable> errorValidators = new HashSet<>();
@@ -107,7 +127,7 @@ private <T> T validate(
 
     for (MetacardValidator validator : metacardValidators) {
       try {
-        validator.validate(metacard);
+        batchValidators.getOrDefault(validator, validator).validate(metacard);
       } catch (ValidationException e) {
         String validatorName = getValidatorName(validator);
         boolean validationErrorsExist = CollectionUtils.isNotEmpty(e.getErrors());
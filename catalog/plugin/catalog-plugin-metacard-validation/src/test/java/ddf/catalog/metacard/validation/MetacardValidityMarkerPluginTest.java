@@ -26,6 +26,9 @@
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.withSettings;
 
@@ -46,6 +49,7 @@
 import ddf.catalog.plugin.PluginExecutionException;
 import ddf.catalog.plugin.StopProcessingException;
 import ddf.catalog.util.Describable;
+import ddf.catalog.validation.BatchMetacardValidator;
 import ddf.catalog.validation.MetacardValidator;
 import ddf.catalog.validation.ValidationException;
 import java.io.Serializable;
@@ -183,6 +187,23 @@ public void testMultipleValidationTagsValid()
     assertThat(filteredRequest.getMetacards().get(0).getTags(), not(hasItem(INVALID_TAG)));
   }
 
+  @Test
+  public void testBatchValidator()
+      throws StopProcessingException, PluginExecutionException, ValidationException {
+    BatchMetacardValidator batchValidator =
+        mock(BatchMetacardValidator.class, withSettings().extraInterfaces(Describable.class));
+    MetacardValidator validatorForBatch = getMockFailingValidatorWithErrors();
+    when(batchValidator.forBatch(any())).thenReturn(validatorForBatch);
+    when(((Describable) batchValidator).getId()).thenReturn(ID);
+    metacardValidators.add(batchValidator);
+    CreateRequest request = getMockCreateRequest();
+
+    verifyCreate(request, expectError, expectNone, INVALID_TAG);
+    verify(batchValidator).forBatch(request.getMetacards());
+    verify(batchValidator, never()).validate(any(Metacard.class));
+    verify(validatorForBatch, times(2)).validate(any(Metacard.class));
+  }
+
   @Test
   public void testMultipleValidationTagsInvalid()
       throws StopProcessingException, PluginExecutionException, ValidationException {
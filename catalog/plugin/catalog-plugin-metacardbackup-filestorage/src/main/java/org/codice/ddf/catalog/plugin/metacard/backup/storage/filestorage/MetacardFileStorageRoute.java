@@ -30,6 +30,7 @@
 import java.util.UUID;
 import org.apache.camel.CamelContext;
 import org.apache.commons.lang3.StringUtils;
+import org.codice.ddf.catalog.plugin.metacard.backup.common.MetacardBackupMetrics;
 import org.codice.ddf.catalog.plugin.metacard.backup.common.MetacardStorageRoute;
 import org.codice.ddf.catalog.plugin.metacard.backup.common.MetacardTemplate;
 import org.codice.ddf.catalog.plugin.metacard.backup.common.ResponseMetacardActionSplitter;
@@ -38,13 +39,16 @@
 
 /**
  * Creates a camel route for storing metacards from post-ingest on the local file system. This route
- * will transform the metacard using the configured metacard transformer prior to storage.
+ * will transform the metacard using the configured metacard transformer prior to storage. The
+ * metacards of a response are transformed and written in parallel.
  */
 public class MetacardFileStorageRoute extends MetacardStorageRoute {
   public static final String OUTPUT_PATH_TEMPLATE = "outputPathTemplate";
 
   protected String outputPathTemplate;
 
+  private static final MetacardBackupMetrics METRICS = MetacardBackupMetrics.forStorage("file");
+
   private List<String> routeIds = new ArrayList<>();
 
   private static final Logger LOGGER = LoggerFactory.getLogger(MetacardFileStorageRoute.class);
@@ -70,12 +74,15 @@ public void configure() throws Exception {
     from("catalog:postingest")
         .routeId(route1Id)
         .split(method(ResponseMetacardActionSplitter.class, "split(${body})"))
+        .parallelProcessing()
+        .executorService(getTransformExecutor())
         .to("direct:" + metacardRouteId);
     routeIds.add(route1Id);
 
     String route2Id = metacardRouteId + "2";
     from("direct:" + metacardRouteId + "?block=true")
         .routeId(route2Id)
+        .process(METRICS::received)
         .setHeader(METACARD_TRANSFORMER_ID_RTE_PROP, simple(metacardTransformerId, String.class))
         .setHeader(
             METACARD_BACKUP_INVALID_RTE_PROP,
@@ -109,7 +116,8 @@ public void configure() throws Exception {
                 + getStartingDir()
                 + "?fileName=${in.headers."
                 + TEMPLATED_STRING_HEADER_RTE_PROP
-                + "}");
+                + "}")
+        .process(METRICS::written);
     routeIds.add(route2Id);
 
     LOGGER.trace("Starting metacard file storage route: {}", this);
@@ -18,16 +18,20 @@
 
 import ddf.camel.component.catalog.ingest.PostIngestConsumer;
 import java.net.URI;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
 import org.apache.camel.CamelContext;
+import org.apache.camel.builder.AggregationStrategies;
 import org.apache.camel.component.aws2.s3.AWS2S3Constants;
 import org.apache.camel.impl.DefaultCamelContext;
 import org.apache.camel.support.DefaultRegistry;
 import org.apache.camel.support.SimpleRegistry;
 import org.apache.commons.lang3.StringUtils;
+import org.codice.ddf.catalog.plugin.metacard.backup.common.MetacardBackupMetrics;
 import org.codice.ddf.catalog.plugin.metacard.backup.common.MetacardStorageRoute;
 import org.codice.ddf.catalog.plugin.metacard.backup.common.MetacardTemplate;
 import org.codice.ddf.catalog.plugin.metacard.backup.common.ResponseMetacardActionSplitter;
@@ -37,12 +41,17 @@
 import software.amazon.awssdk.auth.credentials.AwsCredentials;
 import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
 
 /**
  * Creates a camel route for storing metacards from post-ingest in Amazon S3. This route will
  * transform the metacard using the configured metacard transformer prior to storage.
+ *
+ * <p>The metacards of a response are transformed in parallel and collected into batches, which are
+ * written by a {@link S3BatchUploader} through a client with a pool of keep-alive connections.
  */
 public class MetacardS3StorageRoute extends MetacardStorageRoute {
   public static final String OBJECT_TEMPLATE = "objectTemplate";
@@ -59,9 +68,15 @@ public class MetacardS3StorageRoute extends MetacardStorageRoute {
 
   public static final String S3_CANNED_ACL_NAME_PROP = "s3CannedAclName";
 
-  public static final String AWS_S3_CLIENT_PROP = "amazonS3Client";
+  public static final String S3_MAX_CONNECTIONS_PROP = "s3MaxConnections";
+
+  public static final String S3_PART_SIZE_MB_PROP = "s3PartSizeMB";
+
+  private static final int MIN_PART_SIZE_MB = 5;
+
+  private static final Duration CONNECTION_MAX_IDLE_TIME = Duration.ofMinutes(1);
 
-  public static final String AWS_S3_DELETE_AFTER_WRITE_PROP = "deleteAfterWrite";
+  private static final MetacardBackupMetrics METRICS = MetacardBackupMetrics.forStorage("s3");
 
   protected String objectTemplate;
 
@@ -77,6 +92,10 @@ public class MetacardS3StorageRoute extends MetacardStorageRoute {
 
   protected String s3CannedAclName;
 
+  protected int s3MaxConnections = 16;
+
+  protected int s3PartSizeMB = 8;
+
   private List<String> routeIds = new ArrayList<>();
 
   private final SimpleRegistry registry;
@@ -85,6 +104,8 @@ public class MetacardS3StorageRoute extends MetacardStorageRoute {
 
   private S3Client s3Client = null;
 
+  private ExecutorService uploadExecutor = null;
+
   private static final Logger LOGGER = LoggerFactory.getLogger(MetacardS3StorageRoute.class);
 
   public MetacardS3StorageRoute(CamelContext camelContext) {
@@ -150,28 +171,44 @@ public void setS3CannedAclName(String s3CannedAclName) {
     this.s3CannedAclName = s3CannedAclName;
   }
 
+  public int getS3MaxConnections() {
+    return s3MaxConnections;
+  }
+
+  public void setS3MaxConnections(int s3MaxConnections) {
+    this.s3MaxConnections = s3MaxConnections;
+  }
+
+  public int getS3PartSizeMB() {
+    return s3PartSizeMB;
+  }
+
+  public void setS3PartSizeMB(int s3PartSizeMB) {
+    this.s3PartSizeMB = Math.max(s3PartSizeMB, MIN_PART_SIZE_MB);
+  }
+
   @Override
   public void configure() throws Exception {
     routeIds.clear();
 
-    StringBuilder options = new StringBuilder();
     metacardTemplate = new MetacardTemplate(objectTemplate);
+    closeS3Client();
     s3Client = getS3Client();
-
-    DeleteBean deleteBean = new DeleteBean(s3Client, s3Bucket);
+    uploadExecutor =
+        getContext()
+            .getExecutorServiceManager()
+            .newFixedThreadPool(this, "metacardBackupS3Upload", s3MaxConnections);
+
+    S3BatchUploader uploader =
+        new S3BatchUploader(
+            s3Client,
+            s3Bucket,
+            s3CannedAclName,
+            s3PartSizeMB * 1024L * 1024L,
+            uploadExecutor,
+            METRICS);
 
     registry.bind("s3Client", s3Client);
-    registry.bind("deleteBean", deleteBean);
-    addOption(options, AWS_S3_CLIENT_PROP, "#s3Client");
-
-    addOption(options, AWS_S3_DELETE_AFTER_WRITE_PROP, "false");
-
-    String s3Uri = "aws-s3://" + getS3Bucket();
-    if (options.length() > 0) {
-      s3Uri += "?" + options.toString();
-    }
-
-    LOGGER.trace("S3 storage URI: {}", s3Uri);
 
     String metacardRouteId = "metacard-" + UUID.randomUUID().toString();
     String route1Id = metacardRouteId + "1";
@@ -180,12 +217,16 @@ public void configure() throws Exception {
         .routeId(route1Id)
         .autoStartup(true)
         .split(method(ResponseMetacardActionSplitter.class, "split(${body})"))
+        .parallelProcessing()
+        .executorService(getTransformExecutor())
         .to("direct:" + metacardRouteId);
     routeIds.add(route1Id);
 
     String route2Id = metacardRouteId + "2";
+    String batchEndpoint = "direct:" + metacardRouteId + "-batch";
     from("direct:" + metacardRouteId + "?block=true")
         .routeId(route2Id)
+        .process(METRICS::received)
         .setHeader(METACARD_TRANSFORMER_ID_RTE_PROP, simple(metacardTransformerId, String.class))
         .setHeader(
             METACARD_BACKUP_INVALID_RTE_PROP,
@@ -199,7 +240,8 @@ public void configure() throws Exception {
             and(
                 header(PostIngestConsumer.ACTION).isEqualTo(PostIngestConsumer.DELETE),
                 getCheckDeletePredicate()))
-        .bean(deleteBean, "delete")
+        .setHeader(S3BatchUploader.DELETE_OBJECT_HEADER, constant(true))
+        .to(batchEndpoint)
         .stop()
         .otherwise()
         .choice()
@@ -207,11 +249,22 @@ public void configure() throws Exception {
         .stop()
         .otherwise()
         .to("catalog:metacardtransformer")
-        .setHeader(AWS2S3Constants.CANNED_ACL, simple(s3CannedAclName))
-        .setHeader(AWS2S3Constants.CONTENT_LENGTH, simple("${body.length}"))
-        .to(s3Uri);
+        .to(batchEndpoint);
     routeIds.add(route2Id);
 
+    String route3Id = metacardRouteId + "3";
+    from(batchEndpoint)
+        .routeId(route3Id)
+        .process(METRICS::queued)
+        .aggregate(constant(true), AggregationStrategies.groupedExchange())
+        .completionSize(batchSize)
+        .completionTimeout(batchTimeoutMillis)
+        .forceCompletionOnStop()
+        .completeAllOnStop()
+        // batches completed by size and by timeout are serialized by the uploader
+        .bean(uploader, "upload");
+    routeIds.add(route3Id);
+
     LOGGER.trace("Starting metacard S3 storage route: {}", this);
   }
 
@@ -262,6 +315,16 @@ public void refresh(Map<String, Object> properties) throws Exception {
       setS3CannedAclName((String) s3CannedAclValue);
     }
 
+    Object s3MaxConnectionsValue = properties.get(S3_MAX_CONNECTIONS_PROP);
+    if (s3MaxConnectionsValue instanceof Integer && (Integer) s3MaxConnectionsValue > 0) {
+      setS3MaxConnections((Integer) s3MaxConnectionsValue);
+    }
+
+    Object s3PartSizeValue = properties.get(S3_PART_SIZE_MB_PROP);
+    if (s3PartSizeValue instanceof Integer) {
+      setS3PartSizeMB((Integer) s3PartSizeValue);
+    }
+
     super.refresh(properties);
   }
 
@@ -270,24 +333,40 @@ public List<String> getRouteIds() {
     return routeIds;
   }
 
-  private void addOption(StringBuilder options, String key, String value) {
-    if (options.length() > 0) {
-      options.append("&");
+  @Override
+  public void stop(int code) {
+    // Stopping the routes writes the last batch, so the uploads are shut down afterwards
+    super.stop(code);
+    if (uploadExecutor != null) {
+      getContext().getExecutorServiceManager().shutdown(uploadExecutor);
+      uploadExecutor = null;
     }
-    options.append(key).append("=").append(value);
+    closeS3Client();
   }
 
   private S3Client getS3Client() {
     Region region = Region.of(getS3Region());
+    S3ClientBuilder builder =
+        S3Client.builder()
+            .httpClientBuilder(
+                ApacheHttpClient.builder()
+                    .maxConnections(s3MaxConnections)
+                    .tcpKeepAlive(true)
+                    .connectionMaxIdleTime(CONNECTION_MAX_IDLE_TIME))
+            .endpointOverride(URI.create(s3Endpoint))
+            .region(region);
     if (StringUtils.isNotBlank(s3AccessKey)) {
       AwsCredentials awsCredentials = AwsBasicCredentials.create(s3AccessKey, s3SecretKey);
       AwsCredentialsProvider credentialsProvider = StaticCredentialsProvider.create(awsCredentials);
-      return S3Client.builder()
-          .credentialsProvider(credentialsProvider)
-          .endpointOverride(URI.create(s3Endpoint))
-          .region(region)
-          .build();
+      builder.credentialsProvider(credentialsProvider);
+    }
+    return builder.build();
+  }
+
+  private void closeS3Client() {
+    if (s3Client != null) {
+      s3Client.close();
+      s3Client = null;
     }
-    return S3Client.builder().endpointOverride(URI.create(s3Endpoint)).region(region).build();
   }
 }
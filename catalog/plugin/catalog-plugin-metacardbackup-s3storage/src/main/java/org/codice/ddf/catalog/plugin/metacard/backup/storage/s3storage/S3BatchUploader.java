@@ -0,0 +1,320 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.catalog.plugin.metacard.backup.storage.s3storage;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+import org.apache.camel.Exchange;
+import org.apache.camel.component.aws2.s3.AWS2S3Constants;
+import org.apache.commons.lang3.StringUtils;
+import org.codice.ddf.catalog.plugin.metacard.backup.common.MetacardBackupMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.Delete;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.ObjectCannedACL;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Error;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+/**
+ * Writes batches of transformed metacards to an S3 bucket. The objects of a batch are uploaded
+ * concurrently, objects larger than the part size are uploaded in parts that are also uploaded
+ * concurrently, and the deleted objects of a batch are removed with one request per thousand keys.
+ * Batches themselves are written one at a time, so that a batch completed by the aggregator's
+ * timeout cannot overwrite an object with an older version than a batch completed by its size.
+ */
+public class S3BatchUploader {
+
+  /** Header set to {@code true} on exchanges whose object should be deleted. */
+  public static final String DELETE_OBJECT_HEADER = "deleteS3Object";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(S3BatchUploader.class);
+
+  private static final int MAX_DELETE_KEYS = 1000;
+
+  private final S3Client s3Client;
+
+  private final String s3Bucket;
+
+  private final ObjectCannedACL cannedAcl;
+
+  private final long partSize;
+
+  private final Executor executor;
+
+  private final MetacardBackupMetrics metrics;
+
+  /**
+   * @param s3Client the client to upload with
+   * @param s3Bucket the bucket to upload to
+   * @param s3CannedAclName the canned ACL to apply to uploaded objects, may be blank
+   * @param partSize the size of each part of a multipart upload, at least 5 MB
+   * @param executor the executor that uploads objects and parts
+   * @param metrics the meters to record uploads with
+   */
+  public S3BatchUploader(
+      S3Client s3Client,
+      String s3Bucket,
+      String s3CannedAclName,
+      long partSize,
+      Executor executor,
+      MetacardBackupMetrics metrics) {
+    this.s3Client = s3Client;
+    this.s3Bucket = s3Bucket;
+    this.cannedAcl = getCannedAcl(s3CannedAclName);
+    this.partSize = partSize;
+    this.executor = executor;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Uploads or deletes the object of each exchange. When a batch holds more than one exchange for
+   * an object, only the last is applied. Concurrent calls wait for each other.
+   *
+   * @param exchanges exchanges with the object key in the {@link AWS2S3Constants#KEY} header and
+   *     the transformed metacard in the body
+   */
+  public synchronized void upload(List<Exchange> exchanges) {
+    long start = System.nanoTime();
+    Map<String, Exchange> latest = new LinkedHashMap<>();
+    for (Exchange exchange : exchanges) {
+      String key = exchange.getIn().getHeader(AWS2S3Constants.KEY, String.class);
+      if (StringUtils.isBlank(key)) {
+        LOGGER.debug("Unable to back up metacard without an S3 object key.");
+        metrics.failed(exchange);
+        continue;
+      }
+      Exchange replaced = latest.remove(key);
+      if (replaced != null) {
+        metrics.written(replaced);
+      }
+      latest.put(key, exchange);
+    }
+
+    List<String> deletes = new ArrayList<>();
+    Map<String, CompletableFuture<Void>> uploads = new LinkedHashMap<>();
+    for (Map.Entry<String, Exchange> entry : latest.entrySet()) {
+      if (entry.getValue().getIn().getHeader(DELETE_OBJECT_HEADER, false, Boolean.class)) {
+        deletes.add(entry.getKey());
+      } else {
+        uploads.put(entry.getKey(), putObject(entry.getKey(), entry.getValue()));
+      }
+    }
+
+    Set<String> failures = deleteObjects(deletes);
+    for (Map.Entry<String, CompletableFuture<Void>> upload : uploads.entrySet()) {
+      try {
+        upload.getValue().join();
+      } catch (CompletionException e) {
+        LOGGER.debug("Unable to upload [{}] to S3 bucket [{}]", upload.getKey(), s3Bucket, e);
+        failures.add(upload.getKey());
+      }
+    }
+
+    for (Map.Entry<String, Exchange> entry : latest.entrySet()) {
+      if (failures.contains(entry.getKey())) {
+        metrics.failed(entry.getValue());
+      } else {
+        metrics.written(entry.getValue());
+      }
+    }
+    metrics.batchCompleted(exchanges.size(), System.nanoTime() - start);
+
+    if (!failures.isEmpty()) {
+      LOGGER.warn(
+          "Unable to back up {} of {} metacards to S3 bucket [{}]. Failed object keys: {}",
+          failures.size(),
+          latest.size(),
+          s3Bucket,
+          failures);
+    }
+  }
+
+  private CompletableFuture<Void> putObject(String key, Exchange exchange) {
+    byte[] body = exchange.getIn().getBody(byte[].class);
+    if (body == null) {
+      CompletableFuture<Void> failure = new CompletableFuture<>();
+      failure.completeExceptionally(
+          new IllegalArgumentException("Metacard could not be transformed for backup"));
+      return failure;
+    }
+
+    if (body.length <= partSize) {
+      return CompletableFuture.runAsync(
+          () ->
+              s3Client.putObject(
+                  PutObjectRequest.builder()
+                      .bucket(s3Bucket)
+                      .key(key)
+                      .acl(cannedAcl)
+                      .contentLength((long) body.length)
+                      .build(),
+                  RequestBody.fromBytes(body)),
+          executor);
+    }
+    return putMultipartObject(key, body);
+  }
+
+  private CompletableFuture<Void> putMultipartObject(String key, byte[] body) {
+    String uploadId;
+    try {
+      uploadId =
+          s3Client
+              .createMultipartUpload(
+                  CreateMultipartUploadRequest.builder()
+                      .bucket(s3Bucket)
+                      .key(key)
+                      .acl(cannedAcl)
+                      .build())
+              .uploadId();
+    } catch (RuntimeException e) {
+      CompletableFuture<Void> failure = new CompletableFuture<>();
+      failure.completeExceptionally(e);
+      return failure;
+    }
+
+    List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+    for (int offset = 0, partNumber = 1; offset < body.length; offset += partSize, partNumber++) {
+      int partOffset = offset;
+      int partNumberToUpload = partNumber;
+      int length = (int) Math.min(partSize, body.length - offset);
+      parts.add(
+          CompletableFuture.supplyAsync(
+              () -> uploadPart(key, uploadId, partNumberToUpload, body, partOffset, length),
+              executor));
+    }
+
+    return CompletableFuture.allOf(parts.toArray(new CompletableFuture[0]))
+        .thenRun(
+            () ->
+                s3Client.completeMultipartUpload(
+                    CompleteMultipartUploadRequest.builder()
+                        .bucket(s3Bucket)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .multipartUpload(
+                            CompletedMultipartUpload.builder()
+                                .parts(
+                                    parts.stream()
+                                        .map(CompletableFuture::join)
+                                        .collect(Collectors.toList()))
+                                .build())
+                        .build()))
+        .whenComplete(
+            (result, throwable) -> {
+              if (throwable != null) {
+                abortMultipartUpload(key, uploadId);
+              }
+            });
+  }
+
+  private CompletedPart uploadPart(
+      String key, String uploadId, int partNumber, byte[] body, int offset, int length) {
+    String eTag =
+        s3Client
+            .uploadPart(
+                UploadPartRequest.builder()
+                    .bucket(s3Bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .partNumber(partNumber)
+                    .contentLength((long) length)
+                    .build(),
+                RequestBody.fromInputStream(new ByteArrayInputStream(body, offset, length), length))
+            .eTag();
+    return CompletedPart.builder().partNumber(partNumber).eTag(eTag).build();
+  }
+
+  private void abortMultipartUpload(String key, String uploadId) {
+    try {
+      s3Client.abortMultipartUpload(
+          AbortMultipartUploadRequest.builder()
+              .bucket(s3Bucket)
+              .key(key)
+              .uploadId(uploadId)
+              .build());
+    } catch (RuntimeException e) {
+      LOGGER.debug("Unable to abort multipart upload of [{}] to S3", key, e);
+    }
+  }
+
+  /** @return the keys that could not be deleted */
+  private Set<String> deleteObjects(List<String> keys) {
+    Set<String> failures = new LinkedHashSet<>();
+    for (int i = 0; i < keys.size(); i += MAX_DELETE_KEYS) {
+      List<String> batch = keys.subList(i, Math.min(i + MAX_DELETE_KEYS, keys.size()));
+      LOGGER.trace("Deleting {} objects from S3 bucket [{}]", batch.size(), s3Bucket);
+      try {
+        DeleteObjectsResponse response =
+            s3Client.deleteObjects(
+                DeleteObjectsRequest.builder()
+                    .bucket(s3Bucket)
+                    .delete(
+                        Delete.builder()
+                            .objects(
+                                batch.stream()
+                                    .map(key -> ObjectIdentifier.builder().key(key).build())
+                                    .collect(Collectors.toList()))
+                            .quiet(true)
+                            .build())
+                    .build());
+        response.errors().stream().map(S3Error::key).forEach(failures::add);
+      } catch (RuntimeException e) {
+        LOGGER.debug("Unable to delete objects from S3 bucket [{}]", s3Bucket, e);
+        failures.addAll(batch);
+      }
+    }
+    return failures;
+  }
+
+  /*
+   * Accepts the canned ACL as either its S3 value, such as bucket-owner-full-control, or its name,
+   * such as BucketOwnerFullControl.
+   */
+  static ObjectCannedACL getCannedAcl(String s3CannedAclName) {
+    if (StringUtils.isBlank(s3CannedAclName)) {
+      return null;
+    }
+
+    String name = s3CannedAclName.replaceAll("[-_]", "");
+    for (ObjectCannedACL acl : ObjectCannedACL.knownValues()) {
+      if (acl.toString().replace("-", "").equalsIgnoreCase(name)
+          || acl.name().replace("_", "").equalsIgnoreCase(name)) {
+        return acl;
+      }
+    }
+    LOGGER.debug(
+        "Unknown S3 canned ACL [{}]. Objects will be uploaded without one.", s3CannedAclName);
+    return null;
+  }
+}
@@ -85,6 +85,11 @@ public void testRefresh() throws Exception {
     properties.put("s3Endpoint", endpoint);
     properties.put("s3Region", region);
     properties.put("s3CannedAclName", cannedAcl);
+    properties.put("s3MaxConnections", 32);
+    properties.put("s3PartSizeMB", 16);
+    properties.put("batchSize", 50);
+    properties.put("batchTimeoutMillis", 500);
+    properties.put("transformThreads", 2);
 
     s3StorageProvider.refresh(properties);
     assertThat(s3StorageProvider.getObjectTemplate(), is(newObjectTemplate));
@@ -97,6 +102,21 @@ public void testRefresh() throws Exception {
     assertThat(s3StorageProvider.getS3Endpoint(), is(endpoint));
     assertThat(s3StorageProvider.getS3Region(), is(region));
     assertThat(s3StorageProvider.getS3CannedAclName(), is(cannedAcl));
+    assertThat(s3StorageProvider.getS3MaxConnections(), is(32));
+    assertThat(s3StorageProvider.getS3PartSizeMB(), is(16));
+    assertThat(s3StorageProvider.getBatchSize(), is(50));
+    assertThat(s3StorageProvider.getBatchTimeoutMillis(), is(500));
+    assertThat(s3StorageProvider.getTransformThreads(), is(2));
+  }
+
+  @Test
+  public void testMinimumPartSize() throws Exception {
+    Map<String, Object> properties = new HashMap<>();
+    properties.put("s3PartSizeMB", 1);
+    properties.put("s3MaxConnections", 0);
+    s3StorageProvider.refresh(properties);
+    assertThat(s3StorageProvider.getS3PartSizeMB(), is(5));
+    assertThat(s3StorageProvider.getS3MaxConnections(), is(16));
   }
 
   @Test
@@ -0,0 +1,211 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.catalog.plugin.metacard.backup.storage.s3storage;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.component.aws2.s3.AWS2S3Constants;
+import org.codice.ddf.catalog.plugin.metacard.backup.common.MetacardBackupMetrics;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.ObjectCannedACL;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+public class S3BatchUploaderTest {
+
+  private static final String BUCKET = "s3-bucket";
+
+  private static final long PART_SIZE = 4;
+
+  private final MetacardBackupMetrics metrics = MetacardBackupMetrics.forStorage("test");
+
+  private S3Client s3Client;
+
+  private S3BatchUploader uploader;
+
+  @Before
+  public void setUp() {
+    s3Client = mock(S3Client.class);
+    when(s3Client.deleteObjects(any(DeleteObjectsRequest.class)))
+        .thenReturn(DeleteObjectsResponse.builder().build());
+    when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+        .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload").build());
+    when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+        .thenAnswer(
+            invocation ->
+                UploadPartResponse.builder()
+                    .eTag("etag" + invocation.<UploadPartRequest>getArgument(0).partNumber())
+                    .build());
+    uploader =
+        new S3BatchUploader(
+            s3Client, BUCKET, "BucketOwnerFullControl", PART_SIZE, Runnable::run, metrics);
+  }
+
+  @Test
+  public void testUpload() {
+    uploader.upload(Arrays.asList(put("a", "1"), put("b", "2")));
+
+    ArgumentCaptor<PutObjectRequest> requests = ArgumentCaptor.forClass(PutObjectRequest.class);
+    verify(s3Client, times(2)).putObject(requests.capture(), any(RequestBody.class));
+    assertThat(
+        requests.getAllValues().stream().map(PutObjectRequest::key).collect(Collectors.toList()),
+        containsInAnyOrder("a", "b"));
+    assertThat(requests.getValue().bucket(), is(BUCKET));
+    assertThat(requests.getValue().acl(), is(ObjectCannedACL.BUCKET_OWNER_FULL_CONTROL));
+    verify(s3Client, never()).deleteObjects(any(DeleteObjectsRequest.class));
+  }
+
+  @Test(timeout = 10000)
+  public void testBatchesAreUploadedOneAtATime() throws Exception {
+    CountDownLatch firstUploadStarted = new CountDownLatch(1);
+    CountDownLatch releaseFirstUpload = new CountDownLatch(1);
+    AtomicInteger uploadsInProgress = new AtomicInteger();
+    AtomicInteger maxUploadsInProgress = new AtomicInteger();
+    when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class)))
+        .thenAnswer(
+            invocation -> {
+              maxUploadsInProgress.accumulateAndGet(uploadsInProgress.incrementAndGet(), Math::max);
+              if (invocation.<PutObjectRequest>getArgument(0).key().equals("a")) {
+                firstUploadStarted.countDown();
+                releaseFirstUpload.await();
+              }
+              uploadsInProgress.decrementAndGet();
+              return null;
+            });
+
+    Thread firstBatch = new Thread(() -> uploader.upload(Arrays.asList(put("a", "1"))));
+    firstBatch.start();
+    firstUploadStarted.await();
+    Thread secondBatch = new Thread(() -> uploader.upload(Arrays.asList(put("a", "2"))));
+    secondBatch.start();
+    // give the second batch time to start, it must wait for the first
+    secondBatch.join(200);
+    releaseFirstUpload.countDown();
+    firstBatch.join();
+    secondBatch.join();
+
+    assertThat(maxUploadsInProgress.get(), is(1));
+    verify(s3Client, times(2)).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+  }
+
+  @Test
+  public void testDeletesAreBatched() {
+    uploader.upload(Arrays.asList(put("a", "1"), delete("a"), delete("b"), put("c", "3")));
+
+    ArgumentCaptor<DeleteObjectsRequest> deleteRequest =
+        ArgumentCaptor.forClass(DeleteObjectsRequest.class);
+    verify(s3Client).deleteObjects(deleteRequest.capture());
+    assertThat(
+        deleteRequest.getValue().delete().objects().stream()
+            .map(ObjectIdentifier::key)
+            .collect(Collectors.toList()),
+        contains("a", "b"));
+
+    ArgumentCaptor<PutObjectRequest> putRequest = ArgumentCaptor.forClass(PutObjectRequest.class);
+    verify(s3Client).putObject(putRequest.capture(), any(RequestBody.class));
+    assertThat(putRequest.getValue().key(), is("c"));
+  }
+
+  @Test
+  public void testMultipartUpload() {
+    uploader.upload(Arrays.asList(put("a", "0123456789")));
+
+    verify(s3Client, times(3)).uploadPart(any(UploadPartRequest.class), any(RequestBody.class));
+    ArgumentCaptor<CompleteMultipartUploadRequest> request =
+        ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+    verify(s3Client).completeMultipartUpload(request.capture());
+    assertThat(request.getValue().uploadId(), is("upload"));
+    assertThat(
+        request.getValue().multipartUpload().parts().stream()
+            .map(CompletedPart::eTag)
+            .collect(Collectors.toList()),
+        contains("etag1", "etag2", "etag3"));
+    verify(s3Client, never()).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+  }
+
+  @Test
+  public void testFailedPartAbortsMultipartUpload() {
+    doThrow(S3Exception.builder().message("failed").build())
+        .when(s3Client)
+        .uploadPart(any(UploadPartRequest.class), any(RequestBody.class));
+
+    uploader.upload(Arrays.asList(put("a", "0123456789"), put("b", "1")));
+
+    verify(s3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+    verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    verify(s3Client).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+  }
+
+  @Test
+  public void testGetCannedAcl() {
+    assertThat(S3BatchUploader.getCannedAcl("PublicRead"), is(ObjectCannedACL.PUBLIC_READ));
+    assertThat(S3BatchUploader.getCannedAcl("public-read"), is(ObjectCannedACL.PUBLIC_READ));
+    assertThat(S3BatchUploader.getCannedAcl("PUBLIC_READ"), is(ObjectCannedACL.PUBLIC_READ));
+    assertThat(S3BatchUploader.getCannedAcl("unknown"), is(nullValue()));
+    assertThat(S3BatchUploader.getCannedAcl(""), is(nullValue()));
+  }
+
+  private Exchange put(String key, String body) {
+    Exchange exchange = getExchange(key, false);
+    when(exchange.getIn().getBody(byte[].class)).thenReturn(body.getBytes(StandardCharsets.UTF_8));
+    return exchange;
+  }
+
+  private Exchange delete(String key) {
+    return getExchange(key, true);
+  }
+
+  private Exchange getExchange(String key, boolean delete) {
+    Message message = mock(Message.class);
+    when(message.getHeader(AWS2S3Constants.KEY, String.class)).thenReturn(key);
+    when(message.getHeader(S3BatchUploader.DELETE_OBJECT_HEADER, false, Boolean.class))
+        .thenReturn(delete);
+    Exchange exchange = mock(Exchange.class);
+    when(exchange.getIn()).thenReturn(message);
+    when(exchange.getCreated()).thenReturn(System.currentTimeMillis());
+    return exchange;
+  }
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.catalog.plugin.metacard.backup.common;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.camel.Exchange;
+
+/**
+ * Meters for the metacard backup routes, shared by every route that backs up to the same kind of
+ * storage.
+ *
+ * <p>The pending gauge is the number of transformed metacards waiting to be written, and the lag
+ * timer is the time from a metacard leaving post-ingest until it is written. Both grow when backups
+ * fall behind ingest.
+ */
+public class MetacardBackupMetrics {
+
+  private static final String METRIC_PREFIX = "ddf.catalog.backup";
+
+  private static final Map<String, MetacardBackupMetrics> METRICS = new ConcurrentHashMap<>();
+
+  private final AtomicLong pending;
+
+  private final Counter received;
+
+  private final Counter written;
+
+  private final Counter failed;
+
+  private final Timer lag;
+
+  private final Timer batchDuration;
+
+  private final DistributionSummary batchSize;
+
+  private MetacardBackupMetrics(String storage) {
+    Tags tags = Tags.of("storage", storage);
+    pending = Metrics.gauge(METRIC_PREFIX + ".pending", tags, new AtomicLong());
+    received = Metrics.counter(METRIC_PREFIX + ".received", tags);
+    written = Metrics.counter(METRIC_PREFIX + ".written", tags);
+    failed = Metrics.counter(METRIC_PREFIX + ".failed", tags);
+    lag = Metrics.timer(METRIC_PREFIX + ".lag", tags);
+    batchDuration = Metrics.timer(METRIC_PREFIX + ".batch.duration", tags);
+    batchSize = Metrics.summary(METRIC_PREFIX + ".batch.size", tags);
+  }
+
+  /**
+   * @param storage the kind of storage, used to tag the meters
+   * @return the meters for the storage
+   */
+  public static MetacardBackupMetrics forStorage(String storage) {
+    return METRICS.computeIfAbsent(storage, MetacardBackupMetrics::new);
+  }
+
+  /** Records a metacard received from post-ingest. */
+  public void received(Exchange exchange) {
+    received.increment();
+  }
+
+  /** Records a transformed metacard waiting to be written. */
+  public void queued(Exchange exchange) {
+    pending.incrementAndGet();
+  }
+
+  /** Records a metacard that was written or deleted. */
+  public void written(Exchange exchange) {
+    written.increment();
+    lag.record(System.currentTimeMillis() - exchange.getCreated(), TimeUnit.MILLISECONDS);
+  }
+
+  /** Records a metacard that could not be written or deleted. */
+  public void failed(Exchange exchange) {
+    failed.increment();
+  }
+
+  /**
+   * Records a batch of queued metacards that has been processed.
+   *
+   * @param size the number of metacards in the batch
+   * @param durationNanos the time taken to write the batch
+   */
+  public void batchCompleted(int size, long durationNanos) {
+    pending.addAndGet(-size);
+    batchSize.record(size);
+    batchDuration.record(durationNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /** @return the number of transformed metacards waiting to be written */
+  public long getPending() {
+    return pending.get();
+  }
+}
@@ -20,13 +20,16 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 import org.apache.camel.CamelContext;
 import org.apache.camel.Predicate;
 import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.builder.ThreadPoolProfileBuilder;
 import org.apache.camel.model.ModelCamelContext;
 import org.apache.camel.model.RouteDefinition;
 import org.apache.camel.model.RoutesDefinition;
+import org.apache.camel.util.concurrent.ThreadPoolRejectedPolicy;
 import org.apache.commons.lang3.BooleanUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -49,6 +52,12 @@ public abstract class MetacardStorageRoute extends RouteBuilder {
 
   public static final String METACARD_BACKUP_TAGS_PROPERTY = "backupMetacardTags";
 
+  public static final String BATCH_SIZE_PROPERTY = "batchSize";
+
+  public static final String BATCH_TIMEOUT_PROPERTY = "batchTimeoutMillis";
+
+  public static final String TRANSFORM_THREADS_PROPERTY = "transformThreads";
+
   private static final String INVALID_TAG = "INVALID";
 
   protected boolean backupInvalidMetacards;
@@ -59,6 +68,14 @@ public abstract class MetacardStorageRoute extends RouteBuilder {
 
   protected List<String> backupMetacardTags;
 
+  protected int batchSize = 100;
+
+  protected int batchTimeoutMillis = 1000;
+
+  protected int transformThreads = 4;
+
+  private ExecutorService transformExecutor;
+
   private static final Logger LOGGER = LoggerFactory.getLogger(MetacardStorageRoute.class);
 
   public MetacardStorageRoute(CamelContext camelContext) {
@@ -92,6 +109,11 @@ public void stop(int code) {
     } catch (Exception e) {
       LOGGER.error("Could not stop route: {}", e);
     }
+
+    if (transformExecutor != null) {
+      getContext().getExecutorServiceManager().shutdown(transformExecutor);
+      transformExecutor = null;
+    }
   }
 
   public abstract List<String> getRouteIds();
@@ -128,6 +150,30 @@ public void setBackupMetacardTags(List<String> backupMetacardTags) {
     this.backupMetacardTags = backupMetacardTags;
   }
 
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  public int getBatchTimeoutMillis() {
+    return batchTimeoutMillis;
+  }
+
+  public void setBatchTimeoutMillis(int batchTimeoutMillis) {
+    this.batchTimeoutMillis = batchTimeoutMillis;
+  }
+
+  public int getTransformThreads() {
+    return transformThreads;
+  }
+
+  public void setTransformThreads(int transformThreads) {
+    this.transformThreads = transformThreads;
+  }
+
   public void refresh(Map<String, Object> properties) throws Exception {
     Object backupInvalidProp = properties.get(BACKUP_INVALID_PROPERTY);
     if (backupInvalidProp instanceof Boolean) {
@@ -149,6 +195,21 @@ public void refresh(Map<String, Object> properties) throws Exception {
       this.backupMetacardTags = (List<String>) metacardTagsProp;
     }
 
+    Object batchSizeProp = properties.get(BATCH_SIZE_PROPERTY);
+    if (batchSizeProp instanceof Integer && (Integer) batchSizeProp > 0) {
+      this.batchSize = (Integer) batchSizeProp;
+    }
+
+    Object batchTimeoutProp = properties.get(BATCH_TIMEOUT_PROPERTY);
+    if (batchTimeoutProp instanceof Integer && (Integer) batchTimeoutProp > 0) {
+      this.batchTimeoutMillis = (Integer) batchTimeoutProp;
+    }
+
+    Object transformThreadsProp = properties.get(TRANSFORM_THREADS_PROPERTY);
+    if (transformThreadsProp instanceof Integer && (Integer) transformThreadsProp > 0) {
+      this.transformThreads = (Integer) transformThreadsProp;
+    }
+
     stop(0);
     configure();
     start();
@@ -172,6 +233,32 @@ public boolean shouldBackupMetacard(Metacard metacard, boolean backupInvalid) {
     }
   }
 
+  /**
+   * Returns the thread pool used to transform the metacards of a response in parallel. Its queue is
+   * bounded and a full queue runs the transformation on the post-ingest thread, so that backups
+   * slow post-ingest down rather than queuing without bound. The pool is shut down when the route
+   * stops.
+   *
+   * @return the thread pool for metacard transformations
+   */
+  protected ExecutorService getTransformExecutor() {
+    if (transformExecutor == null) {
+      transformExecutor =
+          getContext()
+              .getExecutorServiceManager()
+              .newThreadPool(
+                  this,
+                  "metacardBackupTransform",
+                  new ThreadPoolProfileBuilder("metacardBackupTransform")
+                      .poolSize(transformThreads)
+                      .maxPoolSize(transformThreads)
+                      .maxQueueSize(transformThreads * 4)
+                      .rejectedPolicy(ThreadPoolRejectedPolicy.CallerRuns)
+                      .build());
+    }
+    return transformExecutor;
+  }
+
   protected Predicate getShouldBackupPredicate() {
     return exchange -> {
       Object bodyObj = exchange.getIn().getBody();
@@ -13,7 +13,13 @@
  */
 package ddf.services.schematron;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Resources;
 import ddf.catalog.data.Metacard;
 import ddf.catalog.util.Describable;
 import ddf.catalog.validation.MetacardValidator;
@@ -24,14 +30,23 @@
 import ddf.catalog.validation.impl.violation.ValidationViolationImpl;
 import ddf.catalog.validation.report.MetacardValidationReport;
 import ddf.catalog.validation.violation.ValidationViolation;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.StringReader;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -49,6 +64,7 @@
 import javax.xml.transform.dom.DOMResult;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.sax.SAXSource;
+import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 import net.sf.saxon.Configuration;
 import net.sf.saxon.TransformerFactoryImpl;
@@ -80,7 +96,13 @@
  * </ol>
  *
  * <p>When XML documents are ingested, this service will run the XSLT generated by stage 3 against
- * the XML document, validating it against the "compiled" Schematron schema file.
+ * the XML document, validating it against the "compiled" Schematron schema file. The document is
+ * parsed once, and each schema file's XSLT is run against it concurrently. The reports for recently
+ * validated documents are kept, so validating the same metadata again does not run the XSLT.
+ *
+ * <p>If a compiled rules directory is set, the XSLT generated by stages 2 and 3 is kept there,
+ * keyed by a hash of the output of stage 1, so that it is only generated again when the schema, or
+ * a file it includes, changes.
  *
  * <p>This service is using the SVRL script, hence the output of the validation will be an
  * SVRL-formatted XML document.
@@ -100,14 +122,22 @@
 
   private static final XMLUtils XML_UTILS = XMLUtils.getInstance();
 
+  private static final String ISO_SCHEMATRON_FOLDER = "iso-schematron/";
+
+  private static final String COMPILED_RULES_EXTENSION = ".xsl";
+
+  private static final int REPORT_CACHE_SIZE = 1000;
+
+  private static final long TIMEOUT_MINUTES = 10;
+
   private TransformerFactory transformerFactory;
 
   private int priority = 10;
 
-  private SchematronReport schematronReport;
-
   private List<String> schematronFileNames;
 
+  private Path compiledRulesDirectory;
+
   private boolean suppressWarnings = false;
 
   private String namespace;
@@ -116,7 +146,7 @@
 
   private ExecutorService pool = getThreadPool();
 
-  private List<Future<Templates>> validators = new ArrayList<>();
+  private volatile Validators validators = new Validators(Collections.emptyList());
 
   private static ExecutorService getThreadPool() throws NumberFormatException {
     Integer threadPoolSize =
@@ -153,17 +183,22 @@ public void init() throws SchematronInitializationException {
     updateValidators();
   }
 
+  public void destroy() {
+    pool.shutdownNow();
+  }
+
   private void updateValidators() throws SchematronInitializationException {
-    validators.clear();
+    List<Future<Templates>> templates = new ArrayList<>();
     for (String schematronFileName : schematronFileNames) {
       FutureTask<Templates> task =
           new FutureTask<Templates>(
               () -> {
                 return compileSchematronRules(schematronFileName);
               });
-      validators.add(task);
+      templates.add(task);
       pool.submit(task);
     }
+    validators = new Validators(templates);
   }
 
   private Templates compileSchematronRules(String schematronFileName)
@@ -184,14 +219,27 @@ private Templates compileSchematronRules(String schematronFileName)
       DOMResult stage1Result =
           performStage(
               schSource,
-              getClass().getClassLoader().getResource("iso-schematron/iso_dsdl_include.xsl"));
+              getClass()
+                  .getClassLoader()
+                  .getResource(ISO_SCHEMATRON_FOLDER + "iso_dsdl_include.xsl"));
       DOMSource stage1Output = new DOMSource(stage1Result.getNode());
 
+      Path compiledRules = getCompiledRulesPath(stage1Output);
+      if (compiledRules != null && compiledRules.toFile().isFile()) {
+        try {
+          return newTemplates(new StreamSource(compiledRules.toFile()), schUrl);
+        } catch (TransformerException e) {
+          LOGGER.debug("Unable to load compiled rules {}. Compiling them again.", compiledRules, e);
+        }
+      }
+
       // Stage 2: Perform abstract expansion on output file from Stage 1
       DOMResult stage2Result =
           performStage(
               stage1Output,
-              getClass().getClassLoader().getResource("iso-schematron/iso_abstract_expand.xsl"));
+              getClass()
+                  .getClassLoader()
+                  .getResource(ISO_SCHEMATRON_FOLDER + "iso_abstract_expand.xsl"));
       DOMSource stage2Output = new DOMSource(stage2Result.getNode());
 
       // Stage 3: Compile the .sch rules that have been prepocessed by Stages 1 and 2 (i.e.,
@@ -199,13 +247,16 @@ private Templates compileSchematronRules(String schematronFileName)
       DOMResult stage3Result =
           performStage(
               stage2Output,
-              getClass().getClassLoader().getResource("iso-schematron/iso_svrl_for_xslt2.xsl"));
+              getClass()
+                  .getClassLoader()
+                  .getResource(ISO_SCHEMATRON_FOLDER + "iso_svrl_for_xslt2.xsl"));
       DOMSource stage3Output = new DOMSource(stage3Result.getNode());
 
-      // Setting the system ID let's us resolve relative paths in the schematron files.
-      // We need the URL string so that the string is properly formatted (e.g. space = %20).
-      stage3Output.setSystemId(schUrl.toString());
-      template = transformerFactory.newTemplates(stage3Output);
+      if (compiledRules != null) {
+        writeCompiledRules(stage3Output, compiledRules);
+      }
+
+      template = newTemplates(stage3Output, schUrl);
     } catch (Exception e) {
       throw new SchematronInitializationException(
           "Error trying to create SchematronValidationService using sch file " + schematronFileName,
@@ -215,6 +266,62 @@ private Templates compileSchematronRules(String schematronFileName)
     return template;
   }
 
+  private Templates newTemplates(Source compiledRules, URL schUrl) throws TransformerException {
+    // Setting the system ID let's us resolve relative paths in the schematron files.
+    // We need the URL string so that the string is properly formatted (e.g. space = %20).
+    compiledRules.setSystemId(schUrl.toString());
+    return transformerFactory.newTemplates(compiledRules);
+  }
+
+  /*
+   * The rules generated by stages 2 and 3 depend only on the output of stage 1 and on the
+   * stylesheets used by those stages, so a hash of them identifies the generated rules.
+   */
+  private Path getCompiledRulesPath(Source stage1Output) throws TransformerException, IOException {
+    if (compiledRulesDirectory == null) {
+      return null;
+    }
+
+    ByteArrayOutputStream stage1Bytes = new ByteArrayOutputStream();
+    transformerFactory.newTransformer().transform(stage1Output, new StreamResult(stage1Bytes));
+
+    Hasher hasher = Hashing.sha256().newHasher().putBytes(stage1Bytes.toByteArray());
+    for (String stylesheet :
+        new String[] {
+          "iso_abstract_expand.xsl",
+          "iso_svrl_for_xslt2.xsl",
+          "iso_schematron_skeleton_for_saxon.xsl"
+        }) {
+      hasher.putBytes(
+          Resources.toByteArray(
+              getClass().getClassLoader().getResource(ISO_SCHEMATRON_FOLDER + stylesheet)));
+    }
+    return compiledRulesDirectory.resolve(hasher.hash() + COMPILED_RULES_EXTENSION);
+  }
+
+  private void writeCompiledRules(Source compiledRules, Path path) {
+    try {
+      Files.createDirectories(path.getParent());
+      Path temporaryPath = Files.createTempFile(path.getParent(), null, COMPILED_RULES_EXTENSION);
+      try {
+        try (OutputStream outputStream = Files.newOutputStream(temporaryPath)) {
+          transformerFactory
+              .newTransformer()
+              .transform(compiledRules, new StreamResult(outputStream));
+        }
+        Files.move(
+            temporaryPath,
+            path,
+            StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(temporaryPath);
+      }
+    } catch (IOException | TransformerException e) {
+      LOGGER.debug("Unable to write compiled rules {}", path, e);
+    }
+  }
+
   private DOMResult performStage(Source input, URL preprocessorUrl)
       throws TransformerException, ParserConfigurationException, SchematronInitializationException {
 
@@ -251,6 +358,15 @@ public void setSchematronFileNames(List<String> schematronFileNames)
     }
   }
 
+  /**
+   * @param compiledRulesDirectory the directory that keeps the XSLT compiled from the schematron
+   *     files, or null to compile the schematron files every time they are loaded
+   */
+  public void setCompiledRulesDirectory(String compiledRulesDirectory) {
+    this.compiledRulesDirectory =
+        StringUtils.isBlank(compiledRulesDirectory) ? null : Paths.get(compiledRulesDirectory);
+  }
+
   public void setNamespace(String namespace) {
     this.namespace = namespace;
   }
@@ -299,46 +415,93 @@ public void validate(Metacard metacard) throws ValidationException {
   private MetacardValidationReport generateReport(Metacard metacard)
       throws ValidationExceptionImpl {
     MetacardValidationReportImpl report = new MetacardValidationReportImpl();
-    Set<String> attributes = ImmutableSet.of("metadata");
     String metadata = metacard.getMetadata();
     boolean canBeValidated =
         !(StringUtils.isEmpty(metadata)
             || (namespace != null && !namespace.equals(XML_UTILS.getRootNamespace(metadata))));
     if (canBeValidated) {
-      try {
-        for (Future<Templates> validator : validators) {
-          schematronReport = generateReport(metadata, validator.get(10, TimeUnit.MINUTES));
-          schematronReport
-              .getErrors()
-              .forEach(
-                  errorMsg ->
-                      report.addMetacardViolation(
-                          new ValidationViolationImpl(
-                              attributes, sanitize(errorMsg), ValidationViolation.Severity.ERROR)));
-          schematronReport
-              .getWarnings()
-              .forEach(
-                  warningMsg ->
-                      report.addMetacardViolation(
-                          new ValidationViolationImpl(
-                              attributes,
-                              sanitize(warningMsg),
-                              ValidationViolation.Severity.WARNING)));
+      Validators current = validators;
+      HashCode metadataHash = Hashing.sha256().hashString(metadata, StandardCharsets.UTF_8);
+      List<ValidationViolation> violations = current.reports.getIfPresent(metadataHash);
+      if (violations == null) {
+        violations = getViolations(metadata, current.templates);
+        current.reports.put(metadataHash, violations);
+      }
+      violations.forEach(report::addMetacardViolation);
+    }
+    return report;
+  }
+
+  private List<ValidationViolation> getViolations(
+      String metadata, List<Future<Templates>> templates) throws ValidationExceptionImpl {
+    Set<String> attributes = ImmutableSet.of("metadata");
+    List<ValidationViolation> violations = new ArrayList<>();
+    List<Future<SchematronReport>> reports = new ArrayList<>();
+    try {
+      List<Templates> compiledTemplates = new ArrayList<>();
+      for (Future<Templates> template : templates) {
+        compiledTemplates.add(template.get(TIMEOUT_MINUTES, TimeUnit.MINUTES));
+      }
+
+      Source document = parse(metadata);
+      if (compiledTemplates.size() == 1) {
+        reports.add(
+            CompletableFuture.completedFuture(generateReport(document, compiledTemplates.get(0))));
+      } else {
+        for (Templates template : compiledTemplates) {
+          reports.add(pool.submit(() -> generateReport(document, template)));
         }
-      } catch (TimeoutException | ExecutionException e) {
-        throw new ValidationExceptionImpl(e);
-      } catch (InterruptedException e) {
-        Thread.currentThread().interrupt();
+      }
 
-        throw new ValidationExceptionImpl(e);
+      for (Future<SchematronReport> future : reports) {
+        SchematronReport schematronReport = getReport(future);
+        schematronReport
+            .getErrors()
+            .forEach(
+                errorMsg ->
+                    violations.add(
+                        new ValidationViolationImpl(
+                            attributes, sanitize(errorMsg), ValidationViolation.Severity.ERROR)));
+        schematronReport
+            .getWarnings()
+            .forEach(
+                warningMsg ->
+                    violations.add(
+                        new ValidationViolationImpl(
+                            attributes,
+                            sanitize(warningMsg),
+                            ValidationViolation.Severity.WARNING)));
       }
+    } catch (TimeoutException | ExecutionException e) {
+      throw new ValidationExceptionImpl(e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+
+      throw new ValidationExceptionImpl(e);
+    } finally {
+      reports.forEach(future -> future.cancel(true));
     }
-    return report;
+    return Collections.unmodifiableList(violations);
   }
 
-  private SchematronReport generateReport(String metadata, Templates validator)
-      throws SchematronValidationException {
+  private SchematronReport getReport(Future<SchematronReport> future)
+      throws InterruptedException, TimeoutException, ExecutionException,
+          SchematronValidationException {
+    try {
+      return future.get(TIMEOUT_MINUTES, TimeUnit.MINUTES);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof SchematronValidationException) {
+        throw (SchematronValidationException) e.getCause();
+      }
+      throw e;
+    }
+  }
 
+  /*
+   * Parses the metadata into a Saxon tree. The tree is immutable, so every ruleset can be run
+   * against it at the same time.
+   */
+  private Source parse(String metadata) throws SchematronValidationException {
     XMLReader xmlReader = null;
     try {
       XMLReader xmlParser = XML_UTILS.getSecureXmlParser();
@@ -347,12 +510,23 @@ private SchematronReport generateReport(String metadata, Templates validator)
       throw new SchematronValidationException(e);
     }
 
+    try {
+      return ((TransformerFactoryImpl) transformerFactory)
+          .getConfiguration()
+          .buildDocument(new SAXSource(xmlReader, new InputSource(new StringReader(metadata))));
+    } catch (TransformerException e) {
+      throw new SchematronValidationException(
+          "Could not setup validator to perform validation.", e);
+    }
+  }
+
+  private SchematronReport generateReport(Source document, Templates validator)
+      throws SchematronValidationException {
     SchematronReport report;
     try {
       Transformer transformer = validator.newTransformer();
       DOMResult schematronResult = new DOMResult();
-      transformer.transform(
-          new SAXSource(xmlReader, new InputSource(new StringReader(metadata))), schematronResult);
+      transformer.transform(document, schematronResult);
       report = new SvrlReport(schematronResult);
     } catch (TransformerException e) {
       throw new SchematronValidationException(
@@ -400,6 +574,22 @@ public Optional<MetacardValidationReport> validateMetacard(Metacard metacard) {
     }
   }
 
+  /**
+   * The compiled schematron files, and the violations they found in recently validated metadata,
+   * keyed by the metadata's hash. Both are replaced together when the schematron files change.
+   */
+  private static class Validators {
+
+    private final List<Future<Templates>> templates;
+
+    private final Cache<HashCode, List<ValidationViolation>> reports =
+        CacheBuilder.newBuilder().maximumSize(REPORT_CACHE_SIZE).build();
+
+    Validators(List<Future<Templates>> templates) {
+      this.templates = templates;
+    }
+  }
+
   /**
    * The Listener class which catches Saxon configuration errors.
    *
@@ -15,6 +15,7 @@
 
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -27,6 +28,7 @@
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Optional;
@@ -188,6 +190,38 @@ public void testWarningsAndErrorsAreSanitized()
     verify(service, times(4)).sanitize(anyString());
   }
 
+  @Test
+  public void testCompiledRulesAreKept() throws Exception {
+    File compiledRulesDirectory = testFolder.newFolder("compiled rules");
+    getService(compiledRulesDirectory, false, null, true, "dog_legs.sch")
+        .validate(getMetacard("dog_4leg_3paw.xml"));
+
+    File[] compiledRules = compiledRulesDirectory.listFiles();
+    assertThat(compiledRules.length, is(1));
+    long lastModified = compiledRules[0].lastModified();
+
+    SchematronValidationService service =
+        getService(compiledRulesDirectory, false, null, true, "dog_legs.sch");
+    Optional<MetacardValidationReport> report =
+        service.validateMetacard(getMetacard("dog_3leg_3paw.xml"));
+
+    assertThat(report.get().getMetacardValidationViolations(), is(not(empty())));
+    assertThat(compiledRulesDirectory.listFiles().length, is(1));
+    assertThat(compiledRules[0].lastModified(), is(lastModified));
+  }
+
+  @Test(expected = SchematronValidationException.class)
+  public void testInvalidCompiledRulesAreReplaced() throws Exception {
+    File compiledRulesDirectory = testFolder.newFolder("compiled rules");
+    getService(compiledRulesDirectory, false, null, true, "dog_legs.sch")
+        .validate(getMetacard("dog_4leg_3paw.xml"));
+    File[] compiledRules = compiledRulesDirectory.listFiles();
+    FileUtils.writeStringToFile(compiledRules[0], "not a stylesheet", StandardCharsets.UTF_8);
+
+    getService(compiledRulesDirectory, false, null, true, "dog_legs.sch")
+        .validate(getMetacard("dog_3leg_3paw.xml"));
+  }
+
   @Test
   public void testSanitizationChangesNothing() {
     String str = "ontattoinewerunfromsandpeople";
@@ -231,10 +265,23 @@ private SchematronValidationService getService(String... schematronFiles)
   private SchematronValidationService getService(
       boolean suppressWarnings, String namespace, boolean useClassLoader, String... schematronFiles)
       throws SchematronInitializationException {
+    return getService(null, suppressWarnings, namespace, useClassLoader, schematronFiles);
+  }
+
+  private SchematronValidationService getService(
+      File compiledRulesDirectory,
+      boolean suppressWarnings,
+      String namespace,
+      boolean useClassLoader,
+      String... schematronFiles)
+      throws SchematronInitializationException {
 
     SchematronValidationService service = Mockito.spy(new SchematronValidationService());
     service.setSuppressWarnings(suppressWarnings);
     service.setNamespace(namespace);
+    if (compiledRulesDirectory != null) {
+      service.setCompiledRulesDirectory(compiledRulesDirectory.getAbsolutePath());
+    }
 
     ArrayList<String> schemaFiles = new ArrayList<>();
     for (String schematronFile : schematronFiles) {
@@ -14,9 +14,12 @@
 package ddf.catalog.source.solr;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import ddf.catalog.data.AttributeType.AttributeFormat;
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.Result;
+import ddf.catalog.data.types.Security;
+import ddf.catalog.data.types.Validation;
 import ddf.catalog.filter.FilterDelegate;
 import ddf.catalog.impl.filter.DivisibleByFunction;
 import ddf.catalog.impl.filter.ProximityFunction;
@@ -31,6 +34,7 @@
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -62,11 +66,41 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-/** Translates filter-proxy calls into Solr query syntax. */
+/**
+ * Translates filter-proxy calls into Solr query syntax.
+ *
+ * <p>The delegate keeps track of which parts of the query only restrict the metacards that match,
+ * such as the tags, validation and security filters that are added to most queries, and spatial
+ * filters. {@link #splitFilterQueries(SolrQuery)} moves them from the query into filter queries,
+ * whose results Solr can cache and reuse across queries.
+ */
 public class SolrFilterDelegate extends FilterDelegate<SolrQuery> {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(SolrFilterDelegate.class);
 
+  /**
+   * Attributes that are used to restrict, rather than search for, metacards, and that are
+   * restricted the same way by many queries.
+   */
+  private static final Set<String> FILTER_ATTRIBUTES =
+      ImmutableSet.of(
+          Metacard.TAGS,
+          Validation.VALIDATION_ERRORS,
+          Validation.VALIDATION_WARNINGS,
+          Security.ACCESS_GROUPS,
+          Security.ACCESS_GROUPS_READ,
+          Security.ACCESS_INDIVIDUALS,
+          Security.ACCESS_INDIVIDUALS_READ,
+          Security.ACCESS_ADMINISTRATORS);
+
+  /**
+   * Spatial filters rarely repeat, so their results are not cached, and their cost makes Solr check
+   * them after the other filters.
+   */
+  private static final String SPATIAL_FILTER_PARAMS = "{!cache=false cost=100}";
+
+  private static final String MATCH_ALL = "*:*";
+
   private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
 
   private static final String POINT_TYPE = "Point";
@@ -157,6 +191,13 @@ public class SolrFilterDelegate extends FilterDelegate<SolrQuery> {
 
   private Map<String, Serializable> enabledFeatures;
 
+  private final Map<SolrQuery, ClauseType> clauseTypes = new IdentityHashMap<>();
+
+  /**
+   * The clauses of each query created by {@link #and(List)}, with nested conjunctions flattened.
+   */
+  private final Map<SolrQuery, List<Clause>> conjunctions = new IdentityHashMap<>();
+
   public SolrFilterDelegate(
       DynamicSchemaResolver resolver, Map<String, Serializable> enabledFeatures) {
     this.resolver = resolver;
@@ -197,19 +238,118 @@ public SolrQuery propertyIsEqualTo(String functionName, List<Object> arguments,
 
   @Override
   public SolrQuery and(List<SolrQuery> operands) {
+    List<Clause> clauses = new ArrayList<>();
+    if (operands != null) {
+      for (SolrQuery operand : operands) {
+        if (operand != null) {
+          List<Clause> nestedClauses = conjunctions.get(operand);
+          if (nestedClauses != null) {
+            clauses.addAll(nestedClauses);
+          } else {
+            clauses.add(new Clause(operand.getQuery(), getClauseType(operand)));
+          }
+        }
+      }
+    }
+    ClauseType clauseType = getClauseType(operands);
+
     SolrQuery query = logicalOperator(operands, AND);
+    clauseTypes.put(query, clauseType);
+    conjunctions.put(query, clauses);
     return query;
   }
 
   @Override
   public SolrQuery or(List<SolrQuery> operands) {
+    ClauseType clauseType = getClauseType(operands);
+
     SolrQuery query = logicalOperator(operands, OR);
+    clauseTypes.put(query, clauseType);
+    conjunctions.remove(query);
     return query;
   }
 
   @Override
   public SolrQuery not(SolrQuery operand) {
-    return new SolrQuery("(*:* NOT " + operand.getQuery() + ")");
+    SolrQuery query = new SolrQuery("(*:* NOT " + operand.getQuery() + ")");
+    clauseTypes.put(query, getClauseType(operand));
+    return query;
+  }
+
+  /**
+   * Moves the clauses of a query created by this delegate that only restrict the metacards that
+   * match into filter queries. If the query is a conjunction, each of its clauses that is a filter
+   * becomes a separate filter query, so that it can be cached on its own.
+   *
+   * @param query the query created by this delegate for the whole filter
+   */
+  public void splitFilterQueries(SolrQuery query) {
+    List<Clause> clauses = conjunctions.get(query);
+    if (clauses == null) {
+      clauses = Collections.singletonList(new Clause(query.getQuery(), getClauseType(query)));
+    }
+    if (clauses.stream().allMatch(clause -> clause.type == ClauseType.QUERY)) {
+      return;
+    }
+
+    List<String> queryClauses = new ArrayList<>();
+    for (Clause clause : clauses) {
+      switch (clause.type) {
+        case FILTER:
+          query.addFilterQuery(clause.query);
+          break;
+        case SPATIAL_FILTER:
+          query.addFilterQuery(SPATIAL_FILTER_PARAMS + clause.query);
+          break;
+        default:
+          queryClauses.add(clause.query);
+      }
+    }
+
+    if (queryClauses.isEmpty()) {
+      query.setQuery(MATCH_ALL);
+    } else if (queryClauses.size() == 1) {
+      query.setQuery(queryClauses.get(0));
+    } else {
+      query.setQuery(START_PAREN + String.join(AND, queryClauses) + END_PAREN);
+    }
+  }
+
+  private ClauseType getClauseType(SolrQuery query) {
+    return query == null ? ClauseType.QUERY : clauseTypes.getOrDefault(query, ClauseType.QUERY);
+  }
+
+  /*
+   * A combination of clauses is a filter if all of them are, and a spatial filter if any of those
+   * is spatial.
+   */
+  private ClauseType getClauseType(List<SolrQuery> operands) {
+    if (operands == null || operands.isEmpty()) {
+      return ClauseType.QUERY;
+    }
+
+    ClauseType clauseType = ClauseType.FILTER;
+    for (SolrQuery operand : operands) {
+      ClauseType operandType = getClauseType(operand);
+      if (operandType == ClauseType.QUERY) {
+        return ClauseType.QUERY;
+      } else if (operandType == ClauseType.SPATIAL_FILTER) {
+        clauseType = ClauseType.SPATIAL_FILTER;
+      }
+    }
+    return clauseType;
+  }
+
+  private SolrQuery filterOn(String propertyName, SolrQuery query) {
+    if (FILTER_ATTRIBUTES.contains(propertyName)) {
+      clauseTypes.put(query, ClauseType.FILTER);
+    }
+    return query;
+  }
+
+  private SolrQuery spatialFilter(SolrQuery query) {
+    clauseTypes.put(query, ClauseType.SPATIAL_FILTER);
+    return query;
   }
 
   @Override
@@ -235,6 +375,10 @@ public SolrQuery propertyIsFuzzy(String propertyName, String searchPhrase) {
 
   @Override
   public SolrQuery propertyIsLike(String propertyName, String pattern, boolean isCaseSensitive) {
+    return filterOn(propertyName, likeQuery(propertyName, pattern, isCaseSensitive));
+  }
+
+  private SolrQuery likeQuery(String propertyName, String pattern, boolean isCaseSensitive) {
     verifyInputData(propertyName, pattern);
     String mappedPropertyName = getMappedPropertyName(propertyName, AttributeFormat.STRING, false);
 
@@ -284,6 +428,10 @@ public SolrQuery propertyIsLike(String propertyName, String pattern, boolean isC
 
   @Override
   public SolrQuery propertyIsEqualTo(String propertyName, String literal, boolean isCaseSensitive) {
+    return filterOn(propertyName, equalToQuery(propertyName, literal, isCaseSensitive));
+  }
+
+  private SolrQuery equalToQuery(String propertyName, String literal, boolean isCaseSensitive) {
     if (!isCaseSensitive) {
       throw new UnsupportedOperationException("Case insensitive exact searches are not supported.");
     }
@@ -754,7 +902,7 @@ public SolrQuery dwithin(String propertyName, String wkt, double distance) {
         String pointRadiusQuery = geoPointToCircleQuery(propertyName, distanceInDegrees, pnt);
 
         updateDistanceSort(propertyName, pnt);
-        return new SolrQuery(pointRadiusQuery);
+        return spatialFilter(new SolrQuery(pointRadiusQuery));
       } else {
         Geometry bufferGeo = geo.buffer(distanceInDegrees, QUADRANT_SEGMENTS);
         final Envelope envelope = bufferGeo.getEnvelopeInternal();
@@ -821,7 +969,7 @@ public SolrQuery intersects(String propertyName, String wkt) {
               geoPointToCircleQuery(propertyName, DEFAULT_ERROR_IN_DEGREES, pnt);
 
           updateDistanceSort(propertyName, pnt);
-          return new SolrQuery(pointRadiusQuery);
+          return spatialFilter(new SolrQuery(pointRadiusQuery));
         }
         if (MULTI_POINT_TYPE.equals(geo.getGeometryType()) && geo.getCoordinates().length == 1) {
           Point pnt = GEOMETRY_FACTORY.createPoint(geo.getCoordinate());
@@ -829,7 +977,7 @@ public SolrQuery intersects(String propertyName, String wkt) {
               geoPointToCircleQuery(propertyName, DEFAULT_ERROR_IN_DEGREES, pnt);
 
           updateDistanceSort(propertyName, pnt);
-          return new SolrQuery(pointRadiusQuery);
+          return spatialFilter(new SolrQuery(pointRadiusQuery));
         }
       }
     }
@@ -1006,7 +1154,7 @@ public SolrQuery propertyIsNull(String propertyName) {
       solrExpressions.add(" (*:* -" + possibleField + ":[* TO *]) ");
     }
     String fullExpression = StringUtils.join(solrExpressions, " ");
-    return new SolrQuery(fullExpression);
+    return filterOn(propertyName, new SolrQuery(fullExpression));
   }
 
   private SolrQuery logicalOperator(List<SolrQuery> operands, String operator) {
@@ -1079,7 +1227,7 @@ private SolrQuery operationToQuery(String operation, String propertyName, String
       updateDistanceSort(propertyName, pnt.getCentroid());
     }
 
-    return new SolrQuery(geoQuery);
+    return spatialFilter(new SolrQuery(geoQuery));
   }
 
   private boolean isPoint(Geometry geo) {
@@ -1109,4 +1257,25 @@ public boolean isIdQuery() {
   public Set<String> getIds() {
     return Collections.unmodifiableSet(ids);
   }
+
+  private enum ClauseType {
+    /** Matches the metacards being searched for, and may affect their scores. */
+    QUERY,
+    /** Only restricts the metacards that match, and is likely to be repeated by other queries. */
+    FILTER,
+    /** Only restricts the metacards that match, and is expensive and unlikely to be repeated. */
+    SPATIAL_FILTER
+  }
+
+  private static class Clause {
+
+    private final String query;
+
+    private final ClauseType type;
+
+    Clause(String query, ClauseType type) {
+      this.query = query;
+      this.type = type;
+    }
+  }
 }
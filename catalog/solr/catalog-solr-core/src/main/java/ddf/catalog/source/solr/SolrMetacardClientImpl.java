@@ -46,6 +46,12 @@
 import ddf.catalog.operation.impl.SourceResponseImpl;
 import ddf.catalog.source.UnsupportedQueryException;
 import ddf.measure.Distance;
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
 import java.io.IOException;
 import java.io.Serializable;
 import java.security.AccessController;
@@ -129,6 +135,18 @@ public class SolrMetacardClientImpl implements SolrMetacardClient {
 
   private static final String ERR_UNSUPPORTED_QUERY_MSG = "Could not complete solr query.";
 
+  private static final String INSTRUMENTATION_NAME = "ddf.catalog.solr";
+
+  private static final AttributeKey<Long> QUERY_TIME_KEY = AttributeKey.longKey("ddf.solr.qtime");
+
+  private static final AttributeKey<Long> RESULT_COUNT_KEY =
+      AttributeKey.longKey("ddf.result.count");
+
+  private static final AttributeKey<Long> HITS_KEY = AttributeKey.longKey("ddf.hits");
+
+  private static final AttributeKey<Boolean> REALTIME_GET_KEY =
+      AttributeKey.booleanKey("ddf.solr.realtimeGet");
+
   private final SolrClient client;
 
   private final SolrFilterDelegateFactory filterDelegateFactory;
@@ -179,6 +197,24 @@ public SourceResponse query(QueryRequest request) throws UnsupportedQueryExcepti
       return new QueryResponseImpl(request, new ArrayList<>(), true, 0L);
     }
 
+    Tracer tracer = GlobalOpenTelemetry.getTracer(INSTRUMENTATION_NAME);
+    Span span = tracer.spanBuilder("SolrMetacardClient.query").startSpan();
+    try (Scope ignored = span.makeCurrent()) {
+      SourceResponse response = query(request, tracer, span);
+      span.setAttribute(RESULT_COUNT_KEY, response.getResults().size());
+      span.setAttribute(HITS_KEY, response.getHits());
+      return response;
+    } catch (UnsupportedQueryException | RuntimeException e) {
+      span.recordException(e);
+      span.setStatus(StatusCode.ERROR);
+      throw e;
+    } finally {
+      span.end();
+    }
+  }
+
+  private SourceResponse query(QueryRequest request, Tracer tracer, Span span)
+      throws UnsupportedQueryException {
     long totalHits = 0;
     Map<String, Serializable> responseProps = new HashMap<>();
     List<Result> results = new ArrayList<>();
@@ -197,6 +233,7 @@ public SourceResponse query(QueryRequest request) throws UnsupportedQueryExcepti
           (boolean) request.getProperties().getOrDefault(DO_REALTIME_GET, false)
               || BooleanUtils.toBoolean(
                   filterAdapter.adapt(request.getQuery(), new RealTimeGetDelegate()));
+      span.setAttribute(REALTIME_GET_KEY, doRealTimeGet);
 
       if (doRealTimeGet) {
         LOGGER.debug("Performing real time query");
@@ -210,6 +247,8 @@ public SourceResponse query(QueryRequest request) throws UnsupportedQueryExcepti
         solrResponse = client.query(query, METHOD.POST);
       }
 
+      span.setAttribute(QUERY_TIME_KEY, solrResponse.getQTime());
+
       if (isFacetedQuery) {
         handleFacetResponse(solrResponse, responseProps);
       }
@@ -222,7 +261,13 @@ public SourceResponse query(QueryRequest request) throws UnsupportedQueryExcepti
       docs =
           handleSpellcheck(request, solrResponse, responseProps, query, docs, userSpellcheckIsOn);
       if (docs != null) {
-        addDocsToResults(docs, results);
+        // converting the documents to metacards can take longer than Solr took to find them
+        Span conversionSpan = tracer.spanBuilder("SolrMetacardClient.createMetacards").startSpan();
+        try {
+          addDocsToResults(docs, results);
+        } finally {
+          conversionSpan.end();
+        }
         totalHits = docs.getNumFound();
       }
     } catch (SolrServerException | IOException | SolrException e) {
@@ -604,6 +649,7 @@ protected SolrQuery getSolrQuery(QueryRequest request, SolrFilterDelegate solrFi
     }
 
     SolrQuery query = filterAdapter.adapt(request.getQuery(), solrFilterDelegate);
+    solrFilterDelegate.splitFilterQueries(query);
 
     return postAdapt(request, solrFilterDelegate, query);
   }
@@ -614,8 +660,8 @@ protected SolrQuery getRealTimeQuery(SolrQuery originalQuery, Collection<String>
     }
     SolrQuery realTimeQuery = new SolrQuery();
     for (Map.Entry<String, String[]> entry : originalQuery.getMap().entrySet()) {
-      if (CommonParams.Q.equals(entry.getKey())) {
-        realTimeQuery.set(CommonParams.FQ, entry.getValue());
+      if (CommonParams.Q.equals(entry.getKey()) || CommonParams.FQ.equals(entry.getKey())) {
+        realTimeQuery.add(CommonParams.FQ, entry.getValue());
       } else {
         realTimeQuery.set(entry.getKey(), entry.getValue());
       }
@@ -14,6 +14,7 @@
 package ddf.catalog.source.solr;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.CoreMatchers.startsWith;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
@@ -22,6 +23,7 @@
 import ddf.catalog.data.AttributeType.AttributeFormat;
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.types.Core;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
@@ -710,6 +712,72 @@ public void testPropertyIsDivisibleBy() {
     assertThat(isLikeQuery.getQuery(), is(expectedQuery));
   }
 
+  @Test
+  public void testSplitFilterQueries() {
+    when(mockResolver.getField(Core.TITLE, AttributeFormat.STRING, true, Collections.emptyMap()))
+        .thenReturn("title_txt");
+    when(mockResolver.getField(Metacard.TAGS, AttributeFormat.STRING, true, Collections.emptyMap()))
+        .thenReturn("metacard-tags_txt");
+    when(mockResolver.getField("location", AttributeFormat.GEOMETRY, false, Collections.emptyMap()))
+        .thenReturn("location_geo_index");
+
+    SolrQuery query =
+        toTest.and(
+            Arrays.asList(
+                toTest.and(
+                    Arrays.asList(
+                        toTest.propertyIsEqualTo(Core.TITLE, "title", true),
+                        toTest.intersects("location", "invalid JTS wkt"))),
+                toTest.propertyIsEqualTo(Metacard.TAGS, "resource", true)));
+    toTest.splitFilterQueries(query);
+
+    assertThat(query.getQuery(), is("title_txt:\"title\""));
+    assertThat(
+        Arrays.asList(query.getFilterQueries()),
+        is(
+            Arrays.asList(
+                "{!cache=false cost=100}location_geo_index:\"Intersects(invalid JTS wkt)\"",
+                "metacard-tags_txt:\"resource\"")));
+  }
+
+  @Test
+  public void testSplitFilterQueriesWithOnlyFilters() {
+    when(mockResolver.getField(Metacard.TAGS, AttributeFormat.STRING, true, Collections.emptyMap()))
+        .thenReturn("metacard-tags_txt");
+
+    SolrQuery query =
+        toTest.or(
+            Arrays.asList(
+                toTest.propertyIsEqualTo(Metacard.TAGS, "resource", true),
+                toTest.propertyIsEqualTo(Metacard.TAGS, "revision", true)));
+    toTest.splitFilterQueries(query);
+
+    assertThat(query.getQuery(), is("*:*"));
+    assertThat(
+        Arrays.asList(query.getFilterQueries()),
+        is(
+            Collections.singletonList(
+                " ( metacard-tags_txt:\"resource\" OR metacard-tags_txt:\"revision\" ) ")));
+  }
+
+  @Test
+  public void testSplitFilterQueriesKeepsDisjunctionsWithQueries() {
+    when(mockResolver.getField(Core.TITLE, AttributeFormat.STRING, true, Collections.emptyMap()))
+        .thenReturn("title_txt");
+    when(mockResolver.getField(Metacard.TAGS, AttributeFormat.STRING, true, Collections.emptyMap()))
+        .thenReturn("metacard-tags_txt");
+
+    SolrQuery query =
+        toTest.or(
+            Arrays.asList(
+                toTest.propertyIsEqualTo(Core.TITLE, "title", true),
+                toTest.propertyIsEqualTo(Metacard.TAGS, "resource", true)));
+    toTest.splitFilterQueries(query);
+
+    assertThat(query.getQuery(), is(" ( title_txt:\"title\" OR metacard-tags_txt:\"resource\" ) "));
+    assertThat(query.getFilterQueries(), nullValue());
+  }
+
   private Date getCannedTime() {
     return getCannedTime(1995, Calendar.NOVEMBER, 24, 23);
   }
@@ -65,8 +65,21 @@ public class CatalogGazetteerForwardingPlugin implements PostIngestPlugin, PreQu
 
   private final SolrClient solrClient;
 
+  private final GazetteerSpatialIndex spatialIndex;
+
   public CatalogGazetteerForwardingPlugin(SolrClientFactory clientFactory) {
+    this(clientFactory, null);
+  }
+
+  /**
+   * @param clientFactory the factory for the gazetteer collection client
+   * @param spatialIndex the in-memory index to reload after the gazetteer collection changes, may
+   *     be null
+   */
+  public CatalogGazetteerForwardingPlugin(
+      SolrClientFactory clientFactory, @Nullable GazetteerSpatialIndex spatialIndex) {
     this.solrClient = clientFactory.newClient(COLLECTION_NAME);
+    this.spatialIndex = spatialIndex;
   }
 
   @Override
@@ -80,16 +93,17 @@ public CreateResponse process(CreateResponse input) throws PluginExecutionExcept
       return input;
     }
 
+    List<SolrInputDocument> documents =
+        gazetteerMetacards.stream()
+            .map(CatalogGazetteerForwardingPlugin::convert)
+            .collect(Collectors.toList());
     try {
-      solrClient.add(
-          COLLECTION_NAME,
-          gazetteerMetacards.stream()
-              .map(CatalogGazetteerForwardingPlugin::convert)
-              .collect(Collectors.toList()));
+      solrClient.add(COLLECTION_NAME, documents);
     } catch (SolrServerException | IOException e) {
       throw new PluginExecutionException(PROCESSING_ERROR, e);
     }
 
+    refreshSpatialIndex(documents);
     return input;
   }
 
@@ -105,40 +119,54 @@ public UpdateResponse process(UpdateResponse input) throws PluginExecutionExcept
       return input;
     }
 
+    List<SolrInputDocument> documents =
+        gazetteerMetacards.stream()
+            .map(CatalogGazetteerForwardingPlugin::convert)
+            .collect(Collectors.toList());
     try {
-      solrClient.add(
-          COLLECTION_NAME,
-          gazetteerMetacards.stream()
-              .map(CatalogGazetteerForwardingPlugin::convert)
-              .collect(Collectors.toList()));
+      solrClient.add(COLLECTION_NAME, documents);
     } catch (SolrServerException | IOException e) {
       LOGGER.debug(PROCESSING_ERROR, e);
       throw new PluginExecutionException(e);
     }
+
+    refreshSpatialIndex(documents);
     return input;
   }
 
   @Override
   public DeleteResponse process(DeleteResponse input) throws PluginExecutionException {
-    List<String> ids =
+    List<Metacard> gazetteerMetacards =
         input.getDeletedMetacards().stream()
             .filter(this::isGazetteerMetacard)
-            .map(Metacard::getId)
             .collect(Collectors.toList());
-    if (ids.isEmpty()) {
+    if (gazetteerMetacards.isEmpty()) {
       return input;
     }
 
     try {
-      solrClient.deleteById(ids);
+      solrClient.deleteById(
+          gazetteerMetacards.stream().map(Metacard::getId).collect(Collectors.toList()));
     } catch (SolrServerException | IOException e) {
       LOGGER.debug(PROCESSING_ERROR, e);
       throw new PluginExecutionException(e);
     }
 
+    if (spatialIndex != null) {
+      refreshSpatialIndex(
+          gazetteerMetacards.stream()
+              .map(CatalogGazetteerForwardingPlugin::convert)
+              .collect(Collectors.toList()));
+    }
     return input;
   }
 
+  private void refreshSpatialIndex(List<SolrInputDocument> changedDocuments) {
+    if (spatialIndex != null) {
+      spatialIndex.scheduleRefresh(changedDocuments);
+    }
+  }
+
   protected static SolrInputDocument convert(Metacard metacard) {
     SolrInputDocument solrDoc = new SolrInputDocument();
     Consumer<String> getAttrAndAdd =
@@ -0,0 +1,186 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.solr.offlinegazetteer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntConsumer;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+
+/**
+ * An immutable two-dimensional tree of city locations, packed into parallel arrays.
+ *
+ * <p>The cities are reordered so that the city at the middle of every range of the arrays splits
+ * the rest of the range on longitude (at even depths) or latitude (at odd depths). The tree needs
+ * no node objects, so even a large gazetteer takes little more memory than the city names.
+ */
+final class CityIndex {
+
+  private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+
+  private final String[] names;
+
+  private final double[] xs;
+
+  private final double[] ys;
+
+  private CityIndex(String[] names, double[] xs, double[] ys) {
+    this.names = names;
+    this.xs = xs;
+    this.ys = ys;
+  }
+
+  int size() {
+    return names.length;
+  }
+
+  /**
+   * Finds the cities within {@code radius} degrees of {@code location}.
+   *
+   * @return the cities, nearest first, limited to {@code maxResults}
+   */
+  List<City> findWithin(Geometry location, double radius, int maxResults) {
+    Envelope searchEnvelope = new Envelope(location.getEnvelopeInternal());
+    searchEnvelope.expandBy(radius);
+
+    List<City> cities = new ArrayList<>();
+    search(
+        searchEnvelope,
+        0,
+        names.length,
+        0,
+        index -> {
+          Point point = GEOMETRY_FACTORY.createPoint(new Coordinate(xs[index], ys[index]));
+          double distance = location.distance(point);
+          if (distance <= radius) {
+            cities.add(new City(names[index], point, distance));
+          }
+        });
+
+    cities.sort(Comparator.comparingDouble(City::getDistance));
+    return cities.size() > maxResults ? cities.subList(0, maxResults) : cities;
+  }
+
+  private void search(Envelope envelope, int from, int to, int depth, IntConsumer consumer) {
+    while (from < to) {
+      int middle = (from + to) >>> 1;
+      double x = xs[middle];
+      double y = ys[middle];
+      if (envelope.contains(x, y)) {
+        consumer.accept(middle);
+      }
+
+      double split = depth % 2 == 0 ? x : y;
+      double min = depth % 2 == 0 ? envelope.getMinX() : envelope.getMinY();
+      double max = depth % 2 == 0 ? envelope.getMaxX() : envelope.getMaxY();
+
+      boolean searchLow = min <= split;
+      boolean searchHigh = max >= split;
+      depth++;
+      if (searchLow && searchHigh) {
+        search(envelope, from, middle, depth, consumer);
+        from = middle + 1;
+      } else if (searchLow) {
+        to = middle;
+      } else {
+        from = middle + 1;
+      }
+    }
+  }
+
+  static final class City {
+
+    private final String name;
+
+    private final Point location;
+
+    private final double distance;
+
+    private City(String name, Point location, double distance) {
+      this.name = name;
+      this.location = location;
+      this.distance = distance;
+    }
+
+    String getName() {
+      return name;
+    }
+
+    Point getLocation() {
+      return location;
+    }
+
+    /** @return the distance in degrees from the searched location */
+    double getDistance() {
+      return distance;
+    }
+  }
+
+  static final class Builder {
+
+    private final List<String> names = new ArrayList<>();
+
+    private double[] xs = new double[1024];
+
+    private double[] ys = new double[1024];
+
+    Builder add(String name, double x, double y) {
+      int index = names.size();
+      if (index == xs.length) {
+        xs = Arrays.copyOf(xs, index * 2);
+        ys = Arrays.copyOf(ys, index * 2);
+      }
+      names.add(name);
+      xs[index] = x;
+      ys[index] = y;
+      return this;
+    }
+
+    CityIndex build() {
+      int size = names.size();
+      Integer[] order = new Integer[size];
+      for (int i = 0; i < size; i++) {
+        order[i] = i;
+      }
+      arrange(order, 0, size, 0);
+
+      String[] packedNames = new String[size];
+      double[] packedXs = new double[size];
+      double[] packedYs = new double[size];
+      for (int i = 0; i < size; i++) {
+        packedNames[i] = names.get(order[i]);
+        packedXs[i] = xs[order[i]];
+        packedYs[i] = ys[order[i]];
+      }
+      return new CityIndex(packedNames, packedXs, packedYs);
+    }
+
+    private void arrange(Integer[] order, int from, int to, int depth) {
+      if (to - from < 2) {
+        return;
+      }
+      double[] coordinates = depth % 2 == 0 ? xs : ys;
+      Arrays.sort(order, from, to, Comparator.comparingDouble(index -> coordinates[index]));
+      int middle = (from + to) >>> 1;
+      arrange(order, from, middle, depth + 1);
+      arrange(order, middle + 1, to, depth + 1);
+    }
+  }
+}
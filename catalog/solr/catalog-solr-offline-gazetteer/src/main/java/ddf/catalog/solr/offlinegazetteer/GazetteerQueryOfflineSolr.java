@@ -33,7 +33,6 @@
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import org.apache.commons.lang3.StringUtils;
@@ -70,7 +69,7 @@ public class GazetteerQueryOfflineSolr implements GeoEntryQueryable {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(GazetteerQueryOfflineSolr.class);
 
-  private static final String CITY_SOLR_QUERY =
+  static final String CITY_SOLR_QUERY =
       GeoCodingConstants.CITY_FEATURE_CODES.stream()
           .map(fc -> String.format("%s:%s", FEATURE_CODE, fc))
           .collect(Collectors.joining(" OR ", "(", ")"));
@@ -96,8 +95,21 @@ public class GazetteerQueryOfflineSolr implements GeoEntryQueryable {
 
   private final SolrClient client;
 
+  private final GazetteerSpatialIndex spatialIndex;
+
   public GazetteerQueryOfflineSolr(SolrClientFactory clientFactory) {
+    this(clientFactory, null);
+  }
+
+  /**
+   * @param clientFactory the factory for the gazetteer collection client
+   * @param spatialIndex the in-memory index used for country code and nearest city lookups once it
+   *     has been loaded, may be null to always query Solr
+   */
+  public GazetteerQueryOfflineSolr(
+      SolrClientFactory clientFactory, GazetteerSpatialIndex spatialIndex) {
     this.client = clientFactory.newClient(COLLECTION_NAME);
+    this.spatialIndex = spatialIndex;
   }
 
   @Override
@@ -190,6 +202,19 @@ public List<NearbyLocation> getNearestCities(String location, int radiusInKm, in
       throw new GeoEntryQueryException("Could not parse location");
     }
     final Geometry originalGeometry = geometry;
+
+    GazetteerSpatialIndex.Snapshot snapshot = getSnapshot();
+    if (snapshot != null && snapshot.hasCities()) {
+      return snapshot
+          .findCities(
+              originalGeometry,
+              convertKilometerToDegree(radiusInKm),
+              Math.min(maxResults, MAX_RESULTS))
+          .stream()
+          .map(city -> convert(city.getName(), city.getLocation(), originalGeometry))
+          .collect(Collectors.toList());
+    }
+
     Geometry bufferedGeo = originalGeometry.buffer(convertKilometerToDegree(radiusInKm), 14);
     String wkt = WKT_WRITER_THREAD_LOCAL.get().write(bufferedGeo);
 
@@ -215,23 +240,30 @@ public List<NearbyLocation> getNearestCities(String location, int radiusInKm, in
 
   private NearbyLocation convert(SolrDocument doc, Geometry originalLocation) {
     String location = getField(doc, LOCATION, String.class);
-    String title =
-        Optional.ofNullable(getField(doc, NAME, String.class))
-            .filter(Objects::nonNull)
-            .filter(s -> !s.isEmpty())
-            .orElse("NO TITLE");
+    String name = getField(doc, NAME, String.class);
 
-    String cardinalDirection = "";
-    double distance = 0;
     try {
       Geometry geo = WKT_READER_THREAD_LOCAL.get().read(location);
-      cardinalDirection =
-          bearingToCardinalDirection(getBearing(originalLocation.getCentroid(), geo.getCentroid()));
-      distance = convertDegreeToKilometer(originalLocation.distance(geo.getCentroid()));
+      return convert(name, geo, originalLocation);
     } catch (org.locationtech.jts.io.ParseException e) {
       LOGGER.debug("Could not parse location for item (object: {})", doc, e);
     }
 
+    return convert(name, null, originalLocation);
+  }
+
+  private NearbyLocation convert(String name, Geometry location, Geometry originalLocation) {
+    String title = Optional.ofNullable(name).filter(s -> !s.isEmpty()).orElse("NO TITLE");
+
+    String cardinalDirection = "";
+    double distance = 0;
+    if (location != null) {
+      cardinalDirection =
+          bearingToCardinalDirection(
+              getBearing(originalLocation.getCentroid(), location.getCentroid()));
+      distance = convertDegreeToKilometer(originalLocation.distance(location.getCentroid()));
+    }
+
     return new NearbyLocationImpl(title, cardinalDirection, distance);
   }
 
@@ -301,19 +333,34 @@ private static String bearingToCardinalDirection(final double bearing) {
   @Override
   public Optional<String> getCountryCode(String wktLocation, int radius)
       throws GeoEntryQueryException, ParseException {
-    String wkt;
+    Point center;
     try {
-      Point center =
+      center =
           WKT_READER_THREAD_LOCAL
               .get()
               .read(fixSelfIntersectingGeometry(wktLocation))
               .getCentroid();
-      wkt = WKT_WRITER_THREAD_LOCAL.get().write(center.buffer(convertKilometerToDegree(radius)));
     } catch (org.locationtech.jts.io.ParseException e) {
       LOGGER.debug("Could not parse wkt: {}", wktLocation, e);
       throw new GeoEntryQueryException("Could not parse wkt", e);
     }
 
+    GazetteerSpatialIndex.Snapshot snapshot = getSnapshot();
+    if (snapshot != null && snapshot.hasCountries()) {
+      if (center.isEmpty()) {
+        return Optional.empty();
+      }
+      Optional<String> countryCode =
+          snapshot.findCountryCode(center, convertKilometerToDegree(radius));
+      if (countryCode.isPresent()) {
+        return countryCode;
+      }
+      // the index may not have caught up with recent changes, so Solr has the final word on a miss
+    }
+
+    String wkt =
+        WKT_WRITER_THREAD_LOCAL.get().write(center.buffer(convertKilometerToDegree(radius)));
+
     SolrQuery solrQuery =
         new SolrQuery(
             String.format(
@@ -333,6 +380,10 @@ public Optional<String> getCountryCode(String wktLocation, int radius)
         .map(doc -> getField(doc, COUNTRY_CODE, String.class));
   }
 
+  private GazetteerSpatialIndex.Snapshot getSnapshot() {
+    return spatialIndex == null ? null : spatialIndex.getSnapshot();
+  }
+
   private String fixSelfIntersectingGeometry(String wkt) {
     try {
       Shape wktShape = SPATIAL_CONTEXT.getFormats().getWktReader().read(wkt);
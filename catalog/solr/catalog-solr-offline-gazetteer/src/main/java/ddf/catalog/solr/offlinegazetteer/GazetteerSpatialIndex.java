@@ -0,0 +1,329 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.solr.offlinegazetteer;
+
+import static ddf.catalog.solr.offlinegazetteer.GazetteerConstants.COLLECTION_NAME;
+import static ddf.catalog.solr.offlinegazetteer.GazetteerConstants.COUNTRY_CODE;
+import static ddf.catalog.solr.offlinegazetteer.GazetteerConstants.FEATURE_CODE;
+import static ddf.catalog.solr.offlinegazetteer.GazetteerConstants.ID;
+import static ddf.catalog.solr.offlinegazetteer.GazetteerConstants.LOCATION;
+import static ddf.catalog.solr.offlinegazetteer.GazetteerConstants.NAME;
+import static ddf.catalog.solr.offlinegazetteer.GazetteerConstants.SORT_VALUE;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrQuery.ORDER;
+import org.apache.solr.client.solrj.SolrRequest.METHOD;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.CursorMarkParams;
+import org.codice.ddf.platform.util.StandardThreadFactoryBuilder;
+import org.codice.ddf.spatial.geocoding.GeoCodingConstants;
+import org.codice.solr.factory.SolrClientFactory;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.locationtech.jts.index.strtree.STRtree;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKTReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An in-memory spatial index of the offline gazetteer collection, used to answer country code and
+ * nearest city lookups without a Solr round trip.
+ *
+ * <p>Country shapes are kept as prepared geometries in an {@link STRtree} and cities in a {@link
+ * CityIndex}. The index is loaded in the background when the bundle starts. It is reloaded once
+ * changes to countries or cities have paused for 30 seconds, so a bulk gazetteer ingest causes one
+ * reload when it finishes rather than one per batch; changes to other gazetteer entries do not
+ * reload it. Changes that never pause still reload the index at least once an hour. Until the first
+ * load completes, {@link #getSnapshot()} returns {@code null} and callers are expected to query
+ * Solr instead.
+ */
+public class GazetteerSpatialIndex {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(GazetteerSpatialIndex.class);
+
+  private static final int PAGE_SIZE = 5000;
+
+  static final long REFRESH_DELAY_SECONDS = 30;
+
+  static final long MAX_REFRESH_DELAY_MINUTES = 60;
+
+  private static final String COUNTRY_QUERY =
+      String.format("%s:%d", SORT_VALUE, GeoCodingConstants.COUNTRY_GAZETTEER_SORT_VALUE);
+
+  private final SolrClient client;
+
+  private final ScheduledExecutorService executor;
+
+  private final long refreshDelayNanos;
+
+  private final long maxRefreshDelayNanos;
+
+  private final Object refreshLock = new Object();
+
+  private boolean refreshPending;
+
+  private long firstChangeNanos;
+
+  private long lastChangeNanos;
+
+  private volatile Snapshot snapshot;
+
+  public GazetteerSpatialIndex(SolrClientFactory clientFactory) {
+    this(
+        clientFactory,
+        TimeUnit.SECONDS.toMillis(REFRESH_DELAY_SECONDS),
+        TimeUnit.MINUTES.toMillis(MAX_REFRESH_DELAY_MINUTES));
+  }
+
+  GazetteerSpatialIndex(
+      SolrClientFactory clientFactory, long refreshDelayMillis, long maxRefreshDelayMillis) {
+    this.client = clientFactory.newClient(COLLECTION_NAME);
+    this.refreshDelayNanos = TimeUnit.MILLISECONDS.toNanos(refreshDelayMillis);
+    this.maxRefreshDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxRefreshDelayMillis);
+    ScheduledThreadPoolExecutor scheduledExecutor =
+        new ScheduledThreadPoolExecutor(
+            1, StandardThreadFactoryBuilder.newThreadFactory("gazetteerSpatialIndexThread"));
+    scheduledExecutor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    this.executor = scheduledExecutor;
+  }
+
+  public void init() {
+    executor.execute(this::refresh);
+  }
+
+  public void destroy() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Reloads the index once changes have stopped, if any of the changed gazetteer documents is a
+   * country or a city.
+   *
+   * @param changedDocuments the documents that were added to, updated in or deleted from the
+   *     gazetteer collection
+   */
+  public void scheduleRefresh(Collection<SolrInputDocument> changedDocuments) {
+    if (changedDocuments.stream().anyMatch(GazetteerSpatialIndex::isIndexed)) {
+      scheduleRefresh();
+    }
+  }
+
+  /** Reloads the index once changes have stopped, postponing a pending reload. */
+  void scheduleRefresh() {
+    synchronized (refreshLock) {
+      lastChangeNanos = System.nanoTime();
+      if (!refreshPending) {
+        refreshPending = true;
+        firstChangeNanos = lastChangeNanos;
+        executor.schedule(this::refreshWhenQuiet, refreshDelayNanos, TimeUnit.NANOSECONDS);
+      }
+    }
+  }
+
+  boolean isRefreshPending() {
+    synchronized (refreshLock) {
+      return refreshPending;
+    }
+  }
+
+  /** @return the most recently loaded index, or {@code null} if it has not been loaded yet */
+  Snapshot getSnapshot() {
+    return snapshot;
+  }
+
+  private void refreshWhenQuiet() {
+    synchronized (refreshLock) {
+      long now = System.nanoTime();
+      long quietFor = now - lastChangeNanos;
+      long pendingFor = now - firstChangeNanos;
+      if (quietFor < refreshDelayNanos && pendingFor < maxRefreshDelayNanos) {
+        executor.schedule(
+            this::refreshWhenQuiet,
+            Math.min(refreshDelayNanos - quietFor, maxRefreshDelayNanos - pendingFor),
+            TimeUnit.NANOSECONDS);
+        return;
+      }
+      // changes made from here on schedule another reload
+      refreshPending = false;
+    }
+    refresh();
+  }
+
+  private static boolean isIndexed(SolrInputDocument document) {
+    Object sortValue = document.getFieldValue(SORT_VALUE);
+    Object featureCode = document.getFieldValue(FEATURE_CODE);
+    return Integer.valueOf(GeoCodingConstants.COUNTRY_GAZETTEER_SORT_VALUE).equals(sortValue)
+        || GeoCodingConstants.CITY_FEATURE_CODES.contains(featureCode);
+  }
+
+  void refresh() {
+    long start = System.currentTimeMillis();
+    try {
+      STRtree countries = new STRtree();
+      forEachDocument(COUNTRY_QUERY, document -> addCountry(countries, document));
+      countries.build();
+
+      CityIndex.Builder cities = new CityIndex.Builder();
+      forEachDocument(
+          GazetteerQueryOfflineSolr.CITY_SOLR_QUERY, document -> addCity(cities, document));
+
+      snapshot = new Snapshot(countries, cities.build());
+      LOGGER.debug(
+          "Loaded {} country shapes and {} cities into the gazetteer spatial index in {} ms",
+          snapshot.countries.size(),
+          snapshot.cities.size(),
+          System.currentTimeMillis() - start);
+    } catch (SolrServerException | IOException | RuntimeException e) {
+      LOGGER.info(
+          "Unable to load the gazetteer spatial index. Gazetteer lookups will query Solr.", e);
+    }
+  }
+
+  private void forEachDocument(String query, Consumer<SolrDocument> consumer)
+      throws SolrServerException, IOException {
+    SolrQuery solrQuery = new SolrQuery(query);
+    solrQuery.setFields(NAME, LOCATION, COUNTRY_CODE);
+    solrQuery.setRows(PAGE_SIZE);
+    solrQuery.setSort(ID, ORDER.asc);
+
+    String cursorMark = CursorMarkParams.CURSOR_MARK_START;
+    String previousCursorMark = null;
+    while (!cursorMark.equals(previousCursorMark)) {
+      solrQuery.set(CursorMarkParams.CURSOR_MARK_PARAM, cursorMark);
+      QueryResponse response = client.query(solrQuery, METHOD.POST);
+      response.getResults().forEach(consumer);
+      previousCursorMark = cursorMark;
+      cursorMark = response.getNextCursorMark();
+    }
+  }
+
+  private void addCountry(STRtree countries, SolrDocument document) {
+    String countryCode = getFirstValue(document, COUNTRY_CODE);
+    Geometry geometry = readLocation(document);
+    if (countryCode != null && geometry != null && !geometry.isEmpty()) {
+      countries.insert(
+          geometry.getEnvelopeInternal(),
+          new Country(countryCode, PreparedGeometryFactory.prepare(geometry)));
+    }
+  }
+
+  private void addCity(CityIndex.Builder cities, SolrDocument document) {
+    Geometry geometry = readLocation(document);
+    if (geometry != null && !geometry.isEmpty()) {
+      Point centroid = geometry.getCentroid();
+      cities.add(getFirstValue(document, NAME), centroid.getX(), centroid.getY());
+    }
+  }
+
+  private Geometry readLocation(SolrDocument document) {
+    String location = getFirstValue(document, LOCATION);
+    if (location == null) {
+      return null;
+    }
+    try {
+      return new WKTReader().read(location);
+    } catch (ParseException e) {
+      LOGGER.debug("Could not parse location for gazetteer entry (object: {})", document, e);
+      return null;
+    }
+  }
+
+  private String getFirstValue(SolrDocument document, String field) {
+    Object value = document.getFirstValue(field);
+    return value instanceof String ? (String) value : null;
+  }
+
+  /** An immutable view of the gazetteer collection at the time it was loaded. */
+  static final class Snapshot {
+
+    private final STRtree countries;
+
+    private final CityIndex cities;
+
+    private Snapshot(STRtree countries, CityIndex cities) {
+      this.countries = countries;
+      this.cities = cities;
+    }
+
+    boolean hasCountries() {
+      return countries.size() > 0;
+    }
+
+    boolean hasCities() {
+      return cities.size() > 0;
+    }
+
+    /**
+     * Finds the country containing {@code point} or, failing that, the nearest country within
+     * {@code radius} degrees of it.
+     */
+    Optional<String> findCountryCode(Point point, double radius) {
+      Country nearest = null;
+      double nearestDistance = Double.MAX_VALUE;
+
+      Envelope searchEnvelope = new Envelope(point.getCoordinate());
+      searchEnvelope.expandBy(radius);
+      for (Object item : countries.query(searchEnvelope)) {
+        Country country = (Country) item;
+        if (country.shape.covers(point)) {
+          return Optional.of(country.code);
+        }
+        double distance = country.shape.getGeometry().distance(point);
+        if (distance <= radius && distance < nearestDistance) {
+          nearest = country;
+          nearestDistance = distance;
+        }
+      }
+
+      return Optional.ofNullable(nearest).map(country -> country.code);
+    }
+
+    /** @see CityIndex#findWithin(Geometry, double, int) */
+    List<CityIndex.City> findCities(Geometry location, double radius, int maxResults) {
+      if (maxResults <= 0) {
+        return Collections.emptyList();
+      }
+      return cities.findWithin(location, radius, maxResults);
+    }
+  }
+
+  private static final class Country {
+
+    private final String code;
+
+    private final PreparedGeometry shape;
+
+    private Country(String code, PreparedGeometry shape) {
+      this.code = code;
+      this.shape = shape;
+    }
+  }
+}
@@ -0,0 +1,320 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.solr.offlinegazetteer
+
+import org.apache.solr.client.solrj.SolrClient
+import org.apache.solr.client.solrj.SolrQuery
+import org.apache.solr.client.solrj.SolrServerException
+import org.apache.solr.client.solrj.response.QueryResponse
+import org.apache.solr.common.SolrDocument
+import org.apache.solr.common.SolrDocumentList
+import org.apache.solr.common.SolrInputDocument
+import org.apache.solr.common.params.CursorMarkParams
+import org.codice.ddf.spatial.geocoding.GeoCodingConstants
+import org.codice.ddf.spatial.geocoding.context.NearbyLocation
+import org.codice.solr.factory.SolrClientFactory
+import org.junit.platform.runner.JUnitPlatform
+import org.junit.runner.RunWith
+import org.locationtech.jts.geom.Point
+import org.locationtech.jts.io.WKTReader
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.util.concurrent.atomic.AtomicInteger
+
+import static ddf.catalog.solr.offlinegazetteer.GazetteerConstants.COUNTRY_CODE
+import static ddf.catalog.solr.offlinegazetteer.GazetteerConstants.FEATURE_CODE
+import static ddf.catalog.solr.offlinegazetteer.GazetteerConstants.LOCATION
+import static ddf.catalog.solr.offlinegazetteer.GazetteerConstants.NAME
+import static ddf.catalog.solr.offlinegazetteer.GazetteerConstants.SORT_VALUE
+
+@RunWith(JUnitPlatform.class)
+class GazetteerSpatialIndexSpec extends Specification {
+    static final String SQUARE_COUNTRY = "POLYGON ((0 0, 10 0, 10 10, 0 10, 0 0))"
+
+    static final String OTHER_COUNTRY = "POLYGON ((20 0, 30 0, 30 10, 20 10, 20 0))"
+
+    SolrClient solrClient
+    SolrClientFactory solrClientFactory
+    GazetteerSpatialIndex spatialIndex
+
+    void setup() {
+        solrClient = Mock(SolrClient)
+        solrClientFactory = Mock(SolrClientFactory) {
+            newClient(_) >> solrClient
+        }
+        spatialIndex = new GazetteerSpatialIndex(solrClientFactory)
+    }
+
+    void cleanup() {
+        spatialIndex.destroy()
+    }
+
+    def "snapshot is not available before the index is loaded"() {
+        expect:
+        spatialIndex.getSnapshot() == null
+    }
+
+    def "failing to load leaves the index unavailable"() {
+        setup:
+        solrClient.query(*_) >> { throw new SolrServerException("exception") }
+
+        when:
+        spatialIndex.refresh()
+
+        then:
+        spatialIndex.getSnapshot() == null
+    }
+
+    def "finds the country containing a point"() {
+        setup:
+        loadIndex()
+
+        expect:
+        spatialIndex.getSnapshot().hasCountries()
+        spatialIndex.getSnapshot().findCountryCode(point("POINT (5 5)"), 0) == Optional.of("AAA")
+        spatialIndex.getSnapshot().findCountryCode(point("POINT (25 5)"), 0) == Optional.of("BBB")
+    }
+
+    def "finds the nearest country within the radius"() {
+        setup:
+        loadIndex()
+
+        expect:
+        spatialIndex.getSnapshot().findCountryCode(point("POINT (13 5)"), 5) == Optional.of("AAA")
+        spatialIndex.getSnapshot().findCountryCode(point("POINT (18 5)"), 5) == Optional.of("BBB")
+        !spatialIndex.getSnapshot().findCountryCode(point("POINT (15 50)"), 5).isPresent()
+    }
+
+    def "finds the nearest cities within the radius"() {
+        setup:
+        loadIndex()
+
+        when:
+        List<CityIndex.City> cities =
+                spatialIndex.getSnapshot().findCities(point("POINT (5 5)"), 2, 10)
+
+        then:
+        cities*.name == ["center", "east", "north"]
+    }
+
+    def "limits the number of nearest cities"() {
+        setup:
+        loadIndex()
+
+        expect:
+        spatialIndex.getSnapshot().findCities(point("POINT (5 5)"), 2, 2)*.name == ["center", "east"]
+        spatialIndex.getSnapshot().findCities(point("POINT (5 5)"), 2, 0).isEmpty()
+    }
+
+    def "finds cities near a polygon"() {
+        setup:
+        loadIndex()
+
+        expect:
+        spatialIndex.getSnapshot()
+                .findCities(new WKTReader().read("POLYGON ((6 4, 7 4, 7 6, 6 6, 6 4))"), 0.5, 10)*.name ==
+                ["east"]
+    }
+
+    def "finds cities across many pages"() {
+        setup:
+        List<SolrDocument> cities = (0..<2000).collect {
+            document([(NAME): ["city $it".toString()], (LOCATION): ["POINT (${it % 100} ${it.intdiv(100)})".toString()]])
+        }
+        solrClient.query(*_) >> { SolrQuery query, method ->
+            if (query.query == GazetteerQueryOfflineSolr.CITY_SOLR_QUERY) {
+                return pages(query, cities.collate(300))
+            }
+            return pages(query, [])
+        }
+
+        when:
+        spatialIndex.refresh()
+        List<CityIndex.City> found = spatialIndex.getSnapshot().findCities(point("POINT (50 10)"), 1.5, 100)
+
+        then:
+        !spatialIndex.getSnapshot().hasCountries()
+        found.size() == 9
+        found.first().name == "city 1050"
+        found*.name.toSet() == ["city 949", "city 950", "city 951",
+                                "city 1049", "city 1050", "city 1051",
+                                "city 1149", "city 1150", "city 1151"].toSet()
+    }
+
+    def "query uses the loaded index instead of Solr"() {
+        setup:
+        loadIndex()
+        GazetteerQueryOfflineSolr query = new GazetteerQueryOfflineSolr(solrClientFactory, spatialIndex)
+
+        when:
+        Optional<String> countryCode = query.getCountryCode("POINT (5 5)", 50)
+        List<NearbyLocation> nearbyLocations = query.getNearestCities("POINT (5 5)", 200, 10)
+
+        then:
+        0 * solrClient.query(*_)
+        countryCode == Optional.of("AAA")
+        nearbyLocations*.name == ["center", "east", "north"]
+        with(nearbyLocations[1]) {
+            cardinalDirection == "E"
+            110 <= distance && distance <= 112
+        }
+    }
+
+    def "a miss in the index falls back to Solr"() {
+        setup:
+        loadIndex()
+        GazetteerQueryOfflineSolr query = new GazetteerQueryOfflineSolr(solrClientFactory, spatialIndex)
+        SolrDocumentList results = new SolrDocumentList()
+        results.add(document([(COUNTRY_CODE): ["DDD"]]))
+        QueryResponse response = Mock(QueryResponse) {
+            getResults() >> results
+        }
+
+        when:
+        Optional<String> countryCode = query.getCountryCode("POINT (15 50)", 50)
+
+        then:
+        1 * solrClient.query(*_) >> response
+        countryCode == Optional.of("DDD")
+    }
+
+    def "changes to entries that are not countries or cities do not reload the index"() {
+        when:
+        spatialIndex.scheduleRefresh([
+                inputDocument([(FEATURE_CODE): "MT"]),
+                inputDocument([(SORT_VALUE): 1])
+        ])
+
+        then:
+        !spatialIndex.isRefreshPending()
+    }
+
+    def "changes to countries and cities reload the index"() {
+        when:
+        spatialIndex.scheduleRefresh([inputDocument([(FEATURE_CODE): "MT"]), document])
+
+        then:
+        spatialIndex.isRefreshPending()
+
+        where:
+        document << [
+                inputDocument([(FEATURE_CODE): GeoCodingConstants.CITY_FEATURE_CODES.first()]),
+                inputDocument([(SORT_VALUE): GeoCodingConstants.COUNTRY_GAZETTEER_SORT_VALUE])
+        ]
+    }
+
+    def "a burst of changes reloads the index once after the changes stop"() {
+        setup:
+        AtomicInteger queries = new AtomicInteger()
+        solrClient.query(*_) >> { SolrQuery query, method ->
+            queries.incrementAndGet()
+            pages(query, [])
+        }
+        spatialIndex.destroy()
+        spatialIndex = new GazetteerSpatialIndex(solrClientFactory, 500, 60000)
+
+        when:
+        spatialIndex.scheduleRefresh()
+        Thread.sleep(250)
+        spatialIndex.scheduleRefresh()
+        Thread.sleep(250)
+        spatialIndex.scheduleRefresh()
+        Thread.sleep(250)
+
+        then:
+        queries.get() == 0
+        spatialIndex.isRefreshPending()
+
+        when:
+        new PollingConditions(timeout: 5).eventually {
+            assert queries.get() == 2
+        }
+        Thread.sleep(750)
+
+        then:
+        queries.get() == 2
+        !spatialIndex.isRefreshPending()
+    }
+
+    def "changes that never stop still reload the index"() {
+        setup:
+        AtomicInteger queries = new AtomicInteger()
+        solrClient.query(*_) >> { SolrQuery query, method ->
+            queries.incrementAndGet()
+            pages(query, [])
+        }
+        spatialIndex.destroy()
+        spatialIndex = new GazetteerSpatialIndex(solrClientFactory, 500, 1000)
+
+        when:
+        long stop = System.currentTimeMillis() + 2500
+        while (System.currentTimeMillis() < stop) {
+            spatialIndex.scheduleRefresh()
+            Thread.sleep(100)
+        }
+
+        then:
+        queries.get() >= 2
+    }
+
+    private void loadIndex() {
+        List<SolrDocument> countries = [
+                document([(COUNTRY_CODE): ["AAA"], (LOCATION): [SQUARE_COUNTRY]]),
+                document([(COUNTRY_CODE): ["BBB"], (LOCATION): [OTHER_COUNTRY]]),
+                document([(COUNTRY_CODE): ["CCC"], (LOCATION): ["POLYGON (( INVALID"]])
+        ]
+        List<SolrDocument> cities = [
+                document([(NAME): ["center"], (LOCATION): ["POINT (5 5)"]]),
+                document([(NAME): ["east"], (LOCATION): ["POINT (6 5)"]]),
+                document([(NAME): ["north"], (LOCATION): ["POINT (5 6.5)"]]),
+                document([(NAME): ["far"], (LOCATION): ["POINT (5 8)"]]),
+                document([(NAME): ["no location"]])
+        ]
+        solrClient.query(*_) >> { SolrQuery query, method ->
+            query.query == GazetteerQueryOfflineSolr.CITY_SOLR_QUERY ?
+                    pages(query, [cities]) :
+                    pages(query, [countries])
+        }
+        spatialIndex.refresh()
+    }
+
+    private QueryResponse pages(SolrQuery query, List<List<SolrDocument>> pages) {
+        String cursorMark = query.get(CursorMarkParams.CURSOR_MARK_PARAM)
+        int page = cursorMark == CursorMarkParams.CURSOR_MARK_START ? 0 : cursorMark as int
+        SolrDocumentList results = new SolrDocumentList()
+        if (page < pages.size()) {
+            results.addAll(pages[page])
+        }
+        String nextCursorMark = page < pages.size() ? "${page + 1}".toString() : cursorMark
+        Mock(QueryResponse) {
+            getResults() >> results
+            getNextCursorMark() >> nextCursorMark
+        }
+    }
+
+    private static SolrDocument document(Map<String, Object> fields) {
+        new SolrDocument(fields)
+    }
+
+    private static SolrInputDocument inputDocument(Map<String, Object> fields) {
+        SolrInputDocument document = new SolrInputDocument()
+        fields.each { name, value -> document.addField(name, value) }
+        document
+    }
+
+    private static Point point(String wkt) {
+        (Point) new WKTReader().read(wkt)
+    }
+}
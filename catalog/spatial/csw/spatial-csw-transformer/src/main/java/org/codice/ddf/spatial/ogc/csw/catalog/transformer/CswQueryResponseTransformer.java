@@ -25,25 +25,26 @@
 import ddf.catalog.transformer.api.PrintWriterProvider;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.CharArrayWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.SequenceInputStream;
 import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.GregorianCalendar;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CancellationException;
-import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicLong;
 import javax.xml.XMLConstants;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBElement;
@@ -128,6 +129,10 @@ public class CswQueryResponseTransformer implements QueryResponseTransformer {
 
   private static final int ACCUM_INITIAL_SIZE = 4096;
 
+  private static final int RECORDS_PER_CHUNK = 32;
+
+  private int maxChunksInFlight = 2;
+
   public CswQueryResponseTransformer(
       TransformerManager metacardTransformerManager, PrintWriterProvider writerProvider) {
     this.metacardTransformerManager = metacardTransformerManager;
@@ -142,24 +147,33 @@ public BinaryContent transform(SourceResponse sourceResponse, Map<String, Serial
 
     CswRecordCollection recordCollection = buildCollection(sourceResponse, arguments);
 
-    ByteArrayInputStream bais;
+    InputStream inputStream;
 
     if (ResultType.VALIDATE.equals(recordCollection.getResultType())) {
       ByteArrayOutputStream baos = writeAcknowledgement(recordCollection.getRequest());
-      bais = new ByteArrayInputStream(baos.toByteArray());
+      inputStream = new ByteArrayInputStream(baos.toByteArray());
     } else {
       // "catches" recordCollection.getResultType() == null
       List<Result> results = sourceResponse.getResults();
-      String xmlString = convert(recordCollection, results, arguments);
-      bais = new ByteArrayInputStream(xmlString.getBytes(StandardCharsets.UTF_8));
+      inputStream = convert(recordCollection, results, arguments);
     }
 
     BinaryContent transformedContent =
-        new BinaryContentImpl(bais, CswRecordConverter.XML_MIME_TYPE);
+        new BinaryContentImpl(inputStream, CswRecordConverter.XML_MIME_TYPE);
     return transformedContent;
   }
 
-  private String convert(
+  /**
+   * Builds the response document. The response envelope is rendered up front, while the records
+   * themselves are marshalled on the query pool and streamed in result order as the returned stream
+   * is read, so the caller can start writing to the client before every record has been marshalled.
+   *
+   * <p>{@code numberOfRecordsReturned} leaves out the records of the first window that failed to
+   * marshal. Once it has been rendered the count can no longer change, so a record that fails to
+   * marshal after that fails the returned stream with an {@link IOException} instead of leaving the
+   * response with fewer records than it claims.
+   */
+  private InputStream convert(
       CswRecordCollection cswRecordCollection,
       List<Result> results,
       Map<String, Serializable> arguments)
@@ -186,14 +200,13 @@ private String convert(
       nextRecord = 0;
     }
 
-    String metacardsString = null;
-    AtomicLong numReturned = new AtomicLong(cswRecordCollection.getNumberOfRecordsReturned());
+    OrderedRecordInputStream records = null;
+    long numReturned = cswRecordCollection.getNumberOfRecordsReturned();
 
     if (!ResultType.HITS.equals(cswRecordCollection.getResultType())) {
       arguments.put(CswConstants.OMIT_XML_DECLARATION, Boolean.TRUE);
-      metacardsString =
-          multiThreadedMarshal(
-              results, numReturned, cswRecordCollection.getOutputSchema(), arguments);
+      records = multiThreadedMarshal(results, cswRecordCollection.getOutputSchema(), arguments);
+      numReturned -= records.awaitWindow();
     }
 
     if (!cswRecordCollection.isById()) {
@@ -218,7 +231,7 @@ private String convert(
       if (ResultType.HITS.equals(cswRecordCollection.getResultType())) {
         writer.addAttribute(NUMBER_OF_RECORDS_RETURNED_ATTRIBUTE, Long.toString(0));
       } else {
-        writer.addAttribute(NUMBER_OF_RECORDS_RETURNED_ATTRIBUTE, numReturned.toString());
+        writer.addAttribute(NUMBER_OF_RECORDS_RETURNED_ATTRIBUTE, Long.toString(numReturned));
         writer.addAttribute(NEXT_RECORD_ATTRIBUTE, Long.toString(nextRecord));
       }
 
@@ -230,8 +243,11 @@ private String convert(
       }
     }
 
-    if (!ResultType.HITS.equals(cswRecordCollection.getResultType())) {
-      writer.setRawValue(metacardsString);
+    String head = null;
+    if (records != null) {
+      // closes the start tag, so that the records can be streamed between the two envelope parts
+      writer.setRawValue("");
+      head = writer.makeString();
     }
 
     if (!cswRecordCollection.isById()) {
@@ -240,7 +256,18 @@ private String convert(
 
     writer.endNode(); // RECORDS_RESPONSE_QNAME
 
-    return writer.makeString();
+    String envelope = writer.makeString();
+    if (records == null) {
+      return new ByteArrayInputStream(envelope.getBytes(StandardCharsets.UTF_8));
+    }
+
+    return new SequenceInputStream(
+        Collections.enumeration(
+            Arrays.asList(
+                new ByteArrayInputStream(head.getBytes(StandardCharsets.UTF_8)),
+                records,
+                new ByteArrayInputStream(
+                    envelope.substring(head.length()).getBytes(StandardCharsets.UTF_8)))));
   }
 
   /**
@@ -248,81 +275,58 @@ private String convert(
    * resource exhaustion with fixed thread-pool and fixed work-queue. CPU-bound for optimum
    * utilization from availableProcessors()+1 thread pool.
    *
+   * <p>Results are marshalled in chunks of {@link #RECORDS_PER_CHUNK} and at most {@code
+   * maxChunksInFlight} chunks are outstanding at any time, so memory use stays flat regardless of
+   * the number of results.
+   *
    * @param results - the list of results to marshal
    * @param recordSchema - the schema
    * @param arguments - additional args
-   * @return - the marshaled results
+   * @return - a stream of the marshaled results, in result order
    * @throws CatalogTransformerException
    */
-  private String multiThreadedMarshal(
-      List<Result> results,
-      AtomicLong numResults,
-      String recordSchema,
-      final Map<String, Serializable> arguments)
+  private OrderedRecordInputStream multiThreadedMarshal(
+      List<Result> results, String recordSchema, final Map<String, Serializable> arguments)
       throws CatalogTransformerException {
 
-    CompletionService<BinaryContent> completionService =
-        new ExecutorCompletionService<>(queryExecutor);
-
     final MetacardTransformer transformer =
         metacardTransformerManager.getTransformerBySchema(recordSchema);
     if (transformer == null) {
       throw new CatalogTransformerException("Cannot find transformer for schema: " + recordSchema);
     }
 
-    Map<Future<BinaryContent>, Result> futures = new HashMap<>(results.size());
-    for (Result result : results) {
-      final Metacard mc = result.getMetacard();
-
-      // the "current" thread will run submitted task when queueSize exceeded; effectively
-      // blocking enqueue of more tasks.
-      futures.put(
-          completionService.submit(
-              () -> {
-                BinaryContent content = transformer.transform(mc, arguments);
-                return content;
-              }),
-          result);
-    }
-
-    InputStream[] contents = new InputStream[results.size()];
+    return new OrderedRecordInputStream(new ArrayList<>(results), transformer, arguments);
+  } // end multiThreadedMarshal()
 
-    while (!futures.isEmpty()) {
+  private static RecordChunk marshalChunk(
+      List<Result> chunk, MetacardTransformer transformer, Map<String, Serializable> arguments) {
+    ByteArrayOutputStream accum = new ByteArrayOutputStream(ACCUM_INITIAL_SIZE);
+    int failures = 0;
+    for (Result result : chunk) {
       try {
-        Future<BinaryContent> completedFuture = completionService.take();
-        int index = results.indexOf(futures.get(completedFuture));
-        try {
-          contents[index] = completedFuture.get().getInputStream();
-        } catch (ExecutionException | CancellationException e) {
-          LOGGER.debug("Error transforming Metacard", e);
-          numResults.decrementAndGet();
-        } catch (InterruptedException e) {
-          numResults.decrementAndGet();
-
-          Thread.currentThread().interrupt();
-          throw new CatalogTransformerException("Metacard transform interrupted", e);
-        } finally {
-          futures.remove(completedFuture);
-        }
-      } catch (InterruptedException e) {
-        Thread.currentThread().interrupt();
-        throw new CatalogTransformerException("Metacard transform interrupted", e);
+        marshal(result.getMetacard(), transformer, arguments, accum);
+      } catch (CatalogTransformerException | IOException | RuntimeException e) {
+        LOGGER.debug("Error transforming Metacard", e);
+        failures++;
       }
     }
+    return new RecordChunk(accum.toByteArray(), failures);
+  }
 
-    CharArrayWriter accum = new CharArrayWriter(ACCUM_INITIAL_SIZE);
-    for (InputStream is : contents) {
-      try {
-        if (is != null) {
-          IOUtils.copy(is, accum);
-        }
-      } catch (IOException e) {
-        LOGGER.debug("Error copying Metacard Binary content", e);
-      }
+  private static void marshal(
+      Metacard metacard,
+      MetacardTransformer transformer,
+      Map<String, Serializable> arguments,
+      ByteArrayOutputStream accum)
+      throws CatalogTransformerException, IOException {
+    BinaryContent content = transformer.transform(metacard, arguments);
+    ByteArrayOutputStream record = new ByteArrayOutputStream(ACCUM_INITIAL_SIZE);
+    try (InputStream is = content.getInputStream()) {
+      IOUtils.copy(is, record);
     }
-
-    return accum.toString();
-  } // end multiThreadedMarshal()
+    // a record that fails part way through is not left half written
+    record.writeTo(accum);
+  }
 
   private boolean isByIdQuery(Map<String, Serializable> arguments) {
     Serializable isByIdQuery = arguments.get(CswConstants.IS_BY_ID_QUERY);
@@ -465,6 +469,8 @@ public void init() {
             new ThreadPoolExecutor.CallerRunsPolicy());
 
     queryExecutor.prestartAllCoreThreads();
+
+    maxChunksInFlight = numThreads * 2;
   }
 
   public void destroy() {
@@ -480,4 +486,156 @@ public void destroy() {
       throw new IllegalStateException(QUERY_POOL_NAME + " graceful shutdown interrupted.", e);
     }
   }
+
+  private static class RecordChunk {
+
+    private final byte[] content;
+
+    private final int failures;
+
+    RecordChunk(byte[] content, int failures) {
+      this.content = content;
+      this.failures = failures;
+    }
+  }
+
+  /**
+   * Streams marshalled records in result order. Chunks are consumed in submission order from a
+   * bounded window of pending futures; chunks that complete ahead of the reader wait in the window
+   * until it catches up, and a new chunk is submitted each time one is consumed.
+   */
+  private class OrderedRecordInputStream extends InputStream {
+
+    private final List<Result> results;
+
+    private final MetacardTransformer transformer;
+
+    private final Map<String, Serializable> arguments;
+
+    private final Deque<Future<RecordChunk>> window = new ArrayDeque<>();
+
+    private int nextResult = 0;
+
+    /* The chunks at the head of the window whose failures are left out of the record count. */
+    private int countedChunks = 0;
+
+    private InputStream current = new ByteArrayInputStream(new byte[0]);
+
+    OrderedRecordInputStream(
+        List<Result> results,
+        MetacardTransformer transformer,
+        Map<String, Serializable> arguments) {
+      this.results = results;
+      this.transformer = transformer;
+      this.arguments = arguments;
+      fillWindow();
+    }
+
+    /**
+     * Waits for every chunk currently in the window to be marshalled. When all results fit in the
+     * window this is every record of the response. A record of the chunks submitted afterwards that
+     * fails to marshal fails the stream.
+     *
+     * @return the number of records in the window that failed to marshal
+     */
+    long awaitWindow() throws CatalogTransformerException {
+      long failures = 0;
+      for (Future<RecordChunk> future : window) {
+        try {
+          failures += future.get().failures;
+        } catch (ExecutionException | CancellationException e) {
+          close();
+          throw new CatalogTransformerException("Unable to transform Metacards", e);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          close();
+          throw new CatalogTransformerException("Metacard transform interrupted", e);
+        }
+      }
+
+      countedChunks = window.size();
+      return failures;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] b = new byte[1];
+      int read = read(b, 0, 1);
+      return read == -1 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+
+      int read = current.read(b, off, len);
+      while (read == -1) {
+        if (!nextChunk()) {
+          return -1;
+        }
+        read = current.read(b, off, len);
+      }
+      return read;
+    }
+
+    @Override
+    public void close() {
+      for (Future<RecordChunk> future : window) {
+        future.cancel(true);
+      }
+      window.clear();
+      nextResult = results.size();
+    }
+
+    private void fillWindow() {
+      while (window.size() < maxChunksInFlight && nextResult < results.size()) {
+        final List<Result> chunk =
+            results.subList(nextResult, Math.min(nextResult + RECORDS_PER_CHUNK, results.size()));
+        // the "current" thread will run submitted task when queueSize exceeded; effectively
+        // blocking enqueue of more tasks.
+        window.add(queryExecutor.submit(() -> marshalChunk(chunk, transformer, arguments)));
+        nextResult += chunk.size();
+      }
+    }
+
+    private boolean nextChunk() throws IOException {
+      Future<RecordChunk> future = window.poll();
+      if (future == null) {
+        return false;
+      }
+
+      boolean counted = countedChunks > 0;
+      if (counted) {
+        countedChunks--;
+      }
+
+      RecordChunk chunk;
+      try {
+        chunk = future.get();
+      } catch (ExecutionException | CancellationException e) {
+        close();
+        throw new IOException("Unable to transform Metacards", e);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        close();
+        throw new InterruptedIOException("Metacard transform interrupted");
+      }
+
+      if (!counted && chunk.failures > 0) {
+        // numberOfRecordsReturned has already been written
+        close();
+        throw new IOException(
+            chunk.failures
+                + " Metacards failed to transform after the response was started; "
+                + "the response is incomplete.");
+      }
+
+      current = new ByteArrayInputStream(chunk.content);
+
+      fillWindow();
+      return true;
+    }
+  }
 }
@@ -399,8 +399,8 @@ public void testMarshalAcknowledgementWithFailedTransforms()
   @Test
   public void verifyResultOrderIsMaintained() throws CatalogTransformerException, IOException {
     // when
-    when(mockPrintWriterProvider.build((Class<Metacard>) notNull())).thenReturn(mockPrintWriter);
-    when(mockPrintWriter.makeString()).thenReturn(new String());
+    when(mockPrintWriterProvider.build((Class<Metacard>) notNull()))
+        .thenReturn(getSimplePrintWriter());
     when(mockSourceResponse.getResults()).thenReturn(createResults(1, 10));
     when(mockSourceResponse.getRequest()).thenReturn(mockQueryRequest);
     when(mockQueryRequest.getQuery()).thenReturn(mockQuery);
@@ -422,7 +422,8 @@ public void verifyResultOrderIsMaintained() throws CatalogTransformerException,
 
     // given
     transformer.init();
-    transformer.transform(mockSourceResponse, mockArguments);
+    BinaryContent content = transformer.transform(mockSourceResponse, mockArguments);
+    String xml = new String(content.getByteArray(), StandardCharsets.UTF_8);
     transformer.destroy();
 
     // then
@@ -433,15 +434,91 @@ public void verifyResultOrderIsMaintained() throws CatalogTransformerException,
     ArgumentCaptor<Metacard> mcCaptor = ArgumentCaptor.forClass(Metacard.class);
     verify(mockMetacardTransformer, times(10)).transform(mcCaptor.capture(), mapCaptor.capture());
 
-    ArgumentCaptor<String> strCaptor = ArgumentCaptor.forClass(String.class);
-    verify(mockPrintWriter, times(2)).setRawValue(strCaptor.capture());
-    String order = strCaptor.getAllValues().get(1);
+    String order = xml.substring(xml.indexOf("id_1,"), xml.lastIndexOf(',') + 1);
     String[] ids = order.split(",");
-    for (int i = 1; i < ids.length; i++) {
+    assertThat(ids.length, is(10));
+    for (int i = 1; i <= ids.length; i++) {
       assertThat(ids[i - 1], is(String.valueOf("id_" + i)));
     }
   }
 
+  @Test
+  public void verifyResultOrderIsMaintainedAcrossChunks()
+      throws CatalogTransformerException, IOException {
+    int resultCount = 5000;
+    when(mockPrintWriterProvider.build((Class<Metacard>) notNull()))
+        .thenReturn(getSimplePrintWriter());
+    when(mockSourceResponse.getResults()).thenReturn(createResults(1, resultCount));
+    when(mockSourceResponse.getRequest()).thenReturn(mockQueryRequest);
+    when(mockQueryRequest.getQuery()).thenReturn(mockQuery);
+    when(mockArguments.get(CswConstants.RESULT_TYPE_PARAMETER)).thenReturn(ResultType.RESULTS);
+    when(mockTransformerManager.getTransformerBySchema(anyString()))
+        .thenReturn(mockMetacardTransformer);
+    when(mockMetacardTransformer.transform(any(Metacard.class), any(Map.class)))
+        .thenAnswer(
+            invocationOnMock -> {
+              Metacard metacard = (Metacard) invocationOnMock.getArguments()[0];
+              return new BinaryContentImpl(
+                  IOUtils.toInputStream(metacard.getId() + ",", StandardCharsets.UTF_8),
+                  new MimeType("application/xml"));
+            });
+
+    transformer.init();
+    BinaryContent content = transformer.transform(mockSourceResponse, mockArguments);
+    String xml = new String(content.getByteArray(), StandardCharsets.UTF_8);
+    transformer.destroy();
+
+    String[] ids = xml.substring(xml.indexOf("id_1,"), xml.lastIndexOf(',') + 1).split(",");
+    assertThat(ids.length, is(resultCount));
+    for (int i = 1; i <= ids.length; i++) {
+      assertThat(ids[i - 1], is("id_" + i));
+    }
+  }
+
+  /** Records that fail once the envelope is written fail the response */
+  @Test(expected = IOException.class)
+  public void testFailedTransformsAfterFirstWindow()
+      throws CatalogTransformerException, IOException {
+    int resultCount = 20000;
+    GetRecordsType query = new GetRecordsType();
+    query.setResultType(ResultType.RESULTS);
+    query.setMaxRecords(BigInteger.valueOf(resultCount));
+    query.setStartPosition(BigInteger.valueOf(1));
+    SourceResponse sourceResponse = createSourceResponse(query, resultCount);
+
+    Map<String, Serializable> args = new HashMap<>();
+    args.put(CswConstants.RESULT_TYPE_PARAMETER, ResultType.RESULTS);
+    args.put(CswConstants.GET_RECORDS, query);
+
+    MetacardTransformer mockMetacardTransformer = mock(MetacardTransformer.class);
+    when(mockMetacardTransformer.transform(any(Metacard.class), anyMap()))
+        .then(
+            invocationOnMock -> {
+              Metacard metacard = (Metacard) invocationOnMock.getArguments()[0];
+              if ("id_20000".equals(metacard.getId())) {
+                throw new CatalogTransformerException("");
+              }
+              return new BinaryContentImpl(
+                  IOUtils.toInputStream(metacard.getId() + ",", StandardCharsets.UTF_8),
+                  new MimeType("application/xml"));
+            });
+
+    when(mockPrintWriterProvider.build((Class<Metacard>) notNull()))
+        .thenReturn(getSimplePrintWriter());
+    when(mockTransformerManager.getTransformerBySchema(anyString()))
+        .thenReturn(mockMetacardTransformer);
+
+    CswQueryResponseTransformer cswQueryResponseTransformer =
+        new CswQueryResponseTransformer(mockTransformerManager, mockPrintWriterProvider);
+    cswQueryResponseTransformer.init();
+    try {
+      BinaryContent content = cswQueryResponseTransformer.transform(sourceResponse, args);
+      content.getByteArray();
+    } finally {
+      cswQueryResponseTransformer.destroy();
+    }
+  }
+
   private SourceResponse createSourceResponse(GetRecordsType request, int resultCount) {
     int first = 1;
     int last = 2;
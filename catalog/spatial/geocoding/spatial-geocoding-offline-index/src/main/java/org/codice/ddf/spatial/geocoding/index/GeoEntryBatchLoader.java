@@ -0,0 +1,243 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.spatial.geocoding.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+import org.codice.ddf.platform.util.StandardThreadFactoryBuilder;
+import org.codice.ddf.spatial.geocoding.GeoEntry;
+import org.codice.ddf.spatial.geocoding.GeoEntryIndexingException;
+
+/**
+ * Groups a stream of {@link GeoEntry} objects into batches and writes the batches concurrently.
+ *
+ * <p>At most {@code maxBatchesInFlight} batches are buffered or being written at any time; {@link
+ * #add(GeoEntry)} blocks until one of them completes, so memory use does not grow with the size of
+ * the resource. Entries are numbered in the order they are added, and after each batch completes
+ * the {@link LoadedEntries} written so far are passed to a listener, which makes it possible to
+ * resume a failed load without writing any completed batch again, whatever order the batches
+ * completed in.
+ *
+ * <p>Entries that an earlier load already wrote are skipped. Their fingerprints are checked against
+ * the ones the earlier load recorded, and if the resource no longer holds the same entries the load
+ * fails and {@link #isResourceChanged()} returns true.
+ *
+ * <p>Batches are written as the {@link Subject} of the thread that created the loader, if there is
+ * one.
+ */
+class GeoEntryBatchLoader implements AutoCloseable {
+
+  /** Writes one batch of entries. Called concurrently from the loader's threads. */
+  interface BatchWriter {
+    void write(List<GeoEntry> entries) throws GeoEntryIndexingException;
+  }
+
+  private final BatchWriter writer;
+
+  private final Consumer<LoadedEntries> loadedListener;
+
+  private final int batchSize;
+
+  private final int maxBatchesInFlight;
+
+  private final Semaphore batchPermits;
+
+  private final ExecutorService executor;
+
+  private final Subject subject;
+
+  private final AtomicReference<Exception> failure = new AtomicReference<>();
+
+  /** The entries loaded before this loader was created. */
+  private final LoadedEntries previouslyLoaded;
+
+  /** The entries loaded so far, guarded by its own lock. */
+  private final LoadedEntries loaded;
+
+  private List<GeoEntry> batch;
+
+  private long batchFirst;
+
+  private long batchFingerprint;
+
+  private long entriesAdded;
+
+  private long skippedFingerprint;
+
+  private boolean resourceChanged;
+
+  /**
+   * @param writer writes each batch
+   * @param batchSize the number of entries in each batch
+   * @param threads the number of batches written at the same time
+   * @param previouslyLoaded the entries that were loaded before this loader was created
+   * @param loadedListener receives the entries that have been loaded after each batch completes
+   */
+  GeoEntryBatchLoader(
+      BatchWriter writer,
+      int batchSize,
+      int threads,
+      LoadedEntries previouslyLoaded,
+      Consumer<LoadedEntries> loadedListener) {
+    this.writer = writer;
+    this.batchSize = batchSize;
+    this.maxBatchesInFlight = threads * 2;
+    this.batchPermits = new Semaphore(maxBatchesInFlight);
+    this.executor =
+        Executors.newFixedThreadPool(
+            threads, StandardThreadFactoryBuilder.newThreadFactory("geoEntryLoaderThread"));
+    this.subject = ThreadContext.getSubject();
+    this.loadedListener = loadedListener;
+    this.previouslyLoaded = previouslyLoaded;
+    this.loaded = previouslyLoaded.copy();
+    this.batch = new ArrayList<>(batchSize);
+  }
+
+  /**
+   * Adds an entry to the current batch, submitting the batch if it is full. Entries that were
+   * loaded before this loader was created are checked and skipped.
+   *
+   * @throws GeoEntryIndexingException if an earlier batch could not be written, or if the resource
+   *     has changed since it was last loaded
+   */
+  void add(GeoEntry entry) throws GeoEntryIndexingException {
+    throwIfFailed();
+    long entryNumber = entriesAdded++;
+    long fingerprint = LoadedEntries.fingerprint(entryNumber, entry);
+
+    LoadedEntries.Range range = previouslyLoaded.find(entryNumber);
+    if (range != null) {
+      // each batch is a contiguous range of entries
+      if (!batch.isEmpty()) {
+        submit();
+      }
+      skip(range, entryNumber, fingerprint);
+      return;
+    }
+
+    if (batch.isEmpty()) {
+      batchFirst = entryNumber;
+    }
+    batch.add(entry);
+    batchFingerprint += fingerprint;
+    if (batch.size() >= batchSize) {
+      submit();
+    }
+  }
+
+  /**
+   * Submits the last batch and waits for every batch to be written.
+   *
+   * @return the number of entries loaded, including those loaded before this loader was created
+   * @throws GeoEntryIndexingException if any batch could not be written, or if the resource has
+   *     changed since it was last loaded
+   */
+  long finish() throws GeoEntryIndexingException {
+    if (!batch.isEmpty()) {
+      submit();
+    }
+    acquire(maxBatchesInFlight);
+    batchPermits.release(maxBatchesInFlight);
+    throwIfFailed();
+    if (entriesAdded < previouslyLoaded.end()) {
+      throw resourceChanged();
+    }
+    synchronized (loaded) {
+      return loaded.count();
+    }
+  }
+
+  /** @return whether the entries skipped by this loader differ from the ones loaded before */
+  boolean isResourceChanged() {
+    return resourceChanged;
+  }
+
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+
+  private void skip(LoadedEntries.Range range, long entryNumber, long fingerprint)
+      throws GeoEntryIndexingException {
+    skippedFingerprint += fingerprint;
+    if (entryNumber + 1 == range.getNext()) {
+      if (skippedFingerprint != range.getFingerprint()) {
+        throw resourceChanged();
+      }
+      skippedFingerprint = 0;
+    }
+  }
+
+  private GeoEntryIndexingException resourceChanged() {
+    resourceChanged = true;
+    return new GeoEntryIndexingException(
+        "The GeoNames resource has changed since it was last loaded. The next load will start over.");
+  }
+
+  private void submit() throws GeoEntryIndexingException {
+    acquire(1);
+    List<GeoEntry> entries = batch;
+    long first = batchFirst;
+    long fingerprint = batchFingerprint;
+    batch = new ArrayList<>(batchSize);
+    batchFingerprint = 0;
+
+    Runnable task =
+        () -> {
+          try {
+            if (failure.get() == null) {
+              writer.write(entries);
+              batchCompleted(first, first + entries.size(), fingerprint);
+            }
+          } catch (GeoEntryIndexingException | RuntimeException e) {
+            failure.compareAndSet(null, e);
+          } finally {
+            batchPermits.release();
+          }
+        };
+    executor.execute(subject == null ? task : subject.associateWith(task));
+  }
+
+  private void batchCompleted(long first, long next, long fingerprint) {
+    synchronized (loaded) {
+      loaded.add(first, next, fingerprint);
+      loadedListener.accept(loaded);
+    }
+  }
+
+  private void acquire(int permits) throws GeoEntryIndexingException {
+    try {
+      batchPermits.acquire(permits);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new GeoEntryIndexingException("Interrupted while waiting for GeoEntry batches.", e);
+    }
+  }
+
+  private void throwIfFailed() throws GeoEntryIndexingException {
+    Exception cause = failure.get();
+    if (cause instanceof GeoEntryIndexingException) {
+      throw new GeoEntryIndexingException(cause.getMessage(), cause);
+    } else if (cause != null) {
+      throw new GeoEntryIndexingException("Unable to write GeoEntry batch.", cause);
+    }
+  }
+}
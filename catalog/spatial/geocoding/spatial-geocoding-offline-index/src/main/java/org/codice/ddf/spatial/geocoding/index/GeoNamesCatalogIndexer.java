@@ -43,14 +43,17 @@
 import dev.failsafe.Failsafe;
 import dev.failsafe.RetryPolicy;
 import java.io.Serializable;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Duration;
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -73,9 +76,19 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Indexes GeoNames entries as gazetteer metacards in the catalog.
+ *
+ * <p>Entries are streamed from the extractor and created in concurrent batches, so that large
+ * resources such as {@code allCountries} are never held in memory. If a checkpoint directory is
+ * set, a load that fails part way through is resumed from its last checkpoint the next time the
+ * same resource is loaded.
+ */
 public class GeoNamesCatalogIndexer implements GeoEntryIndexer {
 
-  private static final int BATCH_SIZE = 250;
+  private static final int DEFAULT_BATCH_SIZE = 1000;
+
+  private static final int DEFAULT_LOADER_THREADS = 4;
 
   private static final String TITLE_FORMAT = "%s, %s";
 
@@ -90,12 +103,18 @@ public class GeoNamesCatalogIndexer implements GeoEntryIndexer {
 
   private UuidGenerator uuidGenerator;
 
-  private Filter filter;
+  private final Filter filter;
 
   private List<CatalogProvider> catalogProviders;
 
   private FilterBuilder filterBuilder;
 
+  private int batchSize = DEFAULT_BATCH_SIZE;
+
+  private int loaderThreads = DEFAULT_LOADER_THREADS;
+
+  private Path checkpointDirectory;
+
   public GeoNamesCatalogIndexer(
       CatalogFramework catalogFramework,
       UuidGenerator uuidGenerator,
@@ -121,7 +140,7 @@ public GeoNamesCatalogIndexer(
                 .text(GAZETTEER_METACARD_TAG));
   }
 
-  private Metacard transformGeoEntryToMetacard(GeoEntry geoEntry) {
+  private Metacard transformGeoEntryToMetacard(GeoEntry geoEntry, Date loadStarted) {
     if (!GeoCodingConstants.CITY_FEATURE_CODES.contains(geoEntry.getFeatureCode())) {
       return null;
     }
@@ -135,6 +154,7 @@ private Metacard transformGeoEntryToMetacard(GeoEntry geoEntry) {
     metacard.setAttribute(new AttributeImpl(Core.DESCRIPTION, geoEntry.getAlternateNames()));
     metacard.setAttribute(new AttributeImpl(Location.COUNTRY_CODE, geoEntry.getCountryCode()));
     metacard.setAttribute(new AttributeImpl(Core.ID, id));
+    metacard.setAttribute(new AttributeImpl(Core.METACARD_CREATED, loadStarted));
     metacard.setAttribute(
         new AttributeImpl(
             GeoEntryAttributes.FEATURE_CODE_ATTRIBUTE_NAME, geoEntry.getFeatureCode()));
@@ -184,164 +204,192 @@ public void updateIndex(
       return;
     }
 
-    List<Metacard> metacardList = new ArrayList<>();
-
-    final GeoEntryExtractor.ExtractionCallback extractionCallback =
-        new GeoEntryExtractor.ExtractionCallback() {
-          @Override
-          public void extracted(final GeoEntry newEntry) throws GeoEntryIndexingException {
-            Metacard metacard = transformGeoEntryToMetacard(newEntry);
-            if (metacard != null) {
-              metacardList.add(metacard);
+    LoadCheckpoint checkpoint = LoadCheckpoint.open(checkpointDirectory, resource);
+    LoadedEntries previouslyLoaded = checkpoint.getLoadedEntries();
+    long entriesToSkip = previouslyLoaded.count();
+    if (entriesToSkip > 0) {
+      LOGGER.info(
+          "Resuming the GeoNames load of {}, skipping the {} entries already loaded.",
+          resource,
+          entriesToSkip);
+    }
+    Date loadStarted = new Date(checkpoint.getStartTime());
+
+    long entriesLoaded;
+    try (GeoEntryBatchLoader loader =
+        newLoader(loadStarted, previouslyLoaded, checkpoint::update)) {
+      final GeoEntryExtractor.ExtractionCallback extractionCallback =
+          new GeoEntryExtractor.ExtractionCallback() {
+            @Override
+            public void extracted(final GeoEntry newEntry) throws GeoEntryIndexingException {
+              loader.add(newEntry);
             }
-          }
 
-          @Override
-          public void updateProgress(final int progress) {
-            if (progressCallback != null) {
-              progressCallback.updateProgress(progress);
+            @Override
+            public void updateProgress(final int progress) {
+              // The load is not complete until the last batches have been created and the
+              // earlier entries removed.
+              reportProgress(progressCallback, Math.min(progress, 99));
             }
-          }
-        };
+          };
 
-    if (create) {
-      RetryPolicy<Object> retryPolicy =
-          RetryPolicy.builder()
-              .withDelay(Duration.ofSeconds(10))
-              .withMaxDuration(Duration.ofMinutes(5))
-              .withMaxRetries(-1)
-              .build();
-
-      Failsafe.with(retryPolicy)
-          .run(() -> removeGeoNamesMetacardsFromCatalog(resource, extractionCallback));
+      try {
+        geoEntryExtractor.pushGeoEntriesToExtractionCallback(resource, extractionCallback);
+        entriesLoaded = loader.finish();
+      } finally {
+        if (loader.isResourceChanged()) {
+          checkpoint.delete();
+        }
+      }
     }
 
-    geoEntryExtractor.pushGeoEntriesToExtractionCallback(resource, extractionCallback);
-
-    if (CollectionUtils.isEmpty(metacardList)) {
-      LOGGER.debug("No Metacards were created from the resource.");
-      return;
+    if (create) {
+      removeEarlierGeoNamesMetacards(resource, loadStarted);
     }
 
-    executeCreateMetacardRequest(metacardList);
-
-    LOGGER.trace("All data created for: {}", resource);
+    checkpoint.delete();
+    reportProgress(progressCallback, 100);
+    LOGGER.trace("All data created for: {} ({} entries)", resource, entriesLoaded);
   }
 
-  private void removeGeoNamesMetacardsFromCatalog(
-      String resource, ProgressCallback extractionCallback)
-      throws UnsupportedQueryException, SourceUnavailableException, FederationException,
-          IngestException {
-    extractionCallback.updateProgress(0);
-
-    Optional<CatalogProvider> catalogProviderOptional = catalogProviders.stream().findFirst();
-    if (catalogProviderOptional.isPresent()) {
-      CatalogProvider catalogProvider = catalogProviderOptional.get();
-
-      if (StringUtils.isNotBlank(resource)) {
-        filter =
-            filterBuilder.allOf(
-                filterBuilder
-                    .attribute(GeoEntryAttributes.IMPORT_LOCATION)
-                    .is()
-                    .equalTo()
-                    .text(resource),
-                filter);
+  @Override
+  public void updateIndex(
+      List<GeoEntry> newEntries, boolean create, ProgressCallback progressCallback, String resource)
+      throws GeoEntryIndexingException {
+    Date loadStarted = new Date();
+    try (GeoEntryBatchLoader loader =
+        newLoader(loadStarted, new LoadedEntries(), loadedEntries -> {})) {
+      for (GeoEntry geoEntry : newEntries) {
+        loader.add(geoEntry);
       }
+      loader.finish();
+    }
 
-      while (true) {
-        Query query =
-            new QueryImpl(
-                filter, 1, BATCH_SIZE, SortBy.NATURAL_ORDER, false, TimeUnit.SECONDS.toMillis(90));
-        QueryRequest queryRequest = new QueryRequestImpl(query);
-        LOGGER.trace("Removing existing geonames data with filter: {}", filter);
-
-        QueryResponse response = catalogFramework.query(queryRequest);
-        List<Serializable> metacardsToDelete =
-            response.getResults().stream()
-                .map(Result::getMetacard)
-                .map(Metacard::getId)
-                .collect(Collectors.toList());
-
-        if (CollectionUtils.isEmpty(metacardsToDelete)) {
-          break;
-        }
-
-        LOGGER.trace("Deleting {} GeoNames metacards", metacardsToDelete.size());
-        removeMetacards(catalogProvider, extractionCallback, metacardsToDelete);
-      }
+    if (create) {
+      removeEarlierGeoNamesMetacards(resource, loadStarted);
     }
-    extractionCallback.updateProgress(50);
   }
 
-  private void removeMetacards(
-      CatalogProvider catalogProvider,
-      ProgressCallback extractionCallback,
-      List<Serializable> metacards)
-      throws IngestException {
-    for (int i = 0; i < metacards.size(); i += BATCH_SIZE) {
-      int lastIndex = i + BATCH_SIZE;
-      if (lastIndex > metacards.size()) {
-        lastIndex = metacards.size();
-      }
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
 
-      List<Serializable> sublist = metacards.subList(i, lastIndex);
+  public void setLoaderThreads(int loaderThreads) {
+    this.loaderThreads = loaderThreads;
+  }
 
-      DeleteRequest deleteRequest = new DeleteRequestImpl(sublist, Core.ID, new HashMap<>());
-      DeleteResponse deleteResponse = catalogProvider.delete(deleteRequest);
-      List<Metacard> deletedMetacards = deleteResponse.getDeletedMetacards();
-      LOGGER.debug("{} metacards deleted.", deletedMetacards == null ? 0 : deletedMetacards.size());
-      extractionCallback.updateProgress((int) (((double) (i + 1) / metacards.size()) * 50));
-    }
+  public void setCheckpointDirectory(String checkpointDirectory) {
+    this.checkpointDirectory =
+        StringUtils.isBlank(checkpointDirectory) ? null : Paths.get(checkpointDirectory);
   }
 
-  @Override
-  public void updateIndex(
-      List<GeoEntry> newEntries, boolean create, ProgressCallback progressCallback, String resource)
+  private GeoEntryBatchLoader newLoader(
+      Date loadStarted, LoadedEntries previouslyLoaded, Consumer<LoadedEntries> loadedListener) {
+    return new GeoEntryBatchLoader(
+        geoEntries -> createMetacards(geoEntries, loadStarted),
+        batchSize,
+        loaderThreads,
+        previouslyLoaded,
+        loadedListener);
+  }
+
+  private void createMetacards(List<GeoEntry> geoEntries, Date loadStarted)
       throws GeoEntryIndexingException {
-    if (create) {
-      RetryPolicy<Object> retryPolicy =
-          RetryPolicy.builder()
-              .withDelay(Duration.ofSeconds(10))
-              .withMaxDuration(Duration.ofMinutes(5))
-              .withMaxRetries(-1)
-              .build();
-
-      Failsafe.with(retryPolicy)
-          .run(() -> removeGeoNamesMetacardsFromCatalog(resource, progressCallback));
+    List<Metacard> metacards =
+        geoEntries.stream()
+            .map(geoEntry -> transformGeoEntryToMetacard(geoEntry, loadStarted))
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+    if (metacards.isEmpty()) {
+      return;
     }
 
-    List<Metacard> metacards = new ArrayList<>();
-    for (GeoEntry geoEntry : newEntries) {
-      metacards.add(transformGeoEntryToMetacard(geoEntry));
+    CreateRequest createRequest = new CreateRequestImpl(metacards, new HashMap<>());
+    try {
+      CreateResponse createResponse = catalogFramework.create(createRequest);
+      List<Metacard> createdMetacards = createResponse.getCreatedMetacards();
+      LOGGER.trace("Created {} metacards.", createdMetacards == null ? 0 : createdMetacards.size());
+    } catch (IngestException | SourceUnavailableException e) {
+      throw new GeoEntryIndexingException("Unable to create Metacards", e);
     }
-    executeCreateMetacardRequest(metacards);
   }
 
-  private void executeCreateMetacardRequest(List<Metacard> metacards) {
-    int totalMetacards = metacards.size();
+  /**
+   * Removes the GeoNames metacards for {@code resource} that were created before the current load
+   * started. Doing this after the new entries have been created, rather than before, means the
+   * gazetteer is never empty while a resource is being reloaded.
+   */
+  private void removeEarlierGeoNamesMetacards(String resource, Date loadStarted) {
+    RetryPolicy<Object> retryPolicy =
+        RetryPolicy.builder()
+            .withDelay(Duration.ofSeconds(10))
+            .withMaxDuration(Duration.ofMinutes(5))
+            .withMaxRetries(-1)
+            .build();
+
+    Failsafe.with(retryPolicy).run(() -> removeGeoNamesMetacardsFromCatalog(resource, loadStarted));
+  }
 
-    for (int i = 0; i < totalMetacards; i += BATCH_SIZE) {
+  private void removeGeoNamesMetacardsFromCatalog(String resource, Date createdBefore)
+      throws UnsupportedQueryException, SourceUnavailableException, FederationException,
+          IngestException {
+    Optional<CatalogProvider> catalogProviderOptional = catalogProviders.stream().findFirst();
+    if (!catalogProviderOptional.isPresent()) {
+      return;
+    }
+    CatalogProvider catalogProvider = catalogProviderOptional.get();
 
-      int lastIndex = i + BATCH_SIZE;
-      if (lastIndex > metacards.size()) {
-        lastIndex = metacards.size();
-      }
+    Filter removalFilter =
+        filterBuilder.allOf(
+            filter,
+            filterBuilder.attribute(Core.METACARD_CREATED).is().before().date(createdBefore));
+    if (StringUtils.isNotBlank(resource)) {
+      removalFilter =
+          filterBuilder.allOf(
+              filterBuilder
+                  .attribute(GeoEntryAttributes.IMPORT_LOCATION)
+                  .is()
+                  .equalTo()
+                  .text(resource),
+              removalFilter);
+    }
 
-      List<Metacard> sublist = metacards.subList(i, lastIndex);
-      Map<String, Serializable> properties = new HashMap<>();
-      CreateRequest createRequest = new CreateRequestImpl(sublist, properties);
-      try {
-        CreateResponse createResponse = catalogFramework.create(createRequest);
-        List<Metacard> createdMetacards = createResponse.getCreatedMetacards();
-        LOGGER.trace(
-            "Created {} metacards.", createdMetacards == null ? 0 : createdMetacards.size());
-      } catch (IngestException | SourceUnavailableException e) {
-        LOGGER.debug("Unable to create Metacards", e);
+    while (true) {
+      Query query =
+          new QueryImpl(
+              removalFilter,
+              1,
+              batchSize,
+              SortBy.NATURAL_ORDER,
+              false,
+              TimeUnit.SECONDS.toMillis(90));
+      QueryRequest queryRequest = new QueryRequestImpl(query);
+      LOGGER.trace("Removing existing geonames data with filter: {}", removalFilter);
+
+      QueryResponse response = catalogFramework.query(queryRequest);
+      List<Serializable> metacardsToDelete =
+          response.getResults().stream()
+              .map(Result::getMetacard)
+              .map(Metacard::getId)
+              .collect(Collectors.toList());
+
+      if (CollectionUtils.isEmpty(metacardsToDelete)) {
+        break;
       }
+
+      LOGGER.trace("Deleting {} GeoNames metacards", metacardsToDelete.size());
+      DeleteRequest deleteRequest =
+          new DeleteRequestImpl(metacardsToDelete, Core.ID, new HashMap<>());
+      DeleteResponse deleteResponse = catalogProvider.delete(deleteRequest);
+      List<Metacard> deletedMetacards = deleteResponse.getDeletedMetacards();
+      LOGGER.debug("{} metacards deleted.", deletedMetacards == null ? 0 : deletedMetacards.size());
     }
+  }
 
-    LOGGER.trace("Created {} metacards.", totalMetacards);
+  private static void reportProgress(ProgressCallback progressCallback, int progress) {
+    if (progressCallback != null) {
+      progressCallback.updateProgress(progress);
+    }
   }
 
   private Integer getGeoNameGazetterSortByFeatureClass(GeoEntry geoEntry) {
@@ -0,0 +1,162 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.spatial.geocoding.index;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+import java.util.Properties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records how far a GeoNames load has progressed, so that a load that fails part way through can be
+ * resumed instead of being started over.
+ *
+ * <p>The checkpoint holds the time the load started, which identifies the entries it created, and
+ * the {@link LoadedEntries} of the resource that have been loaded. When the resource is a local
+ * file, it also holds the file's size and modification time, and a checkpoint left for another
+ * version of the file is discarded. Resources that are downloaded are checked by the fingerprints
+ * of the loaded entries instead, as the load skips them. The checkpoint is stored in a properties
+ * file named after the resource, and is removed when the load completes.
+ */
+class LoadCheckpoint {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(LoadCheckpoint.class);
+
+  private static final String START_TIME = "startTime";
+
+  private static final String LOADED_ENTRIES = "loadedEntries";
+
+  private static final String RESOURCE_VERSION = "resourceVersion";
+
+  private static final String EXTENSION = ".checkpoint";
+
+  private final Path path;
+
+  private final long startTime;
+
+  private final LoadedEntries loadedEntries;
+
+  private final String resourceVersion;
+
+  private LoadCheckpoint(
+      Path path, long startTime, LoadedEntries loadedEntries, String resourceVersion) {
+    this.path = path;
+    this.startTime = startTime;
+    this.loadedEntries = loadedEntries;
+    this.resourceVersion = resourceVersion;
+  }
+
+  /**
+   * Reads the checkpoint left by an earlier, failed load of {@code resource}, or starts a new one
+   * if there is none or if the resource has changed since.
+   *
+   * @param directory the directory holding checkpoints, or null to disable checkpoints
+   * @param resource the resource being loaded
+   */
+  static LoadCheckpoint open(Path directory, String resource) {
+    long now = System.currentTimeMillis();
+    if (directory == null) {
+      return new LoadCheckpoint(null, now, new LoadedEntries(), null);
+    }
+
+    Path path = directory.resolve(resource.replaceAll("[^A-Za-z0-9.-]", "_") + EXTENSION);
+    String resourceVersion = getResourceVersion(resource);
+    if (Files.isRegularFile(path)) {
+      Properties properties = new Properties();
+      try (InputStream inputStream = Files.newInputStream(path)) {
+        properties.load(inputStream);
+        if (Objects.equals(resourceVersion, properties.getProperty(RESOURCE_VERSION))) {
+          return new LoadCheckpoint(
+              path,
+              Long.parseLong(properties.getProperty(START_TIME)),
+              LoadedEntries.parse(properties.getProperty(LOADED_ENTRIES)),
+              resourceVersion);
+        }
+        LOGGER.info("{} has changed since its last load failed. Starting over.", resource);
+      } catch (IOException | IllegalArgumentException e) {
+        LOGGER.debug("Unable to read GeoNames load checkpoint {}. Starting over.", path, e);
+      }
+    }
+    return new LoadCheckpoint(path, now, new LoadedEntries(), resourceVersion);
+  }
+
+  /** @return the size and modification time of a local resource file, or null */
+  private static String getResourceVersion(String resource) {
+    try {
+      Path file = Paths.get(resource);
+      if (Files.isRegularFile(file)) {
+        return Files.size(file) + "/" + Files.getLastModifiedTime(file).toMillis();
+      }
+    } catch (InvalidPathException | IOException e) {
+      LOGGER.trace("{} is not a local file", resource, e);
+    }
+    return null;
+  }
+
+  /** @return the time, in milliseconds since the epoch, that the load was first started */
+  long getStartTime() {
+    return startTime;
+  }
+
+  /** @return the entries of the resource that have already been loaded */
+  LoadedEntries getLoadedEntries() {
+    return loadedEntries;
+  }
+
+  /** Records the entries of the resource that have been loaded. */
+  void update(LoadedEntries loaded) {
+    if (path == null) {
+      return;
+    }
+
+    Properties properties = new Properties();
+    properties.setProperty(START_TIME, Long.toString(startTime));
+    properties.setProperty(LOADED_ENTRIES, loaded.toString());
+    if (resourceVersion != null) {
+      properties.setProperty(RESOURCE_VERSION, resourceVersion);
+    }
+    try {
+      Files.createDirectories(path.getParent());
+      Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+      try (OutputStream outputStream = Files.newOutputStream(temporaryPath)) {
+        properties.store(outputStream, null);
+      }
+      Files.move(
+          temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      LOGGER.debug("Unable to write GeoNames load checkpoint {}", path, e);
+    }
+  }
+
+  /** Removes the checkpoint once the load has completed, or can no longer be resumed. */
+  void delete() {
+    if (path == null) {
+      return;
+    }
+
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      LOGGER.debug("Unable to remove GeoNames load checkpoint {}", path, e);
+    }
+  }
+}
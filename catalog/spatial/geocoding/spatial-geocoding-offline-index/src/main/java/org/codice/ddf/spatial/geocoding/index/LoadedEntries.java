@@ -0,0 +1,155 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.spatial.geocoding.index;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import org.codice.ddf.spatial.geocoding.GeoEntry;
+
+/**
+ * The entries of a resource that have been loaded, kept as ranges of entry numbers so that batches
+ * completed out of order are all remembered. Adjacent ranges are merged.
+ *
+ * <p>Each range carries a fingerprint of the entries in it, which lets a resumed load check that
+ * the resource still holds the entries it skips. Fingerprints of adjacent ranges add up to the
+ * fingerprint of the merged range.
+ */
+final class LoadedEntries {
+
+  private static final String RANGE_SEPARATOR = ",";
+
+  private final NavigableMap<Long, Range> ranges = new TreeMap<>();
+
+  LoadedEntries() {}
+
+  private LoadedEntries(LoadedEntries other) {
+    ranges.putAll(other.ranges);
+  }
+
+  /** @return the fingerprint of the entry numbered {@code entryNumber} */
+  static long fingerprint(long entryNumber, GeoEntry entry) {
+    int entryHash =
+        Objects.hash(
+            entry.getName(),
+            entry.getLatitude(),
+            entry.getLongitude(),
+            entry.getFeatureCode(),
+            entry.getCountryCode(),
+            entry.getPopulation(),
+            entry.getAlternateNames());
+    return mix(mix(entryNumber) + entryHash);
+  }
+
+  /**
+   * Parses the ranges written by {@link #toString()}.
+   *
+   * @throws IllegalArgumentException if the text is not a list of ranges
+   */
+  static LoadedEntries parse(String text) {
+    LoadedEntries loadedEntries = new LoadedEntries();
+    if (text == null || text.isEmpty()) {
+      return loadedEntries;
+    }
+
+    for (String range : text.split(RANGE_SEPARATOR)) {
+      String[] parts = range.split("[-:]");
+      if (parts.length != 3) {
+        throw new IllegalArgumentException("Invalid range of loaded entries: " + range);
+      }
+      loadedEntries.add(
+          Long.parseLong(parts[0]), Long.parseLong(parts[1]), Long.parseUnsignedLong(parts[2], 16));
+    }
+    return loadedEntries;
+  }
+
+  /** Records that the entries from {@code first} up to, but excluding, {@code next} were loaded. */
+  void add(long first, long next, long fingerprint) {
+    Map.Entry<Long, Range> previous = ranges.floorEntry(first);
+    if (previous != null && previous.getValue().next == first) {
+      ranges.remove(previous.getKey());
+      first = previous.getValue().first;
+      fingerprint += previous.getValue().fingerprint;
+    }
+
+    Range following = ranges.remove(next);
+    if (following != null) {
+      next = following.next;
+      fingerprint += following.fingerprint;
+    }
+
+    ranges.put(first, new Range(first, next, fingerprint));
+  }
+
+  /**
+   * @return the range holding the entry numbered {@code entryNumber}, or null if it is not loaded
+   */
+  Range find(long entryNumber) {
+    Map.Entry<Long, Range> entry = ranges.floorEntry(entryNumber);
+    return entry != null && entryNumber < entry.getValue().next ? entry.getValue() : null;
+  }
+
+  /** @return the number of entries loaded */
+  long count() {
+    return ranges.values().stream().mapToLong(range -> range.next - range.first).sum();
+  }
+
+  /** @return the number after the last loaded entry, or 0 if no entries have been loaded */
+  long end() {
+    return ranges.isEmpty() ? 0 : ranges.lastEntry().getValue().next;
+  }
+
+  LoadedEntries copy() {
+    return new LoadedEntries(this);
+  }
+
+  @Override
+  public String toString() {
+    return ranges.values().stream()
+        .map(range -> range.first + "-" + range.next + ":" + Long.toHexString(range.fingerprint))
+        .collect(Collectors.joining(RANGE_SEPARATOR));
+  }
+
+  /** A finalizer of the SplitMix64 generator, which spreads every input bit over the result. */
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+
+  static final class Range {
+
+    private final long first;
+
+    private final long next;
+
+    private final long fingerprint;
+
+    private Range(long first, long next, long fingerprint) {
+      this.first = first;
+      this.next = next;
+      this.fingerprint = fingerprint;
+    }
+
+    long getNext() {
+      return next;
+    }
+
+    long getFingerprint() {
+      return fingerprint;
+    }
+  }
+}
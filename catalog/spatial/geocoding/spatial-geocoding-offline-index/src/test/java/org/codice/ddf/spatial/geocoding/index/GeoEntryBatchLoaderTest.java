@@ -0,0 +1,161 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.spatial.geocoding.index;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import org.codice.ddf.spatial.geocoding.GeoEntry;
+import org.codice.ddf.spatial.geocoding.GeoEntryIndexingException;
+import org.junit.Test;
+
+public class GeoEntryBatchLoaderTest {
+
+  @Test
+  public void testResumeSkipsBatchesCompletedOutOfOrder() throws Exception {
+    List<GeoEntry> entries = entries(40);
+    CountDownLatch secondBatchDone = new CountDownLatch(1);
+    AtomicReference<LoadedEntries> checkpoint = new AtomicReference<>(new LoadedEntries());
+
+    // the first batch fails after the second one has been written
+    try (GeoEntryBatchLoader loader =
+        new GeoEntryBatchLoader(
+            batch -> {
+              if (batch.get(0) == entries.get(0)) {
+                await(secondBatchDone);
+                throw new GeoEntryIndexingException("first batch fails");
+              }
+              secondBatchDone.countDown();
+            },
+            10,
+            2,
+            new LoadedEntries(),
+            loaded -> checkpoint.set(loaded.copy()))) {
+      for (GeoEntry entry : entries.subList(0, 20)) {
+        loader.add(entry);
+      }
+      loader.finish();
+      fail("Expected the first batch to fail.");
+    } catch (GeoEntryIndexingException e) {
+      assertThat(checkpoint.get().toString().startsWith("10-20:"), is(true));
+    }
+
+    List<String> written = Collections.synchronizedList(new ArrayList<>());
+    try (GeoEntryBatchLoader loader =
+        new GeoEntryBatchLoader(
+            batch -> batch.forEach(entry -> written.add(entry.getName())),
+            10,
+            2,
+            LoadedEntries.parse(checkpoint.get().toString()),
+            loaded -> checkpoint.set(loaded.copy()))) {
+      for (GeoEntry entry : entries) {
+        loader.add(entry);
+      }
+
+      assertThat(loader.finish(), is(40L));
+    }
+
+    List<String> expected =
+        entries.stream()
+            .map(GeoEntry::getName)
+            .filter(name -> Integer.parseInt(name) < 10 || Integer.parseInt(name) >= 20)
+            .collect(Collectors.toList());
+    Collections.sort(written);
+    Collections.sort(expected);
+    assertThat(written, is(expected));
+    assertThat(checkpoint.get().count(), is(40L));
+  }
+
+  @Test
+  public void testResumeFailsWhenTheResourceHasChanged() throws Exception {
+    List<GeoEntry> entries = entries(20);
+    LoadedEntries previouslyLoaded = new LoadedEntries();
+    for (int i = 0; i < 10; i++) {
+      previouslyLoaded.add(i, i + 1, LoadedEntries.fingerprint(i, entries.get(i)));
+    }
+    entries.set(5, new GeoEntry.Builder().name("changed").build());
+
+    List<GeoEntry> written = Collections.synchronizedList(new ArrayList<>());
+    try (GeoEntryBatchLoader loader =
+        new GeoEntryBatchLoader(written::addAll, 10, 1, previouslyLoaded, loaded -> {})) {
+      try {
+        for (GeoEntry entry : entries) {
+          loader.add(entry);
+        }
+        fail("Expected the changed resource to be detected.");
+      } catch (GeoEntryIndexingException e) {
+        assertThat(loader.isResourceChanged(), is(true));
+      }
+    }
+    assertThat(written.isEmpty(), is(true));
+  }
+
+  @Test
+  public void testResumeFailsWhenTheResourceIsShorter() throws Exception {
+    List<GeoEntry> entries = entries(20);
+    LoadedEntries previouslyLoaded = new LoadedEntries();
+    previouslyLoaded.add(20, 30, 0);
+
+    try (GeoEntryBatchLoader loader =
+        new GeoEntryBatchLoader(batch -> {}, 10, 1, previouslyLoaded, loaded -> {})) {
+      for (GeoEntry entry : entries) {
+        loader.add(entry);
+      }
+      loader.finish();
+      fail("Expected the changed resource to be detected.");
+    } catch (GeoEntryIndexingException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testLoadedEntriesMergeAdjacentRanges() {
+    LoadedEntries loadedEntries = new LoadedEntries();
+    loadedEntries.add(20, 30, 3);
+    loadedEntries.add(0, 10, 1);
+    loadedEntries.add(10, 20, 2);
+    loadedEntries.add(40, 50, 4);
+
+    assertThat(loadedEntries.toString(), is("0-30:6,40-50:4"));
+    assertThat(LoadedEntries.parse(loadedEntries.toString()).toString(), is("0-30:6,40-50:4"));
+    assertThat(loadedEntries.count(), is(40L));
+    assertThat(loadedEntries.end(), is(50L));
+    assertThat(loadedEntries.find(35) == null, is(true));
+    assertThat(loadedEntries.find(45).getNext(), is(50L));
+  }
+
+  private static List<GeoEntry> entries(int count) {
+    List<GeoEntry> entries = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      entries.add(new GeoEntry.Builder().name(Integer.toString(i)).build());
+    }
+    return entries;
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
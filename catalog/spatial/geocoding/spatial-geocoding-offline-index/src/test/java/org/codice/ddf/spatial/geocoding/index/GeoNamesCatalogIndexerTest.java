@@ -15,10 +15,12 @@
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -47,11 +49,15 @@
 import org.codice.ddf.spatial.geocoding.GeoEntry;
 import org.codice.ddf.spatial.geocoding.GeoEntryAttributes;
 import org.codice.ddf.spatial.geocoding.GeoEntryCreator;
+import org.codice.ddf.spatial.geocoding.GeoEntryExtractionException;
+import org.codice.ddf.spatial.geocoding.GeoEntryIndexingException;
 import org.codice.ddf.spatial.geocoding.ProgressCallback;
 import org.codice.ddf.spatial.geocoding.extract.GeoNamesFileExtractor;
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.ArgumentCaptor;
 
 public class GeoNamesCatalogIndexerTest {
@@ -81,6 +87,8 @@ public class GeoNamesCatalogIndexerTest {
 
   private static final Metacard METACARD = new MetacardImpl();
 
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   private GeoNamesCatalogIndexer geoNamesCatalogIndexer;
 
   private CatalogFramework catalogFramework;
@@ -241,7 +249,7 @@ public void testUpdateIndexBadGeoEntry() throws Exception {
   @Test
   public void testUpdateIndexZip() throws Exception {
     geoNamesCatalogIndexer.updateIndex(ZIP_FILE_PATH, geoEntryExtractor, false, progressCallback);
-    verify(catalogFramework, times(13)).create(any(CreateRequest.class));
+    verify(catalogFramework, times(4)).create(any(CreateRequest.class));
   }
 
   @Test
@@ -263,6 +271,7 @@ public void testUpdateIndexBatches() throws Exception {
 
     when(createResponse.getCreatedMetacards()).thenReturn(metacardList);
 
+    geoNamesCatalogIndexer.setBatchSize(250);
     geoNamesCatalogIndexer.updateIndex(LARGE_FILE_PATH, geoEntryExtractor, false, progressCallback);
     verify(catalogFramework, times(2)).create(createRequestArgumentCaptor.capture());
 
@@ -282,20 +291,53 @@ public void testUpdateIndexNullResponse() throws Exception {
   }
 
   @SuppressWarnings("unchecked")
-  @Test
+  @Test(expected = GeoEntryIndexingException.class)
   public void testUpdateIndexIngestException() throws Exception {
     when(catalogFramework.create(any(CreateRequest.class))).thenThrow(IngestException.class);
     geoNamesCatalogIndexer.updateIndex(GOOD_FILE_PATH, geoEntryExtractor, false, progressCallback);
-    verify(catalogFramework, times(1)).create(any(CreateRequest.class));
   }
 
   @SuppressWarnings("unchecked")
-  @Test
+  @Test(expected = GeoEntryIndexingException.class)
   public void testUpdateIndexSourceUnavailableException() throws Exception {
     when(catalogFramework.create(any(CreateRequest.class)))
         .thenThrow(SourceUnavailableException.class);
     geoNamesCatalogIndexer.updateIndex(GOOD_FILE_PATH, geoEntryExtractor, false, progressCallback);
-    verify(catalogFramework, times(1)).create(any(CreateRequest.class));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void testUpdateIndexResumesFromCheckpoint() throws Exception {
+    File checkpointDirectory = temporaryFolder.newFolder();
+    geoNamesCatalogIndexer.setCheckpointDirectory(checkpointDirectory.getAbsolutePath());
+    geoNamesCatalogIndexer.setBatchSize(100);
+    geoNamesCatalogIndexer.setLoaderThreads(1);
+    when(catalogFramework.create(any(CreateRequest.class)))
+        .thenReturn(createResponse)
+        .thenThrow(IngestException.class);
+
+    try {
+      geoNamesCatalogIndexer.updateIndex(
+          LARGE_FILE_PATH, geoEntryExtractor, false, progressCallback);
+      fail("Expected the load to fail.");
+    } catch (GeoEntryIndexingException | GeoEntryExtractionException e) {
+      assertThat(checkpointDirectory.list().length, is(1));
+    }
+
+    reset(catalogFramework);
+    when(catalogFramework.create(any(CreateRequest.class))).thenReturn(createResponse);
+    ArgumentCaptor<CreateRequest> createRequestArgumentCaptor =
+        ArgumentCaptor.forClass(CreateRequest.class);
+
+    geoNamesCatalogIndexer.updateIndex(LARGE_FILE_PATH, geoEntryExtractor, false, progressCallback);
+
+    verify(catalogFramework, times(3)).create(createRequestArgumentCaptor.capture());
+    int totalEntries = 0;
+    for (CreateRequest createRequest : createRequestArgumentCaptor.getAllValues()) {
+      totalEntries += createRequest.getMetacards().size();
+    }
+    assertThat(totalEntries, is(260));
+    assertThat(checkpointDirectory.list().length, is(0));
   }
 
   @Test
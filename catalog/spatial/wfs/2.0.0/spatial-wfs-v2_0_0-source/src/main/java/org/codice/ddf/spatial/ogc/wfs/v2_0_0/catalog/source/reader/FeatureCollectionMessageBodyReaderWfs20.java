@@ -19,9 +19,11 @@
 import com.thoughtworks.xstream.security.NoTypePermission;
 import ddf.catalog.data.Metacard;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.StringReader;
+import java.io.SequenceInputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
 import java.math.BigInteger;
@@ -36,14 +38,11 @@
 import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.ext.MessageBodyReader;
 import javax.ws.rs.ext.Provider;
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.JAXBElement;
-import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
+import javax.xml.namespace.QName;
 import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
-import net.opengis.wfs.v_2_0_0.FeatureCollectionType;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.codice.ddf.log.sanitizer.LogSanitizer;
@@ -64,7 +63,13 @@
   private static final Logger LOGGER =
       LoggerFactory.getLogger(FeatureCollectionMessageBodyReaderWfs20.class);
 
-  private static final JAXBContext JAXB_CONTEXT = initJaxbContext();
+  private static final String FEATURE_COLLECTION = "FeatureCollection";
+
+  private static final String NUMBER_MATCHED = "numberMatched";
+
+  private static final String NUMBER_RETURNED = "numberReturned";
+
+  private static final String OGC_NAMESPACE_PREFIX = "http://www.opengis.net/";
 
   protected XStream xstream;
 
@@ -73,6 +78,8 @@
   protected Map<String, FeatureConverter> featureConverterMap =
       new HashMap<String, FeatureConverter>();
 
+  private final XMLInputFactory xmlInputFactory;
+
   public FeatureCollectionMessageBodyReaderWfs20() {
     xstream = new XStream(new WstxDriver());
     xstream.addPermission(NoTypePermission.NONE);
@@ -83,31 +90,11 @@ public FeatureCollectionMessageBodyReaderWfs20() {
     featureCollectionConverter.setFeatureConverterMap(featureConverterMap);
     xstream.registerConverter(featureCollectionConverter);
     xstream.alias("FeatureCollection", Wfs20FeatureCollection.class);
-  }
-
-  private static JAXBContext initJaxbContext() {
-    JAXBContext jaxbContext = null;
-
-    // JAXB context path
-    String contextPath =
-        StringUtils.join(
-            new String[] {
-              Wfs20Constants.OGC_WFS_PACKAGE,
-              Wfs20Constants.OGC_FILTER_PACKAGE,
-              Wfs20Constants.OGC_GML_PACKAGE,
-              Wfs20Constants.OGC_OWS_PACKAGE
-            },
-            ":");
-
-    try {
-      jaxbContext =
-          JAXBContext.newInstance(
-              contextPath, FeatureCollectionMessageBodyReaderWfs20.class.getClassLoader());
-    } catch (JAXBException e) {
-      LOGGER.info("Unable to create JAXB context using contextPath: {}.", contextPath, e);
-    }
 
-    return jaxbContext;
+    xmlInputFactory = XMLInputFactory.newFactory();
+    xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    xmlInputFactory.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, false);
   }
 
   @Override
@@ -119,10 +106,14 @@ public boolean isReadable(
     return Wfs20FeatureCollection.class.isAssignableFrom(clazz);
   }
 
-  @SuppressWarnings({
-    "unchecked",
-    "squid:S2093"
-  } /*instream declaration is a re-creation and as such cannot be put in a try-catch*/)
+  /**
+   * Reads the feature collection directly from the response stream. Only the root element is
+   * inspected up front (to pick up {@code numberMatched}/{@code numberReturned} and to detect
+   * exception reports); the bytes read while doing so are replayed ahead of the rest of the stream,
+   * however long the prolog is, and the {@code wfs:member} elements are converted one at a time by
+   * the registered {@link FeatureConverter}s as XStream pulls them from the stream, so the response
+   * is never held in memory as a whole.
+   */
   @Override
   public Wfs20FeatureCollection readFrom(
       Class<Wfs20FeatureCollection> clazz,
@@ -133,81 +124,59 @@ public Wfs20FeatureCollection readFrom(
       InputStream inStream)
       throws IOException, WebApplicationException {
 
-    // Save original input stream for any exception message that might need to be
-    // created and additional attributes
-    String originalInputStream = IOUtils.toString(inStream, "UTF-8");
-    LOGGER.debug("{}", LogSanitizer.sanitize(originalInputStream));
-
     ClassLoader ccl = Thread.currentThread().getContextClassLoader();
 
     try {
       Thread.currentThread()
           .setContextClassLoader(FeatureCollectionMessageBodyReaderWfs20.class.getClassLoader());
-      // Fetch FeatureCollection attributes
-      Unmarshaller unmarshaller = null;
-      JAXBElement<FeatureCollectionType> wfsFeatureCollectionType = null;
-      xstream.allowTypeHierarchy(Wfs20FeatureCollection.class);
-      try {
-        unmarshaller = JAXB_CONTEXT.createUnmarshaller();
-        XMLInputFactory xmlInputFactory = XMLInputFactory.newFactory();
-        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
-        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
-        xmlInputFactory.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, false);
-        XMLStreamReader xmlStreamReader =
-            xmlInputFactory.createXMLStreamReader(new StringReader(originalInputStream));
-        wfsFeatureCollectionType =
-            (JAXBElement<FeatureCollectionType>) unmarshaller.unmarshal(xmlStreamReader);
-      } catch (ClassCastException e1) {
-        LOGGER.debug(
-            "Exception unmarshalling {}, could be an OWS Exception Report from server.",
-            e1.getMessage());
-
-        // If an ExceptionReport is sent from the remote WFS site it will be sent with an
-        // JAX-RS "OK" status, hence the ErrorResponse exception mapper will not fire.
-        // Instead the ServiceExceptionReport will come here and be treated like a GetFeature
-        // response, resulting in an XStreamException since ExceptionReport cannot be
-        // unmarshalled. So this catch clause is responsible for catching that XStream
-        // exception and creating a JAX-RS response containing the original stream
-        // (with the ExceptionReport) and rethrowing it as a WebApplicationException,
-        // which CXF will wrap as a ClientException that the WfsSource catches, converts
-        // to a WfsException, and logs.
-
-        ByteArrayInputStream bis =
-            new ByteArrayInputStream(originalInputStream.getBytes(StandardCharsets.UTF_8));
-        ResponseBuilder responseBuilder = Response.ok(bis);
-        responseBuilder.type("text/xml");
-        Response response = responseBuilder.build();
-        throw new WebApplicationException(e1, response);
-      } catch (VirtualMachineError e) {
-        throw e;
-      } catch (JAXBException | XMLStreamException e1) {
-        LOGGER.debug("Error in retrieving feature collection.", e1);
-      } catch (RuntimeException e) {
-        LOGGER.debug("Error processing collection", e);
-        throw e;
-      }
 
-      Wfs20FeatureCollection featureCollection = null;
+      RecordingInputStream recordingStream = new RecordingInputStream(inStream);
+      RootElement rootElement = readRootElement(recordingStream);
+      InputStream featureStream =
+          new SequenceInputStream(
+              new ByteArrayInputStream(recordingStream.getRecordedBytes()), inStream);
 
-      if (null != wfsFeatureCollectionType && null != wfsFeatureCollectionType.getValue()) {
-        BigInteger numberReturned = wfsFeatureCollectionType.getValue().getNumberReturned();
-        String numberMatched = wfsFeatureCollectionType.getValue().getNumberMatched();
+      if (rootElement == null) {
+        return null;
+      }
 
-        // Re-create the input stream (since it has already been read for potential
-        // exception message creation)
-        inStream = new ByteArrayInputStream(originalInputStream.getBytes("UTF-8"));
+      if (!rootElement.isFeatureCollection()) {
+        if (rootElement.isOgcElement()) {
+          // If an ExceptionReport is sent from the remote WFS site it will be sent with an
+          // JAX-RS "OK" status, hence the ErrorResponse exception mapper will not fire.
+          // Instead the ServiceExceptionReport will come here and be treated like a GetFeature
+          // response. So this is responsible for creating a JAX-RS response containing the
+          // original stream (with the ExceptionReport) and throwing it as a
+          // WebApplicationException, which CXF will wrap as a ClientException that the
+          // WfsSource catches, converts to a WfsException, and logs.
+          LOGGER.debug(
+              "Received {} instead of a FeatureCollection, could be an OWS Exception Report from server.",
+              rootElement.name);
+          String exceptionReport = IOUtils.toString(featureStream, StandardCharsets.UTF_8);
+          LOGGER.debug("{}", LogSanitizer.sanitize(exceptionReport));
 
-        try {
-          xstream.allowTypeHierarchy(Wfs20FeatureCollection.class);
-          featureCollection = (Wfs20FeatureCollection) xstream.fromXML(inStream);
-          featureCollection.setNumberMatched(numberMatched);
-          featureCollection.setNumberReturned(numberReturned);
-
-        } catch (XStreamException e) {
-          LOGGER.debug("Exception unmarshalling", e);
-        } finally {
-          IOUtils.closeQuietly(inStream);
+          ByteArrayInputStream bis =
+              new ByteArrayInputStream(exceptionReport.getBytes(StandardCharsets.UTF_8));
+          ResponseBuilder responseBuilder = Response.ok(bis);
+          responseBuilder.type("text/xml");
+          Response response = responseBuilder.build();
+          throw new WebApplicationException(response);
         }
+
+        LOGGER.debug("Unable to read feature collection with root element {}.", rootElement.name);
+        return null;
+      }
+
+      Wfs20FeatureCollection featureCollection = null;
+      try {
+        xstream.allowTypeHierarchy(Wfs20FeatureCollection.class);
+        featureCollection = (Wfs20FeatureCollection) xstream.fromXML(featureStream);
+        featureCollection.setNumberMatched(rootElement.numberMatched);
+        featureCollection.setNumberReturned(rootElement.getNumberReturned());
+      } catch (XStreamException e) {
+        LOGGER.debug("Exception unmarshalling", e);
+      } finally {
+        IOUtils.closeQuietly(featureStream);
       }
 
       return featureCollection;
@@ -216,9 +185,128 @@ public Wfs20FeatureCollection readFrom(
     }
   }
 
+  /**
+   * Reads the first start element of the document. The underlying stream is left open so that the
+   * caller can read the rest of it.
+   */
+  private RootElement readRootElement(InputStream inStream) {
+    XMLStreamReader xmlStreamReader = null;
+    try {
+      xmlStreamReader = xmlInputFactory.createXMLStreamReader(inStream);
+      while (xmlStreamReader.hasNext()) {
+        if (xmlStreamReader.next() == XMLStreamConstants.START_ELEMENT) {
+          return new RootElement(
+              xmlStreamReader.getName(),
+              xmlStreamReader.getAttributeValue(null, NUMBER_MATCHED),
+              xmlStreamReader.getAttributeValue(null, NUMBER_RETURNED));
+        }
+      }
+      LOGGER.debug("Feature collection response did not contain a root element.");
+    } catch (XMLStreamException e) {
+      LOGGER.debug("Error in retrieving feature collection.", e);
+    } finally {
+      if (xmlStreamReader != null) {
+        try {
+          xmlStreamReader.close();
+        } catch (XMLStreamException e) {
+          LOGGER.debug("Unable to close XML stream reader.", e);
+        }
+      }
+    }
+    return null;
+  }
+
   public void registerConverter(FeatureConverter converter) {
     featureConverterMap.put(converter.getMetacardType().getName(), converter);
     xstream.registerConverter(converter);
     xstream.alias(converter.getMetacardType().getName(), Metacard.class);
   }
+
+  private static class RootElement {
+
+    private final QName name;
+
+    private final String numberMatched;
+
+    private final String numberReturned;
+
+    RootElement(QName name, String numberMatched, String numberReturned) {
+      this.name = name;
+      this.numberMatched = numberMatched;
+      this.numberReturned = numberReturned;
+    }
+
+    /**
+     * XStream aliases the feature collection by its local name, so a {@code FeatureCollection} root
+     * is accepted whatever its namespace, as it was before the root element was sniffed.
+     */
+    boolean isFeatureCollection() {
+      return FEATURE_COLLECTION.equals(name.getLocalPart());
+    }
+
+    boolean isOgcElement() {
+      return name.getNamespaceURI() != null
+          && name.getNamespaceURI().startsWith(OGC_NAMESPACE_PREFIX);
+    }
+
+    BigInteger getNumberReturned() {
+      if (StringUtils.isNotEmpty(numberReturned) && StringUtils.isNumeric(numberReturned)) {
+        return new BigInteger(numberReturned);
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Keeps a copy of the bytes read from the wrapped stream, and does not close it, so that the
+   * bytes read while sniffing the root element can be read again.
+   */
+  private static class RecordingInputStream extends FilterInputStream {
+
+    private final ByteArrayOutputStream recordedBytes = new ByteArrayOutputStream();
+
+    RecordingInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b >= 0) {
+        recordedBytes.write(b);
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int count = super.read(b, off, len);
+      if (count > 0) {
+        recordedBytes.write(b, off, count);
+      }
+      return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      // skipped bytes have to be recorded too
+      byte[] buffer = new byte[(int) Math.min(n, 8192)];
+      int count = read(buffer, 0, buffer.length);
+      return Math.max(count, 0);
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+
+    @Override
+    public void close() {
+      // the caller goes on reading the wrapped stream
+    }
+
+    byte[] getRecordedBytes() {
+      return recordedBytes.toByteArray();
+    }
+  }
 }
@@ -14,13 +14,19 @@
 package org.codice.ddf.spatial.ogc.wfs.v2_0_0.catalog.source.reader;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 import javax.ws.rs.WebApplicationException;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
 import org.codice.ddf.spatial.ogc.wfs.v2_0_0.catalog.common.Wfs20FeatureCollection;
 import org.junit.Test;
 
@@ -37,6 +43,88 @@ public void testAllowedDeserialization() throws WebApplicationException, IOExcep
     assertThat(response, notNullValue());
   }
 
+  @Test
+  public void testRootElementAttributes() throws WebApplicationException, IOException {
+    FeatureCollectionMessageBodyReaderWfs20 reader = new FeatureCollectionMessageBodyReaderWfs20();
+    InputStream validWfsFeatureCollectionResponseXml =
+        open("/validWfsFeatureCollectionResponse.xml");
+    Wfs20FeatureCollection response =
+        reader.readFrom(null, null, null, null, null, validWfsFeatureCollectionResponseXml);
+    validWfsFeatureCollectionResponseXml.close();
+    assertThat(response.getNumberMatched(), is("825"));
+    assertThat(response.getNumberReturned(), is(BigInteger.valueOf(250)));
+  }
+
+  /** Streams that do not support mark/reset are buffered by the reader */
+  @Test
+  public void testUnbufferedStream() throws WebApplicationException, IOException {
+    FeatureCollectionMessageBodyReaderWfs20 reader = new FeatureCollectionMessageBodyReaderWfs20();
+    InputStream validWfsFeatureCollectionResponseXml =
+        FeatureCollectionMessageBodyReaderWfs20Test.class.getResourceAsStream(
+            "/validWfsFeatureCollectionResponse.xml");
+    Wfs20FeatureCollection response =
+        reader.readFrom(null, null, null, null, null, validWfsFeatureCollectionResponseXml);
+    validWfsFeatureCollectionResponseXml.close();
+    assertThat(response, notNullValue());
+  }
+
+  @Test(expected = WebApplicationException.class)
+  public void testExceptionReport() throws WebApplicationException, IOException {
+    FeatureCollectionMessageBodyReaderWfs20 reader = new FeatureCollectionMessageBodyReaderWfs20();
+    String exceptionReport =
+        "<ows:ExceptionReport xmlns:ows=\"http://www.opengis.net/ows/1.1\" version=\"2.0.0\">"
+            + "<ows:Exception exceptionCode=\"InvalidParameterValue\"/>"
+            + "</ows:ExceptionReport>";
+    InputStream exceptionReportXml =
+        new ByteArrayInputStream(exceptionReport.getBytes(StandardCharsets.UTF_8));
+    reader.readFrom(null, null, null, null, null, exceptionReportXml);
+  }
+
+  /** The whole prolog is replayed to XStream, however long it is */
+  @Test
+  public void testLongProlog() throws WebApplicationException, IOException {
+    FeatureCollectionMessageBodyReaderWfs20 reader = new FeatureCollectionMessageBodyReaderWfs20();
+    String response = readResource("/validWfsFeatureCollectionResponse.xml");
+    int prologEnd = response.indexOf("?>") + 2;
+    String longProlog =
+        response.substring(0, prologEnd)
+            + "<!--"
+            + StringUtils.repeat("x", 128 * 1024)
+            + "-->"
+            + response.substring(prologEnd);
+    Wfs20FeatureCollection featureCollection =
+        reader.readFrom(
+            null,
+            null,
+            null,
+            null,
+            null,
+            new ByteArrayInputStream(longProlog.getBytes(StandardCharsets.UTF_8)));
+    assertThat(featureCollection, notNullValue());
+    assertThat(featureCollection.getNumberMatched(), is("825"));
+  }
+
+  /** A FeatureCollection root element is read whatever its namespace */
+  @Test
+  public void testFeatureCollectionInOtherNamespace() throws WebApplicationException, IOException {
+    FeatureCollectionMessageBodyReaderWfs20 reader = new FeatureCollectionMessageBodyReaderWfs20();
+    String response =
+        readResource("/validWfsFeatureCollectionResponse.xml")
+            .replace(
+                "xmlns:wfs=\"http://www.opengis.net/wfs/2.0\"",
+                "xmlns:wfs=\"http://www.opengis.net/wfs\"");
+    Wfs20FeatureCollection featureCollection =
+        reader.readFrom(
+            null,
+            null,
+            null,
+            null,
+            null,
+            new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8)));
+    assertThat(featureCollection, notNullValue());
+    assertThat(featureCollection.getNumberReturned(), is(BigInteger.valueOf(250)));
+  }
+
   /** Negative test case to assure invalid objects are not unmarshalled */
   @Test
   public void testForbiddenDeserialization() throws WebApplicationException, IOException {
@@ -47,6 +135,13 @@ public void testForbiddenDeserialization() throws WebApplicationException, IOExc
     dynamicProxySerializedXml.close();
     assertThat(response, nullValue());
   }
+
+  private String readResource(String name) throws IOException {
+    try (InputStream inputStream = open(name)) {
+      return IOUtils.toString(inputStream, StandardCharsets.UTF_8);
+    }
+  }
+
   /** Helper method to open streams from resource */
   private InputStream open(String name) {
     return new BufferedInputStream(
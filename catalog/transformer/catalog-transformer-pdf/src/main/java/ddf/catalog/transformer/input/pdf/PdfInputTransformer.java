@@ -16,6 +16,7 @@
 import static org.apache.commons.lang3.Validate.notNull;
 
 import com.google.common.io.ByteSource;
+import com.google.common.io.Files;
 import com.google.common.net.MediaType;
 import ddf.catalog.content.operation.ContentMetadataExtractor;
 import ddf.catalog.data.Attribute;
@@ -33,11 +34,12 @@
 import ddf.catalog.data.types.constants.core.DataType;
 import ddf.catalog.data.types.experimental.Extracted;
 import ddf.catalog.transform.CatalogTransformerException;
-import ddf.catalog.transform.InputTransformer;
+import ddf.catalog.transform.PathInputTransformer;
 import ddf.catalog.transformer.common.tika.TikaMetadataExtractor;
 import ddf.catalog.util.impl.ServiceComparator;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
@@ -59,7 +61,7 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class PdfInputTransformer implements InputTransformer {
+public class PdfInputTransformer implements PathInputTransformer {
 
   private int previewMaxLength = 30000;
 
@@ -162,19 +164,29 @@ public Metacard transform(InputStream input, String id)
       } catch (IOException e) {
         throw new CatalogTransformerException("Could not copy bytes of content message.", e);
       }
-      ByteSource docByteSource = fbos.asByteSource();
-      Metacard metacard;
-      try (InputStream isCopy = docByteSource.openStream();
-          PDDocument pdfDocument = pdDocumentGenerator.apply(isCopy)) {
-        try (InputStream metaIs = docByteSource.openStream()) {
-          metacard = transformPdf(id, pdfDocument, metaIs);
-        }
-      } catch (InvalidPasswordException e) {
-        LOGGER.debug("Cannot transform encrypted pdf", e);
-        return initializeMetacard(id);
+      return transformDocument(fbos.asByteSource(), id);
+    }
+  }
+
+  @Override
+  public Metacard transform(Path content, long size, String mimeType)
+      throws IOException, CatalogTransformerException {
+    return transformDocument(Files.asByteSource(content.toFile()), null);
+  }
+
+  private Metacard transformDocument(ByteSource docByteSource, String id)
+      throws IOException, CatalogTransformerException {
+    Metacard metacard;
+    try (InputStream isCopy = docByteSource.openStream();
+        PDDocument pdfDocument = pdDocumentGenerator.apply(isCopy)) {
+      try (InputStream metaIs = docByteSource.openStream()) {
+        metacard = transformPdf(id, pdfDocument, metaIs);
       }
-      return metacard;
+    } catch (InvalidPasswordException e) {
+      LOGGER.debug("Cannot transform encrypted pdf", e);
+      return initializeMetacard(id);
     }
+    return metacard;
   }
 
   private MetacardImpl initializeMetacard(String id) {
@@ -32,6 +32,9 @@
 import ddf.catalog.transform.CatalogTransformerException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Optional;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDDocumentInformation;
@@ -100,6 +103,22 @@ public void testAuthor() throws IOException, CatalogTransformerException {
     assertThat(metacard.getAttribute(Contact.CREATOR_NAME).getValue(), is(author));
   }
 
+  @Test
+  public void testTransformPath() throws Exception {
+    Path path =
+        Paths.get(Thread.currentThread().getContextClassLoader().getResource("sample.pdf").toURI());
+    String author = "TheAuthor";
+
+    when(documentInformation.getAuthor()).thenReturn(author);
+
+    Metacard metacard = pdfInputTransformer.transform(path, Files.size(path), "application/pdf");
+
+    assertThat(metacard.getAttribute(Contact.CREATOR_NAME).getValue(), is(author));
+    assertThat(
+        (String) (metacard.getAttribute(Extracted.EXTRACTED_TEXT)).getValue(),
+        containsString("TEST"));
+  }
+
   @Test
   public void testKeywords() throws IOException, CatalogTransformerException {
     InputStream stream =
@@ -19,6 +19,7 @@
 import ddf.catalog.data.impl.AttributeImpl;
 import ddf.catalog.transform.CatalogTransformerException;
 import ddf.catalog.transform.InputTransformer;
+import ddf.catalog.transform.PathInputTransformer;
 import java.awt.Dimension;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
@@ -26,6 +27,8 @@
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Objects;
 import org.apache.commons.io.IOUtils;
 import org.apache.pdfbox.tools.imageio.ImageIOUtil;
@@ -42,7 +45,7 @@
  * InputTransformer} to extract the metadata, and then it generates a thumbnail image with Apache
  * POI.
  */
-public class PptxInputTransformer implements InputTransformer {
+public class PptxInputTransformer implements PathInputTransformer {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(PptxInputTransformer.class);
 
@@ -86,6 +89,35 @@ public Metacard transform(InputStream input, String id)
     return transformLogic(input);
   }
 
+  /**
+   * Extracts the metadata with the injected input transformer, given the file itself if that
+   * transformer accepts one, and then reads the file again with Apache POI to create the thumbnail.
+   */
+  @Override
+  public Metacard transform(Path content, long size, String mimeType)
+      throws IOException, CatalogTransformerException {
+
+    if (content == null) {
+      throw new CatalogTransformerException("Cannot transform null input.");
+    }
+
+    Metacard metacard;
+    if (inputTransformer instanceof PathInputTransformer) {
+      metacard = ((PathInputTransformer) inputTransformer).transform(content, size, mimeType);
+    } else {
+      try (InputStream input = Files.newInputStream(content)) {
+        metacard = extractInitialMetadata(input);
+      }
+    }
+
+    try (InputStream input = Files.newInputStream(content)) {
+      extractThumbnail(metacard, input);
+    } catch (EncryptedDocumentException e) {
+      LOGGER.debug("Unable to generate thumbnail", e);
+    }
+    return metacard;
+  }
+
   /**
    * This is a three step process. First, create a FileBackedOutputStream because we need to consume
    * the stream twice. Once for the injected inputTransformer and once for Apache POI. Next, extract
@@ -31,18 +31,41 @@
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import org.apache.poi.xslf.usermodel.XMLSlideShow;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
+import org.junit.After;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class PptxInputTransformerTest {
 
-  private final InputTransformer inputTransformer =
-      new TikaInputTransformer(null, mock(MetacardType.class));
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final List<TikaInputTransformer> tikaInputTransformers = new ArrayList<>();
+
+  private final InputTransformer inputTransformer = newTikaInputTransformer();
+
+  @After
+  public void tearDown() {
+    tikaInputTransformers.forEach(TikaInputTransformer::destroy);
+  }
+
+  private TikaInputTransformer newTikaInputTransformer() {
+    TikaInputTransformer tikaInputTransformer =
+        new TikaInputTransformer(null, mock(MetacardType.class));
+    tikaInputTransformers.add(tikaInputTransformer);
+    return tikaInputTransformer;
+  }
 
   private InputStream getResource(String resourceName) {
     return PptxInputTransformerTest.class.getResourceAsStream(resourceName);
@@ -117,8 +140,7 @@ public void testWithTitle()
         ss.write(os);
 
         try (ByteArrayInputStream inStr = new ByteArrayInputStream(os.toByteArray())) {
-          TikaInputTransformer realTransformer =
-              new TikaInputTransformer(null, mock(MetacardType.class));
+          TikaInputTransformer realTransformer = newTikaInputTransformer();
           realTransformer.setUseResourceTitleAsTitle(true);
           PptxInputTransformer t = new PptxInputTransformer(realTransformer);
           Metacard m = t.transform(inStr);
@@ -128,6 +150,24 @@ public void testWithTitle()
     }
   }
 
+  @Test
+  public void testTransformPath() throws IOException, CatalogTransformerException {
+    Path path = temporaryFolder.newFile("title.pptx").toPath();
+    try (XMLSlideShow ss = new XMLSlideShow();
+        OutputStream os = Files.newOutputStream(path)) {
+      ss.createSlide();
+      ss.getProperties().getCoreProperties().setTitle("TheTitle");
+      ss.write(os);
+    }
+
+    TikaInputTransformer realTransformer = newTikaInputTransformer();
+    realTransformer.setUseResourceTitleAsTitle(true);
+    PptxInputTransformer t = new PptxInputTransformer(realTransformer);
+    Metacard m = t.transform(path, Files.size(path), null);
+    assertThat(m.getTitle(), is("TheTitle"));
+    assertThat(m.getAttribute(Core.RESOURCE_SIZE).getValue(), is(String.valueOf(Files.size(path))));
+  }
+
   @Test
   public void testTitleAsMetadataTitle()
       throws IOException, CatalogTransformerException, InterruptedException {
@@ -139,8 +179,7 @@ public void testTitleAsMetadataTitle()
         ss.write(os);
 
         try (ByteArrayInputStream inStr = new ByteArrayInputStream(os.toByteArray())) {
-          TikaInputTransformer realTransformer =
-              new TikaInputTransformer(null, mock(MetacardType.class));
+          TikaInputTransformer realTransformer = newTikaInputTransformer();
           realTransformer.setUseResourceTitleAsTitle(false);
           PptxInputTransformer t = new PptxInputTransformer(realTransformer);
           Metacard m = t.transform(inStr);
@@ -0,0 +1,214 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.transformer.input.tika;
+
+import com.google.common.io.ByteSource;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import org.codice.ddf.platform.util.StandardThreadFactoryBuilder;
+import org.imgscalr.Scalr;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates JPEG thumbnails of images without decoding them at full resolution.
+ *
+ * <p>The image dimensions are read first, and the image is then decoded with source subsampling so
+ * that no more than {@code maxDecodedPixels} pixels are held in memory, however large the image is.
+ * Readers that decode tiled formats such as TIFF a tile at a time only ever hold the subsampled
+ * image. If the image has an embedded thumbnail that is at least as large as the thumbnail being
+ * created, it is used instead of the image.
+ *
+ * <p>Thumbnails are created on a small dedicated pool so that concurrent ingests of large images do
+ * not all decode at once. The pool's queue is bounded; when it is full, the ingest thread creates
+ * its own thumbnail, which holds back further ingests rather than letting the queue, and the images
+ * waiting in it, grow without limit.
+ */
+class ThumbnailGenerator {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ThumbnailGenerator.class);
+
+  static final int THUMBNAIL_SIZE = 200;
+
+  /** Enough for a 2000x2000 image, about 16 MB once decoded. */
+  static final long DEFAULT_MAX_DECODED_PIXELS = 4_000_000L;
+
+  private static final long TIMEOUT_SECONDS = 120;
+
+  private final ExecutorService executor;
+
+  private volatile long maxDecodedPixels = DEFAULT_MAX_DECODED_PIXELS;
+
+  ThumbnailGenerator(int threads) {
+    this.executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(threads),
+            StandardThreadFactoryBuilder.newThreadFactory("thumbnailGeneratorThread"),
+            // unlike CallerRunsPolicy, also runs the task once the pool has been shut down, so the
+            // caller never waits on a future that will not complete
+            (task, pool) -> task.run());
+  }
+
+  /**
+   * @param maxDecodedPixels the largest number of pixels to decode, no less than the number of
+   *     pixels in a thumbnail
+   */
+  void setMaxDecodedPixels(long maxDecodedPixels) {
+    this.maxDecodedPixels = Math.max(maxDecodedPixels, (long) THUMBNAIL_SIZE * THUMBNAIL_SIZE);
+  }
+
+  /**
+   * Creates a thumbnail of the image in {@code source} on the thumbnail pool, waiting for it to
+   * complete.
+   *
+   * @return the JPEG thumbnail, or empty if the source is not a readable image
+   */
+  Optional<byte[]> createThumbnail(ByteSource source) {
+    Future<byte[]> thumbnail = executor.submit(() -> generate(source));
+    try {
+      return Optional.ofNullable(thumbnail.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    } catch (InterruptedException e) {
+      thumbnail.cancel(true);
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      LOGGER.debug("Unable to read image from input stream to create thumbnail.", e.getCause());
+    } catch (TimeoutException e) {
+      thumbnail.cancel(true);
+      LOGGER.debug("Timed out creating thumbnail after {} seconds.", TIMEOUT_SECONDS);
+    }
+    return Optional.empty();
+  }
+
+  void destroy() {
+    executor.shutdownNow();
+  }
+
+  /** @return the JPEG thumbnail, or null if the source is not a readable image */
+  byte[] generate(ByteSource source) throws IOException {
+    BufferedImage image;
+    try (InputStream inputStream = source.openBufferedStream();
+        ImageInputStream imageInputStream = ImageIO.createImageInputStream(inputStream)) {
+      image = imageInputStream == null ? null : read(imageInputStream);
+    }
+
+    if (image == null) {
+      LOGGER.debug("Unable to read image from input stream to create thumbnail.");
+      return null;
+    }
+
+    BufferedImage thumbnail = Scalr.resize(toRgb(image), THUMBNAIL_SIZE);
+    try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+      ImageIO.write(thumbnail, "jpeg", out);
+      return out.toByteArray();
+    }
+  }
+
+  private BufferedImage read(ImageInputStream imageInputStream) throws IOException {
+    Iterator<ImageReader> readers = ImageIO.getImageReaders(imageInputStream);
+    if (!readers.hasNext()) {
+      return null;
+    }
+
+    ImageReader reader = readers.next();
+    try {
+      reader.setInput(imageInputStream);
+
+      BufferedImage embeddedThumbnail = readEmbeddedThumbnail(reader);
+      if (embeddedThumbnail != null) {
+        return embeddedThumbnail;
+      }
+
+      int width = reader.getWidth(0);
+      int height = reader.getHeight(0);
+      int subsampling = getSubsampling(width, height, maxDecodedPixels);
+      LOGGER.trace(
+          "Decoding {}x{} image with subsampling {} to create thumbnail.",
+          width,
+          height,
+          subsampling);
+
+      ImageReadParam param = reader.getDefaultReadParam();
+      param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+      return reader.read(0, param);
+    } finally {
+      reader.dispose();
+    }
+  }
+
+  private BufferedImage readEmbeddedThumbnail(ImageReader reader) throws IOException {
+    if (!reader.readerSupportsThumbnails()) {
+      return null;
+    }
+
+    int thumbnails = reader.getNumThumbnails(0);
+    for (int i = 0; i < thumbnails; i++) {
+      if (Math.max(reader.getThumbnailWidth(0, i), reader.getThumbnailHeight(0, i))
+          >= THUMBNAIL_SIZE) {
+        return reader.readThumbnail(0, i);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return the smallest subsampling factor that decodes a {@code width} by {@code height} image to
+   *     no more than {@code maxPixels} pixels
+   */
+  static int getSubsampling(int width, int height, long maxPixels) {
+    int subsampling = Math.max(1, (int) Math.sqrt((double) width * height / maxPixels));
+    while (decodedPixels(width, subsampling) * decodedPixels(height, subsampling) > maxPixels) {
+      subsampling++;
+    }
+    return subsampling;
+  }
+
+  private static long decodedPixels(int length, int subsampling) {
+    return (length + subsampling - 1) / subsampling;
+  }
+
+  /* Drops any alpha channel and normalizes unusual color models so the image can be written as a
+   * JPEG. */
+  private static BufferedImage toRgb(BufferedImage image) {
+    if (image.getType() == BufferedImage.TYPE_INT_RGB) {
+      return image;
+    }
+
+    BufferedImage rgbImage =
+        new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+    Graphics2D graphics = rgbImage.createGraphics();
+    graphics.drawImage(image, null, null);
+    graphics.dispose();
+    return rgbImage;
+  }
+}
@@ -15,6 +15,8 @@
 
 import com.github.jaiimageio.impl.plugins.tiff.TIFFImageReaderSpi;
 import com.github.jaiimageio.jpeg2000.impl.J2KImageReaderSpi;
+import com.google.common.io.ByteSource;
+import com.google.common.io.Files;
 import ddf.catalog.content.operation.ContentMetadataExtractor;
 import ddf.catalog.content.operation.MetadataExtractor;
 import ddf.catalog.data.Attribute;
@@ -31,15 +33,13 @@
 import ddf.catalog.data.types.experimental.Extracted;
 import ddf.catalog.transform.CatalogTransformerException;
 import ddf.catalog.transform.InputTransformer;
+import ddf.catalog.transform.PathInputTransformer;
 import ddf.catalog.transformer.common.tika.MetacardCreator;
 import ddf.catalog.transformer.common.tika.TikaMetadataExtractor;
 import ddf.catalog.util.impl.ServiceComparator;
-import java.awt.Graphics2D;
-import java.awt.Image;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -53,19 +53,16 @@
 import java.util.TreeMap;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
-import javax.imageio.ImageIO;
 import javax.imageio.spi.IIORegistry;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.Validate;
 import org.apache.tika.exception.TikaException;
-import org.apache.tika.io.CloseShieldInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.mime.MediaTypeRegistry;
 import org.codice.ddf.configuration.DictionaryMap;
 import org.codice.ddf.platform.util.TemporaryFileBackedOutputStream;
-import org.imgscalr.Scalr;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.Constants;
@@ -74,7 +71,7 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class TikaInputTransformer implements InputTransformer {
+public class TikaInputTransformer implements PathInputTransformer {
 
   private int previewMaxLength = 30000;
 
@@ -166,6 +163,9 @@ public class TikaInputTransformer implements InputTransformer {
 
   private boolean useResourceTitleAsTitle;
 
+  private final ThumbnailGenerator thumbnailGenerator =
+      new ThumbnailGenerator(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+
   public TikaInputTransformer(BundleContext bundleContext, MetacardType metacardType) {
     this.commonTikaMetacardType = metacardType;
     classLoaderAndBundleContextSetup(bundleContext);
@@ -183,6 +183,18 @@ public void setMetadataMaxLength(int metadataMaxLength) {
     this.metadataMaxLength = metadataMaxLength;
   }
 
+  /**
+   * @param thumbnailMaxDecodedPixels the largest number of pixels decoded to create a thumbnail;
+   *     larger images are subsampled while they are decoded
+   */
+  public void setThumbnailMaxDecodedPixels(long thumbnailMaxDecodedPixels) {
+    thumbnailGenerator.setMaxDecodedPixels(thumbnailMaxDecodedPixels);
+  }
+
+  public void destroy() {
+    thumbnailGenerator.destroy();
+  }
+
   @SuppressWarnings("unused")
   public void setCommonTikaMetacardType(MetacardType metacardType) {
     this.commonTikaMetacardType = metacardType;
@@ -359,54 +371,69 @@ public Metacard transform(InputStream input, String id)
         throw new CatalogTransformerException("Could not copy bytes of content message.", e);
       }
 
-      Metadata metadata;
-      String bodyText = null;
-      String metadataText;
-      Metacard metacard = new MetacardImpl(commonTikaMetacardType);
-      String contentType = DataType.DATASET.name();
-      TikaMetadataExtractor extractor = null;
-      try (InputStream inputStreamCopy = fileBackedOutputStream.asByteSource().openStream()) {
-        extractor = new TikaMetadataExtractor(inputStreamCopy, previewMaxLength, metadataMaxLength);
-
-      } catch (TikaException | RuntimeException t) {
-        LOGGER.debug("Unable to extract tika metadata", t);
-      }
+      return transform(fileBackedOutputStream.asByteSource(), bytes, id);
+    }
+  }
+
+  @Override
+  public Metacard transform(Path content, long size, String mimeType)
+      throws IOException, CatalogTransformerException {
+    if (content == null) {
+      throw new CatalogTransformerException("Cannot transform null input.");
+    }
+
+    LOGGER.debug("Transforming {} using Tika.", content);
+    return transform(Files.asByteSource(content.toFile()), size, null);
+  }
 
-      if (extractor != null) {
-        metadataText = getMetadataXml(extractor.getMetadataXml());
-        Attribute validationAttribute = null;
-        if (metadataText.equals(TikaMetadataExtractor.METADATA_LIMIT_REACHED_MSG)) {
-          validationAttribute =
-              new AttributeImpl(
-                  Validation.VALIDATION_WARNINGS, Collections.singletonList(metadataText));
-          metadataText = "";
-        }
-        bodyText = extractor.getBodyText();
-        metadata = extractor.getMetadata();
-        contentType = metadata.get(Metadata.CONTENT_TYPE);
-        MetacardType metacardType = mergeAttributes(getMetacardType(contentType));
-        metacard =
-            MetacardCreator.createMetacard(
-                metadata, id, metadataText, metacardType, useResourceTitleAsTitle);
-        if (StringUtils.isNotBlank(bodyText)) {
-          metacard.setAttribute(new AttributeImpl(Extracted.EXTRACTED_TEXT, bodyText));
-          processContentMetadataExtractors(bodyText, metacard);
-        }
-
-        if (StringUtils.isNotBlank(metadataText)) {
-          processMetadataExtractors(metadataText, metacard);
-        }
-
-        if (validationAttribute != null) {
-          metacard.setAttribute(validationAttribute);
-        }
+  private Metacard transform(ByteSource source, long bytes, String id) throws IOException {
+    Metadata metadata;
+    String bodyText = null;
+    String metadataText;
+    Metacard metacard = new MetacardImpl(commonTikaMetacardType);
+    String contentType = DataType.DATASET.name();
+    TikaMetadataExtractor extractor = null;
+    try (InputStream inputStreamCopy = source.openStream()) {
+      extractor = new TikaMetadataExtractor(inputStreamCopy, previewMaxLength, metadataMaxLength);
+
+    } catch (TikaException | RuntimeException t) {
+      LOGGER.debug("Unable to extract tika metadata", t);
+    }
+
+    if (extractor != null) {
+      metadataText = getMetadataXml(extractor.getMetadataXml());
+      Attribute validationAttribute = null;
+      if (metadataText.equals(TikaMetadataExtractor.METADATA_LIMIT_REACHED_MSG)) {
+        validationAttribute =
+            new AttributeImpl(
+                Validation.VALIDATION_WARNINGS, Collections.singletonList(metadataText));
+        metadataText = "";
+      }
+      bodyText = extractor.getBodyText();
+      metadata = extractor.getMetadata();
+      contentType = metadata.get(Metadata.CONTENT_TYPE);
+      MetacardType metacardType = mergeAttributes(getMetacardType(contentType));
+      metacard =
+          MetacardCreator.createMetacard(
+              metadata, id, metadataText, metacardType, useResourceTitleAsTitle);
+      if (StringUtils.isNotBlank(bodyText)) {
+        metacard.setAttribute(new AttributeImpl(Extracted.EXTRACTED_TEXT, bodyText));
+        processContentMetadataExtractors(bodyText, metacard);
       }
 
-      enrichMetacard(fileBackedOutputStream, contentType, bytes, metacard);
+      if (StringUtils.isNotBlank(metadataText)) {
+        processMetadataExtractors(metadataText, metacard);
+      }
 
-      LOGGER.debug("Finished transforming input stream using Tika.");
-      return metacard;
+      if (validationAttribute != null) {
+        metacard.setAttribute(validationAttribute);
+      }
     }
+
+    enrichMetacard(source, contentType, bytes, metacard);
+
+    LOGGER.debug("Finished transforming input stream using Tika.");
+    return metacard;
   }
 
   private String getMetadataXml(String extractorMetadataXml) {
@@ -501,10 +528,7 @@ protected MetacardType mergeAttributes(MetacardType metacardType) {
   }
 
   protected void enrichMetacard(
-      TemporaryFileBackedOutputStream fileBackedOutputStream,
-      String metacardContentType,
-      long bytes,
-      Metacard metacard)
+      ByteSource source, String metacardContentType, long bytes, Metacard metacard)
       throws IOException {
 
     if (StringUtils.isNotBlank(metacardContentType)) {
@@ -512,9 +536,10 @@ protected void enrichMetacard(
     }
 
     if (StringUtils.startsWith(metacardContentType, "image")) {
-      try (InputStream inputStreamCopy = fileBackedOutputStream.asByteSource().openStream()) {
-        createThumbnail(inputStreamCopy, metacard);
-      }
+      thumbnailGenerator
+          .createThumbnail(source)
+          .ifPresent(
+              thumbnail -> metacard.setAttribute(new AttributeImpl(Metacard.THUMBNAIL, thumbnail)));
     }
 
     metacard.setAttribute(new AttributeImpl(Core.RESOURCE_SIZE, String.valueOf(bytes)));
@@ -601,34 +626,6 @@ private void addMediaTypetoMimeTypes(MediaType mediaType, List<String> mimeTypes
     mimeTypes.add(mimeType);
   }
 
-  private void createThumbnail(InputStream input, Metacard metacard) {
-    try {
-      Image image = ImageIO.read(new CloseShieldInputStream(input));
-
-      if (null != image) {
-        BufferedImage bufferedImage =
-            new BufferedImage(
-                image.getWidth(null), image.getHeight(null), BufferedImage.TYPE_INT_RGB);
-        Graphics2D graphics = bufferedImage.createGraphics();
-        graphics.drawImage(image, null, null);
-        graphics.dispose();
-
-        BufferedImage thumb = Scalr.resize(bufferedImage, 200);
-
-        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-          ImageIO.write(thumb, "jpeg", out);
-
-          byte[] thumbBytes = out.toByteArray();
-          metacard.setAttribute(new AttributeImpl(Metacard.THUMBNAIL, thumbBytes));
-        }
-      } else {
-        LOGGER.debug("Unable to read image from input stream to create thumbnail.");
-      }
-    } catch (Exception e) {
-      LOGGER.debug("Unable to read image from input stream to create thumbnail.", e);
-    }
-  }
-
   Bundle getBundle() {
     return FrameworkUtil.getBundle(TikaInputTransformer.class);
   }
@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.transformer.input.tika;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import com.google.common.io.ByteSource;
+import com.google.common.io.Resources;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import javax.imageio.ImageIO;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ThumbnailGeneratorTest {
+
+  private ThumbnailGenerator thumbnailGenerator;
+
+  @Before
+  public void setUp() {
+    thumbnailGenerator = new ThumbnailGenerator(1);
+  }
+
+  @After
+  public void tearDown() {
+    thumbnailGenerator.destroy();
+  }
+
+  @Test
+  public void testSubsampling() {
+    assertThat(ThumbnailGenerator.getSubsampling(1000, 1000, 4_000_000), is(1));
+    assertThat(ThumbnailGenerator.getSubsampling(30000, 30000, 4_000_000), is(15));
+    assertThat(ThumbnailGenerator.getSubsampling(30001, 30000, 4_000_000), is(16));
+    assertThat(ThumbnailGenerator.getSubsampling(100000, 10, 40_000), is(5));
+  }
+
+  @Test
+  public void testLargeImageIsSubsampled() throws Exception {
+    thumbnailGenerator.setMaxDecodedPixels(40_000);
+
+    Optional<byte[]> thumbnail = thumbnailGenerator.createThumbnail(png(4000, 2000));
+
+    assertThat(thumbnail.isPresent(), is(true));
+    BufferedImage image = ImageIO.read(new ByteArrayInputStream(thumbnail.get()));
+    assertThat(image.getWidth(), is(200));
+    assertThat(image.getHeight(), is(100));
+  }
+
+  @Test
+  public void testTiff() throws Exception {
+    Optional<byte[]> thumbnail =
+        thumbnailGenerator.createThumbnail(
+            Resources.asByteSource(ThumbnailGeneratorTest.class.getResource("/testTIFF.tif")));
+
+    assertThat(thumbnail.isPresent(), is(true));
+  }
+
+  @Test
+  public void testNotAnImage() {
+    Optional<byte[]> thumbnail =
+        thumbnailGenerator.createThumbnail(
+            ByteSource.wrap("not an image".getBytes(StandardCharsets.UTF_8)));
+
+    assertThat(thumbnail.isPresent(), is(false));
+  }
+
+  @Test
+  public void testCreatedOnCallingThreadAfterDestroy() throws Exception {
+    thumbnailGenerator.destroy();
+
+    Optional<byte[]> thumbnail = thumbnailGenerator.createThumbnail(png(400, 200));
+
+    assertThat(thumbnail.isPresent(), is(true));
+  }
+
+  private static ByteSource png(int width, int height) throws Exception {
+    BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D graphics = image.createGraphics();
+    graphics.setColor(Color.BLUE);
+    graphics.fillRect(0, 0, width / 2, height);
+    graphics.dispose();
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ImageIO.write(image, "png", out);
+    return ByteSource.wrap(out.toByteArray());
+  }
+}
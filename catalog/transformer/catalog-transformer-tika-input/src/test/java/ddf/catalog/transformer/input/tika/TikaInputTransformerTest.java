@@ -58,12 +58,16 @@
 import ddf.catalog.transformer.common.tika.TikaMetadataExtractor;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.TimeZone;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -172,6 +176,11 @@ Bundle getBundle() {
     tikaInputTransformer.setUseResourceTitleAsTitle(true);
   }
 
+  @After
+  public void tearDown() {
+    tikaInputTransformer.destroy();
+  }
+
   @Test
   public void testRegisterService() {
     BundleContext mockBundleContext = mock(BundleContext.class);
@@ -179,6 +188,7 @@ public void testRegisterService() {
         new TikaInputTransformer(mockBundleContext, getMetacardType(COMMON_METACARDTYPE_NAME));
     verify(mockBundleContext)
         .registerService(eq(InputTransformer.class), eq(tikaInputTransformer), notNull());
+    tikaInputTransformer.destroy();
   }
 
   @Test
@@ -354,6 +364,18 @@ public void testTiff() throws Exception {
     assertThat(metacard.getAttribute(Core.DATATYPE).getValue(), is(IMAGE));
   }
 
+  @Test
+  public void testTiffPath() throws Exception {
+    Path path = Paths.get(getClass().getClassLoader().getResource("testTIFF.tif").toURI());
+    Metacard metacard = tikaInputTransformer.transform(path, Files.size(path), "image/tiff");
+    assertNotNull(metacard);
+    assertThat(metacard.getContentTypeName(), is("image/tiff"));
+    assertThat(metacard.getAttribute(Core.DATATYPE).getValue(), is(IMAGE));
+    assertThat(
+        metacard.getAttribute(Core.RESOURCE_SIZE).getValue(), is(String.valueOf(Files.size(path))));
+    assertNotNull(metacard.getThumbnail());
+  }
+
   @Test
   public void testBmp() throws Exception {
     InputStream stream =
@@ -13,10 +13,14 @@
  */
 package ddf.catalog.transformer.input.video;
 
+import static org.codice.ddf.libs.klv.data.Klv.KeyLength;
+import static org.codice.ddf.libs.klv.data.Klv.LengthEncoding;
+
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.MetacardType;
 import ddf.catalog.data.impl.AttributeImpl;
 import ddf.catalog.data.types.Core;
+import ddf.catalog.data.types.Media;
 import ddf.catalog.data.types.constants.core.DataType;
 import ddf.catalog.transform.CatalogTransformerException;
 import ddf.catalog.transform.InputTransformer;
@@ -24,16 +28,67 @@
 import ddf.catalog.transformer.common.tika.TikaMetadataExtractor;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.metadata.Metadata;
+import org.codice.ddf.libs.klv.KlvContext;
+import org.codice.ddf.libs.klv.KlvDataElement;
+import org.codice.ddf.libs.klv.KlvDecoder;
+import org.codice.ddf.libs.klv.KlvDecodingException;
+import org.codice.ddf.libs.klv.data.numerical.KlvInt;
+import org.codice.ddf.libs.klv.data.numerical.KlvIntegerEncodedFloatingPoint;
+import org.codice.ddf.libs.klv.data.set.KlvLocalSet;
+import org.codice.ddf.libs.mpeg.transport.MpegTransportStreamMetadataExtractor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class VideoInputTransformer implements InputTransformer {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(VideoInputTransformer.class);
+
+  private static final String TRANSPORT_STREAM_MIME_TYPE = "video/mp2t";
+
+  private static final String UAS_DATALINK_LOCAL_SET = "UAS Datalink Local Set";
+
+  private static final String FRAME_CENTER_LATITUDE = "Frame Center Latitude";
+
+  private static final String FRAME_CENTER_LONGITUDE = "Frame Center Longitude";
+
+  // the frame center of a MISB ST 0601 UAS Datalink Local Set
+  private static final KlvContext UAS_DATALINK_CONTEXT =
+      new KlvContext(
+          KeyLength.SIXTEEN_BYTES,
+          LengthEncoding.BER,
+          Arrays.asList(
+              new KlvLocalSet(
+                  new byte[] {
+                    0x06, 0x0E, 0x2B, 0x34, 0x02, 0x0B, 0x01, 0x01, 0x0E, 0x01, 0x03, 0x01, 0x01,
+                    0x00, 0x00, 0x00
+                  },
+                  UAS_DATALINK_LOCAL_SET,
+                  new KlvContext(
+                      KeyLength.ONE_BYTE,
+                      LengthEncoding.BER,
+                      Arrays.asList(
+                          angle(0x17, FRAME_CENTER_LATITUDE, 90),
+                          angle(0x18, FRAME_CENTER_LONGITUDE, 180))))));
+
   private MetacardType metacardType = null;
 
-  public VideoInputTransformer(MetacardType metacardType) {
+  private final Executor executor;
+
+  public VideoInputTransformer(MetacardType metacardType, Executor executor) {
 
     this.metacardType = metacardType;
+    this.executor = executor;
   }
 
   @Override
@@ -45,20 +100,109 @@ public Metacard transform(InputStream input) throws IOException, CatalogTransfor
   public Metacard transform(InputStream input, String id)
       throws IOException, CatalogTransformerException {
 
-    Metacard metacard;
+    // the video is spooled to a file so that transport streams can be memory-mapped
+    Path video = Files.createTempFile("video-input-transformer", null);
+    try {
+      Files.copy(input, video, StandardCopyOption.REPLACE_EXISTING);
+
+      Metacard metacard;
+      try (InputStream videoInput = Files.newInputStream(video)) {
+        TikaMetadataExtractor tikaMetadataExtractor = new TikaMetadataExtractor(videoInput);
+
+        Metadata metadata = tikaMetadataExtractor.getMetadata();
+
+        String metadataText = tikaMetadataExtractor.getMetadataXml();
+
+        metacard = MetacardCreator.createMetacard(metadata, id, metadataText, metacardType);
+
+        metacard.setAttribute(new AttributeImpl(Core.DATATYPE, DataType.MOVING_IMAGE.toString()));
+      } catch (TikaException e) {
+        throw new CatalogTransformerException(e);
+      }
+
+      if (StringUtils.startsWithIgnoreCase(
+          metacard.getContentTypeName(), TRANSPORT_STREAM_MIME_TYPE)) {
+        addFrameCenter(metacard, video);
+      }
+      return metacard;
+    } finally {
+      Files.deleteIfExists(video);
+    }
+  }
+
+  private void addFrameCenter(Metacard metacard, Path transportStream) {
+    AtomicReference<String> frameCenter = new AtomicReference<>();
     try {
-      TikaMetadataExtractor tikaMetadataExtractor = new TikaMetadataExtractor(input);
+      new MpegTransportStreamMetadataExtractor(transportStream, executor)
+          .getMetadata(
+              (packetId, metadataPacket) -> {
+                if (frameCenter.get() == null) {
+                  frameCenter.set(getFrameCenter(metadataPacket));
+                }
+              });
+    } catch (Exception e) {
+      LOGGER.debug("Unable to read the metadata streams of the transport stream.", e);
+      return;
+    }
+
+    if (frameCenter.get() != null) {
+      metacard.setAttribute(new AttributeImpl(Media.FRAME_CENTER, frameCenter.get()));
+    }
+  }
+
+  /** Returns the frame center of a metadata packet as WKT, or null if it has none. */
+  static String getFrameCenter(byte[] metadataPacket) {
+    // the KLV follows the PES header and its optional fields
+    if (metadataPacket.length < 9) {
+      return null;
+    }
+    int klvOffset = 9 + (metadataPacket[8] & 0xff);
+    if (klvOffset >= metadataPacket.length) {
+      return null;
+    }
 
-      Metadata metadata = tikaMetadataExtractor.getMetadata();
+    KlvContext decoded;
+    try {
+      decoded =
+          new KlvDecoder(UAS_DATALINK_CONTEXT)
+              .decode(
+                  ByteBuffer.wrap(metadataPacket, klvOffset, metadataPacket.length - klvOffset));
+    } catch (KlvDecodingException e) {
+      LOGGER.debug("Unable to decode a metadata packet of the transport stream.", e);
+      return null;
+    }
 
-      String metadataText = tikaMetadataExtractor.getMetadataXml();
+    if (!decoded.hasDataElement(UAS_DATALINK_LOCAL_SET)) {
+      return null;
+    }
+    KlvContext localSet =
+        ((KlvLocalSet) decoded.getDataElementByName(UAS_DATALINK_LOCAL_SET)).getValue();
+    if (localSet == null
+        || !isValid(localSet, FRAME_CENTER_LATITUDE)
+        || !isValid(localSet, FRAME_CENTER_LONGITUDE)) {
+      return null;
+    }
 
-      metacard = MetacardCreator.createMetacard(metadata, id, metadataText, metacardType);
+    return String.format(
+        "POINT (%s %s)",
+        localSet.getDataElementByName(FRAME_CENTER_LONGITUDE).getValue(),
+        localSet.getDataElementByName(FRAME_CENTER_LATITUDE).getValue());
+  }
 
-      metacard.setAttribute(new AttributeImpl(Core.DATATYPE, DataType.MOVING_IMAGE.toString()));
-    } catch (TikaException e) {
-      throw new CatalogTransformerException(e);
+  private static boolean isValid(KlvContext localSet, String name) {
+    if (!localSet.hasDataElement(name)) {
+      return false;
     }
-    return metacard;
+    KlvDataElement dataElement = localSet.getDataElementByName(name);
+    return !dataElement.isErrorIndicated();
+  }
+
+  private static KlvIntegerEncodedFloatingPoint angle(int tag, String name, double range) {
+    return new KlvIntegerEncodedFloatingPoint(
+        new KlvInt(new byte[] {(byte) tag}, name, Optional.of(Integer.MIN_VALUE)),
+        Integer.MIN_VALUE + 1,
+        Integer.MAX_VALUE,
+        -range,
+        range);
   }
 }
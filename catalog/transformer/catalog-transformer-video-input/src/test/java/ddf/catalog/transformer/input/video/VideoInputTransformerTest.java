@@ -15,6 +15,7 @@
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.Matchers.containsString;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
@@ -25,6 +26,7 @@
 import ddf.catalog.data.types.Core;
 import ddf.catalog.data.types.constants.core.DataType;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -60,13 +62,49 @@ public void testDataTypeAttribute() throws Exception {
         is(new AttributeImpl(Core.DATATYPE, DataType.MOVING_IMAGE.toString())));
   }
 
+  @Test
+  public void testFrameCenter() {
+    byte[] metadataPacket = metadataPacket(0, Integer.MAX_VALUE);
+
+    assertThat(VideoInputTransformer.getFrameCenter(metadataPacket), is("POINT (180.0 0.0)"));
+  }
+
+  @Test
+  public void testFrameCenterWithErrorIndicator() {
+    byte[] metadataPacket = metadataPacket(Integer.MIN_VALUE, 0);
+
+    assertThat(VideoInputTransformer.getFrameCenter(metadataPacket), nullValue());
+  }
+
+  @Test
+  public void testMetadataPacketWithoutKlv() {
+    byte[] metadataPacket = new byte[] {0x00, 0x00, 0x01, (byte) 0xBD, 0x00, 0x03, (byte) 0x84};
+
+    assertThat(VideoInputTransformer.getFrameCenter(metadataPacket), nullValue());
+  }
+
+  /** Builds a PES packet holding a UAS Datalink Local Set with the given frame center. */
+  private static byte[] metadataPacket(int encodedLatitude, int encodedLongitude) {
+    ByteBuffer packet = ByteBuffer.allocate(9 + 16 + 1 + 12);
+    packet.put(new byte[] {0x00, 0x00, 0x01, (byte) 0xBD, 0x00, 0x1D, (byte) 0x80, 0x00, 0x00});
+    packet.put(
+        new byte[] {
+          0x06, 0x0E, 0x2B, 0x34, 0x02, 0x0B, 0x01, 0x01, 0x0E, 0x01, 0x03, 0x01, 0x01, 0x00, 0x00,
+          0x00
+        });
+    packet.put((byte) 12);
+    packet.put((byte) 0x17).put((byte) 4).putInt(encodedLatitude);
+    packet.put((byte) 0x18).put((byte) 4).putInt(encodedLongitude);
+    return packet.array();
+  }
+
   private InputStream getVideoInputStream() {
     return Thread.currentThread().getContextClassLoader().getResourceAsStream("testMP4Video.mp4");
   }
 
   private Metacard transform(InputStream stream) throws Exception {
     VideoInputTransformer videoInputTransformer =
-        new VideoInputTransformer(mock(MetacardType.class));
+        new VideoInputTransformer(mock(MetacardType.class), Runnable::run);
     return videoInputTransformer.transform(stream);
   }
 
@@ -14,17 +14,28 @@
 package org.codice.ddf.validator.metacard.duplication;
 
 import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
 import ddf.catalog.CatalogFramework;
+import ddf.catalog.Constants;
 import ddf.catalog.data.Attribute;
 import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
 import ddf.catalog.federation.FederationException;
 import ddf.catalog.filter.FilterBuilder;
+import ddf.catalog.operation.CreateResponse;
+import ddf.catalog.operation.DeleteResponse;
 import ddf.catalog.operation.QueryRequest;
 import ddf.catalog.operation.SourceResponse;
+import ddf.catalog.operation.Update;
+import ddf.catalog.operation.UpdateResponse;
 import ddf.catalog.operation.impl.QueryImpl;
 import ddf.catalog.operation.impl.QueryRequestImpl;
+import ddf.catalog.plugin.PostIngestPlugin;
 import ddf.catalog.source.SourceUnavailableException;
 import ddf.catalog.source.UnsupportedQueryException;
+import ddf.catalog.validation.BatchMetacardValidator;
 import ddf.catalog.validation.MetacardValidator;
 import ddf.catalog.validation.ReportingMetacardValidator;
 import ddf.catalog.validation.ValidationException;
@@ -35,13 +46,23 @@
 import ddf.catalog.validation.violation.ValidationViolation;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.apache.commons.collections.CollectionUtils;
@@ -51,8 +72,9 @@
 import org.slf4j.LoggerFactory;
 
 public class DuplicationValidator
-    implements MetacardValidator,
+    implements BatchMetacardValidator,
         ReportingMetacardValidator,
+        PostIngestPlugin,
         ddf.catalog.util.Describable,
         org.codice.ddf.platform.services.common.Describable {
   private static final Logger LOGGER = LoggerFactory.getLogger(DuplicationValidator.class);
@@ -63,6 +85,13 @@
 
   private static final String VERSION = "version";
 
+  static final int DEFAULT_RECENT_VALUES_SIZE = 10000;
+
+  /* Keeps each query well below the default limit of 1024 clauses in a Solr boolean query */
+  private static final int MAX_TERMS_PER_QUERY = 256;
+
+  private static final int MAX_RESULTS = 1000;
+
   private static Properties describableProperties = new Properties();
 
   static {
@@ -82,6 +111,16 @@
 
   private String[] warnOnDuplicateAttributes;
 
+  /*
+   * The ids of recently ingested metacards, by the values of their unique attributes. A value found
+   * here is taken as a known duplicate without querying for it. The values are remembered from the
+   * ingests of this node only and are not checked against the catalog, so they can be stale when
+   * metacards are deleted through another node. Only the values of attributes that are checked for
+   * warnings, and not for errors, are remembered, so a stale value never rejects an ingest.
+   */
+  private volatile Cache<AttributeValue, Set<String>> recentValues =
+      newRecentValues(DEFAULT_RECENT_VALUES_SIZE);
+
   public DuplicationValidator(CatalogFramework catalogFramework, FilterBuilder filterBuilder) {
     this.catalogFramework = catalogFramework;
     this.filterBuilder = filterBuilder;
@@ -113,71 +152,242 @@ public void setWarnOnDuplicateAttributes(String[] attributeStrings) {
     }
   }
 
+  /**
+   * Setter for the number of recently ingested attribute values to remember. Duplicates of those
+   * values are found without querying the catalog. Only the values of attributes that are checked
+   * for warnings, and not for errors, are remembered.
+   *
+   * @param recentValuesSize the number of values to remember, or zero to always query the catalog
+   */
+  public void setRecentValuesSize(int recentValuesSize) {
+    this.recentValues = newRecentValues(recentValuesSize);
+  }
+
   @Override
   public Optional<MetacardValidationReport> validateMetacard(Metacard metacard) {
     Preconditions.checkArgument(metacard != null, "The metacard cannot be null.");
 
-    return getReport(reportDuplicates(metacard));
+    return new BatchValidator(Collections.singletonList(metacard)).validateMetacard(metacard);
   }
 
   @Override
   public void validate(Metacard metacard) throws ValidationException {
+    Preconditions.checkArgument(metacard != null, "The metacard cannot be null.");
+
+    new BatchValidator(Collections.singletonList(metacard)).validate(metacard);
+  }
+
+  /**
+   * Checks every metacard of the batch for duplicates with as few catalog queries as possible. A
+   * metacard that duplicates an earlier metacard of the same batch is also reported.
+   */
+  @Override
+  public MetacardValidator forBatch(List<Metacard> metacards) {
+    return new BatchValidator(metacards);
+  }
 
-    final Optional<MetacardValidationReport> report = validateMetacard(metacard);
-
-    if (report.isPresent()) {
-      final List<String> errors =
-          report.get().getMetacardValidationViolations().stream()
-              .filter(
-                  validationViolation ->
-                      validationViolation.getSeverity().equals(ValidationViolation.Severity.ERROR))
-              .map(ValidationViolation::getMessage)
-              .collect(Collectors.toList());
-      final List<String> warnings =
-          report.get().getMetacardValidationViolations().stream()
-              .filter(
-                  validationViolation ->
-                      validationViolation
-                          .getSeverity()
-                          .equals(ValidationViolation.Severity.WARNING))
-              .map(ValidationViolation::getMessage)
-              .collect(Collectors.toList());
-
-      String message =
-          String.format("Duplicate data found in catalog for ID {%s}.", metacard.getId());
-      final ValidationExceptionImpl exception = new ValidationExceptionImpl(message);
-      exception.setErrors(errors);
-      exception.setWarnings(warnings);
-      throw exception;
+  @Override
+  public CreateResponse process(CreateResponse input) {
+    input.getCreatedMetacards().forEach(this::remember);
+    return input;
+  }
+
+  @Override
+  public UpdateResponse process(UpdateResponse input) {
+    for (Update update : input.getUpdatedMetacards()) {
+      forget(update.getOldMetacard());
+      remember(update.getNewMetacard());
     }
+    return input;
   }
 
-  private Set<ValidationViolation> reportDuplicates(final Metacard metacard) {
+  @Override
+  public DeleteResponse process(DeleteResponse input) {
+    input.getDeletedMetacards().forEach(this::forget);
+    return input;
+  }
+
+  private void remember(Metacard metacard) {
+    Cache<AttributeValue, Set<String>> values = recentValues;
+    if (values != null && metacard != null && metacard.getId() != null) {
+      getAttributeValues(
+              metacard,
+              getRecentAttributeNames(warnOnDuplicateAttributes, errorOnDuplicateAttributes))
+          .forEach(
+              value ->
+                  values
+                      .asMap()
+                      .computeIfAbsent(value, key -> ConcurrentHashMap.newKeySet())
+                      .add(metacard.getId()));
+    }
+  }
 
-    Set<ValidationViolation> violations = new HashSet<>();
+  private void forget(Metacard metacard) {
+    Cache<AttributeValue, Set<String>> values = recentValues;
+    if (values != null && metacard != null && metacard.getId() != null) {
+      getAttributeValues(metacard, getUniqueAttributeNames())
+          .forEach(
+              value -> {
+                Set<String> ids = values.getIfPresent(value);
+                if (ids != null) {
+                  ids.remove(metacard.getId());
+                }
+              });
+    }
+  }
+
+  private Set<String> getUniqueAttributeNames() {
+    return getUniqueAttributeNames(warnOnDuplicateAttributes, errorOnDuplicateAttributes);
+  }
+
+  private static Set<String> getUniqueAttributeNames(
+      String[] warnAttributes, String[] errorAttributes) {
+    Set<String> names = new HashSet<>();
+    if (warnAttributes != null) {
+      names.addAll(Arrays.asList(warnAttributes));
+    }
+    if (errorAttributes != null) {
+      names.addAll(Arrays.asList(errorAttributes));
+    }
+    return names;
+  }
 
-    if (ArrayUtils.isNotEmpty(warnOnDuplicateAttributes)) {
-      ValidationViolation warnValidation =
-          reportDuplicates(
-              metacard, warnOnDuplicateAttributes, ValidationViolation.Severity.WARNING);
-      if (warnValidation != null) {
-        violations.add(warnValidation);
+  /* The attributes whose values can be answered from the recent values. */
+  private static Set<String> getRecentAttributeNames(
+      String[] warnAttributes, String[] errorAttributes) {
+    Set<String> names = getUniqueAttributeNames(warnAttributes, null);
+    if (errorAttributes != null) {
+      names.removeAll(Arrays.asList(errorAttributes));
+    }
+    return names;
+  }
+
+  private static Set<AttributeValue> getAttributeValues(
+      Metacard metacard, Collection<String> attributeNames) {
+    Set<AttributeValue> values = new LinkedHashSet<>();
+    for (String attributeName : attributeNames) {
+      Attribute attribute = metacard.getAttribute(attributeName);
+      if (attribute != null && attribute.getValues() != null) {
+        attribute.getValues().stream()
+            .filter(Objects::nonNull)
+            .map(value -> new AttributeValue(attributeName, value.toString().trim()))
+            .forEach(values::add);
       }
     }
-    if (ArrayUtils.isNotEmpty(errorOnDuplicateAttributes)) {
-      ValidationViolation errorViolation =
-          reportDuplicates(
-              metacard, errorOnDuplicateAttributes, ValidationViolation.Severity.ERROR);
-      if (errorViolation != null) {
-        violations.add(errorViolation);
+    return values;
+  }
+
+  private static Cache<AttributeValue, Set<String>> newRecentValues(int size) {
+    return size > 0 ? CacheBuilder.newBuilder().maximumSize(size).build() : null;
+  }
+
+  /** Finds the duplicates of a batch of metacards when it is created. */
+  private class BatchValidator implements MetacardValidator, ReportingMetacardValidator {
+
+    private final String[] warnAttributes = warnOnDuplicateAttributes;
+
+    private final String[] errorAttributes = errorOnDuplicateAttributes;
+
+    private final Map<Metacard, Set<ValidationViolation>> violations = new IdentityHashMap<>();
+
+    BatchValidator(List<Metacard> metacards) {
+      Set<String> attributeNames = getUniqueAttributeNames(warnAttributes, errorAttributes);
+      Map<AttributeValue, Set<String>> duplicateIds =
+          findDuplicateIds(
+              metacards, attributeNames, getRecentAttributeNames(warnAttributes, errorAttributes));
+      // metacards are told apart by identity, because metadata-only creates do not have ids yet
+      Map<AttributeValue, Map<Metacard, String>> batchIds = new HashMap<>();
+      for (int i = 0; i < metacards.size(); i++) {
+        Metacard metacard = metacards.get(i);
+        if (metacard == null) {
+          continue;
+        }
+        Set<ValidationViolation> metacardViolations = new HashSet<>();
+        if (ArrayUtils.isNotEmpty(warnAttributes)) {
+          Optional.ofNullable(
+                  reportDuplicates(
+                      metacard,
+                      warnAttributes,
+                      ValidationViolation.Severity.WARNING,
+                      duplicateIds,
+                      batchIds))
+              .ifPresent(metacardViolations::add);
+        }
+        if (ArrayUtils.isNotEmpty(errorAttributes)) {
+          Optional.ofNullable(
+                  reportDuplicates(
+                      metacard,
+                      errorAttributes,
+                      ValidationViolation.Severity.ERROR,
+                      duplicateIds,
+                      batchIds))
+              .ifPresent(metacardViolations::add);
+        }
+        violations.put(metacard, metacardViolations);
+
+        String batchId =
+            metacard.getId() != null
+                ? metacard.getId()
+                : String.format("metacard %d of the batch", i + 1);
+        for (AttributeValue value : getAttributeValues(metacard, attributeNames)) {
+          batchIds.computeIfAbsent(value, key -> new IdentityHashMap<>()).put(metacard, batchId);
+        }
       }
     }
 
-    return violations;
+    @Override
+    public Optional<MetacardValidationReport> validateMetacard(Metacard metacard) {
+      Preconditions.checkArgument(metacard != null, "The metacard cannot be null.");
+
+      Set<ValidationViolation> metacardViolations = violations.get(metacard);
+      if (metacardViolations == null) {
+        metacardViolations =
+            new BatchValidator(Collections.singletonList(metacard)).violations.get(metacard);
+      }
+      return getReport(metacardViolations);
+    }
+
+    @Override
+    public void validate(Metacard metacard) throws ValidationException {
+
+      final Optional<MetacardValidationReport> report = validateMetacard(metacard);
+
+      if (report.isPresent()) {
+        final List<String> errors =
+            report.get().getMetacardValidationViolations().stream()
+                .filter(
+                    validationViolation ->
+                        validationViolation
+                            .getSeverity()
+                            .equals(ValidationViolation.Severity.ERROR))
+                .map(ValidationViolation::getMessage)
+                .collect(Collectors.toList());
+        final List<String> warnings =
+            report.get().getMetacardValidationViolations().stream()
+                .filter(
+                    validationViolation ->
+                        validationViolation
+                            .getSeverity()
+                            .equals(ValidationViolation.Severity.WARNING))
+                .map(ValidationViolation::getMessage)
+                .collect(Collectors.toList());
+
+        String message =
+            String.format("Duplicate data found in catalog for ID {%s}.", metacard.getId());
+        final ValidationExceptionImpl exception = new ValidationExceptionImpl(message);
+        exception.setErrors(errors);
+        exception.setWarnings(warnings);
+        throw exception;
+      }
+    }
   }
 
   private ValidationViolation reportDuplicates(
-      final Metacard metacard, String[] attributeNames, ValidationViolation.Severity severity) {
+      final Metacard metacard,
+      String[] attributeNames,
+      ValidationViolation.Severity severity,
+      Map<AttributeValue, Set<String>> catalogIds,
+      Map<AttributeValue, Map<Metacard, String>> batchIds) {
 
     Set<String> duplicates = new HashSet<>();
     ValidationViolation violation = null;
@@ -186,9 +396,7 @@ private ValidationViolation reportDuplicates(
         Stream.of(attributeNames)
             .filter(attribute -> metacard.getAttribute(attribute) != null)
             .collect(Collectors.toSet());
-    final Set<Attribute> uniqueAttributes =
-        uniqueAttributeNames.stream().map(metacard::getAttribute).collect(Collectors.toSet());
-    if (!uniqueAttributes.isEmpty()) {
+    if (!uniqueAttributeNames.isEmpty()) {
       if (LOGGER.isDebugEnabled()) {
         LOGGER.debug(
             "Checking for duplicates for id {} against attributes [{}]",
@@ -196,11 +404,16 @@ private ValidationViolation reportDuplicates(
             collectionToString(uniqueAttributeNames));
       }
 
-      SourceResponse response = query(uniqueAttributes);
-      if (response != null) {
-        response.getResults().stream()
-            .filter(result -> !result.getMetacard().getId().equals(metacard.getId()))
-            .forEach(result -> duplicates.add(result.getMetacard().getId()));
+      Set<AttributeValue> values = getAttributeValues(metacard, uniqueAttributeNames);
+      for (AttributeValue value : values) {
+        duplicates.addAll(catalogIds.getOrDefault(value, Collections.emptySet()));
+      }
+      duplicates.remove(metacard.getId());
+      for (AttributeValue value : values) {
+        batchIds.getOrDefault(value, Collections.emptyMap()).entrySet().stream()
+            .filter(entry -> entry.getKey() != metacard)
+            .map(Map.Entry::getValue)
+            .forEach(duplicates::add);
       }
       if (!duplicates.isEmpty()) {
         violation = createViolation(uniqueAttributeNames, duplicates, severity);
@@ -210,29 +423,87 @@ private ValidationViolation reportDuplicates(
     return violation;
   }
 
-  private Filter[] buildFilters(Set<Attribute> attributes) {
-
-    return attributes.stream()
-        .flatMap(
-            attribute ->
-                attribute.getValues().stream()
-                    .map(
-                        value ->
-                            filterBuilder
-                                .attribute(attribute.getName())
-                                .equalTo()
-                                .text(value.toString().trim())))
-        .toArray(Filter[]::new);
+  /**
+   * Looks up the ids of the metacards that have any of the unique attribute values of the batch.
+   * Values of the recent attributes that belong to recently ingested metacards are answered from
+   * memory, and the rest are looked up in the catalog with as few disjunctive queries as possible.
+   *
+   * <p>A query returns at most a page of results, so when the page comes back full the values
+   * without a match in it are queried again, in halves if none of them matched. Every value that
+   * has a duplicate is found, although only the ids of the first page of its duplicates are.
+   */
+  private Map<AttributeValue, Set<String>> findDuplicateIds(
+      List<Metacard> metacards, Set<String> attributeNames, Set<String> recentAttributeNames) {
+    Map<AttributeValue, Set<String>> duplicateIds = new HashMap<>();
+    List<AttributeValue> unknownValues = new ArrayList<>();
+    Cache<AttributeValue, Set<String>> values = recentValues;
+    metacards.stream()
+        .filter(Objects::nonNull)
+        .flatMap(metacard -> getAttributeValues(metacard, attributeNames).stream())
+        .distinct()
+        .forEach(
+            value -> {
+              Set<String> ids =
+                  values != null && recentAttributeNames.contains(value.name)
+                      ? values.getIfPresent(value)
+                      : null;
+              if (ids != null && !ids.isEmpty()) {
+                duplicateIds.put(value, new HashSet<>(ids));
+              } else {
+                unknownValues.add(value);
+              }
+            });
+
+    Deque<List<AttributeValue>> batches =
+        new ArrayDeque<>(Lists.partition(unknownValues, MAX_TERMS_PER_QUERY));
+    while (!batches.isEmpty()) {
+      List<AttributeValue> terms = batches.pop();
+      int pageSize = Math.min(terms.size() * Constants.DEFAULT_PAGE_SIZE, MAX_RESULTS);
+      SourceResponse response = query(terms, pageSize);
+      if (response == null || response.getResults() == null) {
+        continue;
+      }
+      Set<AttributeValue> queried = new HashSet<>(terms);
+      for (Result result : response.getResults()) {
+        Metacard match = result.getMetacard();
+        for (AttributeValue value : getAttributeValues(match, attributeNames)) {
+          if (queried.contains(value)) {
+            duplicateIds.computeIfAbsent(value, key -> new HashSet<>()).add(match.getId());
+          }
+        }
+      }
+
+      if (response.getResults().size() >= pageSize) {
+        List<AttributeValue> unmatched =
+            terms.stream()
+                .filter(value -> !duplicateIds.containsKey(value))
+                .collect(Collectors.toList());
+        if (unmatched.size() < terms.size()) {
+          if (!unmatched.isEmpty()) {
+            batches.push(unmatched);
+          }
+        } else if (terms.size() > 1) {
+          batches.push(terms.subList(terms.size() / 2, terms.size()));
+          batches.push(terms.subList(0, terms.size() / 2));
+        }
+      }
+    }
+    return duplicateIds;
   }
 
-  private SourceResponse query(Set<Attribute> attributes) {
+  private SourceResponse query(List<AttributeValue> values, int pageSize) {
 
-    final Filter filter = filterBuilder.allOf(filterBuilder.anyOf(buildFilters(attributes)));
+    final Filter filter =
+        filterBuilder.anyOf(
+            values.stream()
+                .map(value -> filterBuilder.attribute(value.name).equalTo().text(value.value))
+                .toArray(Filter[]::new));
 
     LOGGER.debug("filter {}", filter);
 
     QueryImpl query = new QueryImpl(filter);
     query.setRequestsTotalResultsCount(false);
+    query.setPageSize(pageSize);
     QueryRequest request = new QueryRequestImpl(query);
 
     SourceResponse response = null;
@@ -271,6 +542,36 @@ private Optional<MetacardValidationReport> getReport(final Set<ValidationViolati
     return Optional.empty();
   }
 
+  /** The value of an attribute, trimmed as it is when querying for it. */
+  private static final class AttributeValue {
+
+    private final String name;
+
+    private final String value;
+
+    private AttributeValue(String name, String value) {
+      this.name = name;
+      this.value = value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof AttributeValue)) {
+        return false;
+      }
+      AttributeValue that = (AttributeValue) o;
+      return name.equals(that.name) && value.equals(that.value);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(name, value);
+    }
+  }
+
   @Override
   public String getVersion() {
     return describableProperties.getProperty(VERSION);
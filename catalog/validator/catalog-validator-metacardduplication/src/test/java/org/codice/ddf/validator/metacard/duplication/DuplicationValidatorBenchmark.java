@@ -0,0 +1,135 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.validator.metacard.duplication;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import ddf.catalog.CatalogFramework;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.impl.AttributeImpl;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.filter.FilterBuilder;
+import ddf.catalog.operation.QueryRequest;
+import ddf.catalog.operation.QueryResponse;
+import ddf.catalog.validation.MetacardValidator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.mockito.Answers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the time spent validating the metacards of one create request for duplicate checksums,
+ * with the validator disabled, checking one metacard at a time, and checking the whole batch. Each
+ * catalog query waits {@code queryLatencyMillis} to stand in for a round trip to the catalog
+ * provider.
+ *
+ * <p>Run {@link #main(String[])} from the test classpath after {@code mvn test-compile} with the
+ * {@code benchmarks} profile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DuplicationValidatorBenchmark {
+
+  @Param({"1", "10", "100"})
+  private int batchSize;
+
+  @Param({"2"})
+  private long queryLatencyMillis;
+
+  private DuplicationValidator validator;
+
+  private List<Metacard> metacards;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    QueryResponse response = mock(QueryResponse.class);
+    when(response.getResults()).thenReturn(Collections.emptyList());
+    CatalogFramework catalogFramework = mock(CatalogFramework.class);
+    when(catalogFramework.query(any(QueryRequest.class)))
+        .thenAnswer(
+            invocation -> {
+              Thread.sleep(queryLatencyMillis);
+              return response;
+            });
+
+    validator =
+        new DuplicationValidator(
+            catalogFramework, mock(FilterBuilder.class, Answers.RETURNS_DEEP_STUBS));
+    validator.setWarnOnDuplicateAttributes(new String[] {Metacard.CHECKSUM});
+    // Every batch holds new values, so remembering them would only hide the catalog queries
+    validator.setRecentValuesSize(0);
+
+    metacards = new ArrayList<>();
+    for (int i = 0; i < batchSize; i++) {
+      MetacardImpl metacard = new MetacardImpl();
+      metacard.setId(UUID.randomUUID().toString());
+      metacard.setAttribute(new AttributeImpl(Metacard.CHECKSUM, UUID.randomUUID().toString()));
+      metacards.add(metacard);
+    }
+  }
+
+  @Benchmark
+  public void disabled(Blackhole blackhole) {
+    for (Metacard metacard : metacards) {
+      blackhole.consume(metacard);
+    }
+  }
+
+  @Benchmark
+  public void perMetacard(Blackhole blackhole) {
+    for (Metacard metacard : metacards) {
+      blackhole.consume(validator.validateMetacard(metacard));
+    }
+  }
+
+  @Benchmark
+  public void perBatch(Blackhole blackhole) {
+    MetacardValidator batchValidator = validator.forBatch(metacards);
+    for (Metacard metacard : metacards) {
+      blackhole.consume(batchValidator.validateMetacard(metacard));
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder()
+                .include(DuplicationValidatorBenchmark.class.getSimpleName())
+                .build())
+        .run();
+  }
+}
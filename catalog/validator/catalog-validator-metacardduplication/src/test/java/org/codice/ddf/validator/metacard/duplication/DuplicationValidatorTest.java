@@ -24,10 +24,13 @@
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import ddf.catalog.CatalogFramework;
+import ddf.catalog.Constants;
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.Result;
 import ddf.catalog.data.impl.AttributeImpl;
@@ -35,16 +38,21 @@
 import ddf.catalog.data.impl.ResultImpl;
 import ddf.catalog.federation.FederationException;
 import ddf.catalog.filter.FilterBuilder;
+import ddf.catalog.operation.CreateResponse;
+import ddf.catalog.operation.DeleteResponse;
 import ddf.catalog.operation.QueryRequest;
 import ddf.catalog.operation.QueryResponse;
 import ddf.catalog.plugin.PluginExecutionException;
 import ddf.catalog.plugin.StopProcessingException;
 import ddf.catalog.source.SourceUnavailableException;
 import ddf.catalog.source.UnsupportedQueryException;
+import ddf.catalog.validation.MetacardValidator;
 import ddf.catalog.validation.ValidationException;
 import ddf.catalog.validation.report.MetacardValidationReport;
 import ddf.catalog.validation.violation.ValidationViolation;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -97,6 +105,8 @@ public void setup()
     testMetacard.setId("test metacard ID");
     matchingMetacard.setAttribute(new AttributeImpl(Metacard.CHECKSUM, "checksum-value"));
     testMetacard.setAttribute(new AttributeImpl(Metacard.CHECKSUM, "checksum-value"));
+    matchingMetacard.setAttribute(new AttributeImpl(Metacard.TITLE, "title"));
+    testMetacard.setAttribute(new AttributeImpl(Metacard.TITLE, "title"));
     matchingMetacard.setTags(tags);
     testMetacard.setTags(tags);
 
@@ -160,10 +170,10 @@ public void testValidateBlankConfiguration() throws ValidationException {
   public void testValidateMetacardWithValidationErrorAndWarning() {
 
     String[] checksumAttribute = {Metacard.CHECKSUM};
-    String[] idAttribute = {Metacard.ID};
+    String[] titleAttribute = {Metacard.TITLE};
 
     validator.setWarnOnDuplicateAttributes(checksumAttribute);
-    validator.setErrorOnDuplicateAttributes(idAttribute);
+    validator.setErrorOnDuplicateAttributes(titleAttribute);
 
     Optional<MetacardValidationReport> report = validator.validateMetacard(testMetacard);
     assertThat(report.isPresent(), is(true));
@@ -179,19 +189,19 @@ public void testValidateMetacardWithValidationErrorAndWarning() {
 
     assertThat(warnViolation.getAttributes(), is(new HashSet<>(Arrays.asList(checksumAttribute))));
     assertThat(warnViolation.getMessage(), containsString(Metacard.CHECKSUM));
-    assertThat(errorViolation.getAttributes(), is(new HashSet<>(Arrays.asList(idAttribute))));
-    assertThat(errorViolation.getMessage(), containsString(Metacard.ID));
+    assertThat(errorViolation.getAttributes(), is(new HashSet<>(Arrays.asList(titleAttribute))));
+    assertThat(errorViolation.getMessage(), containsString(Metacard.TITLE));
   }
 
   @Test
   public void testValidateWithValidationErrorAndWarning() throws ValidationException {
 
     String[] checksumAttribute = {Metacard.CHECKSUM};
-    String[] idAttribute = {Metacard.ID};
+    String[] titleAttribute = {Metacard.TITLE};
     ValidationException expectedException = null;
 
     validator.setWarnOnDuplicateAttributes(checksumAttribute);
-    validator.setErrorOnDuplicateAttributes(idAttribute);
+    validator.setErrorOnDuplicateAttributes(titleAttribute);
 
     try {
       validator.validate(testMetacard);
@@ -207,7 +217,9 @@ public void testValidateWithValidationErrorAndWarning() throws ValidationExcepti
     expectedException
         .getWarnings()
         .forEach(warning -> assertThat(warning, containsString(Metacard.CHECKSUM)));
-    expectedException.getErrors().forEach(error -> assertThat(error, containsString(Metacard.ID)));
+    expectedException
+        .getErrors()
+        .forEach(error -> assertThat(error, containsString(Metacard.TITLE)));
   }
 
   @Test
@@ -241,4 +253,156 @@ public void testValidateMetacardWithMultiValuedAttribute()
               assertThat(violation.getMessage(), containsString(Metacard.TAGS));
             });
   }
+
+  @Test
+  public void testValidateBatchWithOneQuery() throws Exception {
+    validator.setWarnOnDuplicateAttributes(new String[] {Metacard.CHECKSUM});
+    MetacardImpl uniqueMetacard = new MetacardImpl();
+    uniqueMetacard.setId("unique metacard id");
+    uniqueMetacard.setAttribute(new AttributeImpl(Metacard.CHECKSUM, "unique-value"));
+
+    MetacardValidator batchValidator =
+        validator.forBatch(Arrays.asList(testMetacard, uniqueMetacard));
+    ValidationException exception = getValidationException(batchValidator, testMetacard);
+    assertThat(exception.getWarnings().get(0), containsString(ID));
+    assertThat(getValidationException(batchValidator, uniqueMetacard), is(nullValue()));
+
+    verify(mockFramework).query(any(QueryRequest.class));
+  }
+
+  @Test
+  public void testValidateBatchWithDuplicateInBatch() throws Exception {
+    QueryResponse emptyResponse = mock(QueryResponse.class);
+    when(emptyResponse.getResults()).thenReturn(Collections.emptyList());
+    when(mockFramework.query(any(QueryRequest.class))).thenReturn(emptyResponse);
+    validator.setWarnOnDuplicateAttributes(new String[] {Metacard.CHECKSUM});
+
+    MetacardValidator batchValidator =
+        validator.forBatch(Arrays.asList(matchingMetacard, testMetacard));
+
+    assertThat(getValidationException(batchValidator, matchingMetacard), is(nullValue()));
+    ValidationException exception = getValidationException(batchValidator, testMetacard);
+    assertThat(exception.getWarnings().get(0), containsString(ID));
+  }
+
+  @Test
+  public void testValidateBatchWithDuplicateInBatchWithoutIds() throws Exception {
+    QueryResponse emptyResponse = mock(QueryResponse.class);
+    when(emptyResponse.getResults()).thenReturn(Collections.emptyList());
+    when(mockFramework.query(any(QueryRequest.class))).thenReturn(emptyResponse);
+    validator.setWarnOnDuplicateAttributes(new String[] {Metacard.CHECKSUM});
+    matchingMetacard.setId(null);
+    testMetacard.setId(null);
+
+    MetacardValidator batchValidator =
+        validator.forBatch(Arrays.asList(matchingMetacard, testMetacard));
+
+    assertThat(getValidationException(batchValidator, matchingMetacard), is(nullValue()));
+    ValidationException exception = getValidationException(batchValidator, testMetacard);
+    assertThat(exception.getWarnings().get(0), containsString("metacard 1 of the batch"));
+  }
+
+  @Test
+  public void testValuesWithoutMatchInFullPageAreQueriedAgain() throws Exception {
+    validator.setWarnOnDuplicateAttributes(new String[] {Metacard.CHECKSUM});
+    MetacardImpl otherMetacard = new MetacardImpl();
+    otherMetacard.setId("other metacard id");
+    otherMetacard.setAttribute(new AttributeImpl(Metacard.CHECKSUM, "other-value"));
+
+    // the duplicates of the first value fill the page of the first query
+    List<Result> fullPage = new ArrayList<>();
+    for (int i = 0; i < 2 * Constants.DEFAULT_PAGE_SIZE; i++) {
+      MetacardImpl duplicate = new MetacardImpl();
+      duplicate.setId("duplicate " + i);
+      duplicate.setAttribute(new AttributeImpl(Metacard.CHECKSUM, "checksum-value"));
+      fullPage.add(new ResultImpl(duplicate));
+    }
+    QueryResponse fullResponse = mock(QueryResponse.class);
+    when(fullResponse.getResults()).thenReturn(fullPage);
+    MetacardImpl otherDuplicate = new MetacardImpl();
+    otherDuplicate.setId("other duplicate id");
+    otherDuplicate.setAttribute(new AttributeImpl(Metacard.CHECKSUM, "other-value"));
+    QueryResponse otherResponse = mock(QueryResponse.class);
+    when(otherResponse.getResults())
+        .thenReturn(Collections.singletonList(new ResultImpl(otherDuplicate)));
+    when(mockFramework.query(any(QueryRequest.class))).thenReturn(fullResponse, otherResponse);
+
+    MetacardValidator batchValidator =
+        validator.forBatch(Arrays.asList(testMetacard, otherMetacard));
+
+    assertThat(
+        getValidationException(batchValidator, otherMetacard).getWarnings().get(0),
+        containsString("other duplicate id"));
+    assertThat(
+        getValidationException(batchValidator, testMetacard).getWarnings().get(0),
+        containsString("duplicate 0"));
+    ArgumentCaptor<QueryRequest> requests = ArgumentCaptor.forClass(QueryRequest.class);
+    verify(mockFramework, times(2)).query(requests.capture());
+    assertThat(
+        requests.getAllValues().get(1).getQuery().getPageSize(), is(Constants.DEFAULT_PAGE_SIZE));
+  }
+
+  @Test
+  public void testRecentValuesAreNotUsedForErrors() throws Exception {
+    validator.setErrorOnDuplicateAttributes(new String[] {Metacard.CHECKSUM});
+    CreateResponse createResponse = mock(CreateResponse.class);
+    when(createResponse.getCreatedMetacards())
+        .thenReturn(Collections.singletonList(matchingMetacard));
+    validator.process(createResponse);
+
+    validator.validateMetacard(testMetacard);
+    verify(mockFramework).query(any(QueryRequest.class));
+  }
+
+  @Test
+  public void testRecentlyIngestedValuesAreNotQueried() throws Exception {
+    validator.setWarnOnDuplicateAttributes(new String[] {Metacard.CHECKSUM});
+    CreateResponse createResponse = mock(CreateResponse.class);
+    when(createResponse.getCreatedMetacards())
+        .thenReturn(Collections.singletonList(matchingMetacard));
+    validator.process(createResponse);
+
+    ValidationException exception = getValidationException(validator, testMetacard);
+    assertThat(exception.getWarnings().get(0), containsString(ID));
+    verify(mockFramework, never()).query(any(QueryRequest.class));
+  }
+
+  @Test
+  public void testDeletedValuesAreQueried() throws Exception {
+    validator.setWarnOnDuplicateAttributes(new String[] {Metacard.CHECKSUM});
+    CreateResponse createResponse = mock(CreateResponse.class);
+    when(createResponse.getCreatedMetacards())
+        .thenReturn(Collections.singletonList(matchingMetacard));
+    validator.process(createResponse);
+    DeleteResponse deleteResponse = mock(DeleteResponse.class);
+    when(deleteResponse.getDeletedMetacards())
+        .thenReturn(Collections.singletonList(matchingMetacard));
+    validator.process(deleteResponse);
+
+    validator.validateMetacard(testMetacard);
+    verify(mockFramework).query(any(QueryRequest.class));
+  }
+
+  @Test
+  public void testRecentValuesDisabled() throws Exception {
+    validator.setWarnOnDuplicateAttributes(new String[] {Metacard.CHECKSUM});
+    validator.setRecentValuesSize(0);
+    CreateResponse createResponse = mock(CreateResponse.class);
+    when(createResponse.getCreatedMetacards())
+        .thenReturn(Collections.singletonList(matchingMetacard));
+    validator.process(createResponse);
+
+    validator.validateMetacard(testMetacard);
+    verify(mockFramework).query(any(QueryRequest.class));
+  }
+
+  private ValidationException getValidationException(
+      MetacardValidator metacardValidator, Metacard metacard) {
+    try {
+      metacardValidator.validate(metacard);
+      return null;
+    } catch (ValidationException e) {
+      return e;
+    }
+  }
 }
@@ -45,6 +45,9 @@ public class KlvContext {
 
   private final Map<String, KlvDataElement> keyToDataElementMap;
 
+  /** Built from {@link #keyToDataElementMap} on first use and discarded when elements are added. */
+  private volatile KlvKeyTrie keyTrie;
+
   /**
    * Constructs a {@code KlvContext} containing the properties of a specific KLV-encoded data set.
    *
@@ -95,6 +98,7 @@ public void addDataElement(final KlvDataElement dataElement) {
     Preconditions.checkArgument(dataElement != null, "The data element cannot be null.");
     nameToDataElementMap.put(dataElement.getName(), dataElement);
     keyToDataElementMap.put(dataElement.getKeyAsString(), dataElement);
+    keyTrie = null;
   }
 
   /**
@@ -111,6 +115,7 @@ public void addDataElements(final Collection<? extends KlvDataElement> dataEleme
           nameToDataElementMap.put(dataElement.getName(), dataElement);
           keyToDataElementMap.put(dataElement.getKeyAsString(), dataElement);
         });
+    keyTrie = null;
   }
 
   public KeyLength getKeyLength() {
@@ -157,4 +162,13 @@ public KlvDataElement getDataElementByName(final String name) {
   Map<String, KlvDataElement> getKeyToDataElementMap() {
     return keyToDataElementMap;
   }
+
+  KlvKeyTrie getKeyTrie() {
+    KlvKeyTrie trie = keyTrie;
+    if (trie == null) {
+      trie = new KlvKeyTrie(keyToDataElementMap.values());
+      keyTrie = trie;
+    }
+    return trie;
+  }
 }
@@ -14,9 +14,8 @@
 package org.codice.ddf.libs.klv;
 
 import com.google.common.base.Preconditions;
-import java.util.List;
-import java.util.Map;
-import javax.xml.bind.DatatypeConverter;
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
 import org.codice.ddf.libs.klv.data.Klv;
 
 /** Decodes bytes that contain KLV-encoded data. */
@@ -51,17 +50,65 @@ public KlvDecoder(final KlvContext klvContext) {
    */
   public KlvContext decode(final byte[] klvBytes) throws KlvDecodingException {
     Preconditions.checkArgument(klvBytes != null, "The array of bytes to decode cannot be null.");
+    return decode(ByteBuffer.wrap(klvBytes));
+  }
 
-    List<Klv> klvDataElements;
+  /**
+   * Decodes the KLV data between the position and the limit of {@code klvBuffer}, which may be a
+   * slice of a memory-mapped file, in the same way as {@link #decode(byte[])}. Values are decoded
+   * directly from the buffer; the buffer's position and limit are not modified.
+   *
+   * @param klvBuffer buffer encoding data in KLV format
+   * @return a new {@code KlvContext} containing the decoded KLV data elements
+   * @throws IllegalArgumentException if {@code klvBuffer} is null
+   * @throws KlvDecodingException if the KLV cannot be decoded using the given context information
+   */
+  public KlvContext decode(final ByteBuffer klvBuffer) throws KlvDecodingException {
+    final KlvContext decodedContext =
+        new KlvContext(klvContext.getKeyLength(), klvContext.getLengthEncoding());
+    decode(klvBuffer, decodedContext::addDataElement);
+    return decodedContext;
+  }
 
+  /**
+   * Decodes the KLV data between the position and the limit of {@code klvBuffer}, passing each
+   * decoded {@link KlvDataElement} to {@code consumer} as soon as it has been decoded instead of
+   * collecting them in a new {@link KlvContext}. Data elements whose keys are not in the {@code
+   * KlvContext} provided in the constructor are skipped.
+   *
+   * <p>If the data cannot be decoded, the data elements that precede the malformed KLV set will
+   * already have been passed to {@code consumer} when the exception is thrown.
+   *
+   * @param klvBuffer buffer encoding data in KLV format
+   * @param consumer receives the decoded data elements in the order they appear in the buffer
+   * @throws IllegalArgumentException if any of the arguments are null
+   * @throws KlvDecodingException if the KLV cannot be decoded using the given context information
+   */
+  public void decode(final ByteBuffer klvBuffer, final Consumer<KlvDataElement> consumer)
+      throws KlvDecodingException {
+    Preconditions.checkArgument(klvBuffer != null, "The buffer to decode cannot be null.");
+    Preconditions.checkArgument(consumer != null, "The consumer cannot be null.");
+
+    // the context caches its trie until data elements are added to it
+    final KlvKeyTrie keyTrie = klvContext.getKeyTrie();
+    int offset = klvBuffer.position();
+    while (offset < klvBuffer.limit()) {
+      final Klv klv = readKlv(klvBuffer, offset);
+      offset = klv.getOffsetAfter();
+
+      final KlvDataElement dataElement = keyTrie.find(klv);
+      if (dataElement != null) {
+        final KlvDataElement dataElementCopy = dataElement.copy();
+        dataElementCopy.decodeValue(klv);
+        consumer.accept(dataElementCopy);
+      }
+    }
+  }
+
+  private Klv readKlv(final ByteBuffer klvBuffer, final int offset) throws KlvDecodingException {
     try {
-      klvDataElements =
-          Klv.bytesToList(
-              klvBytes,
-              0,
-              klvBytes.length,
-              klvContext.getKeyLength(),
-              klvContext.getLengthEncoding());
+      return Klv.fromBuffer(
+          klvBuffer, offset, klvContext.getKeyLength(), klvContext.getLengthEncoding());
     } catch (RuntimeException e) {
       throw new KlvDecodingException(
           String.format(
@@ -69,22 +116,5 @@ public KlvContext decode(final byte[] klvBytes) throws KlvDecodingException {
               klvContext.getKeyLength(), klvContext.getLengthEncoding()),
           e);
     }
-
-    final KlvContext decodedContext =
-        new KlvContext(klvContext.getKeyLength(), klvContext.getLengthEncoding());
-    final Map<String, KlvDataElement> keyToDataElementMap = klvContext.getKeyToDataElementMap();
-
-    klvDataElements.forEach(
-        klv -> {
-          final String key = DatatypeConverter.printHexBinary(klv.getFullKey());
-
-          if (keyToDataElementMap.containsKey(key)) {
-            final KlvDataElement dataElementCopy = keyToDataElementMap.get(key).copy();
-            dataElementCopy.decodeValue(klv);
-            decodedContext.addDataElement(dataElementCopy);
-          }
-        });
-
-    return decodedContext;
   }
 }
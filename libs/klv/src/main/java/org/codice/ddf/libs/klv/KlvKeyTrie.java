@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.libs.klv;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import org.codice.ddf.libs.klv.data.Klv;
+
+/**
+ * Maps the raw key bytes of KLV sets to the {@link KlvDataElement}s of a {@link KlvContext}, so
+ * keys can be resolved byte by byte without copying or hex-encoding them.
+ *
+ * <p>The trie is immutable. Each node keeps its children in an open addressing table sized to its
+ * own fan-out, since the 16-byte universal keys of most contexts share long prefixes and branch at
+ * only a few bytes.
+ */
+final class KlvKeyTrie {
+
+  private final Node root;
+
+  KlvKeyTrie(final Collection<KlvDataElement> dataElements) {
+    final NodeBuilder rootBuilder = new NodeBuilder();
+    dataElements.forEach(rootBuilder::add);
+    root = rootBuilder.build();
+  }
+
+  /**
+   * Returns the data element whose key is the key of the given KLV set.
+   *
+   * @param klv the KLV set
+   * @return the matching data element, or null if there is none
+   */
+  KlvDataElement find(final Klv klv) {
+    final int keyLength = klv.getKeyLength().value();
+    Node node = root;
+    for (int i = 0; i < keyLength && node != null; i++) {
+      node = node.child(klv.getKeyByte(i));
+    }
+    return node == null ? null : node.dataElement;
+  }
+
+  private static final class Node {
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final KlvDataElement dataElement;
+
+    /** An open addressing table of the key bytes of the children, sized to a power of two. */
+    private final byte[] keyBytes;
+
+    private final Node[] children;
+
+    private Node(final KlvDataElement dataElement, final Map<Byte, Node> childrenByKeyByte) {
+      this.dataElement = dataElement;
+
+      if (childrenByKeyByte.isEmpty()) {
+        keyBytes = null;
+        children = NO_CHILDREN;
+        return;
+      }
+
+      // keep the table at most half full so that probes stay short
+      final int capacity = Integer.highestOneBit(childrenByKeyByte.size() * 2 - 1) << 1;
+      keyBytes = new byte[capacity];
+      children = new Node[capacity];
+      for (final Map.Entry<Byte, Node> entry : childrenByKeyByte.entrySet()) {
+        int index = entry.getKey() & (capacity - 1);
+        while (children[index] != null) {
+          index = (index + 1) & (capacity - 1);
+        }
+        keyBytes[index] = entry.getKey();
+        children[index] = entry.getValue();
+      }
+    }
+
+    private Node child(final byte keyByte) {
+      final int mask = children.length - 1;
+      if (mask < 0) {
+        return null;
+      }
+
+      for (int index = keyByte & mask; children[index] != null; index = (index + 1) & mask) {
+        if (keyBytes[index] == keyByte) {
+          return children[index];
+        }
+      }
+      return null;
+    }
+  }
+
+  private static final class NodeBuilder {
+
+    private final Map<Byte, NodeBuilder> children = new HashMap<>();
+
+    private KlvDataElement dataElement;
+
+    private void add(final KlvDataElement dataElement) {
+      NodeBuilder builder = this;
+      for (final byte keyByte : dataElement.keyBytes) {
+        builder = builder.children.computeIfAbsent(keyByte, b -> new NodeBuilder());
+      }
+      builder.dataElement = dataElement;
+    }
+
+    private Node build() {
+      final Map<Byte, Node> builtChildren = new HashMap<>();
+      for (final Map.Entry<Byte, NodeBuilder> entry : children.entrySet()) {
+        builtChildren.put(entry.getKey(), entry.getValue().build());
+      }
+      return new Node(dataElement, builtChildren);
+    }
+  }
+}
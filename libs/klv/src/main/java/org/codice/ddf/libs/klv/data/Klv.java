@@ -15,8 +15,8 @@
 
 import com.google.common.base.Preconditions;
 import java.io.UnsupportedEncodingException;
-import java.util.Arrays;
-import java.util.LinkedList;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -29,8 +29,8 @@
  * it also greatly eases the burden of non-TV-related applications for an easy, interchangeable
  * binary format.
  *
- * <p>The underlying byte array is always king. If you change the key length or the length encoding,
- * you only change how the underlying byte array is interpreted on subsequent calls.
+ * <p>The underlying bytes are always king. A {@code Klv} is a view over the buffer it was read
+ * from: the key and value are read from that buffer on demand rather than copied out of it.
  *
  * <p>Everything in KLV is Big Endian.
  *
@@ -95,114 +95,162 @@ public int value() {
   /** Number of bytes in key. */
   private KeyLength keyLength;
 
-  /** The key if the key length is greater than four bytes. */
-  private byte[] keyIfLong;
-
-  /** The key if the key length is four bytes or fewer. */
-  private int keyIfShort;
-
   /**
-   * The bytes from which the KLV set is made up. May include irrelevant bytes so that byte arrays
-   * with offset and length specified separately so arrays can be passed around with a minimum of
-   * copying.
+   * The bytes from which the KLV set is made up. May include irrelevant bytes so that buffers can
+   * be passed around without copying. The buffer's position and limit are never changed; all reads
+   * use absolute offsets.
    */
-  private byte[] value;
+  private ByteBuffer bytes;
+
+  /** The offset of the key in {@link #bytes}. */
+  private int keyOffset;
+
+  /** The offset of the value in {@link #bytes}. */
+  private int valueOffset;
+
+  /** The number of bytes in the value. */
+  private int valueLength;
 
   /**
-   * When instantiated by reading a byte array, this private field will record the offset of the
-   * next byte in the array where perhaps another KLV set begins. This is used by the {@link
+   * When instantiated by reading a buffer, this private field will record the offset of the next
+   * byte in the buffer where perhaps another KLV set begins. This is used by the {@link
    * #bytesToList} method to create a list of KLV sets from a long byte array.
    */
   private int offsetAfterInstantiation;
 
   /**
-   * Creates a KLV set from the given byte array, the given offset in that array, the total length
-   * of the KLV set in the byte array, the specified key length, and the specified length field
-   * encoding.
-   *
-   * <p>If there are not as many bytes in the array as the length field suggests, as many bytes as
-   * possible will be stored as the value, and the length field will reflect the actual length.
+   * Creates a KLV set from the given buffer, the given offset in that buffer, the specified key
+   * length, and the specified length field encoding. The key and value are not copied out of the
+   * buffer.
    *
-   * @param theBytes The bytes that make up the entire KLV set
-   * @param offset The offset from beginning of theBytes
+   * @param theBytes The buffer containing the entire KLV set
+   * @param offset The offset of the KLV set in the buffer
    * @param keyLength The number of bytes in the key.
    * @param lengthEncoding The length field encoding type.
-   * @throws IndexOutOfBoundsException If offset is out of range of the byte array.
+   * @throws IndexOutOfBoundsException If offset is out of range of the buffer or the buffer does
+   *     not contain as many bytes as the length field declares.
    */
   private Klv(
-      final byte[] theBytes,
+      final ByteBuffer theBytes,
       final int offset,
       final KeyLength keyLength,
       final LengthEncoding lengthEncoding) {
     Preconditions.checkElementIndex(
-        offset, theBytes.length, String.format(OUT_OF_RANGE_FORMAT, offset, theBytes.length));
+        offset, theBytes.limit(), String.format(OUT_OF_RANGE_FORMAT, offset, theBytes.limit()));
 
-    // These methods will interpret the byte array
-    // and set the appropriate key length and length encoding flags.
-    // setLength returns the offset of where the length field ends
-    // and the value portion begins. It also initializes an array in
-    // this.value of the appropriate length.
+    this.bytes = theBytes;
+
+    // These methods will interpret the buffer and set the appropriate key length and length
+    // encoding flags. setLength returns the offset of where the length field ends and the value
+    // portion begins.
     setKey(theBytes, offset, keyLength);
 
     // Set length and verify enough bytes exist
-    // setLength(..) also establishes a this.value array.
-    final int valueOffset = setLength(theBytes, offset + keyLength.value(), lengthEncoding);
-    final int remaining = theBytes.length - valueOffset;
+    this.valueOffset = setLength(theBytes, offset + keyLength.value(), lengthEncoding);
+    final int remaining = theBytes.limit() - this.valueOffset;
     checkEnoughBytesRemaining(
         remaining,
-        this.value.length,
+        this.valueLength,
         String.format(
             "Not enough bytes left in array (%d) for the declared length (%d).",
-            remaining, this.value.length));
-
-    System.arraycopy(theBytes, valueOffset, this.value, 0, this.value.length);
+            remaining, this.valueLength));
 
     // Private field used when creating a list of KLVs from a long array.
-    this.offsetAfterInstantiation = valueOffset + this.value.length;
+    this.offsetAfterInstantiation = this.valueOffset + this.valueLength;
   }
 
   /**
-   * Returns a byte array representing the key. This is a copy of the bytes from the original byte
-   * set.
+   * Reads the KLV set starting at {@code offset} in the given buffer. The returned {@code Klv} is a
+   * view of the buffer: its key and value are read from the buffer on demand, so the buffer's
+   * contents must not change while the {@code Klv} is in use. The buffer's position and limit are
+   * not modified.
    *
-   * @return the key
+   * @param buffer The buffer containing the KLV set, e.g. a slice of a memory-mapped file
+   * @param offset The absolute offset of the KLV set in the buffer
+   * @param keyLength Length of the key of the KLV set
+   * @param lengthEncoding Length field encoding of the KLV set
+   * @return the KLV set
+   * @throws IndexOutOfBoundsException If the buffer does not contain a complete KLV set at {@code
+   *     offset}
    */
-  public byte[] getFullKey() {
-    final int length = this.keyLength.value;
-    final byte[] key = new byte[length];
+  public static Klv fromBuffer(
+      final ByteBuffer buffer,
+      final int offset,
+      final KeyLength keyLength,
+      final LengthEncoding lengthEncoding) {
+    return new Klv(buffer, offset, keyLength, lengthEncoding);
+  }
 
-    switch (this.keyLength) {
-      case ONE_BYTE:
-        key[0] = (byte) this.keyIfShort;
-        break;
+  /**
+   * Returns the offset in the underlying buffer of the first byte after this KLV set, which is
+   * where the next KLV set in the buffer, if any, begins.
+   *
+   * @return the offset following this KLV set
+   */
+  public int getOffsetAfter() {
+    return offsetAfterInstantiation;
+  }
 
-      case TWO_BYTES:
-        key[0] = (byte) (this.keyIfShort >> 8);
-        key[1] = (byte) this.keyIfShort;
-        break;
+  /** @return the number of bytes in the key */
+  public KeyLength getKeyLength() {
+    return keyLength;
+  }
 
-      case FOUR_BYTES:
-        key[0] = (byte) (this.keyIfShort >> 24);
-        key[1] = (byte) (this.keyIfShort >> 16);
-        key[2] = (byte) (this.keyIfShort >> 8);
-        key[3] = (byte) this.keyIfShort;
-        break;
+  /**
+   * Returns a single byte of the key without copying the key.
+   *
+   * @param index the index of the byte in the key
+   * @return the key byte
+   * @throws IndexOutOfBoundsException If index is not within the key
+   */
+  public byte getKeyByte(final int index) {
+    Preconditions.checkElementIndex(index, keyLength.value());
+    return bytes.get(keyOffset + index);
+  }
 
-      case SIXTEEN_BYTES:
-        System.arraycopy(this.keyIfLong, 0, key, 0, 16);
-        break;
+  /**
+   * Returns a byte array representing the key. This is a copy of the bytes from the original byte
+   * set.
+   *
+   * @return the key
+   */
+  public byte[] getFullKey() {
+    final byte[] key = new byte[keyLength.value()];
+    for (int i = 0; i < key.length; i++) {
+      key[i] = bytes.get(keyOffset + i);
     }
-
     return key;
   }
 
   /**
-   * Returns the value of this KLV set as a copy of the underlying byte array.
+   * Returns the value of this KLV set as a copy of the underlying bytes.
    *
    * @return the value
    */
   public byte[] getValue() {
-    return Arrays.copyOf(this.value, this.value.length);
+    final byte[] value = new byte[valueLength];
+    final ByteBuffer view = bytes.duplicate();
+    view.position(valueOffset);
+    view.get(value);
+    return value;
+  }
+
+  /**
+   * Returns the value of this KLV set as a view of the underlying buffer, without copying it. The
+   * returned buffer shares its content with the decoded bytes, so it must not be modified.
+   *
+   * @return the value, positioned at zero with a limit of the value's length
+   */
+  public ByteBuffer getValueAsByteBuffer() {
+    final ByteBuffer view = bytes.duplicate();
+    view.limit(valueOffset + valueLength);
+    view.position(valueOffset);
+    return view.slice();
+  }
+
+  /** @return the number of bytes in the value */
+  public int getValueLength() {
+    return valueLength;
   }
 
   /**
@@ -211,12 +259,7 @@ public byte[] getValue() {
    * @return the value as an 8-bit signed integer
    */
   public int getValueAs8bitSignedInt() {
-    final byte[] bytes = getValue();
-    byte value = 0;
-    if (bytes.length > 0) {
-      value = bytes[0];
-    }
-    return value;
+    return (byte) readValue(1);
   }
 
   /**
@@ -225,12 +268,7 @@ public int getValueAs8bitSignedInt() {
    * @return the value as an 8-bit unsigned integer
    */
   public int getValueAs8bitUnsignedInt() {
-    final byte[] bytes = getValue();
-    int value = 0;
-    if (bytes.length > 0) {
-      value = bytes[0] & 0xFF;
-    }
-    return value;
+    return (int) readValue(1);
   }
 
   /**
@@ -239,14 +277,7 @@ public int getValueAs8bitUnsignedInt() {
    * @return the value as a 16-bit signed integer
    */
   public int getValueAs16bitSignedInt() {
-    final byte[] bytes = getValue();
-    final int length = bytes.length;
-    final int shortLen = length < 2 ? length : 2;
-    short value = 0;
-    for (int i = 0; i < shortLen; i++) {
-      value |= (bytes[i] & 0xFF) << (shortLen * 8 - i * 8 - 8);
-    }
-    return value;
+    return (short) readValue(2);
   }
 
   /**
@@ -255,14 +286,7 @@ public int getValueAs16bitSignedInt() {
    * @return the value as a 16-bit unsigned integer
    */
   public int getValueAs16bitUnsignedInt() {
-    final byte[] bytes = getValue();
-    final int length = bytes.length;
-    final int shortLen = length < 2 ? length : 2;
-    int value = 0;
-    for (int i = 0; i < shortLen; i++) {
-      value |= (bytes[i] & 0xFF) << (shortLen * 8 - i * 8 - 8);
-    }
-    return value;
+    return (int) readValue(2);
   }
 
   /**
@@ -273,14 +297,7 @@ public int getValueAs16bitUnsignedInt() {
    * @return the value as an int
    */
   public int getValueAs32bitInt() {
-    final byte[] bytes = getValue();
-    final int length = bytes.length;
-    final int shortLen = length < 4 ? length : 4;
-    int value = 0;
-    for (int i = 0; i < shortLen; i++) {
-      value |= (bytes[i] & 0xFF) << (shortLen * 8 - i * 8 - 8);
-    }
-    return value;
+    return (int) readValue(4);
   }
 
   /**
@@ -291,14 +308,7 @@ public int getValueAs32bitInt() {
    * @return the value as a long
    */
   public long getValueAs64bitLong() {
-    final byte[] bytes = getValue();
-    final int length = bytes.length;
-    final int shortLen = length < 8 ? length : 8;
-    long value = 0;
-    for (int i = 0; i < shortLen; i++) {
-      value |= (long) (bytes[i] & 0xFF) << (shortLen * 8 - i * 8 - 8);
-    }
-    return value;
+    return readValue(8);
   }
 
   /**
@@ -310,7 +320,7 @@ public long getValueAs64bitLong() {
    * @return the value as a float
    */
   public float getValueAsFloat() {
-    return this.getValue().length < 4 ? Float.NaN : Float.intBitsToFloat(getValueAs32bitInt());
+    return valueLength < 4 ? Float.NaN : Float.intBitsToFloat(getValueAs32bitInt());
   }
 
   /**
@@ -322,7 +332,7 @@ public float getValueAsFloat() {
    * @return the value as a double
    */
   public double getValueAsDouble() {
-    return this.getValue().length < 8 ? Double.NaN : Double.longBitsToDouble(getValueAs64bitLong());
+    return valueLength < 8 ? Double.NaN : Double.longBitsToDouble(getValueAs64bitLong());
   }
 
   /**
@@ -334,85 +344,63 @@ public double getValueAsDouble() {
    *     encoding
    */
   public String getValueAsString(final String charsetName) throws UnsupportedEncodingException {
+    if (bytes.hasArray()) {
+      return new String(bytes.array(), bytes.arrayOffset() + valueOffset, valueLength, charsetName);
+    }
     return new String(getValue(), charsetName);
   }
 
   /**
-   * Sets the key according to the key found in the byte array and of the given length. If
-   * <tt>keyLength</tt> is different than what was previously set for this KLV, then this KLV's key
-   * length parameter will be updated.
+   * Reads up to the first {@code maxBytes} bytes of the value as a big-endian unsigned integer.
+   * Fewer bytes are read if the value is shorter.
+   */
+  private long readValue(final int maxBytes) {
+    final int length = Math.min(valueLength, maxBytes);
+    long value = 0;
+    for (int i = 0; i < length; i++) {
+      value = (value << 8) | (bytes.get(valueOffset + i) & 0xFF);
+    }
+    return value;
+  }
+
+  /**
+   * Sets the key according to the key found in the buffer and of the given length.
    *
-   * @param inTheseBytes The byte array containing the key (and other stuff)
+   * @param inTheseBytes The buffer containing the key (and other stuff)
    * @param offset The offset where to look for the key
    * @param keyLength The length of the key
-   * @return <tt>this</tt> to aid in stringing together commands
    * @throws IndexOutOfBoundsException If offset is invalid
    */
-  private Klv setKey(final byte[] inTheseBytes, final int offset, final KeyLength keyLength) {
-    Preconditions.checkElementIndex(
-        offset,
-        inTheseBytes.length,
-        String.format(OUT_OF_RANGE_FORMAT, offset, inTheseBytes.length));
-
-    final int remaining = inTheseBytes.length - offset;
+  private void setKey(final ByteBuffer inTheseBytes, final int offset, final KeyLength keyLength) {
+    final int remaining = inTheseBytes.limit() - offset;
     checkEnoughBytesRemaining(
         remaining,
         keyLength.value(),
         String.format("Not enough bytes for %d-byte key.", keyLength.value()));
 
-    // Set key according to length of key
     this.keyLength = keyLength;
-    switch (keyLength) {
-      case ONE_BYTE:
-        this.keyIfShort = inTheseBytes[offset] & 0xFF;
-        this.keyIfLong = null;
-        break;
-
-      case TWO_BYTES:
-        this.keyIfShort = (inTheseBytes[offset] & 0xFF) << 8;
-        this.keyIfShort |= inTheseBytes[offset + 1] & 0xFF;
-        this.keyIfLong = null;
-        break;
-
-      case FOUR_BYTES:
-        this.keyIfShort = (inTheseBytes[offset] & 0xFF) << 24;
-        this.keyIfShort |= (inTheseBytes[offset + 1] & 0xFF) << 16;
-        this.keyIfShort |= (inTheseBytes[offset + 2] & 0xFF) << 8;
-        this.keyIfShort |= inTheseBytes[offset + 3] & 0xFF;
-        this.keyIfLong = null;
-        break;
-
-      case SIXTEEN_BYTES:
-        this.keyIfLong = new byte[16];
-        System.arraycopy(inTheseBytes, offset, this.keyIfLong, 0, 16);
-        this.keyIfShort = 0;
-        break;
-    }
-    return this;
+    this.keyOffset = offset;
   }
 
   /**
-   * Sets the length according to the length found in the byte array and of the given length
-   * encoding. If <tt>lengthEncoding</tt> is different than what was previously set for this KLV,
-   * then this KLV's length encoding parameter will be updated. An array of the appropriate length
-   * will be initialized.
+   * Sets the length according to the length found in the buffer and of the given length encoding.
    *
-   * @param inTheseBytes The byte array containing the key (and other stuff)
-   * @param offset The offset where to look for the key
-   * @param lengthEncoding The length of the key
+   * @param inTheseBytes The buffer containing the length (and other stuff)
+   * @param offset The offset where to look for the length
+   * @param lengthEncoding The length encoding
    * @return Offset where value field would begin after length
    * @throws IndexOutOfBoundsException If offset is invalid
    */
   private int setLength(
-      final byte[] inTheseBytes, final int offset, final LengthEncoding lengthEncoding) {
+      final ByteBuffer inTheseBytes, final int offset, final LengthEncoding lengthEncoding) {
     Preconditions.checkElementIndex(
         offset,
-        inTheseBytes.length,
-        String.format(OUT_OF_RANGE_FORMAT, offset, inTheseBytes.length));
+        inTheseBytes.limit(),
+        String.format(OUT_OF_RANGE_FORMAT, offset, inTheseBytes.limit()));
 
     int length = 0;
-    int valueOffset = 0;
-    final int remaining = inTheseBytes.length - offset;
+    int valueStart = 0;
+    final int remaining = inTheseBytes.limit() - offset;
     final String lengthEncodingErrorMessage =
         String.format("Not enough bytes for %s length encoding.", lengthEncoding);
 
@@ -420,29 +408,26 @@ private int setLength(
       case ONE_BYTE:
         checkEnoughBytesRemaining(remaining, 1, lengthEncodingErrorMessage);
 
-        length = inTheseBytes[offset] & 0xFF;
-        setLength(length, lengthEncoding);
-        valueOffset = offset + 1;
+        length = inTheseBytes.get(offset) & 0xFF;
+        valueStart = offset + 1;
         break;
 
       case TWO_BYTES:
         checkEnoughBytesRemaining(remaining, 2, lengthEncodingErrorMessage);
 
-        length = (inTheseBytes[offset] & 0xFF) << 8;
-        length |= inTheseBytes[offset + 1] & 0xFF;
-        setLength(length, lengthEncoding);
-        valueOffset = offset + 2;
+        length = (inTheseBytes.get(offset) & 0xFF) << 8;
+        length |= inTheseBytes.get(offset + 1) & 0xFF;
+        valueStart = offset + 2;
         break;
 
       case FOUR_BYTES:
         checkEnoughBytesRemaining(remaining, 4, lengthEncodingErrorMessage);
 
-        length = (inTheseBytes[offset] & 0xFF) << 24;
-        length |= (inTheseBytes[offset + 1] & 0xFF) << 16;
-        length |= (inTheseBytes[offset + 2] & 0xFF) << 8;
-        length |= inTheseBytes[offset + 3] & 0xFF;
-        setLength(length, lengthEncoding);
-        valueOffset = offset + 4;
+        length = (inTheseBytes.get(offset) & 0xFF) << 24;
+        length |= (inTheseBytes.get(offset + 1) & 0xFF) << 16;
+        length |= (inTheseBytes.get(offset + 2) & 0xFF) << 8;
+        length |= inTheseBytes.get(offset + 3) & 0xFF;
+        valueStart = offset + 4;
         break;
 
       case BER:
@@ -456,45 +441,32 @@ private int setLength(
         // is not supported in this code, though it's not
         // exactly illegal KLV notation either.
         checkEnoughBytesRemaining(remaining, 1, lengthEncodingErrorMessage);
-        final int ber = inTheseBytes[offset] & 0xFF;
+        final int ber = inTheseBytes.get(offset) & 0xFF;
 
         // Easy case: low seven bits is length
         if ((ber & 0x80) == 0) {
-          setLength(ber, lengthEncoding);
-          valueOffset = offset + 1;
+          length = ber;
+          valueStart = offset + 1;
         } else {
           final int following = ber & 0x7F; // Low seven bits
           checkEnoughBytesRemaining(remaining, following + 1, lengthEncodingErrorMessage);
 
           for (int i = 0; i < following; i++) {
-            length |= (inTheseBytes[offset + 1 + i] & 0xFF) << (following - 1 - i) * 8;
+            length |= (inTheseBytes.get(offset + 1 + i) & 0xFF) << (following - 1 - i) * 8;
           }
-          setLength(length, lengthEncoding);
-          valueOffset = offset + 1 + following;
+          valueStart = offset + 1 + following;
         }
         break;
     }
 
-    return valueOffset;
-  }
-
-  /**
-   * Sets the length of the value, copying or truncating the old value as appropriate for the new
-   * length.
-   *
-   * @param length The new number of bytes in the Value
-   * @param lengthEncoding The length encoding to use
-   * @return <tt>this</tt> to aid in stringing commands together
-   */
-  private Klv setLength(final int length, final LengthEncoding lengthEncoding) {
-    // Copy old value
-    final byte[] bytes = new byte[length];
-    if (this.value != null) {
-      System.arraycopy(value, 0, bytes, 0, Math.min(length, this.value.length));
+    if (length < 0) {
+      throw new IndexOutOfBoundsException(
+          String.format(
+              "Declared length (%d) is too large to decode.", Integer.toUnsignedLong(length)));
     }
-    this.value = bytes;
 
-    return this;
+    this.valueLength = length;
+    return valueStart;
   }
 
   /**
@@ -514,11 +486,12 @@ public static List<Klv> bytesToList(
       final int length,
       final KeyLength keyLength,
       LengthEncoding lengthEncoding) {
-    final List<Klv> list = new LinkedList<>();
+    final List<Klv> list = new ArrayList<>();
+    final ByteBuffer buffer = ByteBuffer.wrap(bytes);
 
     int currentPos = offset;
     while (currentPos < offset + length) {
-      final Klv klv = new Klv(bytes, currentPos, keyLength, lengthEncoding);
+      final Klv klv = new Klv(buffer, currentPos, keyLength, lengthEncoding);
       currentPos = klv.offsetAfterInstantiation;
       list.add(klv);
     }
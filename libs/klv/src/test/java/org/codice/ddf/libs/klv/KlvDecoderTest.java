@@ -27,11 +27,14 @@
 import static org.junit.Assert.fail;
 
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -528,6 +531,115 @@ public void testMissingBytes() {
     }
   }
 
+  @Test
+  public void testDecodeByteBufferSlice() throws KlvDecodingException {
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(9);
+    buffer.put(new byte[] {0x55, 0x55, 7, 3, 9, 8, 7, 0x55, 0x55});
+    buffer.position(2).limit(7);
+    final KlvContext klvContext = new KlvContext(KeyLength.ONE_BYTE, LengthEncoding.ONE_BYTE);
+    klvContext.addDataElement(new KlvBytes(new byte[] {7}, "test"));
+
+    final KlvContext decodedKlvContext = new KlvDecoder(klvContext).decode(buffer.slice());
+
+    assertThat(
+        ((KlvBytes) decodedKlvContext.getDataElementByName("test")).getValue(),
+        is(new byte[] {9, 8, 7}));
+  }
+
+  @Test
+  public void testDecodeDoesNotMoveBufferPosition() throws KlvDecodingException {
+    final ByteBuffer buffer = ByteBuffer.wrap(new byte[] {0x55, 7, 1, 42});
+    buffer.position(1);
+    final KlvContext klvContext = new KlvContext(KeyLength.ONE_BYTE, LengthEncoding.ONE_BYTE);
+    klvContext.addDataElement(new KlvByte(new byte[] {7}, "test"));
+
+    final KlvContext decodedKlvContext = new KlvDecoder(klvContext).decode(buffer);
+
+    assertThat(decodedKlvContext.getDataElementByName("test").getValue(), is((byte) 42));
+    assertThat(buffer.position(), is(1));
+  }
+
+  @Test
+  public void testDecodeToConsumer() throws KlvDecodingException {
+    final byte[] klvBytes = {1, 1, 10, 2, 2, 0, 20, 3, 1, 30, 1, 1, 11};
+    final KlvContext klvContext = new KlvContext(KeyLength.ONE_BYTE, LengthEncoding.ONE_BYTE);
+    klvContext.addDataElement(new KlvByte(new byte[] {1}, "one"));
+    klvContext.addDataElement(new KlvShort(new byte[] {2}, "two"));
+
+    final List<KlvDataElement> decodedDataElements = new ArrayList<>();
+    new KlvDecoder(klvContext).decode(ByteBuffer.wrap(klvBytes), decodedDataElements::add);
+
+    assertThat(decodedDataElements.size(), is(3));
+    assertThat(decodedDataElements.get(0).getValue(), is((byte) 10));
+    assertThat(decodedDataElements.get(1).getValue(), is((short) 20));
+    assertThat(decodedDataElements.get(2).getValue(), is((byte) 11));
+  }
+
+  @Test
+  public void testMissingBytesInByteBuffer() {
+    final ByteBuffer buffer = ByteBuffer.wrap(new byte[] {-8, 4, (byte) 0x87, (byte) 0xF8, 0x4B});
+    final KlvContext klvContext = new KlvContext(KeyLength.ONE_BYTE, LengthEncoding.ONE_BYTE);
+    klvContext.addDataElement(new KlvInt(new byte[] {-8}, "test"));
+    try {
+      new KlvDecoder(klvContext).decode(buffer, dataElement -> fail("Nothing should be decoded."));
+      fail("Should have thrown a KlvDecodingException.");
+    } catch (KlvDecodingException e) {
+      assertThat(e.getCause(), instanceOf(IndexOutOfBoundsException.class));
+    }
+  }
+
+  @Test
+  public void testKeysSharingPrefix() throws KlvDecodingException {
+    final byte[] klvBytes = {1, 2, 1, 5, 1, 3, 1, 6, 2, 2, 1, 7};
+    final KlvContext klvContext = new KlvContext(KeyLength.TWO_BYTES, LengthEncoding.ONE_BYTE);
+    klvContext.addDataElement(new KlvByte(new byte[] {1, 2}, "first"));
+    klvContext.addDataElement(new KlvByte(new byte[] {1, 3}, "second"));
+
+    final Map<String, KlvDataElement> decodedDataElements =
+        new KlvDecoder(klvContext).decode(klvBytes).getDataElements();
+
+    assertThat(decodedDataElements.size(), is(2));
+    assertThat(decodedDataElements.get("first").getValue(), is((byte) 5));
+    assertThat(decodedDataElements.get("second").getValue(), is((byte) 6));
+  }
+
+  @Test
+  public void testKeysWithEveryByteValue() throws KlvDecodingException {
+    final KlvContext klvContext = new KlvContext(KeyLength.TWO_BYTES, LengthEncoding.ONE_BYTE);
+    final byte[] klvBytes = new byte[256 * 4];
+    for (int i = 0; i < 256; i++) {
+      klvContext.addDataElement(new KlvByte(new byte[] {9, (byte) i}, "element" + i));
+      klvBytes[i * 4] = 9;
+      klvBytes[i * 4 + 1] = (byte) i;
+      klvBytes[i * 4 + 2] = 1;
+      klvBytes[i * 4 + 3] = (byte) (255 - i);
+    }
+
+    final Map<String, KlvDataElement> decodedDataElements =
+        new KlvDecoder(klvContext).decode(klvBytes).getDataElements();
+
+    assertThat(decodedDataElements.size(), is(256));
+    for (int i = 0; i < 256; i++) {
+      assertThat(decodedDataElements.get("element" + i).getValue(), is((byte) (255 - i)));
+    }
+  }
+
+  @Test
+  public void testDataElementAddedAfterDecoderIsCreated() throws KlvDecodingException {
+    final byte[] klvBytes = {1, 1, 10, 2, 1, 20};
+    final KlvContext klvContext = new KlvContext(KeyLength.ONE_BYTE, LengthEncoding.ONE_BYTE);
+    klvContext.addDataElement(new KlvByte(new byte[] {1}, "one"));
+    final KlvDecoder decoder = new KlvDecoder(klvContext);
+    assertThat(decoder.decode(klvBytes).getDataElements().size(), is(1));
+
+    klvContext.addDataElement(new KlvByte(new byte[] {2}, "two"));
+
+    final Map<String, KlvDataElement> decodedDataElements =
+        decoder.decode(klvBytes).getDataElements();
+    assertThat(decodedDataElements.size(), is(2));
+    assertThat(decodedDataElements.get("two").getValue(), is((byte) 20));
+  }
+
   private boolean isErrorIndicatedByte(byte value, Optional<Byte> errorValue)
       throws KlvDecodingException {
     KlvByte klvByte = new KlvByte(new byte[] {0}, "test", errorValue);
@@ -0,0 +1,252 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.libs.mpeg.transport;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Scans a transport stream file for the payloads of selected streams by memory-mapping it and
+ * scanning fixed-size segments of it in parallel.
+ *
+ * <p>Segments start on packet boundaries, so each one can be scanned independently. The payloads
+ * found in each segment are views of the mapped file rather than copies, and they are handed to a
+ * {@link MetadataPacketAssembler} segment by segment, in the order they appear in the file. Only a
+ * bounded number of segments are scanned ahead of the segment being assembled.
+ *
+ * <p>As with {@link MTSValidPacketIterator}, invalid packets are skipped. After a packet without a
+ * sync byte, scanning resumes at the next offset that looks like the start of a packet.
+ */
+class MappedTransportStreamScanner {
+  private static final Logger LOGGER = LoggerFactory.getLogger(MappedTransportStreamScanner.class);
+
+  static final int PACKET_SIZE = 188;
+
+  /** Number of packets in each segment, about 12 MB. */
+  static final int DEFAULT_PACKETS_PER_SEGMENT = 65536;
+
+  private static final byte SYNC_BYTE = 0x47;
+
+  private static final int HEADER_SIZE = 4;
+
+  private final Path path;
+
+  private final Executor executor;
+
+  private final int packetsPerSegment;
+
+  private final int maxSegmentsInFlight;
+
+  MappedTransportStreamScanner(
+      final Path path,
+      final Executor executor,
+      final int packetsPerSegment,
+      final int maxSegmentsInFlight) {
+    this.path = path;
+    this.executor = executor;
+    this.packetsPerSegment = packetsPerSegment;
+    this.maxSegmentsInFlight = maxSegmentsInFlight;
+  }
+
+  /**
+   * Scans the file and passes the payload of every packet that belongs to one of the given streams
+   * to the assembler, in file order.
+   *
+   * @param packetIds the packet IDs of the streams whose payloads are wanted
+   * @param assembler receives the payloads
+   * @throws IOException if the file cannot be read
+   */
+  void scan(final Set<Integer> packetIds, final MetadataPacketAssembler assembler)
+      throws IOException {
+    try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      final long fileSize = channel.size();
+      final long firstPacketOffset = findFirstPacket(channel, fileSize);
+      if (firstPacketOffset < 0) {
+        LOGGER.debug("No transport stream packets found in {}", path);
+        return;
+      }
+
+      final long segmentSize = (long) packetsPerSegment * PACKET_SIZE;
+      final Deque<CompletableFuture<Segment>> segmentsInFlight = new ArrayDeque<>();
+      long nextSegmentOffset = firstPacketOffset;
+      long packetsProcessed = 0;
+      long packetsFailed = 0;
+
+      while (nextSegmentOffset < fileSize || !segmentsInFlight.isEmpty()) {
+        while (nextSegmentOffset < fileSize && segmentsInFlight.size() < maxSegmentsInFlight) {
+          final long start = nextSegmentOffset;
+          final long end = Math.min(start + segmentSize, fileSize);
+          segmentsInFlight.add(
+              CompletableFuture.supplyAsync(
+                  () -> scanSegment(channel, start, end, fileSize, packetIds), executor));
+          nextSegmentOffset = end;
+        }
+
+        final Segment segment = join(segmentsInFlight.remove());
+        segment.payloads.forEach(
+            payload -> assembler.append(payload.packetId, payload.payloadUnitStart, payload.bytes));
+        packetsProcessed += segment.packetsProcessed;
+        packetsFailed += segment.packetsFailed;
+      }
+
+      LOGGER.debug(
+          "Mapped Mpegts Packet Processing Complete: Total Processed {}, Total Failed: {}",
+          packetsProcessed,
+          packetsFailed);
+    }
+  }
+
+  private Segment join(final CompletableFuture<Segment> segment) throws IOException {
+    try {
+      return segment.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof UncheckedIOException) {
+        throw ((UncheckedIOException) e.getCause()).getCause();
+      }
+      throw e;
+    }
+  }
+
+  private long findFirstPacket(final FileChannel channel, final long fileSize) throws IOException {
+    final ByteBuffer head =
+        channel.map(MapMode.READ_ONLY, 0, Math.min(fileSize, (long) PACKET_SIZE * 64));
+    return findPacketStart(head, 0, head.limit());
+  }
+
+  /*
+   * A segment owns the packets that start within it, but the last of those may end in the next
+   * segment, so the mapping extends one packet past the end of the segment.
+   */
+  private Segment scanSegment(
+      final FileChannel channel,
+      final long start,
+      final long end,
+      final long fileSize,
+      final Set<Integer> packetIds) {
+    final MappedByteBuffer bytes;
+    try {
+      bytes = channel.map(MapMode.READ_ONLY, start, Math.min(end + PACKET_SIZE, fileSize) - start);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    final Segment segment = new Segment();
+    final int segmentLength = (int) (end - start);
+    int offset = 0;
+
+    while (offset < segmentLength) {
+      if (bytes.get(offset) != SYNC_BYTE || offset + PACKET_SIZE > bytes.limit()) {
+        segment.packetsFailed++;
+        offset = findPacketStart(bytes, offset + 1, segmentLength);
+        if (offset < 0) {
+          break;
+        }
+        continue;
+      }
+
+      segment.packetsProcessed++;
+      final int packetId = ((bytes.get(offset + 1) & 0x1F) << 8) | (bytes.get(offset + 2) & 0xFF);
+
+      if (packetIds.contains(packetId)) {
+        final ByteBuffer payload = getPayload(bytes, offset);
+        if (payload == null) {
+          segment.packetsFailed++;
+        } else if (payload.hasRemaining()) {
+          final boolean payloadUnitStart = (bytes.get(offset + 1) & 0x40) != 0;
+          segment.payloads.add(new Payload(packetId, payloadUnitStart, payload));
+        }
+      }
+
+      offset += PACKET_SIZE;
+    }
+
+    return segment;
+  }
+
+  /** @return a view of the packet's payload, or null if its adaptation field is malformed */
+  private static ByteBuffer getPayload(final ByteBuffer bytes, final int packetOffset) {
+    final int adaptationFieldControl = (bytes.get(packetOffset + 3) >> 4) & 0x03;
+    int payloadOffset = packetOffset + HEADER_SIZE;
+
+    if ((adaptationFieldControl & 0x02) != 0) {
+      payloadOffset += 1 + (bytes.get(payloadOffset) & 0xFF);
+    }
+
+    final int packetEnd = packetOffset + PACKET_SIZE;
+    if (payloadOffset > packetEnd) {
+      return null;
+    }
+
+    final ByteBuffer payload = bytes.duplicate();
+    payload.limit((adaptationFieldControl & 0x01) != 0 ? packetEnd : payloadOffset);
+    payload.position(payloadOffset);
+    return payload.slice();
+  }
+
+  /**
+   * Finds the first offset at or after {@code from} and before {@code to} that holds a sync byte
+   * and is followed a packet later by another sync byte, or by the end of the buffer.
+   *
+   * @return the offset, or -1 if there is none
+   */
+  private static int findPacketStart(final ByteBuffer bytes, final int from, final int to) {
+    for (int offset = from; offset < to; offset++) {
+      if (bytes.get(offset) == SYNC_BYTE) {
+        final int next = offset + PACKET_SIZE;
+        if (next >= bytes.limit() || bytes.get(next) == SYNC_BYTE) {
+          return offset;
+        }
+      }
+    }
+    return -1;
+  }
+
+  private static class Segment {
+    private final List<Payload> payloads = new ArrayList<>();
+
+    private long packetsProcessed;
+
+    private long packetsFailed;
+  }
+
+  private static class Payload {
+    private final int packetId;
+
+    private final boolean payloadUnitStart;
+
+    private final ByteBuffer bytes;
+
+    private Payload(final int packetId, final boolean payloadUnitStart, final ByteBuffer bytes) {
+      this.packetId = packetId;
+      this.payloadUnitStart = payloadUnitStart;
+      this.bytes = bytes;
+    }
+  }
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.libs.mpeg.transport;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Reassembles metadata packets from the transport stream packet payloads of each metadata stream.
+ *
+ * <p>Each stream has a single buffer that is reused for every metadata packet in that stream, so a
+ * metadata packet spanning many transport stream packets is copied only once, when it is handed to
+ * the callback.
+ */
+class MetadataPacketAssembler {
+  private static final int INITIAL_BUFFER_SIZE = 4096;
+
+  private final Map<Integer, PacketBuffer> packetBuffersByStream = new HashMap<>();
+
+  private final BiConsumer<Integer, byte[]> callback;
+
+  MetadataPacketAssembler(final BiConsumer<Integer, byte[]> callback) {
+    this.callback = callback;
+  }
+
+  /**
+   * Adds the payload of a transport stream packet to the metadata packet being assembled for its
+   * stream. If the transport stream packet starts a new metadata packet, the previous metadata
+   * packet of that stream is complete and is passed to the callback first. Payloads that arrive
+   * before the first metadata packet of their stream has started are dropped.
+   *
+   * @param packetId the packet ID of the metadata stream
+   * @param payloadUnitStart whether the transport stream packet starts a new metadata packet
+   * @param payload the transport stream packet's payload, which is consumed
+   */
+  void append(final int packetId, final boolean payloadUnitStart, final ByteBuffer payload) {
+    PacketBuffer packetBuffer = packetBuffersByStream.get(packetId);
+
+    if (payloadUnitStart) {
+      if (packetBuffer == null) {
+        packetBuffer = new PacketBuffer();
+        packetBuffersByStream.put(packetId, packetBuffer);
+      } else {
+        callback.accept(packetId, packetBuffer.toByteArray());
+        packetBuffer.clear();
+      }
+    } else if (packetBuffer == null) {
+      return;
+    }
+
+    packetBuffer.append(payload);
+  }
+
+  /*
+   * In a transport stream, any elementary stream packet can be large enough to require multiple
+   * transport stream packets to hold it. Therefore, when analyzing the transport stream packets,
+   * knowing that you've seen a complete metadata packet for a given stream is possible only if
+   * you encounter a new metadata packet for that stream (meaning the previous packet has ended).
+   * This means that the last metadata packet for each stream won't be handled during the pass
+   * over the transport stream and they will need to be handled separately.
+   */
+  void flush() {
+    packetBuffersByStream.forEach(
+        (packetId, packetBuffer) -> callback.accept(packetId, packetBuffer.toByteArray()));
+    packetBuffersByStream.clear();
+  }
+
+  private static class PacketBuffer {
+    private byte[] bytes = new byte[INITIAL_BUFFER_SIZE];
+
+    private int length;
+
+    private void append(final ByteBuffer payload) {
+      final int payloadLength = payload.remaining();
+      if (length + payloadLength > bytes.length) {
+        bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + payloadLength));
+      }
+      payload.get(bytes, length, payloadLength);
+      length += payloadLength;
+    }
+
+    private byte[] toByteArray() {
+      return Arrays.copyOf(bytes, length);
+    }
+
+    private void clear() {
+      length = 0;
+    }
+  }
+}
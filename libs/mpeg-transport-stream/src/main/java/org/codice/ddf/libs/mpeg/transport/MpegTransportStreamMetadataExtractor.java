@@ -14,16 +14,20 @@
 package org.codice.ddf.libs.mpeg.transport;
 
 import com.google.common.io.ByteSource;
+import com.google.common.io.Files;
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
 import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.lang.ArrayUtils;
 import org.jcodec.api.JCodecException;
 import org.jcodec.containers.mps.MTSUtils.StreamType;
 import org.jcodec.containers.mps.psi.PMTSection;
@@ -41,16 +45,20 @@ public class MpegTransportStreamMetadataExtractor {
   private static final Logger LOGGER =
       LoggerFactory.getLogger(MpegTransportStreamMetadataExtractor.class);
 
+  private static final int MAX_SEGMENTS_IN_FLIGHT = Runtime.getRuntime().availableProcessors() * 2;
+
   private final ByteSource byteSource;
 
+  private final Path path;
+
+  private final Executor executor;
+
   private final Set<Integer> programMapTablePacketIdDirectory = new HashSet<>();
 
   private final Map<Integer, PMTSection> programMapTables = new HashMap<>();
 
   private final Map<Integer, PMTStream> programElementaryStreams = new HashMap<>();
 
-  private final Map<Integer, byte[]> currentMetadataPacketBytesByStream = new HashMap<>();
-
   /**
    * Constructs an {@code MpegTransportStreamMetadataExtractor} with the given {@link ByteSource} as
    * the provider of the transport stream bytes.
@@ -59,12 +67,31 @@ public class MpegTransportStreamMetadataExtractor {
    */
   public MpegTransportStreamMetadataExtractor(final ByteSource byteSource) {
     this.byteSource = byteSource;
+    this.path = null;
+    this.executor = null;
+  }
+
+  /**
+   * Constructs an {@code MpegTransportStreamMetadataExtractor} that memory-maps the transport
+   * stream file at the given {@link Path} and scans segments of it in parallel using the given
+   * {@link Executor}. The program specific information is read once from the start of the file
+   * before the segments are scanned, and metadata packets are still passed to the callback in the
+   * order in which they appear in the transport stream.
+   *
+   * @param path the path of the transport stream file
+   * @param executor the {@code Executor} used to scan the segments, which the caller owns
+   */
+  public MpegTransportStreamMetadataExtractor(final Path path, final Executor executor) {
+    this.byteSource = Files.asByteSource(path.toFile());
+    this.path = path;
+    this.executor = executor;
   }
 
   /**
    * Parses the transport stream and calls the given callback for each metadata packet in each
    * metadata stream found in the transport stream. The callback is called immediately upon finding
-   * a complete metadata packet.
+   * a complete metadata packet. If parsing fails, the packets that were still being assembled are
+   * discarded rather than passed to the callback.
    *
    * @param callback a callback that will be called for each metadata packet in each metadata stream
    *     found in the transport stream, where the first parameter is the packet ID of the metadata
@@ -104,6 +131,13 @@ private void extractTransportStreamMetadata(final BiConsumer<Integer, byte[]> ca
 
     getProgramSpecificInformation(source);
 
+    final MetadataPacketAssembler assembler = new MetadataPacketAssembler(callback);
+
+    if (path != null) {
+      scanMappedTransportStream(assembler);
+      return;
+    }
+
     source.reset();
 
     MTSValidPacketIterator packetIterator = new MTSValidPacketIterator(source);
@@ -118,7 +152,7 @@ private void extractTransportStreamMetadata(final BiConsumer<Integer, byte[]> ca
         final int packetId = transportStreamPacket.getPid();
 
         if (isElementaryStreamPacket(packetId)) {
-          handleElementaryStreamPacket(transportStreamPacket, packetId, callback);
+          handleElementaryStreamPacket(transportStreamPacket, packetId, assembler);
         }
 
         transportStreamPacket = packetIterator.getNextValidPacket();
@@ -128,8 +162,20 @@ private void extractTransportStreamMetadata(final BiConsumer<Integer, byte[]> ca
           "Mpegts Packet Processing Complete: Total Processed {}, Total Failed: {}",
           packetIterator.getPacketsProcessed(),
           packetIterator.getPacketsFailed());
-      handleLastPacketOfEachStream(callback);
     }
+
+    assembler.flush();
+  }
+
+  private void scanMappedTransportStream(final MetadataPacketAssembler assembler)
+      throws IOException {
+    new MappedTransportStreamScanner(
+            path,
+            executor,
+            MappedTransportStreamScanner.DEFAULT_PACKETS_PER_SEGMENT,
+            MAX_SEGMENTS_IN_FLIGHT)
+        .scan(getMetadataStreamPacketIds(), assembler);
+    assembler.flush();
   }
 
   private void getProgramSpecificInformation(final MTSSource source) throws Exception {
@@ -206,37 +252,21 @@ private boolean isElementaryStreamPacket(final int packetId) {
     return packetId != 0 && !programMapTablePacketIdDirectory.contains(packetId);
   }
 
-  private byte[] getByteBufferAsBytes(final ByteBuffer buffer) {
-    final byte[] bytes = new byte[buffer.remaining()];
-    buffer.get(bytes);
-    return bytes;
+  private Set<Integer> getMetadataStreamPacketIds() {
+    return programElementaryStreams.entrySet().stream()
+        .filter(entry -> isElementaryStreamPacket(entry.getKey()))
+        .filter(entry -> isMetadataStream(entry.getValue()))
+        .map(Map.Entry::getKey)
+        .collect(Collectors.toSet());
   }
 
   private void handleElementaryStreamPacket(
-      final MTSPacket packet, final int packetId, final BiConsumer<Integer, byte[]> callback) {
+      final MTSPacket packet, final int packetId, final MetadataPacketAssembler assembler) {
     if (programElementaryStreams.containsKey(packetId)) {
       final PMTStream stream = programElementaryStreams.get(packetId);
 
       if (isMetadataStream(stream)) {
-        final byte[] currentMetadataPacketBytes = currentMetadataPacketBytesByStream.get(packetId);
-
-        final boolean startingNewMetadataPacket = packet.isPayloadUnitStartIndicator();
-        final boolean currentMetadataPacketToHandle = currentMetadataPacketBytes != null;
-        final boolean reachedEndOfCurrentMetadataPacket =
-            startingNewMetadataPacket && currentMetadataPacketToHandle;
-
-        final byte[] payloadBytes = getByteBufferAsBytes(packet.getPayload());
-
-        if (reachedEndOfCurrentMetadataPacket) {
-          callback.accept(packetId, currentMetadataPacketBytes);
-          startNewMetadataPacketBytes(packetId, payloadBytes);
-        } else if (startingNewMetadataPacket) {
-          startNewMetadataPacketBytes(packetId, payloadBytes);
-        } else if (currentMetadataPacketToHandle) {
-          final byte[] concatenatedMetadataPacket =
-              ArrayUtils.addAll(currentMetadataPacketBytes, payloadBytes);
-          currentMetadataPacketBytesByStream.put(packetId, concatenatedMetadataPacket);
-        }
+        assembler.append(packetId, packet.isPayloadUnitStartIndicator(), packet.getPayload());
       }
     }
   }
@@ -252,20 +282,4 @@ private boolean isMetadataPesStream(final PMTStream stream) {
   private boolean isMetadataStream(final PMTStream stream) {
     return isPrivateDataStream(stream) || isMetadataPesStream(stream);
   }
-
-  private void startNewMetadataPacketBytes(final int packetId, final byte[] newMetadataBytes) {
-    currentMetadataPacketBytesByStream.put(packetId, newMetadataBytes);
-  }
-
-  /*
-   * In a transport stream, any elementary stream packet can be large enough to require multiple
-   * transport stream packets to hold it. Therefore, when analyzing the transport stream packets,
-   * knowing that you've seen a complete metadata packet for a given stream is possible only if
-   * you encounter a new metadata packet for that stream (meaning the previous packet has ended).
-   * This means that the last metadata packet for each stream won't be handled during the pass
-   * over the transport stream and they will need to be handled separately.
-   */
-  private void handleLastPacketOfEachStream(final BiConsumer<Integer, byte[]> callback) {
-    currentMetadataPacketBytesByStream.forEach(callback);
-  }
 }
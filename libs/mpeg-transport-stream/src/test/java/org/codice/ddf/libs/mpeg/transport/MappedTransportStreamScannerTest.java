@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.libs.mpeg.transport;
+
+import static org.codice.ddf.libs.mpeg.transport.MappedTransportStreamScanner.PACKET_SIZE;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedTransportStreamScannerTest {
+  private static final int METADATA_PACKET_ID = 497;
+
+  private static final int VIDEO_PACKET_ID = 481;
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final ByteArrayOutputStream transportStream = new ByteArrayOutputStream();
+
+  private final List<byte[]> metadataPackets = new ArrayList<>();
+
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newFixedThreadPool(4);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testPacketsSpanningSegments() throws Exception {
+    writePacket(VIDEO_PACKET_ID, true, false, filled(184, 1));
+    writePacket(METADATA_PACKET_ID, false, false, filled(184, 9));
+    writePacket(METADATA_PACKET_ID, true, false, filled(184, 2));
+    writePacket(VIDEO_PACKET_ID, false, false, filled(184, 1));
+    writePacket(METADATA_PACKET_ID, false, false, filled(184, 3));
+    writePacket(METADATA_PACKET_ID, false, true, filled(100, 4));
+    writePacket(METADATA_PACKET_ID, true, false, filled(184, 5));
+
+    final List<byte[]> packets = scan(2);
+
+    assertThat(packets.size(), is(2));
+    assertThat(packets.get(0), is(concat(filled(184, 2), filled(184, 3), filled(100, 4))));
+    assertThat(packets.get(1), is(filled(184, 5)));
+  }
+
+  @Test
+  public void testResultsDoNotDependOnSegmentSize() throws Exception {
+    for (int i = 0; i < 200; i++) {
+      writePacket(METADATA_PACKET_ID, i % 7 == 0, i % 3 == 0, filled(i % 3 == 0 ? 150 : 184, i));
+      writePacket(VIDEO_PACKET_ID, i % 5 == 0, false, filled(184, -i));
+    }
+
+    final List<byte[]> expected = scan(1000);
+
+    for (final int packetsPerSegment : new int[] {1, 3, 16}) {
+      final List<byte[]> packets = scan(packetsPerSegment);
+      assertThat(packets.size(), is(expected.size()));
+      for (int i = 0; i < expected.size(); i++) {
+        assertThat(packets.get(i), is(expected.get(i)));
+      }
+    }
+  }
+
+  @Test
+  public void testSkipsBytesBetweenPackets() throws Exception {
+    transportStream.write(new byte[] {0x00, 0x47, 0x12});
+    writePacket(METADATA_PACKET_ID, true, false, filled(184, 1));
+    writePacket(METADATA_PACKET_ID, false, false, filled(184, 2));
+    transportStream.write(new byte[] {0x00, 0x01, 0x02, 0x03, 0x04});
+    writePacket(METADATA_PACKET_ID, true, false, filled(184, 3));
+    writePacket(METADATA_PACKET_ID, false, false, filled(184, 4));
+
+    final List<byte[]> packets = scan(2);
+
+    assertThat(packets.size(), is(2));
+    assertThat(packets.get(0), is(concat(filled(184, 1), filled(184, 2))));
+    assertThat(packets.get(1), is(concat(filled(184, 3), filled(184, 4))));
+  }
+
+  @Test
+  public void testNoPackets() throws Exception {
+    transportStream.write(filled(1000, 0));
+
+    assertThat(scan(2).isEmpty(), is(true));
+  }
+
+  private List<byte[]> scan(final int packetsPerSegment) throws IOException {
+    final Path path = temporaryFolder.newFile().toPath();
+    Files.write(path, transportStream.toByteArray());
+
+    metadataPackets.clear();
+    final MetadataPacketAssembler assembler =
+        new MetadataPacketAssembler((packetId, bytes) -> metadataPackets.add(bytes));
+    new MappedTransportStreamScanner(path, executor, packetsPerSegment, 3)
+        .scan(Collections.singleton(METADATA_PACKET_ID), assembler);
+    assembler.flush();
+    return new ArrayList<>(metadataPackets);
+  }
+
+  private void writePacket(
+      final int packetId,
+      final boolean payloadUnitStart,
+      final boolean adaptationField,
+      final byte[] payload) {
+    final byte[] packet = new byte[PACKET_SIZE];
+    packet[0] = 0x47;
+    packet[1] = (byte) ((payloadUnitStart ? 0x40 : 0) | (packetId >> 8));
+    packet[2] = (byte) packetId;
+
+    int offset = 4;
+    if (adaptationField) {
+      final int adaptationFieldLength = PACKET_SIZE - offset - 1 - payload.length;
+      packet[3] = 0x30;
+      packet[4] = (byte) adaptationFieldLength;
+      Arrays.fill(packet, 5, 5 + adaptationFieldLength, (byte) 0xFF);
+      offset += 1 + adaptationFieldLength;
+    } else {
+      packet[3] = 0x10;
+    }
+
+    System.arraycopy(payload, 0, packet, offset, payload.length);
+    transportStream.write(packet, 0, PACKET_SIZE);
+  }
+
+  private static byte[] filled(final int length, final int value) {
+    final byte[] bytes = new byte[length];
+    Arrays.fill(bytes, (byte) value);
+    return bytes;
+  }
+
+  private static byte[] concat(final byte[]... arrays) {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    for (final byte[] array : arrays) {
+      bytes.write(array, 0, array.length);
+    }
+    return bytes.toByteArray();
+  }
+}
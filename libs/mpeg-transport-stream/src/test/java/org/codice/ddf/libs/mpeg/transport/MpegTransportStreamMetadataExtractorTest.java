@@ -13,6 +13,7 @@
  */
 package org.codice.ddf.libs.mpeg.transport;
 
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.collection.IsMapContaining.hasKey;
 import static org.junit.Assert.assertThat;
@@ -23,15 +24,24 @@
 
 import com.google.common.io.ByteSource;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.BiConsumer;
 import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.ArgumentCaptor;
 
 public class MpegTransportStreamMetadataExtractorTest {
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   private MpegTransportStreamMetadataExtractor getExtractor() throws IOException {
     final ByteSource byteSource =
         ByteSource.wrap(
@@ -72,6 +82,28 @@ public void testExtractAll() throws Exception {
     verifyExtractedBytes(metadataStreams.get(497));
   }
 
+  @Test
+  public void testExtractAllFromMappedFile() throws Exception {
+    final Path path = temporaryFolder.newFile("dayflight.mpg").toPath();
+    try (final InputStream inputStream =
+        getClass().getClassLoader().getResourceAsStream("dayflight.mpg")) {
+      Files.copy(inputStream, path, REPLACE_EXISTING);
+    }
+
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final Map<Integer, List<byte[]>> metadataStreams =
+          new MpegTransportStreamMetadataExtractor(path, executor).getMetadata();
+
+      // The packet ID of the metadata stream in this file is 497.
+      assertThat(metadataStreams, hasKey(497));
+
+      verifyExtractedBytes(metadataStreams.get(497));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
   private void verifyExtractedBytes(final List<byte[]> metadataPackets) {
     assertThat(metadataPackets.size(), is(12));
 
@@ -16,19 +16,22 @@
 import ddf.mime.MimeTypeMapper;
 import ddf.mime.MimeTypeResolutionException;
 import ddf.mime.MimeTypeResolver;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
 import org.apache.tika.detect.DefaultDetector;
 import org.apache.tika.detect.Detector;
-import org.apache.tika.io.IOUtils;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.mime.MediaType;
-import org.codice.ddf.platform.util.TemporaryFileBackedOutputStream;
 import org.codice.ddf.platform.util.XMLUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -56,6 +59,11 @@ public class MimeTypeMapperImpl implements MimeTypeMapper {
 
   private static final String ENTERING_STR = "ENTERING: {}";
 
+  /** System property that overrides the number of bytes read to guess a mime type. */
+  public static final String MAX_SNIFF_BYTES_PROPERTY = "ddf.mime.maxSniffBytes";
+
+  static final int DEFAULT_MAX_SNIFF_BYTES = 64 * 1024;
+
   /**
    * The {@link List} of {@link MimeTypeResolver}s configured for this mapper and will be searched
    * on mime type/file extension mapping requests.
@@ -64,6 +72,8 @@ public class MimeTypeMapperImpl implements MimeTypeMapper {
 
   protected MimeTypeResolver mimeTypeResolver;
 
+  private int maxSniffBytes;
+
   /**
    * Constructs the MimeTypeMapper with a list of {@link MimeTypeResolver}s.
    *
@@ -72,6 +82,8 @@ public class MimeTypeMapperImpl implements MimeTypeMapper {
   public MimeTypeMapperImpl(List<MimeTypeResolver> mimeTypeResolvers) {
     LOGGER.debug("INSIDE: MimeTypeMapperImpl constructor");
     this.mimeTypeResolvers = mimeTypeResolvers;
+    setMaxSniffBytes(
+        NumberUtils.toInt(System.getProperty(MAX_SNIFF_BYTES_PROPERTY), DEFAULT_MAX_SNIFF_BYTES));
   }
 
   @Override
@@ -173,18 +185,23 @@ public String guessMimeType(InputStream is, String fileExtension)
     // from being used when a CustomMimeTypeResolver may be more appropriate.
     List<MimeTypeResolver> sortedResolvers = sortResolvers(mimeTypeResolvers);
 
-    if (StringUtils.isEmpty(fileExtension)) {
-      try (TemporaryFileBackedOutputStream tfbos = new TemporaryFileBackedOutputStream()) {
-        IOUtils.copy(is, tfbos);
-        try (InputStream inputStream = tfbos.asByteSource().openStream()) {
-          Detector detector = new DefaultDetector();
-          MediaType mediaType = detector.detect(inputStream, new Metadata());
+    // Only a bounded prefix of the content is needed to detect its type and to find the root
+    // element, so the rest of what may be a very large stream is never read or buffered
+    byte[] prefix = null;
+    if (StringUtils.isEmpty(fileExtension) || XML_FILE_EXTENSION.equals(fileExtension)) {
+      try {
+        prefix = readPrefix(is);
+      } catch (IOException e) {
+        LOGGER.debug("Could not read the beginning of the input stream.", e);
+      }
+    }
 
-          fileExtension = getFileExtensionForMimeType(mediaType.toString()).replace(".", "");
-        } finally {
-          is = tfbos.asByteSource().openStream();
-        }
+    if (StringUtils.isEmpty(fileExtension) && prefix != null) {
+      try {
+        Detector detector = new DefaultDetector();
+        MediaType mediaType = detector.detect(new ByteArrayInputStream(prefix), new Metadata());
 
+        fileExtension = getFileExtensionForMimeType(mediaType.toString()).replace(".", "");
       } catch (Exception e) {
         LOGGER.debug("Failed to guess mimeType for file without extension.");
       }
@@ -193,12 +210,8 @@ public String guessMimeType(InputStream is, String fileExtension)
     // If file has XML extension, then read root element namespace once so
     // each MimeTypeResolver does not have to open the stream and read the namespace
     String namespace = null;
-    if (fileExtension.equals(XML_FILE_EXTENSION)) {
-      try {
-        namespace = XML_UTILS.getRootNamespace(IOUtils.toString(is));
-      } catch (IOException ioe) {
-        LOGGER.debug("Could not read namespace from input stream.", ioe);
-      }
+    if (XML_FILE_EXTENSION.equals(fileExtension) && prefix != null) {
+      namespace = XML_UTILS.getRootNamespace(new ByteArrayInputStream(prefix));
       LOGGER.debug("namespace = {}", namespace);
     }
 
@@ -217,7 +230,7 @@ public String guessMimeType(InputStream is, String fileExtension)
         // Even if a MimeTypeResolver, such as the TikaMimeTypeResolver, were to handle
         // XML files that have no "known" schema it is highly unlikely there would be
         // an InputTransformer to create a metacard for that "generic" XML file.
-        if (fileExtension.equals(XML_FILE_EXTENSION)) {
+        if (XML_FILE_EXTENSION.equals(fileExtension)) {
           if (namespace != null && resolver.hasSchema()) {
             if (namespace.equals(resolver.getSchema())) {
               mimeType = resolver.getMimeTypeForFileExtension(fileExtension);
@@ -245,6 +258,30 @@ public String guessMimeType(InputStream is, String fileExtension)
     return mimeType;
   }
 
+  /**
+   * @param maxSniffBytes the number of bytes at the beginning of a stream that are read to detect
+   *     its type and its XML root element namespace
+   */
+  public void setMaxSniffBytes(int maxSniffBytes) {
+    this.maxSniffBytes = maxSniffBytes > 0 ? maxSniffBytes : DEFAULT_MAX_SNIFF_BYTES;
+  }
+
+  /**
+   * Reads up to {@link #maxSniffBytes} from the beginning of the stream. When the stream supports
+   * mark and reset it is reset afterwards, so the caller can still read all of it.
+   */
+  private byte[] readPrefix(InputStream is) throws IOException {
+    InputStream sniffStream = is.markSupported() ? is : new BufferedInputStream(is, maxSniffBytes);
+    sniffStream.mark(maxSniffBytes);
+    try {
+      byte[] buffer = new byte[maxSniffBytes];
+      int length = IOUtils.read(sniffStream, buffer);
+      return length == buffer.length ? buffer : Arrays.copyOf(buffer, length);
+    } finally {
+      sniffStream.reset();
+    }
+  }
+
   /**
    * Sort the list of {@link MimeTypeResolver}s by their descending priority, i.e., the lower the
    * priority the later the {@link MimeTypeResolver} is invoked.
@@ -13,6 +13,7 @@
  */
 package ddf.mime.mapper;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 
@@ -20,11 +21,15 @@
 import ddf.mime.MimeTypeMapper;
 import ddf.mime.MimeTypeResolver;
 import ddf.mime.tika.TikaMimeTypeResolver;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -128,6 +133,36 @@ public void testGuessMimeTypeForXmlIngest() throws Exception {
     assertNull(mimeType);
   }
 
+  @Test
+  public void testGuessMimeTypeReadsOnlyPrefix() throws Exception {
+    MimeTypeMapperImpl mapper = new MimeTypeMapperImpl(MOCK_MIME_TYPE_RESOLVERS);
+    mapper.setMaxSniffBytes(1024);
+
+    byte[] xml =
+        ("<csw:Record xmlns:csw=\"http://www.opengis.net/cat/csw/2.0.2\">"
+                + StringUtils.repeat("<dc:title>title</dc:title>", 1000)
+                + "</csw:Record>")
+            .getBytes(StandardCharsets.UTF_8);
+    InputStream is = new ByteArrayInputStream(xml);
+
+    assertEquals("text/xml;id=csw", mapper.guessMimeType(is, "xml"));
+    assertArrayEquals(xml, IOUtils.toByteArray(is));
+  }
+
+  @Test
+  public void testGuessMimeTypeRootElementAfterPrefix() throws Exception {
+    MimeTypeMapperImpl mapper = new MimeTypeMapperImpl(MOCK_MIME_TYPE_RESOLVERS);
+    mapper.setMaxSniffBytes(1024);
+
+    String xml =
+        "<?xml version=\"1.0\"?><!--"
+            + StringUtils.repeat(" ", 2048)
+            + "--><csw:Record xmlns:csw=\"http://www.opengis.net/cat/csw/2.0.2\"/>";
+    InputStream is = new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+
+    assertNull(mapper.guessMimeType(is, "xml"));
+  }
+
   @Test
   public void testGuessMimeTypeForXmlIngestNoExtension() throws Exception {
     MimeTypeMapper mapper = new MimeTypeMapperImpl(MOCK_MIME_TYPE_RESOLVERS);
@@ -13,68 +13,178 @@
  */
 package org.codice.ddf.persistence.attributes.internal;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
 import org.apache.commons.lang.StringUtils;
 import org.codice.ddf.persistence.PersistenceException;
 import org.codice.ddf.persistence.PersistentItem;
 import org.codice.ddf.persistence.PersistentStore;
 import org.codice.ddf.persistence.PersistentStore.PersistenceType;
 import org.codice.ddf.persistence.attributes.AttributesStore;
+import org.codice.ddf.platform.util.StandardThreadFactoryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Keeps each user's data usage and limit in memory and writes usage updates to the {@link
+ * PersistentStore} in periodic batches.
+ *
+ * <p>A user's attributes are read from the persistent store the first time they are needed. Usage
+ * updates are added to a per-user {@link LongAdder} and appended to a local journal, so that
+ * updates that have not been written to the persistent store yet are replayed when the store is
+ * next started. Data usage and limit lookups are answered from memory.
+ *
+ * <p>Each flush reads the stored attributes of the users it writes again and adds the updates to
+ * them, so that changes made through other instances sharing the persistent store, including data
+ * limit changes, are kept. Users without updates since the previous flush are dropped from memory
+ * and read again the next time they are needed, so lookups are at most one flush interval behind
+ * the persistent store and only recently active users are kept in memory.
+ */
 public class AttributesStoreImpl implements AttributesStore {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(AttributesStoreImpl.class);
 
+  private static final long DEFAULT_FLUSH_INTERVAL_SECONDS = 30L;
+
+  private static final String FLUSHING_SUFFIX = ".flushing";
+
+  /* Past this many users in memory, a flush is started early to drop the inactive ones. */
+  private static final int MAX_CACHED_USERS = 10_000;
+
+  /* The number of users whose stored attributes are read by each query during a flush. */
+  private static final int FLUSH_READ_BATCH_SIZE = 100;
+
   private PersistentStore persistentStore;
 
+  /* Usage updates hold the read lock; flushes hold the write lock while draining the counters. */
   private ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
 
+  /* Serializes flushes with the operations that overwrite a user's attributes. */
+  private final Lock flushLock = new ReentrantLock();
+
+  private final Map<String, UserUsage> userUsages = new ConcurrentHashMap<>();
+
   private static final String EMPTY_USERNAME_ERROR = "Empty username specified";
 
   private static final long NO_DATA_LIMIT = -1L;
 
+  private Path journalPath;
+
+  private FileChannel journal;
+
+  /* Set while the updates in the flushing journal have not been read back into memory. */
+  private volatile boolean replayPending;
+
+  private long flushIntervalSeconds = DEFAULT_FLUSH_INTERVAL_SECONDS;
+
+  private volatile ScheduledExecutorService scheduler;
+
+  private ScheduledFuture<?> scheduledFlush;
+
+  private final AtomicBoolean earlyFlushPending = new AtomicBoolean();
+
   public AttributesStoreImpl(PersistentStore persistentStore) {
     this.persistentStore = persistentStore;
   }
 
-  @Override
-  public long getCurrentDataUsageByUser(final String username) throws PersistenceException {
-    long currentDataUsage = 0L;
+  /**
+   * Sets the journal that usage updates are appended to until they are written to the persistent
+   * store. If no journal is set, updates that have not been flushed are lost on shutdown.
+   *
+   * @param journalFile path of the journal file
+   */
+  public void setJournalFile(String journalFile) {
+    this.journalPath = StringUtils.isBlank(journalFile) ? null : Paths.get(journalFile);
+  }
 
-    if (StringUtils.isEmpty(username)) {
-      throw new PersistenceException(EMPTY_USERNAME_ERROR);
+  /** @param flushIntervalSeconds how often usage updates are written to the persistent store */
+  public synchronized void setFlushIntervalSeconds(long flushIntervalSeconds) {
+    this.flushIntervalSeconds =
+        flushIntervalSeconds > 0 ? flushIntervalSeconds : DEFAULT_FLUSH_INTERVAL_SECONDS;
+    if (scheduler != null) {
+      scheduleFlush();
+    }
+  }
+
+  /**
+   * Opens a new journal, reads the usage updates left in the journal by a previous run back into
+   * memory and starts the periodic flush, which writes them to the persistent store. The persistent
+   * store is not used until then, so it does not have to be available yet.
+   */
+  public synchronized void init() {
+    if (journalPath != null) {
+      // the previous run's journal is moved to the flushing journal before the new one is opened
+      rotateJournal();
+      replayPending = true;
+      replayJournal();
+    }
+
+    scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            StandardThreadFactoryBuilder.newThreadFactory("attributesStoreFlushThread"));
+    scheduleFlush();
+  }
+
+  /** Stops the periodic flush and writes any remaining usage updates to the persistent store. */
+  public synchronized void destroy() {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+      scheduler = null;
     }
 
     try {
-      readWriteLock.readLock().lock();
-      currentDataUsage = getCurrentDataUsageByUserNoLock(username);
-    } finally {
-      readWriteLock.readLock().unlock();
+      flush();
+    } catch (PersistenceException e) {
+      LOGGER.warn(
+          "Unable to write data usage to the persistent store. Updates in the journal will be replayed on the next restart.",
+          e);
     }
+    closeJournal();
+  }
 
+  @Override
+  public long getCurrentDataUsageByUser(final String username) throws PersistenceException {
+    if (StringUtils.isEmpty(username)) {
+      throw new PersistenceException(EMPTY_USERNAME_ERROR);
+    }
+
+    long currentDataUsage = getUserUsage(username).getDataUsage();
+    LOGGER.debug("User {} data usage {} ", username, currentDataUsage);
     return currentDataUsage;
   }
 
   @Override
   public long getDataLimitByUser(final String username) throws PersistenceException {
-    long dataLimit = NO_DATA_LIMIT;
-
     if (StringUtils.isEmpty(username)) {
       throw new PersistenceException(EMPTY_USERNAME_ERROR);
     }
 
-    try {
-      readWriteLock.readLock().lock();
-      dataLimit = getDataLimitByUserNoLock(username);
-    } finally {
-      readWriteLock.readLock().unlock();
-    }
-
+    long dataLimit = getUserUsage(username).dataLimit;
+    LOGGER.debug("User {} data limit {} ", username, dataLimit);
     return dataLimit;
   }
 
@@ -87,17 +197,15 @@ public void updateUserDataUsage(final String username, final long newDataUsage)
 
     if (newDataUsage > 0) {
       try {
-        readWriteLock.writeLock().lock();
-        long dataUsage = getCurrentDataUsageByUserNoLock(username);
-        dataUsage += newDataUsage;
-
-        LOGGER.debug("Updating user {} data usage to {}", username, dataUsage);
-        persistentStore.add(
-            PersistenceType.USER_ATTRIBUTE_TYPE.toString(),
-            toPersistentItem(username, dataUsage, getDataLimitByUser(username)));
+        readWriteLock.readLock().lock();
+        UserUsage userUsage = getUserUsage(username);
+        appendToJournal(username, newDataUsage);
+        userUsage.pendingDataUsage.add(newDataUsage);
       } finally {
-        readWriteLock.writeLock().unlock();
+        readWriteLock.readLock().unlock();
       }
+
+      LOGGER.debug("Added {} to user {} data usage", newDataUsage, username);
     }
   }
 
@@ -110,14 +218,18 @@ public void setDataUsage(final String username, final long dataUsage)
     }
     if (dataUsage >= 0) {
       try {
+        flushLock.lock();
         readWriteLock.writeLock().lock();
+        flush();
 
         LOGGER.debug("Updating user {} data usage to {}", username, dataUsage);
         persistentStore.add(
             PersistenceType.USER_ATTRIBUTE_TYPE.toString(),
             toPersistentItem(username, dataUsage, NO_DATA_LIMIT));
+        userUsages.put(username, new UserUsage(dataUsage, NO_DATA_LIMIT));
       } finally {
         readWriteLock.writeLock().unlock();
+        flushLock.unlock();
       }
     }
   }
@@ -131,49 +243,243 @@ public void setDataLimit(final String username, final long dataLimit)
     }
     if (dataLimit >= NO_DATA_LIMIT) {
       try {
+        flushLock.lock();
         readWriteLock.writeLock().lock();
+        flush();
 
+        long dataUsage = getUserUsage(username).getDataUsage();
         LOGGER.debug("Updating user {} data limit to {}", username, dataLimit);
         persistentStore.add(
             PersistenceType.USER_ATTRIBUTE_TYPE.toString(),
-            toPersistentItem(username, getCurrentDataUsageByUser(username), dataLimit));
+            toPersistentItem(username, dataUsage, dataLimit));
+        userUsages.put(username, new UserUsage(dataUsage, dataLimit));
       } finally {
         readWriteLock.writeLock().unlock();
+        flushLock.unlock();
       }
     }
   }
 
   @Override
   public List<Map<String, Object>> getAllUsers() throws PersistenceException {
-    List<Map<String, Object>> userMap;
+    flush();
+    return persistentStore.get(PersistenceType.USER_ATTRIBUTE_TYPE.toString());
+  }
+
+  @Override
+  public void resetUserDataUsages() throws PersistenceException {
     try {
-      readWriteLock.readLock().lock();
-      userMap = persistentStore.get(PersistenceType.USER_ATTRIBUTE_TYPE.toString());
+      flushLock.lock();
+      readWriteLock.writeLock().lock();
+
+      List<Map<String, Object>> users = getAllUsers();
+      List<Map<String, Object>> items = new ArrayList<>(users.size());
+      Map<String, UserUsage> resetUsages = new HashMap<>();
+      for (Map<String, Object> user : users) {
+        String username = (String) user.get(AttributesStore.USER_KEY + "_txt");
+        long dataLimit = (long) user.get(AttributesStore.DATA_USAGE_LIMIT_KEY + "_lng");
+
+        LOGGER.debug("Resetting Data usage for user : {}", username);
+        items.add(toPersistentItem(username, 0L, dataLimit));
+        if (username != null) {
+          resetUsages.put(username, new UserUsage(0L, dataLimit));
+        }
+      }
+
+      if (!items.isEmpty()) {
+        persistentStore.add(PersistenceType.USER_ATTRIBUTE_TYPE.toString(), items);
+      }
+      userUsages.clear();
+      userUsages.putAll(resetUsages);
     } finally {
-      readWriteLock.readLock().unlock();
+      readWriteLock.writeLock().unlock();
+      flushLock.unlock();
     }
-    return userMap;
   }
 
-  @Override
-  public void resetUserDataUsages() throws PersistenceException {
-    List<Map<String, Object>> users = getAllUsers();
-    for (Map<String, Object> user : users) {
-      String username = (String) user.get(AttributesStore.USER_KEY + "_txt");
-      long dataLimit = (long) user.get(AttributesStore.DATA_USAGE_LIMIT_KEY + "_lng");
+  /**
+   * Writes the usage updates made since the last flush to the persistent store in a single batch,
+   * added to the usage that is stored when the flush runs, and drops the users without updates from
+   * memory. If the write fails, the updates are kept and written by the next flush.
+   *
+   * @throws PersistenceException if the journal left by a previous run could not be replayed yet,
+   *     or the updates could not be written to the persistent store
+   */
+  void flush() throws PersistenceException {
+    try {
+      flushLock.lock();
+
+      if (!replayJournal()) {
+        throw new PersistenceException(
+            "Data usage journal [" + getFlushingPath() + "] has not been replayed yet.");
+      }
+
+      Map<String, Long> dataUsageDeltas = new HashMap<>();
       try {
         readWriteLock.writeLock().lock();
-
-        LOGGER.debug("Resetting Data usage for user : {}", username);
-        persistentStore.add(
-            PersistenceType.USER_ATTRIBUTE_TYPE.toString(),
-            toPersistentItem(username, 0L, dataLimit));
+        rotateJournal();
+        userUsages
+            .entrySet()
+            .removeIf(
+                entry -> {
+                  UserUsage userUsage = entry.getValue();
+                  long delta = userUsage.pendingDataUsage.sum();
+                  if (delta == 0) {
+                    return true;
+                  }
+                  userUsage.pendingDataUsage.add(-delta);
+                  userUsage.flushingDataUsage = delta;
+                  dataUsageDeltas.put(entry.getKey(), delta);
+                  return false;
+                });
       } finally {
         readWriteLock.writeLock().unlock();
       }
+
+      if (dataUsageDeltas.isEmpty()) {
+        deleteFlushedJournal();
+        return;
+      }
+
+      Map<String, UserUsage> flushedUsages;
+      try {
+        flushedUsages = getStoredUsages(dataUsageDeltas.keySet());
+        List<Map<String, Object>> items = new ArrayList<>(dataUsageDeltas.size());
+        for (Map.Entry<String, Long> entry : dataUsageDeltas.entrySet()) {
+          UserUsage storedUsage =
+              flushedUsages.computeIfAbsent(
+                  entry.getKey(), username -> new UserUsage(0L, NO_DATA_LIMIT));
+          storedUsage.dataUsage += entry.getValue();
+          items.add(toPersistentItem(entry.getKey(), storedUsage.dataUsage, storedUsage.dataLimit));
+        }
+
+        LOGGER.debug("Writing data usage for {} users", items.size());
+        persistentStore.add(PersistenceType.USER_ATTRIBUTE_TYPE.toString(), items);
+      } catch (PersistenceException | RuntimeException e) {
+        updateFlushedUsages(dataUsageDeltas, null);
+        throw e;
+      }
+      updateFlushedUsages(dataUsageDeltas, flushedUsages);
+      deleteFlushedJournal();
+    } finally {
+      flushLock.unlock();
     }
   }
 
+  /*
+   * Ends a flush. The updates that were written are moved to the users' stored usage, along with
+   * the stored limits, and the updates that were not are returned to their pending usage.
+   */
+  private void updateFlushedUsages(
+      Map<String, Long> dataUsageDeltas, Map<String, UserUsage> flushedUsages) {
+    try {
+      readWriteLock.writeLock().lock();
+      dataUsageDeltas.forEach(
+          (username, delta) -> {
+            UserUsage userUsage = userUsages.get(username);
+            if (flushedUsages == null) {
+              userUsage.pendingDataUsage.add(delta);
+            } else {
+              UserUsage flushedUsage = flushedUsages.get(username);
+              userUsage.dataUsage = flushedUsage.dataUsage;
+              userUsage.dataLimit = flushedUsage.dataLimit;
+              userUsage.loaded = true;
+            }
+            userUsage.flushingDataUsage = 0L;
+          });
+    } finally {
+      readWriteLock.writeLock().unlock();
+    }
+  }
+
+  private UserUsage getUserUsage(final String username) throws PersistenceException {
+    UserUsage userUsage = userUsages.get(username);
+    if (userUsage == null) {
+      userUsage = userUsages.computeIfAbsent(username, u -> new UserUsage());
+      if (userUsages.size() > MAX_CACHED_USERS) {
+        flushEarly();
+      }
+    }
+
+    if (!userUsage.loaded) {
+      synchronized (userUsage) {
+        if (!userUsage.loaded) {
+          UserUsage storedUsage = getStoredUsage(username);
+          if (storedUsage == null) {
+            storedUsage = new UserUsage(0L, NO_DATA_LIMIT);
+          }
+          userUsage.dataUsage = storedUsage.dataUsage;
+          userUsage.dataLimit = storedUsage.dataLimit;
+          userUsage.loaded = true;
+        }
+      }
+    }
+    return userUsage;
+  }
+
+  /* Reads the stored usage and limit of the users, keyed by the names of the users that are stored. */
+  private Map<String, UserUsage> getStoredUsages(Collection<String> usernames)
+      throws PersistenceException {
+    Map<String, UserUsage> storedUsages = new HashMap<>();
+    List<String> remaining = new ArrayList<>(usernames);
+    for (int start = 0; start < remaining.size(); start += FLUSH_READ_BATCH_SIZE) {
+      List<String> batch =
+          remaining.subList(start, Math.min(start + FLUSH_READ_BATCH_SIZE, remaining.size()));
+      if (batch.size() == 1) {
+        UserUsage storedUsage = getStoredUsage(batch.get(0));
+        if (storedUsage != null) {
+          storedUsages.put(batch.get(0), storedUsage);
+        }
+        continue;
+      }
+
+      List<Map<String, Object>> attributesList =
+          persistentStore.get(
+              PersistenceType.USER_ATTRIBUTE_TYPE.toString(),
+              batch.stream()
+                  .map(AttributesStoreImpl::getUserFilter)
+                  .collect(Collectors.joining(" OR ")),
+              0,
+              batch.size());
+      if (attributesList != null) {
+        for (Map<String, Object> storedAttributes : attributesList) {
+          Map<String, Object> attributes = PersistentItem.stripSuffixes(storedAttributes);
+          Object username = attributes.get(USER_KEY);
+          if (username instanceof String) {
+            storedUsages.put((String) username, toUserUsage(attributes));
+          }
+        }
+      }
+    }
+    return storedUsages;
+  }
+
+  /* Reads the stored usage and limit of a user, or returns null if the user is not stored. */
+  private UserUsage getStoredUsage(String username) throws PersistenceException {
+    List<Map<String, Object>> attributesList =
+        persistentStore.get(
+            PersistenceType.USER_ATTRIBUTE_TYPE.toString(), getUserFilter(username));
+    if (attributesList != null && attributesList.size() == 1) {
+      return toUserUsage(PersistentItem.stripSuffixes(attributesList.get(0)));
+    }
+    return null;
+  }
+
+  private static String getUserFilter(String username) {
+    return String.format("%s = '%s'", USER_KEY, username);
+  }
+
+  private static UserUsage toUserUsage(Map<String, Object> attributes) {
+    return new UserUsage(
+        getLong(attributes, DATA_USAGE_KEY, 0L),
+        getLong(attributes, DATA_USAGE_LIMIT_KEY, NO_DATA_LIMIT));
+  }
+
+  private static long getLong(Map<String, Object> attributes, String key, long defaultValue) {
+    Object value = attributes.get(key);
+    return value != null ? (long) value : defaultValue;
+  }
+
   private PersistentItem toPersistentItem(
       final String username, final long dataUsage, final long dataLimit)
       throws PersistenceException {
@@ -189,37 +495,198 @@ private PersistentItem toPersistentItem(
     return item;
   }
 
-  private long getCurrentDataUsageByUserNoLock(final String username) throws PersistenceException {
-    long currentDataUsage = 0L;
-    List<Map<String, Object>> attributesList;
-    attributesList =
-        persistentStore.get(
-            PersistenceType.USER_ATTRIBUTE_TYPE.toString(),
-            String.format("%s = '%s'", USER_KEY, username));
+  private void scheduleFlush() {
+    if (scheduledFlush != null) {
+      scheduledFlush.cancel(false);
+    }
+    scheduledFlush =
+        scheduler.scheduleWithFixedDelay(
+            this::scheduledFlush, flushIntervalSeconds, flushIntervalSeconds, TimeUnit.SECONDS);
+  }
 
-    if (attributesList != null && attributesList.size() == 1) {
-      Map<String, Object> attributes = PersistentItem.stripSuffixes(attributesList.get(0));
-      currentDataUsage = (long) attributes.get(DATA_USAGE_KEY);
+  /* Starts a flush now, unless one is already waiting to run. */
+  private void flushEarly() {
+    ScheduledExecutorService currentScheduler = scheduler;
+    if (currentScheduler == null || !earlyFlushPending.compareAndSet(false, true)) {
+      return;
+    }
 
-      LOGGER.debug("User {} data usage {} ", username, currentDataUsage);
+    LOGGER.debug("Data usage is held for more than {} users. Flushing early.", MAX_CACHED_USERS);
+    try {
+      currentScheduler.execute(
+          () -> {
+            earlyFlushPending.set(false);
+            scheduledFlush();
+          });
+    } catch (RejectedExecutionException e) {
+      earlyFlushPending.set(false);
     }
-    return currentDataUsage;
   }
 
-  private long getDataLimitByUserNoLock(final String username) throws PersistenceException {
-    long dataLimit = NO_DATA_LIMIT;
-    List<Map<String, Object>> attributesList;
-    attributesList =
-        persistentStore.get(
-            PersistenceType.USER_ATTRIBUTE_TYPE.toString(),
-            String.format("%s = '%s'", USER_KEY, username));
+  private void scheduledFlush() {
+    try {
+      flush();
+    } catch (PersistenceException | RuntimeException e) {
+      LOGGER.debug("Unable to write data usage to the persistent store. Will retry.", e);
+    }
+  }
 
-    if (attributesList != null && attributesList.size() == 1) {
-      Map<String, Object> attributes = PersistentItem.stripSuffixes(attributesList.get(0));
-      dataLimit = (long) attributes.get(DATA_USAGE_LIMIT_KEY);
+  private Path getFlushingPath() {
+    return Paths.get(journalPath.toString() + FLUSHING_SUFFIX);
+  }
 
-      LOGGER.debug("User {} data limit {} ", username, dataLimit);
+  private void openJournal() throws IOException {
+    Path parent = journalPath.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    journal = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+  }
+
+  private void closeJournal() {
+    if (journal != null) {
+      try {
+        journal.close();
+      } catch (IOException e) {
+        LOGGER.debug("Unable to close data usage journal [{}]", journalPath, e);
+      }
+      journal = null;
+    }
+  }
+
+  /* Called with the read lock held. FileChannel appends are atomic with respect to each other. */
+  private void appendToJournal(String username, long dataUsage) {
+    if (journal == null) {
+      return;
+    }
+
+    try {
+      journal.write(
+          ByteBuffer.wrap((username + "\t" + dataUsage + "\n").getBytes(StandardCharsets.UTF_8)));
+    } catch (IOException e) {
+      LOGGER.warn(
+          "Unable to write to data usage journal [{}]. Data usage will only be kept in memory until the next flush.",
+          journalPath,
+          e);
+    }
+  }
+
+  /*
+   * Called with the write lock held. Moves the current journal to the flushing journal, appending to
+   * it if a previous flush failed, and starts a new journal.
+   */
+  private void rotateJournal() {
+    if (journalPath == null) {
+      return;
+    }
+
+    Path flushingPath = getFlushingPath();
+    try {
+      closeJournal();
+      if (!journalPath.toFile().exists()) {
+        LOGGER.trace("No data usage journal [{}] to rotate", journalPath);
+      } else if (flushingPath.toFile().exists()) {
+        Files.write(flushingPath, Files.readAllBytes(journalPath), StandardOpenOption.APPEND);
+        Files.delete(journalPath);
+      } else {
+        Files.move(journalPath, flushingPath);
+      }
+    } catch (IOException e) {
+      LOGGER.warn("Unable to rotate data usage journal [{}]", journalPath, e);
+    } finally {
+      try {
+        openJournal();
+      } catch (IOException e) {
+        LOGGER.warn("Unable to open data usage journal [{}]", journalPath, e);
+      }
+    }
+  }
+
+  private void deleteFlushedJournal() {
+    if (journalPath == null) {
+      return;
+    }
+
+    try {
+      Files.deleteIfExists(getFlushingPath());
+    } catch (IOException e) {
+      LOGGER.warn("Unable to delete flushed data usage journal [{}]", getFlushingPath(), e);
+    }
+  }
+
+  /*
+   * Reads the updates in the flushing journal, which were not written to the persistent store by a
+   * previous run, back into memory, unless that has been done already.
+   *
+   * @return true if the journal has been replayed
+   */
+  private boolean replayJournal() {
+    if (!replayPending) {
+      return true;
+    }
+
+    Path flushingPath = getFlushingPath();
+    Map<String, Long> dataUsageDeltas = new HashMap<>();
+    if (flushingPath.toFile().exists()) {
+      try {
+        for (String line : Files.readAllLines(flushingPath, StandardCharsets.UTF_8)) {
+          int separator = line.lastIndexOf('\t');
+          if (separator <= 0) {
+            continue;
+          }
+          try {
+            dataUsageDeltas.merge(
+                line.substring(0, separator),
+                Long.parseLong(line.substring(separator + 1)),
+                Long::sum);
+          } catch (NumberFormatException e) {
+            LOGGER.debug("Skipping invalid data usage journal entry [{}]", line);
+          }
+        }
+      } catch (IOException e) {
+        LOGGER.warn(
+            "Unable to replay data usage journal [{}]. Data usage will not be written to the persistent store until it is replayed.",
+            flushingPath,
+            e);
+        return false;
+      }
+    }
+
+    LOGGER.debug(
+        "Replaying data usage for {} users from [{}]", dataUsageDeltas.size(), flushingPath);
+    dataUsageDeltas.forEach(
+        (username, delta) ->
+            userUsages.computeIfAbsent(username, u -> new UserUsage()).pendingDataUsage.add(delta));
+    replayPending = false;
+    return true;
+  }
+
+  private static class UserUsage {
+
+    /* Usage that has been read from or written to the persistent store. */
+    private volatile long dataUsage;
+
+    private volatile long dataLimit = NO_DATA_LIMIT;
+
+    /* False until the stored usage and limit have been read. */
+    private volatile boolean loaded;
+
+    /* Updates being written by the current flush. */
+    private volatile long flushingDataUsage;
+
+    private final LongAdder pendingDataUsage = new LongAdder();
+
+    /* Creates the usage of a user whose stored attributes have not been read yet. */
+    private UserUsage() {}
+
+    private UserUsage(long dataUsage, long dataLimit) {
+      this.dataUsage = dataUsage;
+      this.dataLimit = dataLimit;
+      this.loaded = true;
+    }
+
+    private long getDataUsage() {
+      return dataUsage + flushingDataUsage + pendingDataUsage.sum();
     }
-    return dataLimit;
   }
 }
@@ -15,15 +15,24 @@
 
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -32,12 +41,17 @@
 import org.codice.ddf.persistence.PersistentStore;
 import org.codice.ddf.persistence.PersistentStore.PersistenceType;
 import org.codice.ddf.persistence.attributes.AttributesStore;
+import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.ArgumentCaptor;
 
 public class AttributesStoreImplTest {
 
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   private AttributesStoreImpl attributesStore;
 
   private List<Map<String, Object>> attributesList;
@@ -65,6 +79,11 @@ public void setup() {
     attributesStore = new AttributesStoreImpl(persistentStore);
   }
 
+  @After
+  public void tearDown() {
+    attributesStore.destroy();
+  }
+
   @Test
   public void testGetDataUsage() throws PersistenceException {
     attributesList = new ArrayList<>();
@@ -83,7 +102,8 @@ public void testUpdateDataUsage() throws PersistenceException {
     ArgumentCaptor<String> keyArg1 = ArgumentCaptor.forClass(String.class);
     ArgumentCaptor<String> keyArg2 = ArgumentCaptor.forClass(String.class);
     ArgumentCaptor<String> cqlArg = ArgumentCaptor.forClass(String.class);
-    ArgumentCaptor<PersistentItem> itemArg = ArgumentCaptor.forClass(PersistentItem.class);
+    ArgumentCaptor<Collection<Map<String, Object>>> itemsArg =
+        ArgumentCaptor.forClass(Collection.class);
 
     attributesList = new ArrayList<>();
     Map<String, Object> attributes = new HashMap<>();
@@ -93,18 +113,167 @@ public void testUpdateDataUsage() throws PersistenceException {
     when(persistentStore.get(anyString(), anyString())).thenReturn(attributesList);
 
     attributesStore.updateUserDataUsage(USER, LONG_5);
+    attributesStore.updateUserDataUsage(USER, LONG_1);
 
-    verify(persistentStore, atLeast(2)).get(keyArg1.capture(), cqlArg.capture());
-    verify(persistentStore).add(keyArg2.capture(), itemArg.capture());
+    assertThat(attributesStore.getCurrentDataUsageByUser(USER), is(700L));
+    verify(persistentStore, never()).add(anyString(), anyCollection());
+
+    attributesStore.flush();
+
+    verify(persistentStore, times(2)).get(keyArg1.capture(), cqlArg.capture());
+    verify(persistentStore).add(keyArg2.capture(), itemsArg.capture());
 
     assertThat(keyArg1.getValue(), is(PersistenceType.USER_ATTRIBUTE_TYPE.toString()));
     assertThat(keyArg2.getValue(), is(PersistenceType.USER_ATTRIBUTE_TYPE.toString()));
 
-    assertThat(itemArg.getValue().getLongProperty(AttributesStore.DATA_USAGE_KEY), is(600L));
+    assertThat(getDataUsage(itemsArg.getValue()), is(700L));
 
     assertThat(cqlArg.getValue(), is(CQL));
   }
 
+  @Test
+  public void testFlushAddsToStoredAttributes() throws PersistenceException {
+    Map<String, Object> attributes = new HashMap<>();
+    attributes.put(DATA_USAGE_LONG, LONG_1);
+    attributes.put(DATA_LIMIT_LONG, LONG_5);
+    when(persistentStore.get(anyString(), anyString()))
+        .thenReturn(Collections.singletonList(attributes));
+
+    attributesStore.updateUserDataUsage(USER, LONG_1);
+
+    // another instance sharing the persistent store changes the user's attributes
+    Map<String, Object> changedAttributes = new HashMap<>();
+    changedAttributes.put(DATA_USAGE_LONG, LONG_2);
+    changedAttributes.put(DATA_LIMIT_LONG, 1000L);
+    when(persistentStore.get(anyString(), anyString()))
+        .thenReturn(Collections.singletonList(changedAttributes));
+
+    attributesStore.flush();
+
+    ArgumentCaptor<Collection<Map<String, Object>>> itemsArg =
+        ArgumentCaptor.forClass(Collection.class);
+    verify(persistentStore).add(anyString(), itemsArg.capture());
+    assertThat(getDataUsage(itemsArg.getValue()), is(300L));
+    assertThat(getDataLimit(itemsArg.getValue()), is(1000L));
+    assertThat(attributesStore.getCurrentDataUsageByUser(USER), is(300L));
+    assertThat(attributesStore.getDataLimitByUser(USER), is(1000L));
+  }
+
+  @Test
+  public void testInactiveUsersAreReadAgainAfterFlush() throws PersistenceException {
+    Map<String, Object> attributes = new HashMap<>();
+    attributes.put(DATA_USAGE_LONG, LONG_1);
+    attributes.put(DATA_LIMIT_LONG, LONG_5);
+    when(persistentStore.get(anyString(), anyString()))
+        .thenReturn(Collections.singletonList(attributes));
+    assertThat(attributesStore.getDataLimitByUser(USER), is(LONG_5));
+
+    attributes.put(DATA_LIMIT_LONG, LONG_2);
+    assertThat(attributesStore.getDataLimitByUser(USER), is(LONG_5));
+
+    attributesStore.flush();
+
+    assertThat(attributesStore.getDataLimitByUser(USER), is(LONG_2));
+    verify(persistentStore, never()).add(anyString(), anyCollection());
+  }
+
+  @Test
+  public void testFailedFlushIsRetried() throws PersistenceException {
+    doThrow(new PersistenceException())
+        .doNothing()
+        .when(persistentStore)
+        .add(anyString(), anyCollection());
+
+    attributesStore.updateUserDataUsage(USER, LONG_5);
+
+    try {
+      attributesStore.flush();
+      fail("Expected flush to fail");
+    } catch (PersistenceException e) {
+      assertThat(attributesStore.getCurrentDataUsageByUser(USER), is(LONG_5));
+    }
+
+    attributesStore.updateUserDataUsage(USER, LONG_1);
+    attributesStore.flush();
+
+    ArgumentCaptor<Collection<Map<String, Object>>> itemsArg =
+        ArgumentCaptor.forClass(Collection.class);
+    verify(persistentStore, times(2)).add(anyString(), itemsArg.capture());
+    assertThat(getDataUsage(itemsArg.getValue()), is(600L));
+  }
+
+  @Test
+  public void testJournalIsReplayedOnStartup() throws Exception {
+    String journalFile = temporaryFolder.getRoot().toPath().resolve("usage.journal").toString();
+    attributesStore.setJournalFile(journalFile);
+    attributesStore.init();
+    attributesStore.updateUserDataUsage(USER, LONG_5);
+    attributesStore.updateUserDataUsage(USER, LONG_1);
+    verify(persistentStore, never()).add(anyString(), anyCollection());
+
+    AttributesStoreImpl restartedStore = new AttributesStoreImpl(persistentStore);
+    restartedStore.setJournalFile(journalFile);
+    restartedStore.init();
+    verify(persistentStore, never()).add(anyString(), anyCollection());
+    assertThat(restartedStore.getCurrentDataUsageByUser(USER), is(600L));
+
+    restartedStore.flush();
+
+    ArgumentCaptor<Collection<Map<String, Object>>> itemsArg =
+        ArgumentCaptor.forClass(Collection.class);
+    verify(persistentStore).add(anyString(), itemsArg.capture());
+    assertThat(getDataUsage(itemsArg.getValue()), is(600L));
+
+    restartedStore.destroy();
+    attributesStore = new AttributesStoreImpl(persistentStore);
+    attributesStore.setJournalFile(journalFile);
+    attributesStore.init();
+    verify(persistentStore).add(anyString(), anyCollection());
+  }
+
+  @Test
+  public void testJournalIsReplayedWithoutPersistentStore() throws Exception {
+    Path journalPath = temporaryFolder.getRoot().toPath().resolve("usage.journal");
+    Files.write(journalPath, (USER + "\t" + LONG_5 + "\n").getBytes(StandardCharsets.UTF_8));
+    when(persistentStore.get(anyString(), anyString())).thenThrow(new PersistenceException());
+    doThrow(new PersistenceException()).when(persistentStore).add(anyString(), anyCollection());
+
+    attributesStore.setJournalFile(journalPath.toString());
+    attributesStore.init();
+    try {
+      attributesStore.flush();
+      fail("Expected flush to fail");
+    } catch (PersistenceException e) {
+      // the persistent store is not available yet
+    }
+    attributesStore.destroy();
+
+    // the replayed journal is kept until it has been written
+    reset(persistentStore);
+    attributesStore = new AttributesStoreImpl(persistentStore);
+    attributesStore.setJournalFile(journalPath.toString());
+    attributesStore.init();
+    attributesStore.flush();
+
+    ArgumentCaptor<Collection<Map<String, Object>>> itemsArg =
+        ArgumentCaptor.forClass(Collection.class);
+    verify(persistentStore).add(anyString(), itemsArg.capture());
+    assertThat(getDataUsage(itemsArg.getValue()), is(LONG_5));
+  }
+
+  @Test
+  public void testDestroyFlushes() throws PersistenceException {
+    attributesStore.init();
+    attributesStore.updateUserDataUsage(USER, LONG_5);
+
+    attributesStore.destroy();
+
+    ArgumentCaptor<Collection<Map<String, Object>>> itemsArg =
+        ArgumentCaptor.forClass(Collection.class);
+    verify(persistentStore).add(anyString(), itemsArg.capture());
+    assertThat(getDataUsage(itemsArg.getValue()), is(LONG_5));
+  }
+
   @Test
   public void testSetDataUsage() throws PersistenceException {
 
@@ -246,13 +415,26 @@ public void resetUserDataUsages() throws PersistenceException {
     when(persistentStore.get(anyString())).thenReturn(attributesList);
 
     ArgumentCaptor<String> keyArg = ArgumentCaptor.forClass(String.class);
-    ArgumentCaptor<PersistentItem> itemArg = ArgumentCaptor.forClass(PersistentItem.class);
+    ArgumentCaptor<Collection<Map<String, Object>>> itemsArg =
+        ArgumentCaptor.forClass(Collection.class);
     attributesStore.resetUserDataUsages();
-    verify(persistentStore).add(keyArg.capture(), itemArg.capture());
+    verify(persistentStore).add(keyArg.capture(), itemsArg.capture());
     assertThat(keyArg.getValue(), is(PersistenceType.USER_ATTRIBUTE_TYPE.toString()));
 
-    assertThat(itemArg.getValue().getLongProperty(AttributesStore.DATA_USAGE_KEY), is(0L));
-    assertThat(
-        itemArg.getValue().getLongProperty(AttributesStore.DATA_USAGE_LIMIT_KEY), is(LONG_1));
+    PersistentItem item = (PersistentItem) itemsArg.getValue().iterator().next();
+    assertThat(item.getLongProperty(AttributesStore.DATA_USAGE_KEY), is(0L));
+    assertThat(item.getLongProperty(AttributesStore.DATA_USAGE_LIMIT_KEY), is(LONG_1));
+  }
+
+  private static long getDataLimit(Collection<Map<String, Object>> items) {
+    assertThat(items.size(), is(1));
+    return ((PersistentItem) items.iterator().next())
+        .getLongProperty(AttributesStore.DATA_USAGE_LIMIT_KEY);
+  }
+
+  private static long getDataUsage(Collection<Map<String, Object>> items) {
+    assertThat(items.size(), is(1));
+    return ((PersistentItem) items.iterator().next())
+        .getLongProperty(AttributesStore.DATA_USAGE_KEY);
   }
 }
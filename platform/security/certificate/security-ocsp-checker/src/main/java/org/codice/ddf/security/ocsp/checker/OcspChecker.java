@@ -16,8 +16,10 @@
 import static org.apache.commons.lang3.StringUtils.isBlank;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.CacheBuilder;
 import ddf.security.SecurityConstants;
 import ddf.security.audit.SecurityLogger;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -31,16 +33,27 @@
 import java.security.cert.CertificateEncodingException;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import javax.ws.rs.ProcessingException;
@@ -74,6 +87,7 @@
 import org.codice.ddf.cxf.client.ClientBuilder;
 import org.codice.ddf.cxf.client.ClientBuilderFactory;
 import org.codice.ddf.cxf.client.SecureCxfClientFactory;
+import org.codice.ddf.platform.util.StandardThreadFactoryBuilder;
 import org.codice.ddf.security.OcspService;
 import org.codice.ddf.system.alerts.NoticePriority;
 import org.codice.ddf.system.alerts.SystemNotice;
@@ -82,22 +96,63 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Checks certificates against OCSP servers. The status of a certificate is cached until the {@code
+ * nextUpdate} time of the OCSP response it came from, and is refreshed in the background before it
+ * expires, so most checks do not wait on an OCSP server.
+ */
 public class OcspChecker implements OcspService {
   private static final Logger LOGGER = LoggerFactory.getLogger(OcspChecker.class);
   private static final String NOT_VERIFIED_MSG = " The certificate status could not be verified.";
   private static final String CONTINUING_MSG = " Continuing OCSP check.";
+  private static final int MAX_REQUEST_THREADS = 8;
+  private static final int MAX_CACHED_STATUSES = 10_000;
+  private static final int SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+  // how far the clocks of an OCSP server and this system may disagree
+  private static final Duration MAX_CLOCK_SKEW = Duration.ofMinutes(5);
 
   private final ClientBuilderFactory factory;
   private final EventAdmin eventAdmin;
+  private final ExecutorService executor;
+  private final Clock clock;
+
+  // expired statuses are replaced when they are next looked up, and evicted when the cache is full
+  private final Map<CertificateID, CompletableFuture<OcspStatus>> statusCache =
+      CacheBuilder.newBuilder()
+          .maximumSize(MAX_CACHED_STATUSES)
+          .<CertificateID, CompletableFuture<OcspStatus>>build()
+          .asMap();
+  private final Set<CertificateID> refreshing = ConcurrentHashMap.newKeySet();
+  private final Map<URI, SecureCxfClientFactory<WebClient>> clientFactories =
+      new ConcurrentHashMap<>();
 
   private boolean ocspEnabled; // metatype value
   private List<URI> ocspServerUrls = new ArrayList<>(); // metatype value
 
   private SecurityLogger securityLogger;
 
+  private KeyStore cachedTruststore;
+  private String cachedTruststorePath;
+  private long cachedTruststoreLastModified;
+
   public OcspChecker(ClientBuilderFactory factory, EventAdmin eventAdmin) {
+    this(
+        factory,
+        eventAdmin,
+        Executors.newFixedThreadPool(
+            MAX_REQUEST_THREADS,
+            StandardThreadFactoryBuilder.newThreadFactory("ocspCheckerThread")),
+        Clock.systemUTC());
+  }
+
+  @VisibleForTesting
+  OcspChecker(
+      ClientBuilderFactory factory, EventAdmin eventAdmin, ExecutorService executor, Clock clock) {
     this.factory = factory;
     this.eventAdmin = eventAdmin;
+    this.executor = executor;
+    this.clock = clock;
   }
 
   /**
@@ -120,17 +175,16 @@ public boolean passesOcspCheck(X509Certificate[] certs) {
       try {
         Certificate certificate = convertToBouncyCastleCert(cert);
         OCSPReq ocspRequest = generateOcspRequest(certificate);
-        Map<URI, CertificateStatus> ocspStatuses = sendOcspRequests(cert, ocspRequest);
-        URI revokedStatusUrl = getFirstRevokedStatusUrl(ocspStatuses);
-        if (revokedStatusUrl != null) {
+        OcspStatus ocspStatus = getOcspStatus(cert, ocspRequest).join();
+        if (ocspStatus.isRevoked()) {
           securityLogger.audit(
               "Certificate {} has been revoked by the OCSP server at URL {}.",
               cert,
-              revokedStatusUrl);
+              ocspStatus.getUrl());
           LOGGER.warn(
               "Certificate {} has been revoked by the OCSP server at URL {}.",
               cert,
-              revokedStatusUrl);
+              ocspStatus.getUrl());
           return false;
         }
         LOGGER.debug("No certificates revoked by the OCSP server");
@@ -215,17 +269,7 @@ private X509CertificateHolder resolveIssuerCertificate(Certificate cert)
           "Problem retrieving truststore properties." + NOT_VERIFIED_MSG);
     }
 
-    KeyStore truststore;
-
-    try (InputStream truststoreInputStream = new FileInputStream(trustStorePath)) {
-      truststore = SecurityConstants.newTruststore();
-      truststore.load(truststoreInputStream, trustStorePass.toCharArray());
-      securityLogger.audit(
-          "Truststore on path {} was read by {}.", trustStorePath, this.getClass().getSimpleName());
-    } catch (CertificateException | IOException | KeyStoreException | NoSuchAlgorithmException e) {
-      throw new OcspCheckerException(
-          String.format("Problem loading truststore on path %s", trustStorePath), e);
-    }
+    KeyStore truststore = loadTruststore(trustStorePath, trustStorePass);
 
     try {
       return getCertFromTruststoreWithX500Name(issuerName, truststore);
@@ -235,6 +279,39 @@ private X509CertificateHolder resolveIssuerCertificate(Certificate cert)
     }
   }
 
+  /**
+   * Returns the truststore on the given {@param path}. The truststore is only read again when the
+   * file has changed since it was last read.
+   *
+   * @param path - the path of the truststore.
+   * @param password - the password of the truststore.
+   * @return the loaded truststore.
+   * @throws OcspCheckerException if the truststore cannot be read.
+   */
+  private synchronized KeyStore loadTruststore(String path, String password)
+      throws OcspCheckerException {
+    long lastModified = new File(path).lastModified();
+    if (cachedTruststore != null
+        && path.equals(cachedTruststorePath)
+        && lastModified == cachedTruststoreLastModified) {
+      return cachedTruststore;
+    }
+
+    try (InputStream truststoreInputStream = new FileInputStream(path)) {
+      KeyStore truststore = SecurityConstants.newTruststore();
+      truststore.load(truststoreInputStream, password.toCharArray());
+      securityLogger.audit(
+          "Truststore on path {} was read by {}.", path, this.getClass().getSimpleName());
+      cachedTruststore = truststore;
+      cachedTruststorePath = path;
+      cachedTruststoreLastModified = lastModified;
+      return truststore;
+    } catch (CertificateException | IOException | KeyStoreException | NoSuchAlgorithmException e) {
+      throw new OcspCheckerException(
+          String.format("Problem loading truststore on path %s", path), e);
+    }
+  }
+
   /**
    * Returns an {@link X509CertificateHolder} containing the issuer of the given {@param name}.
    * Search is performed in the given {@param truststore}.
@@ -275,6 +352,117 @@ private X509CertificateHolder getCertFromTruststoreWithX500Name(
         String.format("Could not find cert matching X500Name of %s.", name) + NOT_VERIFIED_MSG);
   }
 
+  /**
+   * Gets the status of the given {@param cert}, from the cache when a status that has not expired
+   * is cached and from the OCSP servers otherwise. Concurrent lookups of the same certificate share
+   * a single set of OCSP requests, and a cached status is refreshed in the background once three
+   * quarters of its lifetime have passed.
+   *
+   * @param cert - the {@link X509Certificate} to check.
+   * @param ocspRequest - the {@link OCSPReq} to send.
+   * @return the status of the certificate. The future never completes exceptionally.
+   */
+  @VisibleForTesting
+  CompletableFuture<OcspStatus> getOcspStatus(X509Certificate cert, OCSPReq ocspRequest) {
+    CertificateID certId = ocspRequest.getRequestList()[0].getCertID();
+    CompletableFuture<OcspStatus> lookup = new CompletableFuture<>();
+    CompletableFuture<OcspStatus> status =
+        statusCache.compute(certId, (id, cached) -> isStale(cached) ? lookup : cached);
+
+    if (status == lookup) {
+      fetchOcspStatus(cert, ocspRequest)
+          .thenAccept(
+              fetched -> {
+                if (!isCacheable(fetched)) {
+                  statusCache.remove(certId, lookup);
+                }
+                lookup.complete(fetched);
+              });
+    } else {
+      refreshIfDue(certId, status, cert, ocspRequest);
+    }
+    return status;
+  }
+
+  /** A lookup that is still in progress is not stale, so that it can be shared. */
+  private boolean isStale(@Nullable CompletableFuture<OcspStatus> cached) {
+    return cached == null || (cached.isDone() && !isCacheable(cached.join()));
+  }
+
+  private boolean isCacheable(OcspStatus status) {
+    return status.getExpiresAt() != null && clock.instant().isBefore(status.getExpiresAt());
+  }
+
+  private void refreshIfDue(
+      CertificateID certId,
+      CompletableFuture<OcspStatus> cached,
+      X509Certificate cert,
+      OCSPReq ocspRequest) {
+    if (!cached.isDone()
+        || clock.instant().isBefore(cached.join().getRefreshAt())
+        || !refreshing.add(certId)) {
+      return;
+    }
+
+    LOGGER.debug("Refreshing the cached OCSP status of certificate {}", cert.getSerialNumber());
+    fetchOcspStatus(cert, ocspRequest)
+        .thenAccept(
+            refreshed -> {
+              // an unknown status does not replace a status that has not expired yet, but a
+              // revocation always does, so that the next check asks the servers again
+              if (isCacheable(refreshed)) {
+                statusCache.replace(certId, cached, CompletableFuture.completedFuture(refreshed));
+              } else if (refreshed.isRevoked()) {
+                statusCache.remove(certId, cached);
+              }
+              refreshing.remove(certId);
+            });
+  }
+
+  /**
+   * Sends the {@param ocspRequest} to all OCSP servers at once. The status is revoked as soon as
+   * any server reports the certificate as revoked. Otherwise, it is good if any server reports the
+   * certificate as good once all of them have answered, and unknown if none does.
+   *
+   * @param cert - the {@link X509Certificate} to check.
+   * @param ocspRequest - the {@link OCSPReq} to send.
+   * @return the combined status of the certificate. The future never completes exceptionally.
+   */
+  private CompletableFuture<OcspStatus> fetchOcspStatus(X509Certificate cert, OCSPReq ocspRequest) {
+    if (LOGGER.isTraceEnabled()) {
+      logRequest(ocspRequest);
+    }
+
+    List<CompletableFuture<OcspStatus>> responses =
+        getOcspServerUrls(cert).stream()
+            .map(ocspServerUrl -> sendOcspRequest(ocspServerUrl, cert, ocspRequest))
+            .collect(Collectors.toList());
+
+    CompletableFuture<OcspStatus> result = new CompletableFuture<>();
+    responses.forEach(
+        response ->
+            response.thenAccept(
+                status -> {
+                  if (status.isRevoked()) {
+                    result.complete(status);
+                  }
+                }));
+    CompletableFuture.allOf(responses.toArray(new CompletableFuture[0]))
+        .thenRun(
+            () ->
+                result.complete(
+                    responses.stream()
+                        .map(CompletableFuture::join)
+                        .filter(OcspStatus::isGood)
+                        // the combined status only lasts as long as the shortest lived answer
+                        .min(
+                            Comparator.comparing(
+                                OcspStatus::getExpiresAt,
+                                Comparator.nullsFirst(Comparator.naturalOrder())))
+                        .orElseGet(() -> OcspStatus.unknown(null))));
+    return result;
+  }
+
   /**
    * Sends the {@param ocspReq} request to all configured {@code cspServerUrls} & the OCSP server
    * urls optionally given in the given {@param cert}.
@@ -287,54 +475,97 @@ private X509CertificateHolder getCertFromTruststoreWithX500Name(
    */
   @VisibleForTesting
   Map<URI, CertificateStatus> sendOcspRequests(X509Certificate cert, OCSPReq ocspRequest) {
-    Set<URI> urlsToCheck = new HashSet<>();
+    if (LOGGER.isTraceEnabled()) {
+      logRequest(ocspRequest);
+    }
+
+    Map<URI, CompletableFuture<OcspStatus>> responses = new LinkedHashMap<>();
+    for (URI ocspServerUrl : getOcspServerUrls(cert)) {
+      responses.put(ocspServerUrl, sendOcspRequest(ocspServerUrl, cert, ocspRequest));
+    }
+
+    Map<URI, CertificateStatus> ocspStatuses = new HashMap<>();
+    responses.forEach(
+        (ocspServerUrl, response) -> ocspStatuses.put(ocspServerUrl, response.join().getStatus()));
+    return ocspStatuses;
+  }
+
+  /**
+   * @return the configured {@code ocspServerUrls} followed by the OCSP server urls optionally given
+   *     in the given {@param cert}.
+   */
+  private Set<URI> getOcspServerUrls(X509Certificate cert) {
+    Set<URI> urlsToCheck = new LinkedHashSet<>();
     if (ocspServerUrls != null) {
       urlsToCheck.addAll(ocspServerUrls);
     }
 
     // try and pull an OCSP server url off of the cert
     urlsToCheck.addAll(getOcspUrlsFromCert(cert));
+    return urlsToCheck;
+  }
 
-    if (LOGGER.isTraceEnabled()) {
-      logRequest(ocspRequest);
+  /**
+   * Sends the {@param ocspRequest} to the OCSP server at {@param ocspServerUrl} on the request
+   * executor.
+   *
+   * @return the status reported by the server. The status is unknown if there was a problem with
+   *     the request or response. The future never completes exceptionally.
+   */
+  private CompletableFuture<OcspStatus> sendOcspRequest(
+      URI ocspServerUrl, X509Certificate cert, OCSPReq ocspRequest) {
+    CompletableFuture<OcspStatus> response;
+    try {
+      // the client is created on the calling thread because client builders are not thread safe
+      WebClient client =
+          getClientFactory(ocspServerUrl)
+              .getWebClient()
+              .accept("application/ocsp-response")
+              .type("application/ocsp-request");
+      response =
+          CompletableFuture.supplyAsync(
+              () -> requestOcspStatus(ocspServerUrl, client, cert, ocspRequest), executor);
+    } catch (RuntimeException e) {
+      response = new CompletableFuture<>();
+      response.completeExceptionally(e);
     }
 
-    Map<URI, CertificateStatus> ocspStatuses = new HashMap<>();
+    return response.exceptionally(
+        e -> {
+          LOGGER.debug(
+              "Problem sending the OCSP request to the OCSP Server at URL {}." + CONTINUING_MSG,
+              ocspServerUrl,
+              e);
+          return OcspStatus.unknown(ocspServerUrl);
+        });
+  }
 
-    for (URI ocspServerUrl : urlsToCheck) {
-      try {
-        ClientBuilder<WebClient> clientBuilder = factory.getClientBuilder();
-        SecureCxfClientFactory<WebClient> cxfClientFactory =
-            clientBuilder
-                .endpoint(ocspServerUrl.toString())
-                .interfaceClass(WebClient.class)
-                .build();
-        WebClient client =
-            cxfClientFactory
-                .getWebClient()
-                .accept("application/ocsp-response")
-                .type("application/ocsp-request");
-
-        LOGGER.debug("Sending OCSP request to URL: {}", ocspServerUrl);
-        Response response = client.post(ocspRequest.getEncoded());
-        OCSPResp ocspResponse = createOcspResponse(response);
-        if (LOGGER.isTraceEnabled()) {
-          logResponse(ocspResponse);
-        }
-        ocspStatuses.put(ocspServerUrl, getStatusFromOcspResponse(ocspResponse, cert));
-        continue;
-      } catch (IOException | OcspCheckerException | ProcessingException e) {
-        LOGGER.debug(
-            "Problem with the response from the OCSP Server at URL {}." + CONTINUING_MSG,
-            ocspServerUrl,
-            e);
+  private OcspStatus requestOcspStatus(
+      URI ocspServerUrl, WebClient client, X509Certificate cert, OCSPReq ocspRequest) {
+    try {
+      LOGGER.debug("Sending OCSP request to URL: {}", ocspServerUrl);
+      Response response = client.post(ocspRequest.getEncoded());
+      OCSPResp ocspResponse = createOcspResponse(response);
+      if (LOGGER.isTraceEnabled()) {
+        logResponse(ocspResponse);
       }
-      ocspStatuses.put(
+      return getStatusFromOcspResponse(ocspServerUrl, ocspResponse, cert);
+    } catch (IOException | OcspCheckerException | ProcessingException e) {
+      LOGGER.debug(
+          "Problem with the response from the OCSP Server at URL {}." + CONTINUING_MSG,
           ocspServerUrl,
-          new UnknownStatus()); // if ocspServerUrl is null or if there was an exception
+          e);
     }
+    return OcspStatus.unknown(ocspServerUrl); // if there was an exception
+  }
 
-    return ocspStatuses;
+  private SecureCxfClientFactory<WebClient> getClientFactory(URI ocspServerUrl) {
+    return clientFactories.computeIfAbsent(
+        ocspServerUrl,
+        url -> {
+          ClientBuilder<WebClient> clientBuilder = factory.getClientBuilder();
+          return clientBuilder.endpoint(url.toString()).interfaceClass(WebClient.class).build();
+        });
   }
 
   /**
@@ -400,24 +631,25 @@ private OCSPResp createOcspResponse(Response response) throws OcspCheckerExcepti
   }
 
   /**
-   * Gets the {@link CertificateStatus} from the given {@param ocspResponse}.
+   * Gets the {@link OcspStatus} from the given {@param ocspResponse}.
    *
-   * @param ocspResponse - the {@link OCSPResp} to get the {@link CertificateStatus} from.
-   * @return the {@link CertificateStatus} from the given {@param ocspResponse}. Returns an {@link
-   *     UnknownStatus} if the status could not be found.
+   * @param ocspServerUrl - the URL of the OCSP server that sent the response.
+   * @param ocspResponse - the {@link OCSPResp} to get the {@link OcspStatus} from.
+   * @return the {@link OcspStatus} from the given {@param ocspResponse}. Returns an unknown status
+   *     if the status could not be found.
    */
-  private CertificateStatus getStatusFromOcspResponse(
-      OCSPResp ocspResponse, X509Certificate certificate) {
+  private OcspStatus getStatusFromOcspResponse(
+      URI ocspServerUrl, OCSPResp ocspResponse, X509Certificate certificate) {
     try {
       BasicOCSPResp basicResponse = (BasicOCSPResp) ocspResponse.getResponseObject();
 
       if (basicResponse == null) {
-        return new UnknownStatus();
+        return OcspStatus.unknown(ocspServerUrl);
       }
 
       SingleResp[] singleResps = basicResponse.getResponses();
       if (singleResps == null) {
-        return new UnknownStatus();
+        return OcspStatus.unknown(ocspServerUrl);
       }
       SingleResp response =
           Arrays.stream(singleResps)
@@ -432,31 +664,39 @@ private CertificateStatus getStatusFromOcspResponse(
               .orElse(null);
       if (response == null) {
         LOGGER.debug("Certificate status from OCSP response is unknown.");
-        return new UnknownStatus();
+        return OcspStatus.unknown(ocspServerUrl);
       }
       if (response.getCertStatus() == null) {
         LOGGER.debug("Certificate status from OCSP response is good.");
-        return CertificateStatus.GOOD;
       }
-      return response.getCertStatus();
+      return createOcspStatus(ocspServerUrl, response);
     } catch (OCSPException e) {
-      return new UnknownStatus();
+      return OcspStatus.unknown(ocspServerUrl);
     }
   }
 
   /**
-   * Check if any {@link CertificateStatus} in the given {@param ocspStatuses} are revoked.
-   *
-   * @param ocspStatuses - a {@link Map} of OCSP URLs and their respective {@link
-   *     CertificateStatus}.
-   * @return the URL of the first revoked status, or null if no revoked status was found.
+   * Creates an {@link OcspStatus} from the given {@param response}. A good or revoked status can be
+   * cached until the {@code nextUpdate} time of the response. A response without a {@code
+   * nextUpdate} time, one that has already expired, or one that is not valid yet is not cached.
    */
-  private @Nullable URI getFirstRevokedStatusUrl(Map<URI, CertificateStatus> ocspStatuses) {
-    return ocspStatuses.entrySet().stream()
-        .filter(entry -> entry.getValue() instanceof RevokedStatus)
-        .map(Entry::getKey)
-        .findFirst()
-        .orElse(null);
+  private OcspStatus createOcspStatus(URI ocspServerUrl, SingleResp response) {
+    CertificateStatus status = response.getCertStatus();
+    Instant now = clock.instant();
+    Date thisUpdate = response.getThisUpdate();
+    Date nextUpdate = response.getNextUpdate();
+
+    if (status instanceof UnknownStatus
+        || thisUpdate == null
+        || nextUpdate == null
+        || thisUpdate.toInstant().isAfter(now.plus(MAX_CLOCK_SKEW))
+        || !nextUpdate.toInstant().isAfter(now)) {
+      return new OcspStatus(ocspServerUrl, status, null, null);
+    }
+
+    Instant expiresAt = nextUpdate.toInstant();
+    Instant refreshAt = now.plus(Duration.between(now, expiresAt).multipliedBy(3).dividedBy(4));
+    return new OcspStatus(ocspServerUrl, status, expiresAt, refreshAt);
   }
 
   /**
@@ -669,9 +909,12 @@ private void logResponse(OCSPResp response) {
 
   public void setOcspEnabled(boolean ocspEnabled) {
     this.ocspEnabled = ocspEnabled;
+    statusCache.clear();
   }
 
   public void setOcspServerUrls(List<String> ocspServerUrls) {
+    statusCache.clear();
+    clientFactories.clear();
     this.ocspServerUrls =
         ocspServerUrls.stream()
             .map(
@@ -687,6 +930,77 @@ public void setOcspServerUrls(List<String> ocspServerUrls) {
             .collect(Collectors.toList());
   }
 
+  /** Destroy method to shutdown the OCSP request threads when the configuration is deleted. */
+  public void destroy() {
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+        executor.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      executor.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * The revocation status of a certificate as reported by an OCSP server, and how long it can be
+   * cached for.
+   */
+  @VisibleForTesting
+  static class OcspStatus {
+    private final URI url;
+    private final CertificateStatus status;
+    private final Instant expiresAt;
+    private final Instant refreshAt;
+
+    private OcspStatus(
+        @Nullable URI url,
+        @Nullable CertificateStatus status,
+        @Nullable Instant expiresAt,
+        @Nullable Instant refreshAt) {
+      this.url = url;
+      this.status = status;
+      this.expiresAt = expiresAt;
+      this.refreshAt = refreshAt;
+    }
+
+    private static OcspStatus unknown(@Nullable URI url) {
+      return new OcspStatus(url, new UnknownStatus(), null, null);
+    }
+
+    /** @return the URL of the OCSP server that reported the status, if any. */
+    @Nullable
+    URI getUrl() {
+      return url;
+    }
+
+    /** @return the status, which is null when the certificate is good. */
+    @Nullable
+    CertificateStatus getStatus() {
+      return status;
+    }
+
+    boolean isGood() {
+      return status == CertificateStatus.GOOD;
+    }
+
+    boolean isRevoked() {
+      return status instanceof RevokedStatus;
+    }
+
+    /** @return when the status stops being valid, or null if it cannot be cached. */
+    @Nullable
+    Instant getExpiresAt() {
+      return expiresAt;
+    }
+
+    @Nullable
+    Instant getRefreshAt() {
+      return refreshAt;
+    }
+  }
+
   /**
    * Custom exception usually thrown after an unexpected error occurred while validating a
    * certificate. An alert should be posted to the admin console first.
@@ -18,12 +18,14 @@
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import com.google.common.util.concurrent.MoreExecutors;
 import ddf.security.SecurityConstants;
 import ddf.security.audit.SecurityLogger;
 import ddf.security.service.SecurityManager;
@@ -33,9 +35,18 @@
 import java.net.URL;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 import javax.security.auth.x500.X500Principal;
 import javax.ws.rs.core.Response;
@@ -53,6 +64,8 @@
 import org.codice.ddf.cxf.oauth.OAuthSecurity;
 import org.codice.ddf.security.jaxrs.SamlSecurity;
 import org.codice.ddf.security.ocsp.checker.OcspChecker.OcspCheckerException;
+import org.codice.ddf.security.ocsp.checker.OcspChecker.OcspStatus;
+import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -82,6 +95,10 @@ public class OcspCheckerTest {
   private final List<URI> revokedEndpoints = new ArrayList<>();
   private final List<URI> unknownEndpoints = new ArrayList<>();
   private final List<URI> brokenEndpoints = new ArrayList<>();
+  private final Map<URI, OcspResponderStub> responderEndpoints = new LinkedHashMap<>();
+
+  private final TestClock clock = new TestClock();
+  private ExecutorService executor;
 
   // mocks
   @Mock private Response goodResponse;
@@ -158,6 +175,9 @@ public void setup() throws Exception {
           @Override
           public SecureCxfClientFactory<WebClient> build() {
             try {
+              if (responderEndpoints.containsKey(new URI(endpointUrl))) {
+                return responderEndpoints.get(new URI(endpointUrl)).getClientFactory();
+              }
               if (inGoodList.matches(new URI(endpointUrl))) {
                 return goodSecureCxfClientFactory;
               }
@@ -180,6 +200,13 @@ public SecureCxfClientFactory<WebClient> build() {
     when(factory.<WebClient>getClientBuilder()).thenReturn(clientBuilder);
   }
 
+  @After
+  public void cleanup() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
   @AfterClass
   public static void cleanupClass() {
     System.clearProperty(SecurityConstants.TRUSTSTORE_PATH);
@@ -640,6 +667,163 @@ public void testOcspCheckDisabled() throws Exception {
     assertThat(ocspChecker.passesOcspCheck(certs), is(true));
   }
 
+  @Test
+  public void testOcspStatusIsCached() throws Exception {
+    OcspResponderStub responder = addResponder("https://responder:8993");
+    OcspChecker ocspChecker = createOcspChecker(MoreExecutors.newDirectExecutorService());
+
+    X509Certificate[] certs = new X509Certificate[] {trustedCertX509};
+
+    assertThat(ocspChecker.passesOcspCheck(certs), is(true));
+    assertThat(ocspChecker.passesOcspCheck(certs), is(true));
+    assertThat(responder.getRequestCount(), is(1));
+  }
+
+  @Test
+  public void testRevokedOcspStatusIsCached() throws Exception {
+    OcspResponderStub responder = addResponder("https://responder:8993");
+    responder.setRevoked();
+    OcspChecker ocspChecker = createOcspChecker(MoreExecutors.newDirectExecutorService());
+
+    X509Certificate[] certs = new X509Certificate[] {trustedCertX509};
+
+    assertThat(ocspChecker.passesOcspCheck(certs), is(false));
+    assertThat(ocspChecker.passesOcspCheck(certs), is(false));
+    assertThat(responder.getRequestCount(), is(1));
+  }
+
+  @Test
+  public void testOcspStatusExpiresAtNextUpdate() throws Exception {
+    OcspResponderStub responder = addResponder("https://responder:8993");
+    OcspChecker ocspChecker = createOcspChecker(MoreExecutors.newDirectExecutorService());
+
+    X509Certificate[] certs = new X509Certificate[] {trustedCertX509};
+
+    assertThat(ocspChecker.passesOcspCheck(certs), is(true));
+    responder.setRevoked();
+    clock.advance(Duration.ofHours(2));
+
+    assertThat(ocspChecker.passesOcspCheck(certs), is(false));
+    assertThat(responder.getRequestCount(), is(2));
+  }
+
+  @Test
+  public void testOcspStatusWithoutNextUpdateIsNotCached() throws Exception {
+    OcspResponderStub responder = addResponder("https://responder:8993");
+    responder.setValidity(null);
+    OcspChecker ocspChecker = createOcspChecker(MoreExecutors.newDirectExecutorService());
+
+    X509Certificate[] certs = new X509Certificate[] {trustedCertX509};
+
+    assertThat(ocspChecker.passesOcspCheck(certs), is(true));
+    assertThat(ocspChecker.passesOcspCheck(certs), is(true));
+    assertThat(responder.getRequestCount(), is(2));
+  }
+
+  @Test
+  public void testOcspStatusNotValidYetIsNotCached() throws Exception {
+    OcspResponderStub responder = addResponder("https://responder:8993");
+    responder.setThisUpdateOffset(Duration.ofMinutes(30));
+    OcspChecker ocspChecker = createOcspChecker(MoreExecutors.newDirectExecutorService());
+
+    X509Certificate[] certs = new X509Certificate[] {trustedCertX509};
+
+    assertThat(ocspChecker.passesOcspCheck(certs), is(true));
+    assertThat(ocspChecker.passesOcspCheck(certs), is(true));
+    assertThat(responder.getRequestCount(), is(2));
+  }
+
+  @Test
+  public void testOcspStatusIsRefreshedBeforeExpiry() throws Exception {
+    OcspResponderStub responder = addResponder("https://responder:8993");
+    OcspChecker ocspChecker = createOcspChecker(MoreExecutors.newDirectExecutorService());
+
+    X509Certificate[] certs = new X509Certificate[] {trustedCertX509};
+
+    assertThat(ocspChecker.passesOcspCheck(certs), is(true));
+    responder.setRevoked();
+    clock.advance(Duration.ofMinutes(50));
+
+    // the cached status is used while the refreshed status is requested
+    assertThat(ocspChecker.passesOcspCheck(certs), is(true));
+    assertThat(responder.getRequestCount(), is(2));
+
+    assertThat(ocspChecker.passesOcspCheck(certs), is(false));
+    assertThat(responder.getRequestCount(), is(2));
+  }
+
+  @Test
+  public void testRevokedOcspStatusWithoutNextUpdateEvictsCachedStatus() throws Exception {
+    OcspResponderStub responder = addResponder("https://responder:8993");
+    OcspChecker ocspChecker = createOcspChecker(MoreExecutors.newDirectExecutorService());
+
+    X509Certificate[] certs = new X509Certificate[] {trustedCertX509};
+
+    assertThat(ocspChecker.passesOcspCheck(certs), is(true));
+    responder.setRevoked();
+    responder.setValidity(null);
+    clock.advance(Duration.ofMinutes(50));
+
+    assertThat(ocspChecker.passesOcspCheck(certs), is(true));
+    assertThat(responder.getRequestCount(), is(2));
+
+    assertThat(ocspChecker.passesOcspCheck(certs), is(false));
+    assertThat(responder.getRequestCount(), is(3));
+  }
+
+  @Test(timeout = 10000)
+  public void testConcurrentOcspLookupsAreCoalesced() throws Exception {
+    OcspResponderStub responder = addResponder("https://responder:8993");
+    responder.hold();
+    OcspChecker ocspChecker = createOcspChecker(Executors.newCachedThreadPool());
+
+    CompletableFuture<OcspStatus> firstLookup =
+        ocspChecker.getOcspStatus(trustedCertX509, ocspChecker.generateOcspRequest(trustedCertBc));
+    CompletableFuture<OcspStatus> secondLookup =
+        ocspChecker.getOcspStatus(trustedCertX509, ocspChecker.generateOcspRequest(trustedCertBc));
+    responder.release();
+
+    assertThat(secondLookup, is(sameInstance(firstLookup)));
+    assertThat(firstLookup.get().isGood(), is(true));
+    assertThat(responder.getRequestCount(), is(1));
+  }
+
+  @Test(timeout = 10000)
+  public void testRevokedOcspStatusDoesNotWaitForOtherServers() throws Exception {
+    OcspResponderStub slowResponder = addResponder("https://slowresponder:8993");
+    slowResponder.hold();
+    OcspResponderStub revokedResponder = addResponder("https://revokedresponder:8993");
+    revokedResponder.setRevoked();
+    OcspChecker ocspChecker = createOcspChecker(Executors.newCachedThreadPool());
+
+    X509Certificate[] certs = new X509Certificate[] {trustedCertX509};
+
+    try {
+      assertThat(ocspChecker.passesOcspCheck(certs), is(false));
+      assertThat(slowResponder.getRequestCount(), is(0));
+    } finally {
+      slowResponder.release();
+    }
+  }
+
+  private OcspResponderStub addResponder(String url) throws Exception {
+    OcspResponderStub responder = new OcspResponderStub(clock);
+    responderEndpoints.put(new URI(url), responder);
+    return responder;
+  }
+
+  private OcspChecker createOcspChecker(ExecutorService executor) throws URISyntaxException {
+    this.executor = executor;
+    brokenEndpoints.add(new URI(EMBEDDED_OCSP_SERVER_URL));
+
+    OcspChecker ocspChecker = new OcspChecker(factory, eventAdmin, executor, clock);
+    ocspChecker.setSecurityLogger(mock(SecurityLogger.class));
+    ocspChecker.setOcspEnabled(true);
+    ocspChecker.setOcspServerUrls(
+        responderEndpoints.keySet().stream().map(URI::toString).collect(Collectors.toList()));
+    return ocspChecker;
+  }
+
   private static X509Certificate getX509Certificate(String filename) throws Exception {
     try (InputStream certInputStream =
         OcspCheckerTest.class.getClassLoader().getResourceAsStream(filename)) {
@@ -661,6 +845,29 @@ public InputStream answer(InvocationOnMock invocationOnMock) {
     };
   }
 
+  private static class TestClock extends Clock {
+    private volatile Instant now = Instant.now();
+
+    void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+
   private void assertStatuses(Map<URI, CertificateStatus> ocspStatuses) {
     goodEndpoints.forEach(endpoint -> assertNull(ocspStatuses.get(endpoint)));
     revokedEndpoints.forEach(
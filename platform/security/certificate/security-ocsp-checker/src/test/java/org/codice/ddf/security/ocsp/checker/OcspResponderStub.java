@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.security.ocsp.checker;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.ws.rs.core.Response;
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.CRLReason;
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.cert.ocsp.BasicOCSPRespBuilder;
+import org.bouncycastle.cert.ocsp.CertificateStatus;
+import org.bouncycastle.cert.ocsp.OCSPReq;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.bouncycastle.cert.ocsp.OCSPRespBuilder;
+import org.bouncycastle.cert.ocsp.Req;
+import org.bouncycastle.cert.ocsp.RespID;
+import org.bouncycastle.cert.ocsp.RevokedStatus;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.codice.ddf.cxf.client.SecureCxfClientFactory;
+
+/**
+ * An in-process OCSP server. It answers the OCSP requests posted to its {@link WebClient} with
+ * signed OCSP responses whose status and validity period can be changed between requests.
+ */
+class OcspResponderStub {
+
+  private final Clock clock;
+
+  private final PrivateKey signingKey;
+
+  private final SecureCxfClientFactory<WebClient> clientFactory;
+
+  private final AtomicInteger requestCount = new AtomicInteger();
+
+  private volatile CertificateStatus status = CertificateStatus.GOOD;
+
+  private volatile Duration thisUpdateOffset = Duration.ZERO;
+
+  private volatile Duration validity = Duration.ofHours(1);
+
+  private volatile CountDownLatch release = new CountDownLatch(0);
+
+  @SuppressWarnings("unchecked")
+  OcspResponderStub(Clock clock) throws Exception {
+    this.clock = clock;
+
+    KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+    keyPairGenerator.initialize(2048);
+    signingKey = keyPairGenerator.generateKeyPair().getPrivate();
+
+    WebClient webClient = mock(WebClient.class);
+    when(webClient.type(anyString())).thenReturn(webClient);
+    when(webClient.accept(anyString())).thenReturn(webClient);
+    when(webClient.post(any())).thenAnswer(invocation -> respond(invocation.getArgument(0)));
+    clientFactory = mock(SecureCxfClientFactory.class);
+    when(clientFactory.getWebClient()).thenReturn(webClient);
+  }
+
+  SecureCxfClientFactory<WebClient> getClientFactory() {
+    return clientFactory;
+  }
+
+  int getRequestCount() {
+    return requestCount.get();
+  }
+
+  void setGood() {
+    status = CertificateStatus.GOOD;
+  }
+
+  void setRevoked() {
+    status = new RevokedStatus(Date.from(clock.instant()), CRLReason.keyCompromise);
+  }
+
+  /** Sets how far from the current time the {@code thisUpdate} time of responses is. */
+  void setThisUpdateOffset(Duration thisUpdateOffset) {
+    this.thisUpdateOffset = thisUpdateOffset;
+  }
+
+  /** Sets how long responses are valid for, or null to leave out their {@code nextUpdate} time. */
+  void setValidity(Duration validity) {
+    this.validity = validity;
+  }
+
+  /** Makes requests wait for {@link #release()} before they are answered. */
+  void hold() {
+    release = new CountDownLatch(1);
+  }
+
+  void release() {
+    release.countDown();
+  }
+
+  private Response respond(byte[] encodedRequest) throws Exception {
+    release.await();
+    requestCount.incrementAndGet();
+
+    Instant now = clock.instant();
+    Date thisUpdate = Date.from(now.plus(thisUpdateOffset));
+    Date nextUpdate = validity == null ? null : Date.from(now.plus(validity));
+
+    BasicOCSPRespBuilder builder =
+        new BasicOCSPRespBuilder(new RespID(new X500Name("CN=OCSP Responder Stub")));
+    for (Req request : new OCSPReq(encodedRequest).getRequestList()) {
+      builder.addResponse(request.getCertID(), status, thisUpdate, nextUpdate);
+    }
+    // a signer can only sign one response at a time
+    ContentSigner signer = new JcaContentSignerBuilder("SHA256withRSA").build(signingKey);
+    BasicOCSPResp basicResponse = builder.build(signer, null, Date.from(now));
+    OCSPResp ocspResponse = new OCSPRespBuilder().build(OCSPRespBuilder.SUCCESSFUL, basicResponse);
+
+    Response response = mock(Response.class);
+    when(response.getEntity()).thenReturn(new ByteArrayInputStream(ocspResponse.getEncoded()));
+    return response;
+  }
+}
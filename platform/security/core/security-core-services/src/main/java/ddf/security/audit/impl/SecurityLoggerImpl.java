@@ -13,6 +13,7 @@
  */
 package ddf.security.audit.impl;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.net.HttpHeaders;
 import ddf.security.SecurityConstants;
 import ddf.security.SubjectOperations;
@@ -22,118 +23,325 @@
 import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
 import javax.servlet.http.HttpServletRequest;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringEscapeUtils;
 import org.apache.commons.lang.StringUtils;
-import org.apache.cxf.message.Message;
 import org.apache.cxf.message.MessageUtils;
 import org.apache.cxf.phase.PhaseInterceptorChain;
 import org.apache.cxf.transport.http.AbstractHTTPDestination;
 import org.apache.karaf.jaas.boot.principal.UserPrincipal;
+import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.apache.logging.log4j.message.TimestampMessage;
 import org.apache.logging.log4j.util.Supplier;
 import org.apache.shiro.subject.Subject;
 import org.apache.shiro.util.ThreadContext;
+import org.codice.ddf.platform.util.StandardThreadFactoryBuilder;
 import org.codice.ddf.security.util.ThreadContextProperties;
+import org.slf4j.LoggerFactory;
 
-/** Class that contains utility methods for logging common security messages. */
+/**
+ * Class that contains utility methods for logging common security messages.
+ *
+ * <p>The details that depend on the calling thread, such as the name and attributes of its subject,
+ * its trace id and its client address, are captured in an {@link AuditRecord} when a message is
+ * logged. The record is then formatted and written by a single writer thread, so that callers do
+ * not wait on the audit log. The number of records waiting to be written is bounded by the {@code
+ * org.codice.ddf.platform.auditQueueSize} system property. When the queue is full, callers wait for
+ * room in it, unless the {@code org.codice.ddf.platform.auditQueueOverflow} system property is
+ * {@code drop}, in which case the record is dropped and the number of dropped records is written to
+ * the audit log once there is room again. Records that are still queued when the logger is
+ * destroyed are written before {@link #destroy()} returns, and if the writer thread stops, callers
+ * write their records themselves.
+ *
+ * <p>The name of the thread that logged a record is put in the log4j thread context under {@link
+ * #THREAD_KEY} while the record is written, for layouts to show in place of the writer thread.
+ */
 public final class SecurityLoggerImpl implements ddf.security.audit.SecurityLogger {
 
   private static final Logger LOGGER = LogManager.getLogger(SecurityConstants.SECURITY_LOGGER);
 
+  private static final org.slf4j.Logger WRITER_LOGGER =
+      LoggerFactory.getLogger(SecurityLoggerImpl.class);
+
   private static final String NO_USER = "UNKNOWN";
 
   private static final boolean REQUIRE_AUDIT_ENCODING =
       Boolean.parseBoolean(
           System.getProperty("org.codice.ddf.platform.requireAuditEncoding", "false"));
 
+  private static final int QUEUE_SIZE =
+      Integer.getInteger("org.codice.ddf.platform.auditQueueSize", 8192);
+
+  private static final boolean DROP_WHEN_FULL =
+      "drop"
+          .equalsIgnoreCase(
+              System.getProperty("org.codice.ddf.platform.auditQueueOverflow", "block"));
+
+  private static final long POLL_INTERVAL_MILLIS = 100;
+
+  private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
   private static final String SUBJECT = "Subject: ";
 
   private static final String EXTRA_ATTRIBUTES_PROP = "security.logger.extra_attributes";
 
   public static final String TRACE_ID = "trace-id";
 
+  /** The thread context key of the name of the thread that logged the record being written. */
+  public static final String THREAD_KEY = "audit.thread";
+
   private static final String LOOPBACK_ADDRESS = "127.0.0.1";
 
   private final SubjectOperations subjectOperations;
 
+  private final BlockingQueue<AuditRecord> queue;
+
+  private final boolean dropWhenFull;
+
+  private final Predicate<Level> auditEnabled;
+
+  private final BiConsumer<Level, Message> auditLog;
+
+  private final ExecutorService writer;
+
+  private final AtomicLong droppedRecords = new AtomicLong();
+
+  private final AtomicLong failedRecords = new AtomicLong();
+
+  private volatile boolean shutdown;
+
+  private volatile boolean writerStopped;
+
   public SecurityLoggerImpl(SubjectOperations subjectOperations) {
+    this(
+        subjectOperations,
+        QUEUE_SIZE,
+        DROP_WHEN_FULL,
+        LOGGER::isEnabled,
+        (level, message) -> LOGGER.log(level, message, message.getThrowable()),
+        Executors.newSingleThreadExecutor(
+            StandardThreadFactoryBuilder.newThreadFactory("securityLoggerThread")));
+  }
+
+  @VisibleForTesting
+  SecurityLoggerImpl(
+      SubjectOperations subjectOperations,
+      int queueSize,
+      boolean dropWhenFull,
+      Predicate<Level> auditEnabled,
+      BiConsumer<Level, Message> auditLog,
+      ExecutorService writer) {
     this.subjectOperations = subjectOperations;
+    this.queue = new ArrayBlockingQueue<>(queueSize);
+    this.dropWhenFull = dropWhenFull;
+    this.auditEnabled = auditEnabled;
+    this.auditLog = auditLog;
+    this.writer = writer;
+    writer.execute(this::writeRecords);
   }
 
-  private String getUser(Subject subject) {
+  /** Stops the writer thread once every queued record has been written. */
+  public void destroy() {
+    shutdown = true;
+    writer.shutdown();
     try {
-      if (subject == null) {
-        subject = ThreadContext.getSubject();
+      if (!writer.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+        writer.shutdownNow();
       }
-      if (subject == null) {
-        javax.security.auth.Subject javaSubject =
-            javax.security.auth.Subject.getSubject(AccessController.getContext());
-        if (javaSubject != null) {
-          Set<UserPrincipal> userPrincipal = javaSubject.getPrincipals(UserPrincipal.class);
-          if (userPrincipal != null && !userPrincipal.isEmpty()) {
-            return userPrincipal.toArray(new UserPrincipal[1])[0].getName();
+    } catch (InterruptedException e) {
+      writer.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+    // anything the writer did not get to is written here
+    drainQueue();
+    writeDroppedRecords();
+  }
+
+  /** The number of audit records that could not be written to the audit log. */
+  @VisibleForTesting
+  long getFailedRecords() {
+    return failedRecords.get();
+  }
+
+  private void log(Level level, Subject subject, String message, Supplier[] paramSuppliers) {
+    if (auditEnabled.test(level)) {
+      log(new AuditRecord(level, subject, message, getAll(paramSuppliers), null));
+    }
+  }
+
+  private void log(Level level, Subject subject, String message, Object[] params, Throwable t) {
+    if (auditEnabled.test(level)) {
+      log(new AuditRecord(level, subject, message, params, t));
+    }
+  }
+
+  private void log(AuditRecord record) {
+    if (isWriterStopped()) {
+      write(record);
+      return;
+    }
+
+    if (dropWhenFull) {
+      if (!queue.offer(record)) {
+        droppedRecords.incrementAndGet();
+      }
+    } else {
+      try {
+        while (!queue.offer(record, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+          // nothing takes records off a full queue once the writer has stopped
+          if (isWriterStopped()) {
+            write(record);
+            return;
           }
         }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        write(record);
+        return;
+      }
+    }
+
+    // the writer may have stopped before the record was queued
+    if (isWriterStopped()) {
+      drainQueue();
+    }
+  }
+
+  private boolean isWriterStopped() {
+    return shutdown || writerStopped;
+  }
+
+  private void writeRecords() {
+    try {
+      while (!shutdown || !queue.isEmpty()) {
+        AuditRecord record = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        if (record != null) {
+          write(record);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      writerStopped = true;
+      if (!shutdown) {
+        WRITER_LOGGER.error(
+            "The audit log writer thread stopped. Audit records are written by the threads that log them.");
+      }
+    }
+  }
+
+  private void drainQueue() {
+    AuditRecord record;
+    while ((record = queue.poll()) != null) {
+      write(record);
+    }
+  }
+
+  private void writeDroppedRecords() {
+    long dropped = droppedRecords.getAndSet(0);
+    if (dropped > 0) {
+      auditLog.accept(
+          Level.WARN,
+          new ParameterizedMessage(
+              "{} audit records were dropped because the audit queue was full.", dropped));
+    }
+  }
+
+  private void write(AuditRecord record) {
+    writeDroppedRecords();
+
+    String threadName = org.apache.logging.log4j.ThreadContext.get(THREAD_KEY);
+    org.apache.logging.log4j.ThreadContext.put(THREAD_KEY, record.threadName);
+    try {
+      auditLog.accept(record.level, format(record));
+    } catch (RuntimeException e) {
+      WRITER_LOGGER.error(
+          "Unable to write audit record \"{}\". {} audit records could not be written.",
+          record.message,
+          failedRecords.incrementAndGet(),
+          e);
+    } catch (Error e) {
+      failedRecords.incrementAndGet();
+      throw e;
+    } finally {
+      if (threadName == null) {
+        org.apache.logging.log4j.ThreadContext.remove(THREAD_KEY);
       } else {
-        return subjectOperations.getName(subject, NO_USER);
+        org.apache.logging.log4j.ThreadContext.put(THREAD_KEY, threadName);
       }
+    }
+  }
+
+  private Message format(AuditRecord record) {
+    StringBuilder messageBuilder = new StringBuilder();
+    appendAdditionalAttributes(record, messageBuilder);
+    String text = messageBuilder.append(cleanAndEncode(record.message)).toString();
+
+    Message message =
+        record.params == null
+            ? new SimpleMessage(text)
+            : new ParameterizedMessage(text, record.params);
+    return new AuditMessage(message, record.throwable, record.timestamp);
+  }
+
+  private String getUser(Subject subject) {
+    try {
+      if (subject == null) {
+        String javaSubjectUser = getJavaSubjectUser();
+        return javaSubjectUser == null ? NO_USER : javaSubjectUser;
+      }
+      return subjectOperations.getName(subject, NO_USER);
     } catch (Exception e) {
       // ignore and return NO_USER
     }
     return NO_USER;
   }
 
-  private void appendAdditionalAttributes(Message message, StringBuilder messageBuilder) {
-    appendAdditionalAttributes(null, message, messageBuilder);
+  private static String getJavaSubjectUser() {
+    try {
+      javax.security.auth.Subject javaSubject =
+          javax.security.auth.Subject.getSubject(AccessController.getContext());
+      if (javaSubject != null) {
+        Set<UserPrincipal> userPrincipal = javaSubject.getPrincipals(UserPrincipal.class);
+        if (userPrincipal != null && !userPrincipal.isEmpty()) {
+          return userPrincipal.toArray(new UserPrincipal[1])[0].getName();
+        }
+      }
+    } catch (Exception e) {
+      // ignore and return no user
+    }
+    return null;
   }
 
-  private void appendAdditionalAttributes(
-      Subject subject, Message message, StringBuilder messageBuilder) {
-
-    String traceId = ThreadContextProperties.getTraceId();
+  private void appendAdditionalAttributes(AuditRecord record, StringBuilder messageBuilder) {
+    String traceId = record.traceId;
     if (StringUtils.isNotEmpty(traceId)) {
       messageBuilder.append(TRACE_ID).append(" ").append(traceId).append(", ");
     } else {
       messageBuilder.append(TRACE_ID).append(" ").append("none").append(", ");
     }
 
-    String user = getUser(subject);
-    messageBuilder.append(SUBJECT).append(user).append(", ");
-    appendConditionalAttributes(subject, messageBuilder);
+    messageBuilder.append(SUBJECT).append(record.user).append(", ");
+    messageBuilder.append(record.extraAttributes);
 
-    if (message == null) {
-      addIpAndPort(
-          ThreadContextProperties.getRemoteAddress(),
-          ThreadContextProperties.getRemotePort(),
-          messageBuilder);
-    } else {
-      HttpServletRequest servletRequest =
-          (HttpServletRequest) message.get(AbstractHTTPDestination.HTTP_REQUEST);
-      // pull out the ip and port of the incoming connection so we know
-      // who is trying to get access
-      if (servletRequest != null) {
-        String clientIP;
-        String clientPort;
-        String xForwardedFor = servletRequest.getHeader(HttpHeaders.X_FORWARDED_FOR);
-        if (StringUtils.isNotEmpty(xForwardedFor)) {
-          // A proxy has set the client information in the x-forwarded-* headers.
-          clientIP = xForwardedFor;
-          clientPort = servletRequest.getHeader(HttpHeaders.X_FORWARDED_PORT);
-        } else {
-          // otherwise the remote_addr/remote_port headers should contain the actual client info
-          clientIP = servletRequest.getRemoteAddr();
-          clientPort = Integer.toString(servletRequest.getRemotePort());
-        }
-        addIpAndPort(clientIP, clientPort, messageBuilder);
-      } else if (MessageUtils.isOutbound(message)) {
-        messageBuilder
-            .append(" Outbound endpoint: ")
-            .append(message.get(Message.ENDPOINT_ADDRESS))
-            .append(", ");
-      }
+    if (record.hasClientAddress) {
+      addIpAndPort(record.clientAddress, record.clientPort, messageBuilder);
+    } else if (record.outboundEndpoint != null) {
+      messageBuilder.append(" Outbound endpoint: ").append(record.outboundEndpoint).append(", ");
     }
   }
 
@@ -159,6 +367,7 @@ private void addIpAndPort(String remoteAddress, String remotePort, StringBuilder
       messageBuilder.append(" ");
     }
   }
+
   /**
    * Appends any additional attributes as defined in the comma-delimited system property {@link
    * #EXTRA_ATTRIBUTES_PROP}.
@@ -173,10 +382,6 @@ private void appendConditionalAttributes(Subject subject, StringBuilder messageB
       return;
     }
 
-    if (subject == null) {
-      subject = ThreadContext.getSubject();
-    }
-
     List<String> attributeList = Arrays.asList(attributes.split(","));
     for (String attribute : attributeList) {
       List<String> attributeValueList = subjectOperations.getAttribute(subject, attribute);
@@ -206,6 +411,170 @@ private String cleanAndEncode(String message) {
     return clean;
   }
 
+  private static Object[] getAll(Supplier... paramSuppliers) {
+    Object[] params = new Object[paramSuppliers.length];
+    for (int i = 0; i < paramSuppliers.length; i++) {
+      params[i] = paramSuppliers[i].get();
+    }
+    return params;
+  }
+
+  /**
+   * Returns a value that formats the same way as the parameter at the time it was logged. Mutable
+   * parameters are turned into strings on the calling thread, since they could change before the
+   * record is written.
+   */
+  private static Object snapshot(Object param) {
+    if (param == null
+        || param instanceof String
+        || param instanceof Boolean
+        || param instanceof Character
+        || param instanceof Integer
+        || param instanceof Long
+        || param instanceof Enum
+        || param instanceof Throwable) {
+      return param;
+    }
+    if (param instanceof Object[]) {
+      return Arrays.deepToString((Object[]) param);
+    }
+    return String.valueOf(param);
+  }
+
+  /**
+   * The parts of an audit message that have to be captured on the thread that logs it. The subject
+   * is resolved to its name and extra attributes here, since it may change or be logged out before
+   * the record is written.
+   */
+  private final class AuditRecord {
+
+    private final Level level;
+
+    private final long timestamp = System.currentTimeMillis();
+
+    private final String threadName = Thread.currentThread().getName();
+
+    private final String traceId = ThreadContextProperties.getTraceId();
+
+    private final String user;
+
+    private final String extraAttributes;
+
+    private final boolean hasClientAddress;
+
+    private final String clientAddress;
+
+    private final String clientPort;
+
+    private final String outboundEndpoint;
+
+    private final String message;
+
+    private final Object[] params;
+
+    private final Throwable throwable;
+
+    private AuditRecord(
+        Level level, Subject subject, String message, Object[] params, Throwable throwable) {
+      this.level = level;
+      Subject currentSubject = subject == null ? ThreadContext.getSubject() : subject;
+      this.user = getUser(currentSubject);
+      StringBuilder attributes = new StringBuilder();
+      appendConditionalAttributes(currentSubject, attributes);
+      this.extraAttributes = attributes.toString();
+      this.message = message;
+      this.throwable = throwable;
+
+      if (params == null) {
+        this.params = null;
+      } else {
+        this.params = new Object[params.length];
+        for (int i = 0; i < params.length; i++) {
+          this.params[i] = snapshot(params[i]);
+        }
+      }
+
+      org.apache.cxf.message.Message cxfMessage = PhaseInterceptorChain.getCurrentMessage();
+      if (cxfMessage == null) {
+        hasClientAddress = true;
+        clientAddress = ThreadContextProperties.getRemoteAddress();
+        clientPort = ThreadContextProperties.getRemotePort();
+        outboundEndpoint = null;
+        return;
+      }
+
+      HttpServletRequest servletRequest =
+          (HttpServletRequest) cxfMessage.get(AbstractHTTPDestination.HTTP_REQUEST);
+      // pull out the ip and port of the incoming connection so we know
+      // who is trying to get access
+      if (servletRequest != null) {
+        hasClientAddress = true;
+        String xForwardedFor = servletRequest.getHeader(HttpHeaders.X_FORWARDED_FOR);
+        if (StringUtils.isNotEmpty(xForwardedFor)) {
+          // A proxy has set the client information in the x-forwarded-* headers.
+          clientAddress = xForwardedFor;
+          clientPort = servletRequest.getHeader(HttpHeaders.X_FORWARDED_PORT);
+        } else {
+          // otherwise the remote_addr/remote_port headers should contain the actual client info
+          clientAddress = servletRequest.getRemoteAddr();
+          clientPort = Integer.toString(servletRequest.getRemotePort());
+        }
+        outboundEndpoint = null;
+      } else {
+        hasClientAddress = false;
+        clientAddress = null;
+        clientPort = null;
+        outboundEndpoint =
+            MessageUtils.isOutbound(cxfMessage)
+                ? String.valueOf(cxfMessage.get(org.apache.cxf.message.Message.ENDPOINT_ADDRESS))
+                : null;
+      }
+    }
+  }
+
+  /** An audit message that keeps the time it was logged at, rather than the time it is written. */
+  private static final class AuditMessage implements Message, TimestampMessage {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Message message;
+
+    private final Throwable throwable;
+
+    private final long timestamp;
+
+    private AuditMessage(Message message, Throwable throwable, long timestamp) {
+      this.message = message;
+      this.throwable = throwable;
+      this.timestamp = timestamp;
+    }
+
+    @Override
+    public String getFormattedMessage() {
+      return message.getFormattedMessage();
+    }
+
+    @Override
+    public String getFormat() {
+      return message.getFormat();
+    }
+
+    @Override
+    public Object[] getParameters() {
+      return message.getParameters();
+    }
+
+    @Override
+    public Throwable getThrowable() {
+      return throwable == null ? message.getThrowable() : throwable;
+    }
+
+    @Override
+    public long getTimestamp() {
+      return timestamp;
+    }
+  }
+
   /**
    * Logs a message object with the {@link org.apache.logging.log4j.Level#INFO INFO} level.
    *
@@ -214,9 +583,7 @@ private String cleanAndEncode(String message) {
    */
   @Override
   public void audit(String message, Subject subject) {
-    StringBuilder messageBuilder = new StringBuilder();
-    appendAdditionalAttributes(subject, PhaseInterceptorChain.getCurrentMessage(), messageBuilder);
-    LOGGER.info(messageBuilder.append(cleanAndEncode(message)).toString());
+    log(Level.INFO, subject, message, null, null);
   }
 
   /**
@@ -226,9 +593,7 @@ public void audit(String message, Subject subject) {
    */
   @Override
   public void audit(String message) {
-    StringBuilder messageBuilder = new StringBuilder();
-    appendAdditionalAttributes(PhaseInterceptorChain.getCurrentMessage(), messageBuilder);
-    LOGGER.info(messageBuilder.append(cleanAndEncode(message)).toString());
+    log(Level.INFO, null, message, null, null);
   }
 
   /**
@@ -240,9 +605,7 @@ public void audit(String message) {
    */
   @Override
   public void audit(String message, Subject subject, Object... params) {
-    StringBuilder messageBuilder = new StringBuilder();
-    appendAdditionalAttributes(subject, PhaseInterceptorChain.getCurrentMessage(), messageBuilder);
-    LOGGER.info(messageBuilder.append(cleanAndEncode(message)).toString(), params);
+    log(Level.INFO, subject, message, params, null);
   }
 
   /**
@@ -253,9 +616,7 @@ public void audit(String message, Subject subject, Object... params) {
    */
   @Override
   public void audit(String message, Object... params) {
-    StringBuilder messageBuilder = new StringBuilder();
-    appendAdditionalAttributes(PhaseInterceptorChain.getCurrentMessage(), messageBuilder);
-    LOGGER.info(messageBuilder.append(cleanAndEncode(message)).toString(), params);
+    log(Level.INFO, null, message, params, null);
   }
 
   /**
@@ -269,9 +630,7 @@ public void audit(String message, Object... params) {
    */
   @Override
   public void audit(String message, Subject subject, Supplier... paramSuppliers) {
-    StringBuilder messageBuilder = new StringBuilder();
-    appendAdditionalAttributes(subject, PhaseInterceptorChain.getCurrentMessage(), messageBuilder);
-    LOGGER.info(messageBuilder.append(cleanAndEncode(message)).toString(), paramSuppliers);
+    log(Level.INFO, subject, message, paramSuppliers);
   }
 
   /**
@@ -284,9 +643,7 @@ public void audit(String message, Subject subject, Supplier... paramSuppliers) {
    */
   @Override
   public void audit(String message, Supplier... paramSuppliers) {
-    StringBuilder messageBuilder = new StringBuilder();
-    appendAdditionalAttributes(PhaseInterceptorChain.getCurrentMessage(), messageBuilder);
-    LOGGER.info(messageBuilder.append(cleanAndEncode(message)).toString(), paramSuppliers);
+    log(Level.INFO, null, message, paramSuppliers);
   }
 
   /**
@@ -299,9 +656,7 @@ public void audit(String message, Supplier... paramSuppliers) {
    */
   @Override
   public void audit(String message, Subject subject, Throwable t) {
-    StringBuilder messageBuilder = new StringBuilder();
-    appendAdditionalAttributes(subject, PhaseInterceptorChain.getCurrentMessage(), messageBuilder);
-    LOGGER.info(messageBuilder.append(cleanAndEncode(message)).toString(), t);
+    log(Level.INFO, subject, message, null, t);
   }
 
   /**
@@ -313,9 +668,7 @@ public void audit(String message, Subject subject, Throwable t) {
    */
   @Override
   public void audit(String message, Throwable t) {
-    StringBuilder messageBuilder = new StringBuilder();
-    appendAdditionalAttributes(PhaseInterceptorChain.getCurrentMessage(), messageBuilder);
-    LOGGER.info(messageBuilder.append(cleanAndEncode(message)).toString(), t);
+    log(Level.INFO, null, message, null, t);
   }
 
   /**
@@ -326,9 +679,7 @@ public void audit(String message, Throwable t) {
    */
   @Override
   public void auditWarn(String message, Subject subject) {
-    StringBuilder messageBuilder = new StringBuilder();
-    appendAdditionalAttributes(subject, PhaseInterceptorChain.getCurrentMessage(), messageBuilder);
-    LOGGER.warn(messageBuilder.append(cleanAndEncode(message)).toString());
+    log(Level.WARN, subject, message, null, null);
   }
 
   /**
@@ -338,9 +689,7 @@ public void auditWarn(String message, Subject subject) {
    */
   @Override
   public void auditWarn(String message) {
-    StringBuilder messageBuilder = new StringBuilder();
-    appendAdditionalAttributes(PhaseInterceptorChain.getCurrentMessage(), messageBuilder);
-    LOGGER.warn(messageBuilder.append(cleanAndEncode(message)).toString());
+    log(Level.WARN, null, message, null, null);
   }
 
   /**
@@ -352,9 +701,7 @@ public void auditWarn(String message) {
    */
   @Override
   public void auditWarn(String message, Subject subject, Object... params) {
-    StringBuilder messageBuilder = new StringBuilder();
-    appendAdditionalAttributes(subject, PhaseInterceptorChain.getCurrentMessage(), messageBuilder);
-    LOGGER.warn(messageBuilder.append(cleanAndEncode(message)).toString(), params);
+    log(Level.WARN, subject, message, params, null);
   }
 
   /**
@@ -365,9 +712,7 @@ public void auditWarn(String message, Subject subject, Object... params) {
    */
   @Override
   public void auditWarn(String message, Object... params) {
-    StringBuilder messageBuilder = new StringBuilder();
-    appendAdditionalAttributes(PhaseInterceptorChain.getCurrentMessage(), messageBuilder);
-    LOGGER.warn(messageBuilder.append(cleanAndEncode(message)).toString(), params);
+    log(Level.WARN, null, message, params, null);
   }
 
   /**
@@ -381,9 +726,7 @@ public void auditWarn(String message, Object... params) {
    */
   @Override
   public void auditWarn(String message, Subject subject, Supplier... paramSuppliers) {
-    StringBuilder messageBuilder = new StringBuilder();
-    appendAdditionalAttributes(subject, PhaseInterceptorChain.getCurrentMessage(), messageBuilder);
-    LOGGER.warn(messageBuilder.append(cleanAndEncode(message)).toString(), paramSuppliers);
+    log(Level.WARN, subject, message, paramSuppliers);
   }
 
   /**
@@ -396,9 +739,7 @@ public void auditWarn(String message, Subject subject, Supplier... paramSupplier
    */
   @Override
   public void auditWarn(String message, Supplier... paramSuppliers) {
-    StringBuilder messageBuilder = new StringBuilder();
-    appendAdditionalAttributes(PhaseInterceptorChain.getCurrentMessage(), messageBuilder);
-    LOGGER.warn(messageBuilder.append(cleanAndEncode(message)).toString(), paramSuppliers);
+    log(Level.WARN, null, message, paramSuppliers);
   }
 
   /**
@@ -411,9 +752,7 @@ public void auditWarn(String message, Supplier... paramSuppliers) {
    */
   @Override
   public void auditWarn(String message, Subject subject, Throwable t) {
-    StringBuilder messageBuilder = new StringBuilder();
-    appendAdditionalAttributes(subject, PhaseInterceptorChain.getCurrentMessage(), messageBuilder);
-    LOGGER.warn(messageBuilder.append(cleanAndEncode(message)).toString(), t);
+    log(Level.WARN, subject, message, null, t);
   }
 
   /**
@@ -425,8 +764,6 @@ public void auditWarn(String message, Subject subject, Throwable t) {
    */
   @Override
   public void auditWarn(String message, Throwable t) {
-    StringBuilder messageBuilder = new StringBuilder();
-    appendAdditionalAttributes(PhaseInterceptorChain.getCurrentMessage(), messageBuilder);
-    LOGGER.warn(messageBuilder.append(cleanAndEncode(message)).toString(), t);
+    log(Level.WARN, null, message, null, t);
   }
 }
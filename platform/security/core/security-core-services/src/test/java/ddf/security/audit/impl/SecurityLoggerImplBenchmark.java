@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.security.audit.impl;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import ddf.security.SubjectOperations;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.apache.shiro.subject.Subject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the time an audit call takes on the calling thread, when the record is handed to the
+ * writer thread and when it is formatted and written by the caller, which is what a destroyed
+ * logger does.
+ *
+ * <p>Run {@link #main(String[])} from the test classpath after {@code mvn test-compile} with the
+ * {@code benchmarks} profile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SecurityLoggerImplBenchmark {
+
+  private static final int QUEUE_SIZE = 8192;
+
+  private Subject subject;
+
+  private SecurityLoggerImpl asynchronousLogger;
+
+  private SecurityLoggerImpl synchronousLogger;
+
+  private volatile String lastMessage;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    subject = mock(Subject.class);
+    SubjectOperations subjectOperations = mock(SubjectOperations.class);
+    when(subjectOperations.getName(any(Subject.class), anyString())).thenReturn("alice");
+
+    asynchronousLogger = newSecurityLogger(subjectOperations);
+    synchronousLogger = newSecurityLogger(subjectOperations);
+    synchronousLogger.destroy();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    asynchronousLogger.destroy();
+  }
+
+  @Benchmark
+  public void asynchronous() {
+    asynchronousLogger.audit("Query {} returned {} results", subject, "anyText like 'ddf'", 42);
+  }
+
+  @Benchmark
+  public void synchronous() {
+    synchronousLogger.audit("Query {} returned {} results", subject, "anyText like 'ddf'", 42);
+  }
+
+  private SecurityLoggerImpl newSecurityLogger(SubjectOperations subjectOperations) {
+    return new SecurityLoggerImpl(
+        subjectOperations,
+        QUEUE_SIZE,
+        false,
+        level -> true,
+        (level, message) -> lastMessage = message.getFormattedMessage(),
+        Executors.newSingleThreadExecutor());
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder().include(SecurityLoggerImplBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
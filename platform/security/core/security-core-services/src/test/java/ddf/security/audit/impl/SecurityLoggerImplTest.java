@@ -0,0 +1,319 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.security.audit.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import ddf.security.SubjectOperations;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.ThreadContext;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.message.TimestampMessage;
+import org.apache.logging.log4j.util.Supplier;
+import org.apache.shiro.subject.Subject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SecurityLoggerImplTest {
+
+  private final List<Level> levels = Collections.synchronizedList(new ArrayList<>());
+
+  private final List<Message> messages = Collections.synchronizedList(new ArrayList<>());
+
+  private final List<String> threadNames = Collections.synchronizedList(new ArrayList<>());
+
+  /* Thrown by the audit log instead of writing the next records. */
+  private final Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+
+  private Predicate<Level> auditEnabled = level -> true;
+
+  private final CountDownLatch writerRelease = new CountDownLatch(1);
+
+  private SubjectOperations subjectOperations;
+
+  private Subject subject;
+
+  private ExecutorService writer;
+
+  @Before
+  public void setUp() {
+    subject = mock(Subject.class);
+    subjectOperations = mock(SubjectOperations.class);
+    when(subjectOperations.getName(any(Subject.class), anyString())).thenReturn("alice");
+
+    // keeps the writer from taking records off the queue until the latch is released
+    writer = Executors.newSingleThreadExecutor();
+    writer.execute(
+        () -> {
+          try {
+            writerRelease.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        });
+  }
+
+  @After
+  public void tearDown() {
+    writerRelease.countDown();
+    writer.shutdownNow();
+  }
+
+  @Test
+  public void testAudit() {
+    SecurityLoggerImpl securityLogger = newSecurityLogger(10, false);
+    writerRelease.countDown();
+
+    securityLogger.audit("Logged in", subject);
+    securityLogger.destroy();
+
+    assertThat(levels, is(Collections.singletonList(Level.INFO)));
+    assertThat(messages.get(0).getFormattedMessage(), containsString("Subject: alice"));
+    assertThat(messages.get(0).getFormattedMessage(), endsWith("Logged in"));
+  }
+
+  @Test
+  public void testParametersAreCapturedWhenLogged() {
+    SecurityLoggerImpl securityLogger = newSecurityLogger(10, false);
+    List<String> values = new ArrayList<>(Collections.singletonList("a"));
+    long loggedAt = System.currentTimeMillis();
+
+    securityLogger.auditWarn("Values {}", subject, values);
+    values.add("b");
+    writerRelease.countDown();
+    securityLogger.destroy();
+
+    assertThat(levels, is(Collections.singletonList(Level.WARN)));
+    assertThat(messages.get(0).getFormattedMessage(), endsWith("Values [a]"));
+    assertThat(messages.get(0), is(instanceOf(TimestampMessage.class)));
+    assertThat(
+        ((TimestampMessage) messages.get(0)).getTimestamp() <= System.currentTimeMillis(),
+        is(true));
+    assertThat(((TimestampMessage) messages.get(0)).getTimestamp() >= loggedAt, is(true));
+  }
+
+  @Test
+  public void testSubjectIsResolvedWhenLogged() {
+    SecurityLoggerImpl securityLogger = newSecurityLogger(10, false);
+    System.setProperty("security.logger.extra_attributes", "email");
+    try {
+      when(subjectOperations.getAttribute(subject, "email"))
+          .thenReturn(Collections.singletonList("alice@example.com"));
+
+      securityLogger.audit("Logged in", subject);
+    } finally {
+      System.clearProperty("security.logger.extra_attributes");
+    }
+    when(subjectOperations.getName(any(Subject.class), anyString())).thenReturn("bob");
+    when(subjectOperations.getAttribute(subject, "email"))
+        .thenReturn(Collections.singletonList("bob@example.com"));
+    writerRelease.countDown();
+    securityLogger.destroy();
+
+    assertThat(messages.get(0).getFormattedMessage(), containsString("Subject: alice"));
+    assertThat(messages.get(0).getFormattedMessage(), containsString("email: {alice@example.com}"));
+  }
+
+  @Test
+  public void testDestroyWritesQueuedRecords() {
+    SecurityLoggerImpl securityLogger = newSecurityLogger(100, false);
+    for (int i = 0; i < 100; i++) {
+      securityLogger.audit("Record {}", subject, i);
+    }
+
+    writerRelease.countDown();
+    securityLogger.destroy();
+
+    assertThat(messages.size(), is(100));
+    for (int i = 0; i < 100; i++) {
+      assertThat(messages.get(i).getFormattedMessage(), endsWith("Record " + i));
+    }
+  }
+
+  @Test
+  public void testDropWhenFull() {
+    SecurityLoggerImpl securityLogger = newSecurityLogger(2, true);
+    for (int i = 0; i < 5; i++) {
+      securityLogger.audit("Record {}", subject, i);
+    }
+
+    writerRelease.countDown();
+    securityLogger.destroy();
+
+    assertThat(levels, is(Arrays.asList(Level.WARN, Level.INFO, Level.INFO)));
+    assertThat(
+        messages.get(0).getFormattedMessage(),
+        is("3 audit records were dropped because the audit queue was full."));
+    assertThat(messages.get(1).getFormattedMessage(), endsWith("Record 0"));
+    assertThat(messages.get(2).getFormattedMessage(), endsWith("Record 1"));
+  }
+
+  @Test
+  public void testBlockWhenFull() throws Exception {
+    SecurityLoggerImpl securityLogger = newSecurityLogger(1, false);
+    securityLogger.audit("First", subject);
+
+    ExecutorService caller = Executors.newSingleThreadExecutor();
+    try {
+      Future<?> second = caller.submit(() -> securityLogger.audit("Second", subject));
+      try {
+        second.get(200, TimeUnit.MILLISECONDS);
+        throw new AssertionError("The second record should wait for room in the queue.");
+      } catch (TimeoutException e) {
+        // expected
+      }
+
+      writerRelease.countDown();
+      second.get(10, TimeUnit.SECONDS);
+    } finally {
+      caller.shutdownNow();
+    }
+    securityLogger.destroy();
+
+    assertThat(messages.size(), is(2));
+    assertThat(messages.get(0).getFormattedMessage(), endsWith("First"));
+    assertThat(messages.get(1).getFormattedMessage(), endsWith("Second"));
+  }
+
+  @Test
+  public void testSuppliersAreNotCalledWhenLevelIsDisabled() {
+    auditEnabled = level -> level == Level.WARN;
+    SecurityLoggerImpl securityLogger = newSecurityLogger(10, false);
+    writerRelease.countDown();
+    AtomicInteger calls = new AtomicInteger();
+    Supplier<Object> param = () -> calls.incrementAndGet();
+
+    securityLogger.audit("Info {}", subject, param);
+    securityLogger.auditWarn("Warn {}", subject, param);
+    securityLogger.destroy();
+
+    assertThat(calls.get(), is(1));
+    assertThat(levels, is(Collections.singletonList(Level.WARN)));
+    assertThat(messages.get(0).getFormattedMessage(), endsWith("Warn 1"));
+  }
+
+  @Test
+  public void testThreadNameIsInThreadContext() throws Exception {
+    SecurityLoggerImpl securityLogger = newSecurityLogger(10, false);
+    writerRelease.countDown();
+    String callerName = "audit caller";
+    Thread caller = new Thread(() -> securityLogger.audit("Logged in", subject), callerName);
+    caller.start();
+    caller.join();
+
+    securityLogger.destroy();
+    securityLogger.audit("Logged out", subject);
+
+    assertThat(threadNames, is(Arrays.asList(callerName, Thread.currentThread().getName())));
+    assertThat(ThreadContext.get(SecurityLoggerImpl.THREAD_KEY), is(nullValue()));
+  }
+
+  @Test
+  public void testFailedRecordsAreCounted() {
+    failures.add(new IllegalStateException("The audit log is not available."));
+    SecurityLoggerImpl securityLogger = newSecurityLogger(10, false);
+    writerRelease.countDown();
+
+    securityLogger.audit("First", subject);
+    securityLogger.audit("Second", subject);
+    securityLogger.destroy();
+
+    assertThat(securityLogger.getFailedRecords(), is(1L));
+    assertThat(messages.size(), is(1));
+    assertThat(messages.get(0).getFormattedMessage(), endsWith("Second"));
+  }
+
+  @Test
+  public void testCallersWriteRecordsAfterWriterStops() throws Exception {
+    failures.add(new LinkageError("The audit log is not available."));
+    SecurityLoggerImpl securityLogger = newSecurityLogger(1, false);
+    securityLogger.audit("First", subject);
+    writerRelease.countDown();
+
+    ExecutorService caller = Executors.newSingleThreadExecutor();
+    try {
+      caller
+          .submit(
+              () -> {
+                securityLogger.audit("Second", subject);
+                securityLogger.audit("Third", subject);
+              })
+          .get(10, TimeUnit.SECONDS);
+    } finally {
+      caller.shutdownNow();
+    }
+    securityLogger.destroy();
+
+    assertThat(securityLogger.getFailedRecords(), is(1L));
+    assertThat(messages.size(), is(2));
+    assertThat(messages.get(0).getFormattedMessage(), endsWith("Second"));
+    assertThat(messages.get(1).getFormattedMessage(), endsWith("Third"));
+  }
+
+  @Test
+  public void testAuditAfterDestroy() {
+    SecurityLoggerImpl securityLogger = newSecurityLogger(10, false);
+    writerRelease.countDown();
+    securityLogger.destroy();
+
+    securityLogger.audit("Logged out", subject);
+
+    assertThat(messages.size(), is(1));
+    assertThat(messages.get(0).getFormattedMessage(), endsWith("Logged out"));
+  }
+
+  private SecurityLoggerImpl newSecurityLogger(int queueSize, boolean dropWhenFull) {
+    return new SecurityLoggerImpl(
+        subjectOperations,
+        queueSize,
+        dropWhenFull,
+        auditEnabled,
+        (level, message) -> {
+          Throwable failure = failures.poll();
+          if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+          } else if (failure instanceof Error) {
+            throw (Error) failure;
+          }
+          levels.add(level);
+          messages.add(message);
+          threadNames.add(ThreadContext.get(SecurityLoggerImpl.THREAD_KEY));
+        },
+        writer);
+  }
+}
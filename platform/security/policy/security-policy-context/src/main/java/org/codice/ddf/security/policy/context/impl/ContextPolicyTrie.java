@@ -0,0 +1,209 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.security.policy.context.impl;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import org.codice.ddf.security.policy.context.ContextPolicy;
+
+/**
+ * An immutable trie of context paths, keyed by the path segments between {@code /} characters. It
+ * resolves a request path to the policy of its longest configured context in one pass over the
+ * path, without allocating, and gives the same answer as rolling the path back one {@code /} at a
+ * time with {@link PolicyManager#rollbackPath(String)} and looking up every fragment.
+ *
+ * <p>Rolling back stops at the end of each run of {@code /} characters and again at its start, so
+ * those are the only places where a context can match. A run such as {@code //} in the middle of a
+ * path is made of empty segments, and the contexts the rollback can reach are the ones that end
+ * next to a non-empty segment.
+ */
+final class ContextPolicyTrie {
+
+  private static final char SEPARATOR = '/';
+
+  private final Node root;
+
+  private final ContextPolicy rootPolicy;
+
+  /**
+   * @param policies the policies by context path, which must hold the policy of the {@code /}
+   *     context
+   * @param whiteListContexts the context paths that do not have a policy
+   */
+  ContextPolicyTrie(Map<String, ContextPolicy> policies, Collection<String> whiteListContexts) {
+    NodeBuilder rootBuilder = new NodeBuilder();
+    for (String whiteListContext : whiteListContexts) {
+      rootBuilder.add(whiteListContext).whiteListed = true;
+    }
+    // a context with a policy is never white listed
+    for (Map.Entry<String, ContextPolicy> entry : policies.entrySet()) {
+      rootBuilder.add(entry.getKey()).policy = entry.getValue();
+    }
+    root = rootBuilder.build();
+    rootPolicy = policies.get(String.valueOf(SEPARATOR));
+  }
+
+  /**
+   * Finds the policy of the longest context that the path can be rolled back to.
+   *
+   * @param path the request path
+   * @param traversalDepth the number of times the path can be rolled back, past which the policy of
+   *     the {@code /} context is used
+   * @return the policy of the context, or null if the context is white listed
+   */
+  ContextPolicy getContextPolicy(String path, int traversalDepth) {
+    int length = path.length();
+    Node node = root;
+    Node match = null;
+    int matchOrdinal = 0;
+    int candidates = 0;
+
+    int start = 0;
+    while (true) {
+      int end = path.indexOf(SEPARATOR, start);
+      if (end < 0) {
+        end = length;
+      }
+
+      if (node != null) {
+        node = node.child(path, start, end);
+      }
+
+      boolean candidate;
+      if (end == length) {
+        candidate = true;
+      } else if (end > start) {
+        // the first separator of a run
+        candidate = true;
+      } else {
+        // the last separator of a run, unless the run is at the end or the start of the path
+        candidate = end > 0 && end + 1 < length && path.charAt(end + 1) != SEPARATOR;
+      }
+
+      if (candidate) {
+        candidates++;
+        if (node != null && node.hasValue()) {
+          match = node;
+          matchOrdinal = candidates;
+        }
+      }
+
+      if (end == length) {
+        break;
+      }
+      start = end + 1;
+    }
+
+    // the number of times the path has to be rolled back to reach the match
+    int rollbacks = candidates - matchOrdinal;
+    if (match == null || rollbacks > traversalDepth + 1) {
+      return rootPolicy;
+    }
+    return match.policy;
+  }
+
+  private static final class Node {
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private static final String[] NO_SEGMENTS = new String[0];
+
+    private final ContextPolicy policy;
+
+    private final boolean whiteListed;
+
+    /** An open addressing table of the segments of the children, sized to a power of two. */
+    private final String[] segments;
+
+    private final Node[] children;
+
+    private Node(ContextPolicy policy, boolean whiteListed, Map<String, Node> childrenBySegment) {
+      this.policy = policy;
+      this.whiteListed = whiteListed;
+
+      if (childrenBySegment.isEmpty()) {
+        segments = NO_SEGMENTS;
+        children = NO_CHILDREN;
+        return;
+      }
+
+      // keep the table at most half full so that probes stay short
+      int capacity = Integer.highestOneBit(childrenBySegment.size() * 2 - 1) << 1;
+      segments = new String[capacity];
+      children = new Node[capacity];
+      for (Map.Entry<String, Node> entry : childrenBySegment.entrySet()) {
+        int index = entry.getKey().hashCode() & (capacity - 1);
+        while (segments[index] != null) {
+          index = (index + 1) & (capacity - 1);
+        }
+        segments[index] = entry.getKey();
+        children[index] = entry.getValue();
+      }
+    }
+
+    private boolean hasValue() {
+      return policy != null || whiteListed;
+    }
+
+    /** Finds the child for the segment of the path between {@code start} and {@code end}. */
+    private Node child(String path, int start, int end) {
+      if (children.length == 0) {
+        return null;
+      }
+
+      // the same hash as String.hashCode() of the segment
+      int hash = 0;
+      for (int i = start; i < end; i++) {
+        hash = 31 * hash + path.charAt(i);
+      }
+
+      int segmentLength = end - start;
+      int mask = children.length - 1;
+      for (int index = hash & mask; segments[index] != null; index = (index + 1) & mask) {
+        String segment = segments[index];
+        if (segment.length() == segmentLength
+            && path.regionMatches(start, segment, 0, segmentLength)) {
+          return children[index];
+        }
+      }
+      return null;
+    }
+  }
+
+  private static final class NodeBuilder {
+
+    private final Map<String, NodeBuilder> children = new HashMap<>();
+
+    private ContextPolicy policy;
+
+    private boolean whiteListed;
+
+    private NodeBuilder add(String contextPath) {
+      NodeBuilder builder = this;
+      for (String segment : contextPath.split(String.valueOf(SEPARATOR), -1)) {
+        builder = builder.children.computeIfAbsent(segment, s -> new NodeBuilder());
+      }
+      return builder;
+    }
+
+    private Node build() {
+      Map<String, Node> builtChildren = new HashMap<>();
+      for (Map.Entry<String, NodeBuilder> entry : children.entrySet()) {
+        builtChildren.put(entry.getKey(), entry.getValue().build());
+      }
+      return new Node(policy, whiteListed, builtChildren);
+    }
+  }
+}
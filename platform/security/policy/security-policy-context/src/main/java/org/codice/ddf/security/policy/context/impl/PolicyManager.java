@@ -75,8 +75,11 @@ public class PolicyManager implements ContextPolicyManager {
 
   private List<String> whiteListContexts = new ArrayList<>();
 
+  /** Rebuilt whenever the policies or the white list change, and read by every request. */
+  private volatile ContextPolicyTrie contextPolicyTrie;
+
   private ContextPolicy defaultPolicy =
-      new Policy(ROOT_CONTEXT, new ArrayList<>(), new ArrayList<>());
+      new Policy(ROOT_CONTEXT, Collections.emptyList(), new ArrayList<>());
 
   private Map<String, Object> policyProperties = new HashMap<>();
 
@@ -98,35 +101,21 @@ public class PolicyManager implements ContextPolicyManager {
 
   public PolicyManager() {
     policyStore.put(ROOT_CONTEXT, defaultPolicy);
+    updateContextPolicyTrie();
   }
 
+  /**
+   * Returns the policy of the longest context that the path rolls back to (see {@link
+   * #rollbackPath(String)}), or the policy of the "/" context once the path has been rolled back
+   * more than the traversal depth. The returned policy is shared between callers and its
+   * authentication methods cannot be modified.
+   *
+   * @param path request path
+   * @return the context policy, or null if the context is white listed
+   */
   @Override
   public ContextPolicy getContextPolicy(String path) {
-    return getContextPolicy(path, getPolicyStore(), getWhiteListContexts(), 0);
-  }
-
-  private ContextPolicy getContextPolicy(
-      String path,
-      Map<String, ContextPolicy> policyStore,
-      List<String> whiteListContexts,
-      int depth) {
-    ContextPolicy entry;
-    entry = policyStore.get(path);
-
-    if (entry != null) {
-      return entry;
-    } else if (whiteListContexts.contains(path)) {
-      return null;
-    } else {
-      String pathFragment = rollbackPath(path);
-      if (StringUtils.isNotEmpty(pathFragment) && depth <= traversalDepth) {
-        return getContextPolicy(pathFragment, policyStore, whiteListContexts, ++depth);
-      } else {
-        // this is just here for safety
-        // if we get down to the point where we can never get an entry, return the default
-        return policyStore.get(ROOT_CONTEXT);
-      }
-    }
+    return contextPolicyTrie.getContextPolicy(path, traversalDepth);
   }
 
   @Override
@@ -294,10 +283,16 @@ private void setPolicyStore(
       List<String> contextAuthTypes = getContextAuthTypes(path, allContextsToAuths);
       List<ContextAttributeMapping> contextReqAttrs = getContextReqAttrs(path, allContextsToAttrs);
 
-      newPolicyStore.put(path, new Policy(path, contextAuthTypes, contextReqAttrs));
+      newPolicyStore.put(
+          path, new Policy(path, Collections.unmodifiableList(contextAuthTypes), contextReqAttrs));
     }
 
     policyStore = newPolicyStore;
+    updateContextPolicyTrie();
+  }
+
+  private synchronized void updateContextPolicyTrie() {
+    contextPolicyTrie = new ContextPolicyTrie(policyStore, whiteListContexts);
   }
 
   /**
@@ -330,6 +325,7 @@ public void setWhiteListContexts(List<String> contexts) {
     LOGGER.debug("setWhiteListContexts(List<String>) called with {}", contexts);
     if (contexts != null && !contexts.isEmpty()) {
       this.whiteListContexts = PropertyResolver.resolveProperties(contexts);
+      updateContextPolicyTrie();
     }
   }
 
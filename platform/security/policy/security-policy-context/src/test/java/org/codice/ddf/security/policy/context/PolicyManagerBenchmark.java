@@ -0,0 +1,154 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.security.policy.context;
+
+import static org.mockito.Mockito.mock;
+
+import ddf.security.audit.SecurityLogger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.codice.ddf.security.policy.context.impl.PolicyManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the time spent resolving the context policies of a set of typical request paths, with
+ * {@link PolicyManager#getContextPolicy(String)} and with the previous lookup, which copied the
+ * policy store and rolled each path back one fragment at a time. The policy table holds the default
+ * contexts and white list plus {@code extraContexts} endpoint contexts.
+ *
+ * <p>Run {@link #main(String[])} from the test classpath after {@code mvn test-compile} with the
+ * {@code benchmarks} profile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PolicyManagerBenchmark {
+
+  private static final int TRAVERSAL_DEPTH = 20;
+
+  private static final String[] PATHS = {
+    "/search/catalog/internal/cql",
+    "/search/catalog/index.html",
+    "/services/catalog/sources/ddf.distribution/3f2b8a1c9d0e4f5a/resource",
+    "/services/csw",
+    "/admin/jolokia/exec/org.codice.ddf.ui.admin.api.ConfigurationAdmin:service=ui",
+    "/logout/actions",
+    "/webjars/jquery/3.6.0/jquery.min.js",
+    "/favicon.ico"
+  };
+
+  @Param({"0", "50"})
+  private int extraContexts;
+
+  private PolicyManager manager;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    List<String> requiredAttributes =
+        new ArrayList<>(
+            Arrays.asList(
+                "/=",
+                "/admin={http://schemas.xmlsoap.org/ws/2005/05/identity/claims/role=system-admin}",
+                "/system={http://schemas.xmlsoap.org/ws/2005/05/identity/claims/role=system-admin}",
+                "/security-config={http://schemas.xmlsoap.org/ws/2005/05/identity/claims/role=system-admin}"));
+    for (int i = 0; i < extraContexts; i++) {
+      requiredAttributes.add("/services/endpoint" + i + "={role=user}");
+    }
+
+    Map<String, Object> properties = new HashMap<>();
+    properties.put("webAuthenticationTypes", "PKI|BASIC");
+    properties.put("endpointAuthenticationTypes", "PKI|BASIC");
+    properties.put("requiredAttributes", requiredAttributes.toArray(new String[0]));
+    properties.put("guestAccess", true);
+    properties.put("sessionAccess", true);
+
+    manager = new PolicyManager();
+    manager.setSecurityLogger(mock(SecurityLogger.class));
+    manager.setTraversalDepth(TRAVERSAL_DEPTH);
+    manager.setWhiteListContexts(
+        Arrays.asList(
+            "/proxy",
+            "/saml",
+            "/platform/config/ui",
+            "/internal/session",
+            "/admin/fonts",
+            "/logout",
+            "/favicon.ico",
+            "/error",
+            "/webjars"));
+    manager.setPolicies(properties);
+  }
+
+  @Benchmark
+  public void trie(Blackhole blackhole) {
+    for (String path : PATHS) {
+      blackhole.consume(manager.getContextPolicy(path));
+    }
+  }
+
+  @Benchmark
+  public void rollback(Blackhole blackhole) {
+    for (String path : PATHS) {
+      blackhole.consume(
+          rollbackLookup(path, manager.getPolicyStore(), manager.getWhiteListContexts(), 0));
+    }
+  }
+
+  /** The lookup that {@link PolicyManager#getContextPolicy(String)} used before the trie. */
+  private ContextPolicy rollbackLookup(
+      String path,
+      Map<String, ContextPolicy> policyStore,
+      List<String> whiteListContexts,
+      int depth) {
+    ContextPolicy entry = policyStore.get(path);
+    if (entry != null) {
+      return entry;
+    } else if (whiteListContexts.contains(path)) {
+      return null;
+    }
+
+    String pathFragment = manager.rollbackPath(path);
+    if (!pathFragment.isEmpty() && depth <= TRAVERSAL_DEPTH) {
+      return rollbackLookup(pathFragment, policyStore, whiteListContexts, depth + 1);
+    }
+    return policyStore.get("/");
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(PolicyManagerBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
@@ -16,6 +16,7 @@
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
@@ -306,6 +307,42 @@ public void testFindContextPaths() {
     assertThat(manager.isWhiteListed("/foo/bar"), is(false));
   }
 
+  @Test
+  public void testWhiteListedParentContext() {
+    assertThat(manager.getContextPolicy("/foo/baz"), is(nullValue()));
+    assertThat(manager.getContextPolicy("/foo/bar/baz").getContextPath(), is("/foo/bar"));
+  }
+
+  @Test
+  public void testWhiteListUpdate() {
+    manager.setWhiteListContexts(Arrays.asList("/search/simple", "/other"));
+
+    // a context with a policy is never white listed
+    assertThat(manager.isWhiteListed("/search/simple"), is(false));
+    assertThat(manager.isWhiteListed("/other/page"), is(true));
+    assertThat(manager.getContextPolicy("/foo").getContextPath(), is("/"));
+  }
+
+  @Test
+  public void testPolicyUpdate() {
+    manager.setContextPolicy("/foo/baz", new Policy("/foo/baz", new ArrayList<>(), null));
+
+    assertThat(manager.getContextPolicy("/foo/baz/qux").getContextPath(), is("/foo/baz"));
+    assertThat(manager.isWhiteListed("/foo/qux"), is(true));
+  }
+
+  @Test
+  public void testPoliciesAreShared() {
+    ContextPolicy policy = manager.getContextPolicy("/search");
+
+    assertThat(manager.getContextPolicy("/search/other"), is(sameInstance(policy)));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testSharedAuthenticationMethodsCannotBeModified() {
+    manager.getContextPolicy("/search").getAuthenticationMethods().add("BASIC");
+  }
+
   @Test
   public void testConfiguration() {
     Map<String, Object> properties = new HashMap<>();
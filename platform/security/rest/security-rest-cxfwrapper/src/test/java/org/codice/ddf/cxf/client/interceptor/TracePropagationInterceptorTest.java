@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.cxf.client.interceptor;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.junit.After;
+import org.junit.Test;
+
+public class TracePropagationInterceptorTest {
+
+  private static final String TRACE_ID = "0af7651916cd43dd8448eb211c80319c";
+
+  private static final String SPAN_ID = "b7ad6b7169203331";
+
+  @After
+  public void tearDown() {
+    GlobalOpenTelemetry.resetForTest();
+  }
+
+  @Test
+  public void testTraceContextIsAdded() {
+    GlobalOpenTelemetry.set(
+        OpenTelemetry.propagating(
+            ContextPropagators.create(W3CTraceContextPropagator.getInstance())));
+    Message message = newRequest();
+
+    Span span =
+        Span.wrap(
+            SpanContext.create(
+                TRACE_ID, SPAN_ID, TraceFlags.getSampled(), TraceState.getDefault()));
+    try (Scope ignored = span.makeCurrent()) {
+      new TracePropagationInterceptor().handleMessage(message);
+    }
+
+    assertThat(
+        getHeaders(message).get("traceparent"), contains("00-" + TRACE_ID + "-" + SPAN_ID + "-01"));
+  }
+
+  @Test
+  public void testNothingIsAddedWithoutSdk() {
+    Message message = newRequest();
+
+    Span span =
+        Span.wrap(
+            SpanContext.create(
+                TRACE_ID, SPAN_ID, TraceFlags.getSampled(), TraceState.getDefault()));
+    try (Scope ignored = span.makeCurrent()) {
+      new TracePropagationInterceptor().handleMessage(message);
+    }
+
+    assertThat(getHeaders(message).isEmpty(), is(true));
+  }
+
+  @Test
+  public void testResponsesAreIgnored() {
+    GlobalOpenTelemetry.set(
+        OpenTelemetry.propagating(
+            ContextPropagators.create(W3CTraceContextPropagator.getInstance())));
+    Message message = new MessageImpl();
+
+    new TracePropagationInterceptor().handleMessage(message);
+
+    assertThat(message.get(Message.PROTOCOL_HEADERS), is(nullValue()));
+  }
+
+  private Message newRequest() {
+    Message message = new MessageImpl();
+    message.put(Message.REQUESTOR_ROLE, Boolean.TRUE);
+    message.put(Message.PROTOCOL_HEADERS, new HashMap<String, List<String>>());
+    return message;
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, List<String>> getHeaders(Message message) {
+    return (Map<String, List<String>>) message.get(Message.PROTOCOL_HEADERS);
+  }
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.solr.factory.embedded;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.Collections;
+import org.apache.commons.lang.Validate;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.embedded.EmbeddedSolrServer;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.core.CoreContainer;
+import org.codice.solr.factory.SolrClientFactory;
+import org.codice.solr.factory.impl.Configsets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Factory class used to create {@link EmbeddedSolrServer} clients, which run Solr in the same JVM
+ * as the client. This allows single node deployments to run without a separate SolrCloud and
+ * Zookeeper cluster, and avoids a network hop on every request.
+ *
+ * <p>This bundle embeds solr-core and Lucene, so it is only installed for embedded deployments. It
+ * registers the factory as a service that {@code SolrClientFactoryImpl} delegates to when the
+ * {@code solr.client} system property is {@code EmbeddedSolrServer}.
+ *
+ * <p>All clients share a single {@link CoreContainer}. Each core is created the first time a client
+ * is requested for it, using the same configset as SolrCloud collections, so the cores use the same
+ * schema, near real-time searchers and memory-mapped index directories. <br>
+ * Uses the following system properties when creating an instance:
+ *
+ * <ul>
+ *   <li>solr.data.dir: Directory holding the Solr cores, defaults to ddf.home/data/solr
+ * </ul>
+ */
+public class EmbeddedSolrClientFactory implements SolrClientFactory {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(EmbeddedSolrClientFactory.class);
+
+  private static final String SOLR_XML = "solr.xml";
+
+  private final Path solrHome;
+
+  private final Configsets configsets;
+
+  private CoreContainer coreContainer;
+
+  public EmbeddedSolrClientFactory() {
+    this(
+        Paths.get(
+            System.getProperty(
+                "solr.data.dir",
+                Paths.get(System.getProperty("ddf.home", ""), "data", "solr").toString())),
+        new Configsets());
+  }
+
+  @VisibleForTesting
+  EmbeddedSolrClientFactory(Path solrHome, Configsets configsets) {
+    this.solrHome = solrHome.toAbsolutePath();
+    this.configsets = configsets;
+  }
+
+  @Override
+  public SolrClient newClient(String core) {
+    Validate.notNull(core, "invalid null Solr core name");
+
+    LOGGER.debug("Solr({}): Creating an embedded Solr client in [{}]", core, solrHome);
+
+    return AccessController.doPrivileged(
+        (PrivilegedAction<SolrClient>) () -> createEmbeddedSolrClient(core));
+  }
+
+  @VisibleForTesting
+  synchronized SolrClient createEmbeddedSolrClient(String core) {
+    try {
+      CoreContainer container = getCoreContainer(core);
+      if (!container.getAllCoreNames().contains(core)) {
+        Path instanceDir = solrHome.resolve(core);
+        copyConfiguration(core, instanceDir.resolve("conf"));
+        container.create(core, instanceDir, Collections.emptyMap(), false);
+        LOGGER.info("Solr({}): Created embedded core in [{}]", core, instanceDir);
+      }
+      return new EmbeddedSolrServer(container, core);
+    } catch (IOException | SolrException e) {
+      LOGGER.info("Solr({}): Unable to create embedded Solr client", core, e);
+      return null;
+    }
+  }
+
+  /** Closes every core. Clients created by this factory cannot be used afterwards. */
+  public synchronized void shutdown() {
+    if (coreContainer != null) {
+      coreContainer.shutdown();
+      coreContainer = null;
+    }
+  }
+
+  private CoreContainer getCoreContainer(String core) throws IOException {
+    if (coreContainer == null) {
+      Files.createDirectories(solrHome);
+      Path solrXml = solrHome.resolve(SOLR_XML);
+      if (!solrXml.toFile().exists()) {
+        Files.copy(configsets.get(core).resolve(SOLR_XML), solrXml);
+      }
+      coreContainer = CoreContainer.createAndLoad(solrHome);
+    }
+    return coreContainer;
+  }
+
+  private void copyConfiguration(String core, Path confDir) throws IOException {
+    Path configPath = configsets.get(core);
+    Files.createDirectories(confDir);
+    for (String configFile : Configsets.SOLR_CONFIG_FILES) {
+      Path target = confDir.resolve(configFile);
+      if (!target.toFile().exists()) {
+        Files.copy(configPath.resolve(configFile), target);
+      }
+    }
+  }
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.solr.factory.embedded;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+
+import java.io.File;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.common.SolrInputDocument;
+import org.codice.solr.factory.impl.Configsets;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class EmbeddedSolrClientFactoryTest {
+
+  private static final String TEST_CORE_NAME = "test";
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private File solrHome;
+
+  private Configsets configsets;
+
+  @Before
+  public void setUp() throws Exception {
+    solrHome = tempFolder.newFolder();
+    configsets = new Configsets(tempFolder.newFolder().toPath());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void newClientWithNullCoreName() {
+    new EmbeddedSolrClientFactory(solrHome.toPath(), configsets).newClient(null);
+  }
+
+  @Test
+  public void documentsArePersistedAcrossRestarts() throws Exception {
+    EmbeddedSolrClientFactory factory =
+        new EmbeddedSolrClientFactory(solrHome.toPath(), configsets);
+    try {
+      SolrClient client = factory.newClient(TEST_CORE_NAME);
+      assertThat(client, is(notNullValue()));
+
+      SolrInputDocument document = new SolrInputDocument();
+      document.addField("id_txt", "1");
+      client.add(document);
+      client.commit();
+    } finally {
+      factory.shutdown();
+    }
+
+    factory = new EmbeddedSolrClientFactory(solrHome.toPath(), configsets);
+    try {
+      SolrClient client = factory.newClient(TEST_CORE_NAME);
+
+      assertThat(client.query(new SolrQuery("id_txt:1")).getResults().getNumFound(), is(1L));
+    } finally {
+      factory.shutdown();
+    }
+  }
+}
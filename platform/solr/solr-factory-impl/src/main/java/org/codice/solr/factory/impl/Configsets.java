@@ -38,7 +38,7 @@ public class Configsets {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(Configsets.class);
 
-  protected static final List<String> SOLR_CONFIG_FILES =
+  public static final List<String> SOLR_CONFIG_FILES =
       Collections.unmodifiableList(
           Arrays.asList(
               "dictionary.txt",
@@ -25,12 +25,16 @@
 
 /**
  * Factory class used to create the proper {@link SolrClient} based on the current {@code
- * solr.client} system property.
+ * solr.client} system property, either {@code CloudSolrClient} (the default) or {@code
+ * EmbeddedSolrServer}. Embedded clients are created by the factory that the solr-factory-embedded
+ * bundle registers, which keeps solr-core and Lucene out of this bundle.
  */
 public final class SolrClientFactoryImpl implements SolrClientFactory {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(SolrClientFactoryImpl.class);
 
+  private static final String EMBEDDED_SOLR_SERVER = "EmbeddedSolrServer";
+
   private String clientType;
   private SolrClientFactory factory;
 
@@ -39,11 +43,23 @@ public SolrClientFactoryImpl() {
         AccessController.doPrivileged(
             (PrivilegedAction<String>) () -> System.getProperty("solr.client", "CloudSolrClient"));
 
-    if (!"CloudSolrClient".equals(clientType)) {
-      LOGGER.warn("Unknown solr.client system property set. Using Solr Cloud client instead.");
+    if (!EMBEDDED_SOLR_SERVER.equals(clientType)) {
+      if (!"CloudSolrClient".equals(clientType)) {
+        LOGGER.warn("Unknown solr.client system property set. Using Solr Cloud client instead.");
+      }
+
+      factory = new SolrCloudClientFactory();
     }
+  }
 
-    factory = new SolrCloudClientFactory();
+  /**
+   * @param embeddedSolrClientFactory the factory used when the {@code solr.client} system property
+   *     is {@code EmbeddedSolrServer}
+   */
+  public void setEmbeddedSolrClientFactory(SolrClientFactory embeddedSolrClientFactory) {
+    if (EMBEDDED_SOLR_SERVER.equals(clientType)) {
+      factory = embeddedSolrClientFactory;
+    }
   }
 
   @Override
@@ -18,6 +18,7 @@
 import static org.hamcrest.Matchers.is;
 
 import org.apache.solr.client.solrj.SolrClient;
+import org.codice.solr.factory.SolrClientFactory;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
@@ -28,6 +29,8 @@ public class SolrClientFactoryImplTest {
 
   @Mock private SolrClient mockClient;
 
+  @Mock private SolrClientFactory mockEmbeddedFactory;
+
   @Test(expected = IllegalArgumentException.class)
   public void newClientWithNullCoreName() {
     SolrClientFactoryImpl factory = new SolrClientFactoryImpl();
@@ -42,6 +45,24 @@ public void newCloudSolrClient() {
     assertThat(factory.getFactory(), is(instanceOf(SolrCloudClientFactory.class)));
   }
 
+  @Test
+  public void newEmbeddedSolrClient() {
+    System.setProperty("solr.client", "EmbeddedSolrServer");
+    SolrClientFactoryImpl factory = new SolrClientFactoryImpl();
+    factory.setEmbeddedSolrClientFactory(mockEmbeddedFactory);
+
+    assertThat(factory.getFactory(), is(mockEmbeddedFactory));
+  }
+
+  @Test
+  public void embeddedFactoryIsIgnoredForCloudSolrClient() {
+    System.setProperty("solr.client", "CloudSolrClient");
+    SolrClientFactoryImpl factory = new SolrClientFactoryImpl();
+    factory.setEmbeddedSolrClientFactory(mockEmbeddedFactory);
+
+    assertThat(factory.getFactory(), is(instanceOf(SolrCloudClientFactory.class)));
+  }
+
   @Test
   public void newClientWithUnknownClientType() {
     System.setProperty("solr.client", "Unknown");
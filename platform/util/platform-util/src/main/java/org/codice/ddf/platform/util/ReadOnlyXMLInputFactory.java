@@ -0,0 +1,171 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.platform.util;
+
+import java.io.InputStream;
+import java.io.Reader;
+import javax.xml.stream.EventFilter;
+import javax.xml.stream.StreamFilter;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLReporter;
+import javax.xml.stream.XMLResolver;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.XMLEventAllocator;
+import javax.xml.transform.Source;
+
+/**
+ * An {@link XMLInputFactory} that cannot be reconfigured. The factory shared by {@link XMLUtils} is
+ * configured once and then used by many threads, so changing its settings would race with readers
+ * being created and could turn its security settings off for every caller.
+ */
+final class ReadOnlyXMLInputFactory extends XMLInputFactory {
+
+  private static final String READ_ONLY_MSG = "The secure XMLInputFactory cannot be reconfigured.";
+
+  private final XMLInputFactory delegate;
+
+  ReadOnlyXMLInputFactory(XMLInputFactory delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public XMLStreamReader createXMLStreamReader(Reader reader) throws XMLStreamException {
+    return delegate.createXMLStreamReader(reader);
+  }
+
+  @Override
+  public XMLStreamReader createXMLStreamReader(Source source) throws XMLStreamException {
+    return delegate.createXMLStreamReader(source);
+  }
+
+  @Override
+  public XMLStreamReader createXMLStreamReader(InputStream stream) throws XMLStreamException {
+    return delegate.createXMLStreamReader(stream);
+  }
+
+  @Override
+  public XMLStreamReader createXMLStreamReader(InputStream stream, String encoding)
+      throws XMLStreamException {
+    return delegate.createXMLStreamReader(stream, encoding);
+  }
+
+  @Override
+  public XMLStreamReader createXMLStreamReader(String systemId, InputStream stream)
+      throws XMLStreamException {
+    return delegate.createXMLStreamReader(systemId, stream);
+  }
+
+  @Override
+  public XMLStreamReader createXMLStreamReader(String systemId, Reader reader)
+      throws XMLStreamException {
+    return delegate.createXMLStreamReader(systemId, reader);
+  }
+
+  @Override
+  public XMLEventReader createXMLEventReader(Reader reader) throws XMLStreamException {
+    return delegate.createXMLEventReader(reader);
+  }
+
+  @Override
+  public XMLEventReader createXMLEventReader(String systemId, Reader reader)
+      throws XMLStreamException {
+    return delegate.createXMLEventReader(systemId, reader);
+  }
+
+  @Override
+  public XMLEventReader createXMLEventReader(XMLStreamReader reader) throws XMLStreamException {
+    return delegate.createXMLEventReader(reader);
+  }
+
+  @Override
+  public XMLEventReader createXMLEventReader(Source source) throws XMLStreamException {
+    return delegate.createXMLEventReader(source);
+  }
+
+  @Override
+  public XMLEventReader createXMLEventReader(InputStream stream) throws XMLStreamException {
+    return delegate.createXMLEventReader(stream);
+  }
+
+  @Override
+  public XMLEventReader createXMLEventReader(InputStream stream, String encoding)
+      throws XMLStreamException {
+    return delegate.createXMLEventReader(stream, encoding);
+  }
+
+  @Override
+  public XMLEventReader createXMLEventReader(String systemId, InputStream stream)
+      throws XMLStreamException {
+    return delegate.createXMLEventReader(systemId, stream);
+  }
+
+  @Override
+  public XMLStreamReader createFilteredReader(XMLStreamReader reader, StreamFilter filter)
+      throws XMLStreamException {
+    return delegate.createFilteredReader(reader, filter);
+  }
+
+  @Override
+  public XMLEventReader createFilteredReader(XMLEventReader reader, EventFilter filter)
+      throws XMLStreamException {
+    return delegate.createFilteredReader(reader, filter);
+  }
+
+  @Override
+  public XMLResolver getXMLResolver() {
+    return delegate.getXMLResolver();
+  }
+
+  @Override
+  public void setXMLResolver(XMLResolver resolver) {
+    throw new UnsupportedOperationException(READ_ONLY_MSG);
+  }
+
+  @Override
+  public XMLReporter getXMLReporter() {
+    return delegate.getXMLReporter();
+  }
+
+  @Override
+  public void setXMLReporter(XMLReporter reporter) {
+    throw new UnsupportedOperationException(READ_ONLY_MSG);
+  }
+
+  @Override
+  public void setProperty(String name, Object value) {
+    throw new UnsupportedOperationException(READ_ONLY_MSG);
+  }
+
+  @Override
+  public Object getProperty(String name) {
+    return delegate.getProperty(name);
+  }
+
+  @Override
+  public boolean isPropertySupported(String name) {
+    return delegate.isPropertySupported(name);
+  }
+
+  @Override
+  public void setEventAllocator(XMLEventAllocator allocator) {
+    throw new UnsupportedOperationException(READ_ONLY_MSG);
+  }
+
+  @Override
+  public XMLEventAllocator getEventAllocator() {
+    return delegate.getEventAllocator();
+  }
+}
@@ -100,10 +100,19 @@ public class XMLUtils {
           .add("com.sun.org.apache.xerces.internal.parsers.SAXParser")
           .build();
 
-  protected XMLInputFactory xmlInputFactory;
+  /**
+   * Configured once and never changed, so it can create readers on any number of threads without
+   * locking.
+   */
+  protected final XMLInputFactory xmlInputFactory;
+
+  private XMLUtils() {
+    XMLInputFactory factory = XMLInputFactory.newFactory();
+    setSecureXMLInputFactorySettings(factory);
+    xmlInputFactory = new ReadOnlyXMLInputFactory(factory);
+  }
 
-  public static synchronized XMLUtils getInstance() {
-    INSTANCE.initializeXMLInputFactory();
+  public static XMLUtils getInstance() {
     return INSTANCE;
   }
 
@@ -198,6 +207,27 @@ public String getRootNamespace(String xml) {
         });
   }
 
+  /**
+   * Reads only as much of the stream as is needed to find the root element, so a large document is
+   * never held in memory. The stream is not closed.
+   *
+   * @param xml The XML whose root namespace you want
+   * @return Root Namespace
+   */
+  public String getRootNamespace(InputStream xml) {
+
+    if (xml == null) {
+      return null;
+    }
+
+    return processElements(
+        xml,
+        (result, xmlStreamReader) -> {
+          result.set(xmlStreamReader.getNamespaceURI());
+          return false;
+        });
+  }
+
   private void transformation(
       Source sourceXml, TransformerProperties transformProperties, Result result) {
     ClassLoader tccl = Thread.currentThread().getContextClassLoader();
@@ -241,16 +271,39 @@ private void transformation(
    */
   public <T> T processElements(
       String xml, BiFunction<ResultHolder<T>, XMLStreamReader, Boolean> processElementFunction) {
+    try (StringReader strReader = new StringReader(xml)) {
+      return processElements(
+          () -> xmlInputFactory.createXMLStreamReader(strReader), processElementFunction);
+    }
+  }
+
+  /**
+   * Iterate through the elements of an XML document read from a stream, in the same way as {@link
+   * #processElements(String, BiFunction)}. The stream is read only until processing stops and is
+   * not closed.
+   *
+   * @param xml The XML to process
+   * @param processElementFunction Function that accepts an instance of XMLStreamReader and result
+   *     holder. The function must return a boolean.
+   * @return <T> The result of the processing
+   */
+  public <T> T processElements(
+      InputStream xml,
+      BiFunction<ResultHolder<T>, XMLStreamReader, Boolean> processElementFunction) {
+    return processElements(
+        () -> xmlInputFactory.createXMLStreamReader(xml), processElementFunction);
+  }
+
+  private <T> T processElements(
+      XMLStreamReaderSupplier readerSupplier,
+      BiFunction<ResultHolder<T>, XMLStreamReader, Boolean> processElementFunction) {
 
-    initializeXMLInputFactory();
     XMLStreamReader xmlStreamReader = null;
     ResultHolder<T> result = new ResultHolder<>();
     boolean keepProcessing = true;
 
-    try (StringReader strReader = new StringReader(xml)) {
-      synchronized (XMLUtils.class) {
-        xmlStreamReader = xmlInputFactory.createXMLStreamReader(strReader);
-      }
+    try {
+      xmlStreamReader = readerSupplier.get();
       while (keepProcessing && xmlStreamReader.hasNext()) {
         int event = xmlStreamReader.next();
         if (event == XMLStreamConstants.START_ELEMENT) {
@@ -273,6 +326,11 @@ public <T> T processElements(
     return result.get();
   }
 
+  @FunctionalInterface
+  private interface XMLStreamReaderSupplier {
+    XMLStreamReader get() throws XMLStreamException;
+  }
+
   /**
    * This class is used with the processElements method. Inside the function, set the value of the
    * result holder. That value is then returned by the processElementsFunction.
@@ -302,13 +360,10 @@ public void setIfEmpty(T value) {
     }
   }
 
-  private void initializeXMLInputFactory() {
-    if (xmlInputFactory == null) {
-      xmlInputFactory = XMLInputFactory.newFactory();
-    }
-    setSecureXMLInputFactorySettings(xmlInputFactory);
-  }
-
+  /**
+   * @return the shared, secure XMLInputFactory. It is safe to use from multiple threads and throws
+   *     {@link UnsupportedOperationException} if its settings are changed.
+   */
   public XMLInputFactory getSecureXmlInputFactory() {
     return xmlInputFactory;
   }
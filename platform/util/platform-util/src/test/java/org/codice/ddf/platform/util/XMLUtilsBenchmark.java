@@ -0,0 +1,67 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.platform.util;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the throughput of {@link XMLUtils#getRootNamespace(String)}, which is called for every
+ * ingested XML document. Throughput should grow with the number of threads because parsing does not
+ * take any shared lock.
+ *
+ * <p>Run {@link #main(String[])} from the test classpath after {@code mvn test-compile} with the
+ * {@code benchmarks} profile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XMLUtilsBenchmark {
+
+  private static final String XML =
+      "<?xml version=\"1.0\"?>"
+          + "<dog:Dog xmlns:dog=\"doggy-namespace\"><dog:name>Rex</dog:name></dog:Dog>";
+
+  private static final int[] THREAD_COUNTS = {1, 2, 4, 8};
+
+  @Benchmark
+  public String getRootNamespace() {
+    return XMLUtils.getInstance().getRootNamespace(XML);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    for (int threads : THREAD_COUNTS) {
+      new Runner(
+              new OptionsBuilder()
+                  .include(XMLUtilsBenchmark.class.getSimpleName())
+                  .threads(threads)
+                  .build())
+          .run();
+    }
+  }
+}
@@ -21,13 +21,21 @@
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
@@ -150,6 +158,36 @@ public void testGetRootNamespace() {
     assert "doggy-namespace".equals(XML_UTILS.getRootNamespace(XML_WITH_NAMESPACE));
   }
 
+  @Test
+  public void testGetRootNamespaceFromStream() throws IOException {
+    try (ByteArrayInputStream xml =
+        new ByteArrayInputStream(XML_WITH_NAMESPACE.getBytes(StandardCharsets.UTF_8))) {
+      assertThat(XML_UTILS.getRootNamespace(xml), is("doggy-namespace"));
+    }
+    assertThat(XML_UTILS.getRootNamespace((InputStream) null), nullValue());
+  }
+
+  @Test
+  public void testGetRootNamespaceConcurrently() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<String>> namespaces = new ArrayList<>();
+      for (int i = 0; i < 1000; i++) {
+        namespaces.add(executor.submit(() -> XML_UTILS.getRootNamespace(XML_WITH_NAMESPACE)));
+      }
+      for (Future<String> namespace : namespaces) {
+        assertThat(namespace.get(), is("doggy-namespace"));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testSecureXmlInputFactoryCannotBeReconfigured() {
+    XML_UTILS.getSecureXmlInputFactory().setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.TRUE);
+  }
+
   @Test
   public void testProcessElementException() {
 